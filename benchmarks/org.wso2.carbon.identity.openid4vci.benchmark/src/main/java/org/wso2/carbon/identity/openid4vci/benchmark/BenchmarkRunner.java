@@ -0,0 +1,27 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Runs the selected benchmarks with the GC profiler attached, so that
+ * throughput is always reported together with the allocation rate ({@code gc.alloc.rate.norm}).
+ * Accepts the standard JMH command line options, e.g.
+ * {@code java -jar target/oid4vci-benchmarks.jar CredentialIssuerMetadata -p configurationCount=100}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
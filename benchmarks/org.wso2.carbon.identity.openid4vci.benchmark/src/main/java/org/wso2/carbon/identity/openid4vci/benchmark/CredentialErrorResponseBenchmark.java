@@ -0,0 +1,47 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.openid4vci.endpoint.credential.error.CredentialErrorResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks serialization of credential endpoint error responses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CredentialErrorResponseBenchmark {
+
+    private final String errorDescription = "Access token does not contain the required scope: employee_badge";
+
+    @Benchmark
+    public String errorWithDescription() {
+
+        return CredentialErrorResponse.builder()
+                .error(CredentialErrorResponse.INSUFFICIENT_SCOPE)
+                .errorDescription(errorDescription)
+                .build()
+                .toJson();
+    }
+
+    @Benchmark
+    public String errorWithoutDescription() {
+
+        return CredentialErrorResponse.builder()
+                .error(CredentialErrorResponse.INVALID_TOKEN)
+                .build()
+                .toJson();
+    }
+}
@@ -0,0 +1,81 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.StandIns;
+import org.wso2.carbon.identity.openid4vci.credential.CredentialIssuanceService;
+import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceReqDTO;
+import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceRespDTO;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.CredentialFormatHandler;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.impl.JwtVcJsonFormatHandler;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the full credential issuance pipeline against stand-in token, configuration and user stores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CredentialIssuanceServiceBenchmark {
+
+    private CarbonRuntime runtime;
+    private CredentialFormatHandler formatHandler;
+    private CredentialIssuanceService service;
+    private CredentialIssuanceReqDTO request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        runtime = CarbonRuntime.open(StandIns.userRealm(Fixtures.claimValues()));
+        VCCredentialConfiguration configuration = Fixtures.credentialConfiguration(0, "RS256");
+
+        CredentialIssuanceDataHolder dataHolder = CredentialIssuanceDataHolder.getInstance();
+        dataHolder.setVcCredentialConfigManager(StandIns.configManager(
+                Fixtures.credentialConfigurations(10, "RS256")));
+        dataHolder.setTokenProvider(StandIns.tokenProvider(Fixtures.accessToken("openid",
+                configuration.getScope())));
+        formatHandler = new JwtVcJsonFormatHandler();
+        dataHolder.addCredentialFormatHandler(formatHandler);
+        service = new CredentialIssuanceService();
+
+        request = new CredentialIssuanceReqDTO();
+        request.setTenantDomain(Fixtures.TENANT_DOMAIN);
+        request.setCredentialConfigurationId(configuration.getIdentifier());
+        request.setToken("benchmark-access-token");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        CredentialIssuanceDataHolder dataHolder = CredentialIssuanceDataHolder.getInstance();
+        dataHolder.removeCredentialFormatHandler(formatHandler);
+        dataHolder.setTokenProvider(null);
+        dataHolder.setVcCredentialConfigManager(null);
+        runtime.close();
+    }
+
+    @Benchmark
+    public CredentialIssuanceRespDTO issueCredential() throws CredentialIssuanceException {
+
+        return service.issueCredential(request);
+    }
+}
@@ -0,0 +1,74 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.StandIns;
+import org.wso2.carbon.identity.openid4vci.metadata.DefaultCredentialIssuerMetadataProcessor;
+import org.wso2.carbon.identity.openid4vci.metadata.exception.CredentialIssuerMetadataException;
+import org.wso2.carbon.identity.openid4vci.metadata.internal.CredentialIssuerMetadataDataHolder;
+import org.wso2.carbon.identity.openid4vci.metadata.response.CredentialIssuerMetadataResponse;
+import org.wso2.carbon.identity.openid4vci.metadata.response.builder.CredentialIssuerMetadataResponseBuilder;
+import org.wso2.carbon.identity.openid4vci.metadata.response.builder.impl.CredentialIssuerMetadataJSONResponseBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks credential issuer metadata generation for tenants with a varying number of configurations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CredentialIssuerMetadataBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int configurationCount;
+
+    private CarbonRuntime runtime;
+    private DefaultCredentialIssuerMetadataProcessor processor;
+    private CredentialIssuerMetadataResponseBuilder responseBuilder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        runtime = CarbonRuntime.open(StandIns.userRealm(Fixtures.claimValues()));
+        CredentialIssuerMetadataDataHolder.getInstance().setVCCredentialConfigManager(
+                StandIns.configManager(Fixtures.credentialConfigurations(configurationCount, "RS256")));
+        processor = DefaultCredentialIssuerMetadataProcessor.getInstance();
+        responseBuilder = new CredentialIssuerMetadataJSONResponseBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        CredentialIssuerMetadataDataHolder.getInstance().setVCCredentialConfigManager(null);
+        runtime.close();
+    }
+
+    @Benchmark
+    public CredentialIssuerMetadataResponse getMetadataResponse() throws CredentialIssuerMetadataException {
+
+        return processor.getMetadataResponse(Fixtures.TENANT_DOMAIN);
+    }
+
+    @Benchmark
+    public String getMetadataJson() throws CredentialIssuerMetadataException {
+
+        return responseBuilder.build(processor.getMetadataResponse(Fixtures.TENANT_DOMAIN));
+    }
+}
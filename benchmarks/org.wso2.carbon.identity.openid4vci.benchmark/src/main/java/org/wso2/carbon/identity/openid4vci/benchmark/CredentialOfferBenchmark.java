@@ -0,0 +1,83 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.StandIns;
+import org.wso2.carbon.identity.openid4vci.offer.DefaultCredentialOfferProcessor;
+import org.wso2.carbon.identity.openid4vci.offer.cache.CredentialOfferCache;
+import org.wso2.carbon.identity.openid4vci.offer.cache.SerializedCredentialOffer;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+import org.wso2.carbon.identity.openid4vci.offer.internal.CredentialOfferDataHolder;
+import org.wso2.carbon.identity.openid4vci.offer.response.CredentialOfferResponse;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+import org.wso2.carbon.identity.vc.config.management.model.VCOffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks credential offer generation for offers referencing a varying number of configurations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CredentialOfferBenchmark {
+
+    @Param({"1", "5"})
+    public int configurationCount;
+
+    private CarbonRuntime runtime;
+    private DefaultCredentialOfferProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        runtime = CarbonRuntime.open(StandIns.userRealm(Fixtures.claimValues()));
+        Map<String, VCCredentialConfiguration> configurations =
+                Fixtures.credentialConfigurations(configurationCount, "RS256");
+        VCOffer offer = Fixtures.offer(new ArrayList<>(configurations.keySet()));
+        CredentialOfferDataHolder.getInstance().setVcCredentialConfigManager(StandIns.configManager(configurations));
+        CredentialOfferDataHolder.getInstance().setVCOfferManager(
+                StandIns.offerManager(Collections.singletonMap(offer.getOfferId(), offer)));
+        processor = DefaultCredentialOfferProcessor.getInstance();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        CredentialOfferCache.getInstance().clear();
+        CredentialOfferDataHolder.getInstance().setVcCredentialConfigManager(null);
+        CredentialOfferDataHolder.getInstance().setVCOfferManager(null);
+        runtime.close();
+    }
+
+    @Benchmark
+    public CredentialOfferResponse generateOffer() throws CredentialOfferException {
+
+        return processor.generateOffer(Fixtures.OFFER_ID, Fixtures.TENANT_DOMAIN);
+    }
+
+    @Benchmark
+    public SerializedCredentialOffer getSerializedOffer() throws CredentialOfferException {
+
+        return processor.getSerializedOffer(Fixtures.OFFER_ID, Fixtures.TENANT_DOMAIN);
+    }
+}
@@ -0,0 +1,143 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.DPoPProofValidator;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.VerifiedDPoPProof;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks validating DPoP proofs at the credential endpoint. Proofs come from a small set of wallet keys, as in
+ * practice, so the parsed key cache is warm and the score is the per-request cost: claims parsing, the signature
+ * check, the access token hash and registering the proof in the replay window. Every proof carries a fresh jti;
+ * each iteration starts with an empty replay window, so the same proofs can be validated again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DPoPProofValidatorBenchmark {
+
+    private static final int PROOFS = 2000;
+    private static final int WALLETS = 16;
+    private static final String ACCESS_TOKEN = "benchmark-access-token";
+
+    @Param({"RS256", "ES256"})
+    public String algorithm;
+
+    private final List<String> targetUris = Collections.singletonList(Fixtures.BASE_URL
+            + "/t/" + Fixtures.TENANT_DOMAIN + "/oid4vci/credential");
+    private String[] proofs;
+    private DPoPProofValidator validator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+        JWSSigner[] signers = new JWSSigner[WALLETS];
+        JWK[] keys = new JWK[WALLETS];
+        for (int i = 0; i < WALLETS; i++) {
+            if (JWSAlgorithm.ES256.equals(jwsAlgorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                KeyPair keyPair = generator.generateKeyPair();
+                signers[i] = new ECDSASigner((ECPrivateKey) keyPair.getPrivate());
+                keys[i] = new ECKey.Builder(Curve.P_256, (ECPublicKey) keyPair.getPublic()).build();
+            } else {
+                KeyPair keyPair = Fixtures.rsaKeyPair();
+                signers[i] = new RSASSASigner(keyPair.getPrivate());
+                keys[i] = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).build();
+            }
+        }
+
+        String accessTokenHash = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(ACCESS_TOKEN.getBytes(StandardCharsets.US_ASCII)));
+        proofs = new String[PROOFS];
+        for (int i = 0; i < PROOFS; i++) {
+            proofs[i] = proof(jwsAlgorithm, signers[i % WALLETS], keys[i % WALLETS], accessTokenHash);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetReplayWindow() {
+
+        // The proofs are issued once per trial, so they must stay acceptable for the whole run. The proofs of a
+        // wallet share a stripe of the replay window, and wallets may share a stripe, so every stripe and every
+        // wallet is sized for all proofs.
+        validator = new DPoPProofValidator(TimeUnit.MINUTES.toMillis(10), PROOFS * 64, PROOFS, WALLETS * 4);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROOFS)
+    public void validate(Blackhole blackhole) throws CredentialIssuanceException {
+
+        for (String proof : proofs) {
+            VerifiedDPoPProof verified = validator.validate(proof, "POST", targetUris, ACCESS_TOKEN);
+            validator.register(verified);
+            blackhole.consume(verified);
+        }
+    }
+
+    private String proof(JWSAlgorithm jwsAlgorithm, JWSSigner signer, JWK key, String accessTokenHash)
+            throws JOSEException, GeneralSecurityException {
+
+        JWSHeader header = new JWSHeader.Builder(jwsAlgorithm)
+                .type(new JOSEObjectType("dpop+jwt"))
+                .jwk(key)
+                .build();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(new Date())
+                .claim("htm", "POST")
+                .claim("htu", targetUris.get(0))
+                .claim("ath", accessTokenHash)
+                .build();
+        SignedJWT proof = new SignedJWT(header, claims);
+        proof.sign(signer);
+        return proof.serialize();
+    }
+}
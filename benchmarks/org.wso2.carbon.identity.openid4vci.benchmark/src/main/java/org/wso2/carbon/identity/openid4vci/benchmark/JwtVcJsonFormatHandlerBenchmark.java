@@ -0,0 +1,72 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.StandIns;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuerContext;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.impl.JwtVcJsonFormatHandler;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JWT VC JSON credential creation and signing per signing algorithm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JwtVcJsonFormatHandlerBenchmark {
+
+    /**
+     * Signing algorithms supported by {@link JwtVcJsonFormatHandler}.
+     */
+    @Param({"RS256"})
+    public String algorithm;
+
+    private CarbonRuntime runtime;
+    private JwtVcJsonFormatHandler handler;
+    private CredentialIssuerContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        runtime = CarbonRuntime.open(StandIns.userRealm(Fixtures.claimValues()));
+        handler = new JwtVcJsonFormatHandler();
+
+        VCCredentialConfiguration configuration = Fixtures.credentialConfiguration(0, algorithm);
+        context = new CredentialIssuerContext();
+        context.setConfigurationId(configuration.getId());
+        context.setCredentialConfiguration(configuration);
+        context.setTenantDomain(Fixtures.TENANT_DOMAIN);
+        context.setClaims(Fixtures.claimValues());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        runtime.close();
+    }
+
+    @Benchmark
+    public String issueCredential() throws CredentialIssuanceException {
+
+        return handler.issueCredential(context);
+    }
+}
@@ -0,0 +1,103 @@
+package org.wso2.carbon.identity.openid4vci.benchmark;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.StandIns;
+import org.wso2.carbon.identity.openid4vci.credential.signing.remote.HttpRemoteSigningClient;
+import org.wso2.carbon.identity.openid4vci.credential.signing.remote.RemoteCredentialSigner;
+import org.wso2.carbon.identity.openid4vci.credential.signing.remote.SigningRequestBatcher;
+import org.wso2.carbon.identity.openid4vci.credential.signing.remote.StandInSigningServer;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks signing credentials with a remote signer, with and without micro-batching. The signer is an in-process
+ * stand-in that adds a fixed round trip per batch, so the throughput shows how well batching amortizes the round
+ * trip across concurrent issuance requests. A batch size of 1 sends every signature on its own round trip. The
+ * tenant certificate naming the key is resolved once during setup, on the thread the Carbon stand-ins are bound to,
+ * and served from the tenant state afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class RemoteCredentialSignerBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int maxBatchSize;
+
+    @Param({"1000"})
+    public long maxBatchDelayMicros;
+
+    @Param({"2000"})
+    public long roundTripMicros;
+
+    private CarbonRuntime runtime;
+    private StandInSigningServer server;
+    private RemoteCredentialSigner signer;
+    private JWTClaimsSet claimsSet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        KeyPair keyPair = Fixtures.rsaKeyPair();
+        runtime = CarbonRuntime.open(StandIns.userRealm(Fixtures.claimValues()));
+        server = StandInSigningServer.start(keyPair, roundTripMicros);
+        signer = new RemoteCredentialSigner(new SigningRequestBatcher(
+                new HttpRemoteSigningClient(server.getEndpoint(), 2000, 5000),
+                maxBatchSize, maxBatchDelayMicros, 4096, 4), "{tenant}");
+        claimsSet = new JWTClaimsSet.Builder()
+                .issuer(Fixtures.BASE_URL + "/oid4vci")
+                .jwtID("benchmark")
+                .issueTime(new Date())
+                .claim("vc", Fixtures.claimValues())
+                .build();
+
+        SignedJWT signed = SignedJWT.parse(sign());
+        if (!signed.verify(new RSASSAVerifier((RSAPublicKey) keyPair.getPublic()))) {
+            throw new IllegalStateException("Remote signer produced an invalid signature");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        signer.shutdown();
+        long batches = server.getBatchCount();
+        System.out.printf("%nRemote signer: %d signatures in %d batches (%.1f per batch)%n",
+                server.getSignatureCount(), batches,
+                batches == 0 ? 0.0 : (double) server.getSignatureCount() / batches);
+        server.close();
+        runtime.close();
+    }
+
+    @Benchmark
+    public String sign() {
+
+        return signer.sign(Fixtures.TENANT_DOMAIN, JWSAlgorithm.RS256, claimsSet).join();
+    }
+}
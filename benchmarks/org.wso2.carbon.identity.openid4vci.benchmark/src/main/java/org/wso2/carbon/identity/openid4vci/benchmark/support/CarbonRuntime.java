@@ -0,0 +1,160 @@
+package org.wso2.carbon.identity.openid4vci.benchmark.support;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import org.mockito.MockSettings;
+import org.mockito.MockedStatic;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.IdentityKeyStoreResolver;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+import org.wso2.carbon.identity.core.util.IdentityKeyStoreResolverConstants;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.user.api.UserRealm;
+
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Replaces the static Carbon utilities used on the hot paths with in-process stand-ins.
+ * Static mocks are bound to the thread that opens them, so benchmarks must open the runtime from a
+ * {@code Scope.Thread} state set up on the benchmark thread. All mocks are stub-only: they do not record their
+ * invocations, which would otherwise cost time on the measured path and accumulate across iterations.
+ */
+public final class CarbonRuntime implements AutoCloseable {
+
+    public static final int TENANT_ID = 7;
+
+    private final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+    private final KeyPair signingKeyPair;
+
+    private CarbonRuntime(KeyPair signingKeyPair) {
+
+        this.signingKeyPair = signingKeyPair;
+    }
+
+    /**
+     * Open the stand-in runtime on the current thread.
+     *
+     * @param userRealm user realm returned for every tenant
+     * @return opened runtime, closed at the end of the trial
+     * @throws Exception if the stand-ins cannot be registered
+     */
+    public static CarbonRuntime open(UserRealm userRealm) throws Exception {
+
+        return open(userRealm, Fixtures.rsaKeyPair(), Collections.emptyMap());
+    }
+
+    /**
+     * Open the stand-in runtime on the current thread with a shared signing key and OSGi services.
+     *
+     * @param userRealm      user realm returned for every tenant
+     * @param signingKeyPair tenant signing key pair
+     * @param osgiServices   services resolved through the thread local Carbon context, keyed by service type
+     * @return opened runtime, closed when the thread finishes
+     * @throws Exception if the stand-ins cannot be registered
+     */
+    public static CarbonRuntime open(UserRealm userRealm, KeyPair signingKeyPair, Map<Class<?>, Object> osgiServices)
+            throws Exception {
+
+        CarbonRuntime runtime = new CarbonRuntime(signingKeyPair);
+        runtime.stubServiceUrls();
+        runtime.stubTenants(userRealm);
+        runtime.stubKeyStore();
+        if (!osgiServices.isEmpty()) {
+            runtime.stubOsgiServices(osgiServices);
+        }
+        return runtime;
+    }
+
+    public KeyPair getSigningKeyPair() {
+
+        return signingKeyPair;
+    }
+
+    @Override
+    public void close() {
+
+        for (MockedStatic<?> staticMock : staticMocks) {
+            staticMock.close();
+        }
+        staticMocks.clear();
+    }
+
+    private void stubServiceUrls() {
+
+        MockedStatic<ServiceURLBuilder> serviceUrlBuilder = mockStatic(ServiceURLBuilder.class, stubOnly());
+        serviceUrlBuilder.when(ServiceURLBuilder::create)
+                .thenAnswer(invocation -> StandIns.serviceUrlBuilder(Fixtures.BASE_URL));
+        staticMocks.add(serviceUrlBuilder);
+
+        // The tenant URL registry checks the configured host name on every lookup.
+        MockedStatic<IdentityUtil> identityUtil = mockStatic(IdentityUtil.class,
+                stubOnly().defaultAnswer(CALLS_REAL_METHODS));
+        identityUtil.when(IdentityUtil::getHostName).thenReturn(URI.create(Fixtures.BASE_URL).getHost());
+        staticMocks.add(identityUtil);
+    }
+
+    private void stubTenants(UserRealm userRealm) {
+
+        MockedStatic<IdentityTenantUtil> identityTenantUtil = mockStatic(IdentityTenantUtil.class, stubOnly());
+        identityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(anyString())).thenReturn(TENANT_ID);
+        identityTenantUtil.when(() -> IdentityTenantUtil.getRealm(anyString(), anyString())).thenReturn(userRealm);
+        staticMocks.add(identityTenantUtil);
+    }
+
+    private void stubOsgiServices(Map<Class<?>, Object> osgiServices) {
+
+        PrivilegedCarbonContext carbonContext = mock(PrivilegedCarbonContext.class, stubOnly());
+        for (Map.Entry<Class<?>, Object> service : osgiServices.entrySet()) {
+            when(carbonContext.getOSGiService(eq(service.getKey()), any())).thenReturn(service.getValue());
+        }
+        MockedStatic<PrivilegedCarbonContext> carbonContextStatic = mockStatic(PrivilegedCarbonContext.class,
+                stubOnly());
+        carbonContextStatic.when(PrivilegedCarbonContext::getThreadLocalCarbonContext).thenReturn(carbonContext);
+        staticMocks.add(carbonContextStatic);
+    }
+
+    private void stubKeyStore() throws Exception {
+
+        IdentityKeyStoreResolver keyStoreResolver = mock(IdentityKeyStoreResolver.class, stubOnly());
+        when(keyStoreResolver.getPrivateKey(anyString(), eq(IdentityKeyStoreResolverConstants.InboundProtocol.OAUTH)))
+                .thenReturn(signingKeyPair.getPrivate());
+        MockedStatic<IdentityKeyStoreResolver> keyStoreResolverStatic = mockStatic(IdentityKeyStoreResolver.class,
+                stubOnly());
+        keyStoreResolverStatic.when(IdentityKeyStoreResolver::getInstance).thenReturn(keyStoreResolver);
+        staticMocks.add(keyStoreResolverStatic);
+
+        MockedStatic<OAuth2Util> oAuth2Util = mockStatic(OAuth2Util.class, stubOnly());
+        oAuth2Util.when(() -> OAuth2Util.createJWSSigner(any(RSAPrivateKey.class)))
+                .thenAnswer(invocation -> new RSASSASigner((RSAPrivateKey) invocation.getArgument(0)));
+        oAuth2Util.when(() -> OAuth2Util.getCertificate(anyString(), anyInt())).thenReturn(null);
+        oAuth2Util.when(() -> OAuth2Util.getThumbPrintWithPrevAlgorithm(any(), anyBoolean()))
+                .thenReturn("NDY1YzE2OTk0ZTQ3ZTU4YjNlY2Y3YTJmNzIyZTFhMzQ");
+        oAuth2Util.when(() -> OAuth2Util.getKID(any(), any(JWSAlgorithm.class), anyString()))
+                .thenReturn("benchmark-kid");
+        staticMocks.add(oAuth2Util);
+    }
+
+    private static MockSettings stubOnly() {
+
+        return withSettings().stubOnly();
+    }
+}
@@ -0,0 +1,144 @@
+package org.wso2.carbon.identity.openid4vci.benchmark.support;
+
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+import org.wso2.carbon.identity.vc.config.management.model.VCOffer;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+public final class Fixtures {
+
+    public static final String TENANT_DOMAIN = "wallet.example.org";
+    public static final String BASE_URL = "https://localhost:9443";
+    public static final String OFFER_ID = "benchmark-offer";
+    public static final String USERNAME = "alice";
+    public static final String USER_ID = "6c9a2f4e-7b1d-4c0a-9f5e-2d8b3a1c7e64";
+    public static final List<String> CLAIMS = Arrays.asList(
+            "http://wso2.org/claims/givenname",
+            "http://wso2.org/claims/lastname",
+            "http://wso2.org/claims/emailaddress",
+            "http://wso2.org/claims/dob");
+
+    private Fixtures() {
+
+    }
+
+    /**
+     * Build a credential configuration.
+     *
+     * @param index              index used to derive unique ids
+     * @param signingAlgorithm   JWS algorithm name
+     * @return credential configuration
+     */
+    public static VCCredentialConfiguration credentialConfiguration(int index, String signingAlgorithm) {
+
+        VCCredentialConfiguration configuration = new VCCredentialConfiguration();
+        configuration.setId("cfg-" + index);
+        configuration.setIdentifier("EmployeeBadge" + index);
+        configuration.setFormat("jwt_vc_json");
+        configuration.setScope("employee_badge_" + index);
+        configuration.setType("EmployeeBadgeCredential");
+        configuration.setSigningAlgorithm(signingAlgorithm);
+        configuration.setExpiresIn(31536000);
+        configuration.setClaims(new ArrayList<>(CLAIMS));
+        VCCredentialConfiguration.Metadata metadata = new VCCredentialConfiguration.Metadata();
+        metadata.setDisplay("[{\"name\":\"Employee Badge " + index + "\",\"locale\":\"en-US\"," +
+                "\"background_color\":\"#12107c\",\"text_color\":\"#FFFFFF\"}]");
+        configuration.setMetadata(metadata);
+        return configuration;
+    }
+
+    /**
+     * Build a set of credential configurations keyed by id.
+     *
+     * @param count            number of configurations
+     * @param signingAlgorithm JWS algorithm name
+     * @return configurations keyed by id, in insertion order
+     */
+    public static Map<String, VCCredentialConfiguration> credentialConfigurations(int count,
+                                                                                  String signingAlgorithm) {
+
+        Map<String, VCCredentialConfiguration> configurations = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            VCCredentialConfiguration configuration = credentialConfiguration(i, signingAlgorithm);
+            configurations.put(configuration.getId(), configuration);
+        }
+        return configurations;
+    }
+
+    /**
+     * Build an offer referencing the given configuration ids.
+     *
+     * @param configurationIds referenced configuration ids
+     * @return offer
+     */
+    public static VCOffer offer(List<String> configurationIds) {
+
+        VCOffer offer = new VCOffer();
+        offer.setOfferId(OFFER_ID);
+        offer.setCredentialConfigurationIds(new ArrayList<>(configurationIds));
+        return offer;
+    }
+
+    /**
+     * Build claim values for the benchmark user.
+     *
+     * @return claim values keyed by claim URI
+     */
+    public static Map<String, String> claimValues() {
+
+        Map<String, String> claims = new LinkedHashMap<>();
+        claims.put("http://wso2.org/claims/givenname", "Alice");
+        claims.put("http://wso2.org/claims/lastname", "Wonderland");
+        claims.put("http://wso2.org/claims/emailaddress", "alice@wallet.example.org");
+        claims.put("http://wso2.org/claims/dob", "1990-01-01");
+        return claims;
+    }
+
+    /**
+     * Build a verified access token carrying the given scopes.
+     *
+     * @param scopes granted scopes
+     * @return access token
+     */
+    public static AccessTokenDO accessToken(String... scopes) {
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName(USERNAME);
+        user.setUserStoreDomain("PRIMARY");
+        user.setTenantDomain(TENANT_DOMAIN);
+        user.setUserId(USER_ID);
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setScope(scopes);
+        accessTokenDO.setAuthzUser(user);
+        return accessTokenDO;
+    }
+
+    /**
+     * Generate an RSA signing key pair.
+     *
+     * @return 2048-bit RSA key pair
+     */
+    public static KeyPair rsaKeyPair() {
+
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA key generation is not available", e);
+        }
+    }
+}
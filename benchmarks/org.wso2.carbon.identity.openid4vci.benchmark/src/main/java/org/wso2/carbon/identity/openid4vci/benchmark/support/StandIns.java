@@ -0,0 +1,162 @@
+package org.wso2.carbon.identity.openid4vci.benchmark.support;
+
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.core.ServiceURL;
+import org.wso2.carbon.identity.core.ServiceURLBuilder;
+import org.wso2.carbon.identity.oauth.tokenprocessor.TokenProvider;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
+import org.wso2.carbon.identity.vc.config.management.VCOfferManager;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+import org.wso2.carbon.identity.vc.config.management.model.VCOffer;
+import org.wso2.carbon.user.api.UserRealm;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-process stand-ins for the Carbon services used by the OID4VCI components.
+ * Stand-ins are dynamic proxies that implement only the methods exercised on the hot paths, so they stay
+ * independent of the full service interfaces and add no mocking overhead to the measured code.
+ */
+public final class StandIns {
+
+    private StandIns() {
+
+    }
+
+    /**
+     * Create a credential configuration manager backed by the given configurations.
+     *
+     * @param configurations configurations keyed by their id
+     * @return configuration manager stand-in
+     */
+    public static VCCredentialConfigManager configManager(Map<String, VCCredentialConfiguration> configurations) {
+
+        List<VCCredentialConfiguration> listed = new ArrayList<>(configurations.values());
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("list", args -> listed);
+        handlers.put("get", args -> configurations.get((String) args[0]));
+        return proxy(VCCredentialConfigManager.class, handlers);
+    }
+
+    /**
+     * Create an offer manager backed by the given offers.
+     *
+     * @param offers offers keyed by their id
+     * @return offer manager stand-in
+     */
+    public static VCOfferManager offerManager(Map<String, VCOffer> offers) {
+
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("get", args -> offers.get((String) args[0]));
+        return proxy(VCOfferManager.class, handlers);
+    }
+
+    /**
+     * Create a token provider that verifies every token to the given access token.
+     *
+     * @param accessTokenDO access token returned for any token value
+     * @return token provider stand-in
+     */
+    public static TokenProvider tokenProvider(AccessTokenDO accessTokenDO) {
+
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("getVerifiedAccessToken", args -> accessTokenDO);
+        return proxy(TokenProvider.class, handlers);
+    }
+
+    /**
+     * Create a user realm whose user store returns the given claim values for every user.
+     *
+     * @param claims claim values keyed by claim URI
+     * @return user realm stand-in
+     */
+    public static UserRealm userRealm(Map<String, String> claims) {
+
+        Map<String, Function<Object[], Object>> storeHandlers = new HashMap<>();
+        storeHandlers.put("getUserClaimValues", args -> {
+            Map<String, String> values = new HashMap<>();
+            for (String claim : (String[]) args[1]) {
+                String value = claims.get(claim);
+                if (value != null) {
+                    values.put(claim, value);
+                }
+            }
+            return values;
+        });
+        UserStoreManager userStoreManager = proxy(UserStoreManager.class, storeHandlers);
+
+        Map<String, Function<Object[], Object>> realmHandlers = new HashMap<>();
+        realmHandlers.put("getUserStoreManager", args -> userStoreManager);
+        return proxy(UserRealm.class, realmHandlers);
+    }
+
+    /**
+     * Create a service URL builder that resolves paths against a fixed base URL.
+     *
+     * @param baseUrl public base URL of the server, e.g. {@code https://localhost:9443}
+     * @return service URL builder stand-in
+     */
+    public static ServiceURLBuilder serviceUrlBuilder(String baseUrl) {
+
+        StringBuilder tenantPath = new StringBuilder();
+        StringBuilder path = new StringBuilder();
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        ServiceURLBuilder[] self = new ServiceURLBuilder[1];
+        handlers.put("addPath", args -> {
+            for (String segment : (String[]) args[0]) {
+                path.append('/').append(segment);
+            }
+            return self[0];
+        });
+        handlers.put("setTenant", args -> {
+            String tenant = (String) args[0];
+            if (tenant != null && !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenant)) {
+                tenantPath.setLength(0);
+                tenantPath.append("/t/").append(tenant);
+            }
+            return self[0];
+        });
+        handlers.put("build", args -> serviceUrl(baseUrl + tenantPath + path));
+        self[0] = proxy(ServiceURLBuilder.class, handlers);
+        return self[0];
+    }
+
+    private static ServiceURL serviceUrl(String absoluteUrl) {
+
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("getAbsolutePublicURL", args -> absoluteUrl);
+        handlers.put("getAbsoluteInternalURL", args -> absoluteUrl);
+        return proxy(ServiceURL.class, handlers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> handlers) {
+
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            Function<Object[], Object> handler = handlers.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stand-in";
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                            + " is not supported by the benchmark stand-in");
+            }
+        };
+        return (T) Proxy.newProxyInstance(StandIns.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+}
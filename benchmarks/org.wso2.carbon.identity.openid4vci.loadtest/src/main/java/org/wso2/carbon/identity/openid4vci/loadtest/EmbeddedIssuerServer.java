@@ -0,0 +1,109 @@
+package org.wso2.carbon.identity.openid4vci.loadtest;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngine;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngineFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.endpoint.credential.CredentialEndpoint;
+import org.wso2.carbon.identity.openid4vci.endpoint.metadata.MetadataEndpoint;
+import org.wso2.carbon.identity.openid4vci.endpoint.offer.OfferEndpoint;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+
+/**
+ * Hosts the credential, metadata and offer endpoints in an embedded CXF JAX-RS server on Jetty.
+ */
+public final class EmbeddedIssuerServer implements AutoCloseable {
+
+    private static final String HOST = "127.0.0.1";
+    private static final String CONTEXT = "/oid4vci";
+
+    private final Bus bus;
+    private final Server server;
+    private final String baseUrl;
+
+    private EmbeddedIssuerServer(Bus bus, Server server, String baseUrl) {
+
+        this.bus = bus;
+        this.server = server;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Start the server on a free loopback port.
+     *
+     * @param environment   stand-in environment opened on every server worker thread
+     * @param workerThreads maximum number of Jetty worker threads
+     * @return started server
+     * @throws Exception if the server cannot be started
+     */
+    public static EmbeddedIssuerServer start(IssuerEnvironment environment, int workerThreads) throws Exception {
+
+        int port = freePort();
+        Bus bus = BusFactory.newInstance().createBus();
+        JettyHTTPServerEngineFactory engineFactory = bus.getExtension(JettyHTTPServerEngineFactory.class);
+        JettyHTTPServerEngine engine = engineFactory.createJettyHTTPServerEngine(HOST, port, "http");
+        engine.setThreadPool(new CarbonThreadPool(environment, workerThreads));
+
+        String baseUrl = "http://" + HOST + ":" + port + CONTEXT;
+        JAXRSServerFactoryBean serverFactory = new JAXRSServerFactoryBean();
+        serverFactory.setBus(bus);
+        serverFactory.setAddress(baseUrl);
+        serverFactory.setServiceBeans(Arrays.<Object>asList(new CredentialEndpoint(), new MetadataEndpoint(),
+                new OfferEndpoint()));
+        return new EmbeddedIssuerServer(bus, serverFactory.create(), baseUrl);
+    }
+
+    public String getBaseUrl() {
+
+        return baseUrl;
+    }
+
+    @Override
+    public void close() {
+
+        server.stop();
+        server.destroy();
+        bus.shutdown(true);
+    }
+
+    private static int freePort() throws IOException {
+
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Jetty thread pool whose threads run with the stand-in Carbon runtime open for their whole lifetime.
+     */
+    private static final class CarbonThreadPool extends QueuedThreadPool {
+
+        private final IssuerEnvironment environment;
+
+        CarbonThreadPool(IssuerEnvironment environment, int maxThreads) {
+
+            super(maxThreads, Math.min(8, maxThreads));
+            this.environment = environment;
+            setName("oid4vci-loadtest-server");
+        }
+
+        @Override
+        protected Thread newThread(Runnable runnable) {
+
+            return super.newThread(() -> {
+                try (CarbonRuntime ignored = environment.openRuntime()) {
+                    runnable.run();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Error while opening the Carbon runtime on a server thread", e);
+                }
+            });
+        }
+    }
+}
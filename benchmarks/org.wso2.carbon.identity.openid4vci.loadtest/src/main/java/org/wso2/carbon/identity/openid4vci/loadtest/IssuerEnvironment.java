@@ -0,0 +1,104 @@
+package org.wso2.carbon.identity.openid4vci.loadtest;
+
+import org.wso2.carbon.identity.openid4vci.benchmark.support.CarbonRuntime;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.Fixtures;
+import org.wso2.carbon.identity.openid4vci.benchmark.support.StandIns;
+import org.wso2.carbon.identity.openid4vci.credential.CredentialIssuanceService;
+import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.CredentialFormatHandler;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.impl.JwtVcJsonFormatHandler;
+import org.wso2.carbon.identity.openid4vci.metadata.CredentialIssuerMetadataProcessor;
+import org.wso2.carbon.identity.openid4vci.metadata.DefaultCredentialIssuerMetadataProcessor;
+import org.wso2.carbon.identity.openid4vci.metadata.internal.CredentialIssuerMetadataDataHolder;
+import org.wso2.carbon.identity.openid4vci.offer.CredentialOfferProcessor;
+import org.wso2.carbon.identity.openid4vci.offer.DefaultCredentialOfferProcessor;
+import org.wso2.carbon.identity.openid4vci.offer.internal.CredentialOfferDataHolder;
+import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+import org.wso2.carbon.identity.vc.config.management.model.VCOffer;
+import org.wso2.carbon.user.api.UserRealm;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wires stand-in configuration, offer, token and user stores into the component data holders, and exposes the
+ * OSGi services the endpoint factories resolve at class initialization.
+ */
+public final class IssuerEnvironment implements AutoCloseable {
+
+    static final String CREDENTIAL_CONFIGURATION_IDENTIFIER = "EmployeeBadge0";
+    private static final String SIGNING_ALGORITHM = "RS256";
+
+    private final UserRealm userRealm = StandIns.userRealm(Fixtures.claimValues());
+    private final KeyPair signingKeyPair = Fixtures.rsaKeyPair();
+    private final Map<Class<?>, Object> osgiServices = new HashMap<>();
+    private final CredentialFormatHandler formatHandler = new JwtVcJsonFormatHandler();
+
+    private IssuerEnvironment() {
+
+    }
+
+    /**
+     * Install the stand-in environment.
+     *
+     * @param configurationCount number of credential configurations known to the issuer
+     * @return installed environment, uninstalled on close
+     */
+    public static IssuerEnvironment install(int configurationCount) {
+
+        IssuerEnvironment environment = new IssuerEnvironment();
+        Map<String, VCCredentialConfiguration> configurations =
+                Fixtures.credentialConfigurations(Math.max(1, configurationCount), SIGNING_ALGORITHM);
+        VCCredentialConfiguration issuedConfiguration = configurations.get(CREDENTIAL_CONFIGURATION_IDENTIFIER);
+        if (issuedConfiguration == null) {
+            throw new IllegalStateException("Fixture configuration not found: " + CREDENTIAL_CONFIGURATION_IDENTIFIER);
+        }
+        VCCredentialConfigManager configManager = StandIns.configManager(configurations);
+        VCOffer offer = Fixtures.offer(new ArrayList<>(configurations.keySet()));
+
+        CredentialIssuanceDataHolder issuanceDataHolder = CredentialIssuanceDataHolder.getInstance();
+        issuanceDataHolder.setVcCredentialConfigManager(configManager);
+        issuanceDataHolder.setTokenProvider(StandIns.tokenProvider(
+                Fixtures.accessToken("openid", issuedConfiguration.getScope())));
+        issuanceDataHolder.addCredentialFormatHandler(environment.formatHandler);
+
+        CredentialIssuerMetadataDataHolder.getInstance().setVCCredentialConfigManager(configManager);
+        CredentialOfferDataHolder.getInstance().setVcCredentialConfigManager(configManager);
+        CredentialOfferDataHolder.getInstance().setVCOfferManager(
+                StandIns.offerManager(Collections.singletonMap(offer.getOfferId(), offer)));
+
+        environment.osgiServices.put(CredentialIssuanceService.class, new CredentialIssuanceService());
+        environment.osgiServices.put(CredentialIssuerMetadataProcessor.class,
+                DefaultCredentialIssuerMetadataProcessor.getInstance());
+        environment.osgiServices.put(CredentialOfferProcessor.class, DefaultCredentialOfferProcessor.getInstance());
+        return environment;
+    }
+
+    /**
+     * Open the stand-in Carbon runtime on the calling thread. Static stand-ins are thread confined, so every
+     * server worker thread opens its own runtime before serving requests.
+     *
+     * @return runtime bound to the calling thread
+     * @throws Exception if the stand-ins cannot be registered
+     */
+    public CarbonRuntime openRuntime() throws Exception {
+
+        return CarbonRuntime.open(userRealm, signingKeyPair, osgiServices);
+    }
+
+    @Override
+    public void close() {
+
+        CredentialIssuanceDataHolder issuanceDataHolder = CredentialIssuanceDataHolder.getInstance();
+        issuanceDataHolder.removeCredentialFormatHandler(formatHandler);
+        issuanceDataHolder.setTokenProvider(null);
+        issuanceDataHolder.setVcCredentialConfigManager(null);
+        CredentialIssuerMetadataDataHolder.getInstance().setVCCredentialConfigManager(null);
+        CredentialOfferDataHolder.getInstance().setVcCredentialConfigManager(null);
+        CredentialOfferDataHolder.getInstance().setVCOfferManager(null);
+    }
+}
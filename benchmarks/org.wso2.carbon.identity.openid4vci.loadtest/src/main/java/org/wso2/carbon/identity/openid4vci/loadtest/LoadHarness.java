@@ -0,0 +1,35 @@
+package org.wso2.carbon.identity.openid4vci.loadtest;
+
+/**
+ * Entry point of the end-to-end load harness. Boots the OpenID4VCI endpoints in process against stand-in
+ * services, drives them with an open-model request mix and prints coordinated-omission-corrected latencies.
+ */
+public final class LoadHarness {
+
+    private LoadHarness() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        LoadHarnessOptions options;
+        try {
+            options = LoadHarnessOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        // Keep enough idle keep-alive connections for every client thread.
+        System.setProperty("http.maxConnections", String.valueOf(options.getConnections()));
+
+        try (IssuerEnvironment environment = IssuerEnvironment.install(options.getConfigurationCount());
+             EmbeddedIssuerServer server = EmbeddedIssuerServer.start(environment, options.getServerThreads())) {
+            System.out.printf("Offering %.1f req/s (%s arrivals) to %s for %ds after %ds of warm-up%n",
+                    options.getRate(), options.isPoissonArrivals() ? "poisson" : "constant", server.getBaseUrl(),
+                    options.getDurationSeconds(), options.getWarmupSeconds());
+            LoadResults results = new OpenModelLoadGenerator(options, server.getBaseUrl()).run();
+            results.print(System.out);
+        }
+    }
+}
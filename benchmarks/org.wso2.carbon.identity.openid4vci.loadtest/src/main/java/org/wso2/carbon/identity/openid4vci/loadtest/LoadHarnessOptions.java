@@ -0,0 +1,166 @@
+package org.wso2.carbon.identity.openid4vci.loadtest;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load harness, given as {@code --name=value} pairs.
+ */
+public class LoadHarnessOptions {
+
+    private double rate = 200;
+    private int durationSeconds = 60;
+    private int warmupSeconds = 10;
+    private int connections = 128;
+    private int serverThreads = 200;
+    private int configurationCount = 10;
+    private boolean poissonArrivals = true;
+    private long seed = 42L;
+    private final Map<RequestType, Integer> mix = new EnumMap<>(RequestType.class);
+
+    private LoadHarnessOptions() {
+
+        mix.put(RequestType.METADATA, 60);
+        mix.put(RequestType.OFFER, 30);
+        mix.put(RequestType.CREDENTIAL, 10);
+    }
+
+    /**
+     * Parse the command line options.
+     *
+     * @param args arguments such as {@code --rate=500 --mix=metadata:50,offer:25,credential:25}
+     * @return parsed options
+     */
+    public static LoadHarnessOptions parse(String[] args) {
+
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unrecognized argument: " + arg + ". " + usage());
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadHarnessOptions options = new LoadHarnessOptions();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "duration":
+                    options.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "connections":
+                    options.connections = Integer.parseInt(value);
+                    break;
+                case "server-threads":
+                    options.serverThreads = Integer.parseInt(value);
+                    break;
+                case "configurations":
+                    options.configurationCount = Integer.parseInt(value);
+                    break;
+                case "arrivals":
+                    options.poissonArrivals = parseArrivals(value);
+                    break;
+                case "seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+                case "mix":
+                    options.parseMix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: --" + entry.getKey() + ". " + usage());
+            }
+        }
+        if (options.rate <= 0 || options.durationSeconds <= 0 || options.connections <= 0) {
+            throw new IllegalArgumentException("rate, duration and connections must be positive. " + usage());
+        }
+        return options;
+    }
+
+    public static String usage() {
+
+        return "Usage: java -jar oid4vci-loadtest.jar [--rate=<requests/s>] [--duration=<s>] [--warmup=<s>] " +
+                "[--mix=metadata:<w>,offer:<w>,credential:<w>] [--arrivals=poisson|constant] " +
+                "[--connections=<n>] [--server-threads=<n>] [--configurations=<n>] [--seed=<n>]";
+    }
+
+    public double getRate() {
+
+        return rate;
+    }
+
+    public int getDurationSeconds() {
+
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+
+        return warmupSeconds;
+    }
+
+    public int getConnections() {
+
+        return connections;
+    }
+
+    public int getServerThreads() {
+
+        return serverThreads;
+    }
+
+    public int getConfigurationCount() {
+
+        return configurationCount;
+    }
+
+    public boolean isPoissonArrivals() {
+
+        return poissonArrivals;
+    }
+
+    public long getSeed() {
+
+        return seed;
+    }
+
+    public Map<RequestType, Integer> getMix() {
+
+        return mix;
+    }
+
+    private void parseMix(String value) {
+
+        mix.clear();
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part + ". " + usage());
+            }
+            int parsedWeight = Integer.parseInt(weight[1].trim());
+            if (parsedWeight > 0) {
+                mix.put(RequestType.fromName(weight[0].trim()), parsedWeight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The request mix must have at least one positive weight.");
+        }
+    }
+
+    private static boolean parseArrivals(String value) {
+
+        if ("poisson".equals(value)) {
+            return true;
+        } else if ("constant".equals(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown arrival process: " + value + ". " + usage());
+    }
+}
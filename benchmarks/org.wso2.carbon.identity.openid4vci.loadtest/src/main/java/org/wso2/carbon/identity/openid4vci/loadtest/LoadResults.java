@@ -0,0 +1,102 @@
+package org.wso2.carbon.identity.openid4vci.loadtest;
+
+import org.wso2.carbon.identity.openid4vci.credential.stats.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and throughput results of a load run, recorded per request type.
+ * Response time is measured from the intended start of each request, which corrects for coordinated omission;
+ * service time is measured from the moment the request was actually sent.
+ */
+public class LoadResults {
+
+    private final Map<RequestType, TypeResults> results = new EnumMap<>(RequestType.class);
+    private final TypeResults overall = new TypeResults();
+    private volatile long measurementNanos;
+
+    public LoadResults() {
+
+        for (RequestType type : RequestType.values()) {
+            results.put(type, new TypeResults());
+        }
+    }
+
+    /**
+     * Record a completed request.
+     *
+     * @param type          request type
+     * @param intendedStart time at which the arrival schedule intended to send the request
+     * @param actualStart   time at which the request was sent
+     * @param end           time at which the response was fully read
+     * @param success       whether the server answered with a 2xx status
+     */
+    public void record(RequestType type, long intendedStart, long actualStart, long end, boolean success) {
+
+        results.get(type).record(intendedStart, actualStart, end, success);
+        overall.record(intendedStart, actualStart, end, success);
+    }
+
+    void setMeasurementNanos(long measurementNanos) {
+
+        this.measurementNanos = measurementNanos;
+    }
+
+    /**
+     * Print a summary table of the run.
+     *
+     * @param out output stream
+     */
+    public void print(PrintStream out) {
+
+        double seconds = measurementNanos / 1_000_000_000.0;
+        out.printf("%-11s %9s %7s %10s  %-9s %9s %9s %9s %9s %9s%n", "type", "requests", "errors", "req/s",
+                "latency", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)");
+        for (Map.Entry<RequestType, TypeResults> entry : results.entrySet()) {
+            if (entry.getValue().responseTime.getCount() > 0) {
+                entry.getValue().print(out, entry.getKey().getTypeName(), seconds);
+            }
+        }
+        overall.print(out, "all", seconds);
+    }
+
+    private static final class TypeResults {
+
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long intendedStart, long actualStart, long end, boolean success) {
+
+            responseTime.recordNanos(end - intendedStart);
+            serviceTime.recordNanos(end - actualStart);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        void print(PrintStream out, String name, double seconds) {
+
+            long count = responseTime.getCount();
+            double throughput = seconds > 0 ? (count - errors.sum()) / seconds : 0;
+            printRow(out, name, count, errors.sum(), throughput, "response", responseTime);
+            printRow(out, "", count, errors.sum(), throughput, "service", serviceTime);
+        }
+
+        private static void printRow(PrintStream out, String name, long count, long errorCount, double throughput,
+                                     String latency, LatencyHistogram histogram) {
+
+            if (name.isEmpty()) {
+                out.printf("%-11s %9s %7s %10s  %-9s", "", "", "", "", latency);
+            } else {
+                out.printf("%-11s %9d %7d %10.1f  %-9s", name, count, errorCount, throughput, latency);
+            }
+            out.printf(" %9d %9d %9d %9d %9d%n", histogram.getPercentileMicros(50),
+                    histogram.getPercentileMicros(90), histogram.getPercentileMicros(99),
+                    histogram.getPercentileMicros(99.9), histogram.getMaxMicros());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.wso2.carbon.identity.openid4vci.loadtest;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator. Requests are released on a fixed arrival schedule that does not wait for earlier
+ * responses, so a slow server accumulates queued requests instead of silently lowering the offered load.
+ */
+public class OpenModelLoadGenerator {
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private final LoadHarnessOptions options;
+    private final String baseUrl;
+    private final RequestType[] weightedTypes;
+
+    public OpenModelLoadGenerator(LoadHarnessOptions options, String baseUrl) {
+
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.weightedTypes = expandMix(options.getMix());
+    }
+
+    /**
+     * Run the warm-up and measurement phases.
+     *
+     * @return results of the measurement phase
+     * @throws InterruptedException if interrupted while waiting for in-flight requests
+     */
+    public LoadResults run() throws InterruptedException {
+
+        LoadResults results = new LoadResults();
+        ExecutorService clients = Executors.newFixedThreadPool(options.getConnections(), new ClientThreadFactory());
+        Random random = new Random(options.getSeed());
+        double meanIntervalNanos = 1_000_000_000.0 / options.getRate();
+
+        long start = System.nanoTime();
+        long measurementStart = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+        double offsetNanos = 0;
+        try {
+            while (true) {
+                offsetNanos += options.isPoissonArrivals()
+                        ? -Math.log(1.0 - random.nextDouble()) * meanIntervalNanos
+                        : meanIntervalNanos;
+                long intendedStart = start + (long) offsetNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                waitUntil(intendedStart);
+                RequestType type = weightedTypes[random.nextInt(weightedTypes.length)];
+                boolean measured = intendedStart >= measurementStart;
+                clients.execute(() -> {
+                    long actualStart = System.nanoTime();
+                    boolean success = type.send(baseUrl);
+                    if (measured) {
+                        results.record(type, intendedStart, actualStart, System.nanoTime(), success);
+                    }
+                });
+            }
+        } finally {
+            clients.shutdown();
+            clients.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            clients.shutdownNow();
+        }
+        results.setMeasurementNanos(end - measurementStart);
+        return results;
+    }
+
+    private static void waitUntil(long deadline) {
+
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static RequestType[] expandMix(Map<RequestType, Integer> mix) {
+
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        RequestType[] expanded = new RequestType[total];
+        int index = 0;
+        for (Map.Entry<RequestType, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                expanded[index++] = entry.getKey();
+            }
+        }
+        return expanded;
+    }
+
+    private static final class ClientThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "oid4vci-loadtest-client-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.wso2.carbon.identity.openid4vci.common.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helpers for composing {@link CompletableFuture} based stages.
+ */
+public final class CompletableFutures {
+
+    private CompletableFutures() {
+
+    }
+
+    /**
+     * Create a future that is already completed with a failure.
+     *
+     * @param failure cause of the failure
+     * @param <T>     result type of the future
+     * @return failed future
+     */
+    public static <T> CompletableFuture<T> failed(Throwable failure) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(failure);
+        return future;
+    }
+
+    /**
+     * Strip the completion and execution wrappers added while a failure propagates through dependent stages.
+     *
+     * @param failure failure observed by a dependent stage
+     * @return the original cause
+     */
+    public static Throwable unwrap(Throwable failure) {
+
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Wrap a failure so that it can be thrown from a dependent stage without losing its original type.
+     *
+     * @param failure failure to propagate
+     * @return completion exception carrying the failure
+     */
+    public static CompletionException propagate(Throwable failure) {
+
+        return failure instanceof CompletionException ? (CompletionException) failure
+                : new CompletionException(failure);
+    }
+}
@@ -0,0 +1,135 @@
+package org.wso2.carbon.identity.openid4vci.common.concurrent;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key. The first caller of a key runs the load on its own thread while
+ * callers arriving before it finishes wait for its result instead of loading again. Nothing is retained once the
+ * load completes, so a later call for the key starts a new load.
+ *
+ * <p>The leading caller receives the exception thrown by its loader unchanged. Waiting callers receive the failure
+ * of the leader, a {@link TimeoutException} if the leader does not finish within the wait timeout, or an
+ * {@link InterruptedException}, each converted to the caller's exception type by its error mapper.</p>
+ *
+ * @param <K> key type
+ * @param <V> loaded value type
+ */
+public class SingleFlight<K, V> {
+
+    private static final Log log = LogFactory.getLog(SingleFlight.class);
+    private static final String WAIT_TIMEOUT_PROPERTY = "OpenID4VCI.SingleFlight.WaitTimeout";
+    private static final long DEFAULT_WAIT_TIMEOUT_MILLIS = 10000;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalescedCalls = new LongAdder();
+    private final long waitTimeoutNanos;
+
+    /**
+     * Create a single flight group waiting for the timeout configured with
+     * {@code OpenID4VCI.SingleFlight.WaitTimeout} in milliseconds.
+     */
+    public SingleFlight() {
+
+        this(resolveWaitTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public SingleFlight(long waitTimeout, TimeUnit unit) {
+
+        this.waitTimeoutNanos = unit.toNanos(waitTimeout);
+    }
+
+    /**
+     * Load the value of a key, or wait for a load of the same key already in flight.
+     *
+     * @param key         key being loaded
+     * @param loader      loader run if no load of the key is in flight
+     * @param errorMapper converts the failure observed by a waiting caller to the caller's exception type
+     * @param <E>         checked exception type of the caller
+     * @return loaded value
+     * @throws E if the load fails, the wait times out or the waiting thread is interrupted
+     */
+    public <E extends Exception> V load(K key, SingleFlightLoader<V, ? extends E> loader,
+                                        Function<Throwable, ? extends E> errorMapper) throws E {
+
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            coalescedCalls.increment();
+            return await(existing, errorMapper);
+        }
+
+        try {
+            V value = loader.load();
+            pending.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Get the number of calls that waited for a load started by another caller.
+     *
+     * @return coalesced call count
+     */
+    public long getCoalescedCalls() {
+
+        return coalescedCalls.sum();
+    }
+
+    public int getInFlightCount() {
+
+        return inFlight.size();
+    }
+
+    private <E extends Exception> V await(CompletableFuture<V> existing,
+                                          Function<Throwable, ? extends E> errorMapper) throws E {
+
+        try {
+            return existing.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw errorMapper.apply(e);
+        } catch (TimeoutException e) {
+            throw errorMapper.apply(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw errorMapper.apply(cause);
+        }
+    }
+
+    private static long resolveWaitTimeoutMillis() {
+
+        String waitTimeout = IdentityUtil.getProperty(WAIT_TIMEOUT_PROPERTY);
+        if (StringUtils.isNotBlank(waitTimeout)) {
+            try {
+                return Long.parseLong(waitTimeout.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value configured for " + WAIT_TIMEOUT_PROPERTY + ": " + waitTimeout
+                        + ". Using the default of " + DEFAULT_WAIT_TIMEOUT_MILLIS + " milliseconds.");
+            }
+        }
+        return DEFAULT_WAIT_TIMEOUT_MILLIS;
+    }
+}
@@ -0,0 +1,13 @@
+package org.wso2.carbon.identity.openid4vci.common.concurrent;
+
+/**
+ * Loads a value on behalf of every caller coalesced on the same {@link SingleFlight} key.
+ *
+ * @param <V> loaded value type
+ * @param <E> checked exception thrown by the load
+ */
+@FunctionalInterface
+public interface SingleFlightLoader<V, E extends Exception> {
+
+    V load() throws E;
+}
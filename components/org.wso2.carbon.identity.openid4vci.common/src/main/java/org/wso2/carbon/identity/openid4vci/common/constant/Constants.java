@@ -6,6 +6,9 @@ package org.wso2.carbon.identity.openid4vci.common.constant;
 public class Constants {
     public static final String CONTEXT_OPENID4VCI = "oid4vci";
     public static final String SEGMENT_CREDENTIAL = "credential";
+    public static final String SEGMENT_CREDENTIAL_OFFER = "credential-offer";
     public static final String SEGMENT_OAUTH2 = "oauth2";
     public static final String SEGMENT_TOKEN = "token";
+    public static final String GRANT_TYPE_AUTHORIZATION_CODE = "authorization_code";
+    public static final String GRANT_TYPE_PRE_AUTHORIZED_CODE = "urn:ietf:params:oauth:grant-type:pre-authorized_code";
 }
@@ -0,0 +1,101 @@
+package org.wso2.carbon.identity.openid4vci.common.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationTransport;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateManager;
+import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
+
+/**
+ * Service component for the OID4VCI common module.
+ */
+@Component(
+        name = "identity.openid4vci.common.component",
+        immediate = true
+)
+public class OpenID4VCICommonServiceComponent {
+
+    private static final Log log = LogFactory.getLog(OpenID4VCICommonServiceComponent.class);
+    private static final InvalidationListener TENANT_STATE_LISTENER = event -> {
+        if (event.getType() == InvalidationEvent.Type.TENANT) {
+            TenantStateManager.getInstance().evictTenant(event.getTenantDomain());
+        }
+    };
+
+    protected void activate(ComponentContext context) {
+
+        try {
+            BundleContext bundleContext = context.getBundleContext();
+            TenantStateManager.getInstance().registerMBean();
+            DefaultInvalidationBus invalidationBus = DefaultInvalidationBus.getInstance();
+            invalidationBus.start();
+            invalidationBus.addListener(TENANT_STATE_LISTENER);
+            bundleContext.registerService(InvalidationBus.class.getName(), invalidationBus, null);
+            bundleContext.registerService(TenantMgtListener.class.getName(), new OpenID4VCITenantMgtListener(), null);
+            if (log.isDebugEnabled()) {
+                log.debug("OID4VCI common bundle is activated");
+            }
+        } catch (Throwable e) {
+            log.error("Error while activating OpenID4VCICommonServiceComponent", e);
+        }
+    }
+
+    protected void deactivate(ComponentContext context) {
+
+        DefaultInvalidationBus invalidationBus = DefaultInvalidationBus.getInstance();
+        invalidationBus.shutdown();
+        invalidationBus.clearListeners();
+        TenantStateManager.getInstance().clear();
+        TenantStateManager.getInstance().unregisterMBean();
+        if (log.isDebugEnabled()) {
+            log.debug("OID4VCI common bundle is deactivated");
+        }
+    }
+
+    @Reference(
+            name = "openid4vci.invalidation.listener",
+            service = InvalidationListener.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "removeInvalidationListener"
+    )
+    protected void addInvalidationListener(InvalidationListener listener) {
+
+        DefaultInvalidationBus.getInstance().addListener(listener);
+    }
+
+    protected void removeInvalidationListener(InvalidationListener listener) {
+
+        DefaultInvalidationBus.getInstance().removeListener(listener);
+    }
+
+    @Reference(
+            name = "openid4vci.invalidation.transport",
+            service = InvalidationTransport.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetInvalidationTransport"
+    )
+    protected void setInvalidationTransport(InvalidationTransport transport) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Setting the OID4VCI invalidation transport: " + transport.getClass().getName());
+        }
+        DefaultInvalidationBus.getInstance().setTransport(transport);
+    }
+
+    protected void unsetInvalidationTransport(InvalidationTransport transport) {
+
+        DefaultInvalidationBus.getInstance().setTransport(null);
+    }
+}
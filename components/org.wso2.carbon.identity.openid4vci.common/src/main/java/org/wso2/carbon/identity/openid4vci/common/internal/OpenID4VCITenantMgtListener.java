@@ -0,0 +1,47 @@
+package org.wso2.carbon.identity.openid4vci.common.internal;
+
+import org.wso2.carbon.identity.core.AbstractIdentityTenantMgtListener;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
+
+/**
+ * Tenant management listener publishing a tenant invalidation for tenants that are updated, renamed, deactivated
+ * or deleted, so that every node drops the cached OID4VCI state of the tenant.
+ */
+public class OpenID4VCITenantMgtListener extends AbstractIdentityTenantMgtListener {
+
+    @Override
+    public void onTenantUpdate(TenantInfoBean tenantInfoBean) {
+
+        publishTenantInvalidation(tenantInfoBean.getTenantDomain());
+    }
+
+    @Override
+    public void onTenantRename(int tenantId, String oldDomainName, String newDomainName) {
+
+        publishTenantInvalidation(oldDomainName);
+        publishTenantInvalidation(newDomainName);
+    }
+
+    @Override
+    public void onTenantDeactivation(int tenantId) {
+
+        publishTenantInvalidation(IdentityTenantUtil.getTenantDomain(tenantId));
+    }
+
+    @Override
+    public void onPreDelete(int tenantId) {
+
+        // The tenant domain can no longer be resolved once the tenant is deleted.
+        publishTenantInvalidation(IdentityTenantUtil.getTenantDomain(tenantId));
+    }
+
+    private static void publishTenantInvalidation(String tenantDomain) {
+
+        if (tenantDomain != null) {
+            DefaultInvalidationBus.getInstance().publish(InvalidationEvent.tenant(tenantDomain));
+        }
+    }
+}
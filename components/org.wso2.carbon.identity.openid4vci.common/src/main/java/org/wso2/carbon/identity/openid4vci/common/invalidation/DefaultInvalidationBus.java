@@ -0,0 +1,326 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invalidation bus delivering events to in-JVM listeners and an optional cluster transport.
+ *
+ * <p>Events are buffered per tenant for a short coalescing window. Duplicates within the window are delivered
+ * once, and a tenant whose window collects more distinct events than the collapse threshold, or a tenant
+ * invalidation, is delivered as a single tenant invalidation. A bulk import therefore costs each node one cache
+ * sweep rather than one per imported item.</p>
+ *
+ * <p>The delivery thread is started by {@link #start()}, which bundle activation calls, and stopped by
+ * {@link #shutdown()}. Events published while the bus is stopped are delivered at once, without coalescing.</p>
+ */
+public class DefaultInvalidationBus implements InvalidationBus {
+
+    private static final Log log = LogFactory.getLog(DefaultInvalidationBus.class);
+    private static final String COALESCE_WINDOW_PROPERTY = "OpenID4VCI.InvalidationBus.CoalesceWindow";
+    private static final String COLLAPSE_THRESHOLD_PROPERTY = "OpenID4VCI.InvalidationBus.TenantCollapseThreshold";
+    private static final long DEFAULT_COALESCE_WINDOW_MILLIS = 100;
+    private static final int DEFAULT_COLLAPSE_THRESHOLD = 64;
+    private static final DefaultInvalidationBus instance = new DefaultInvalidationBus(
+            Util.readPositiveLong(COALESCE_WINDOW_PROPERTY, DEFAULT_COALESCE_WINDOW_MILLIS),
+            (int) Util.readPositiveLong(COLLAPSE_THRESHOLD_PROPERTY, DEFAULT_COLLAPSE_THRESHOLD));
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long coalesceWindowMillis;
+    private final int collapseThreshold;
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, TenantBatch> pending = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService flusher;
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder deliveredEvents = new LongAdder();
+    private volatile InvalidationTransport transport;
+
+    /**
+     * Create a bus. The shared bus of the server is obtained with {@link #getInstance()}; separate instances are
+     * only useful to stand in for several nodes in one JVM. The bus delivers without coalescing until it is started.
+     *
+     * @param coalesceWindowMillis time events of a tenant are buffered before delivery
+     * @param collapseThreshold    distinct events of a tenant in a window above which they collapse into a tenant
+     *                             invalidation
+     */
+    public DefaultInvalidationBus(long coalesceWindowMillis, int collapseThreshold) {
+
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.collapseThreshold = collapseThreshold;
+    }
+
+    public static DefaultInvalidationBus getInstance() {
+
+        return instance;
+    }
+
+    @Override
+    public void publish(InvalidationEvent event) {
+
+        publishedEvents.increment();
+        while (true) {
+            ScheduledExecutorService currentFlusher = flusher;
+            if (currentFlusher == null) {
+                deliver(event.getTenantDomain(), Collections.singletonList(event));
+                return;
+            }
+            TenantBatch batch;
+            try {
+                batch = pending.computeIfAbsent(event.getTenantDomain(), tenant -> {
+                    TenantBatch created = new TenantBatch(tenant);
+                    currentFlusher.schedule(() -> flush(created), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+                    return created;
+                });
+            } catch (RejectedExecutionException e) {
+                // The bus was shut down since the flusher was read; deliver without coalescing.
+                deliver(event.getTenantDomain(), Collections.singletonList(event));
+                return;
+            }
+            if (batch.add(event)) {
+                return;
+            }
+            // The batch was flushed between lookup and add; retry with a fresh batch.
+        }
+    }
+
+    /**
+     * Publish an event to the other nodes of the cluster only, at once and without coalescing. Used for changes
+     * this node has already applied to its own caches.
+     *
+     * @param event invalidation event
+     */
+    public void publishToCluster(InvalidationEvent event) {
+
+        InvalidationTransport currentTransport = transport;
+        if (currentTransport == null) {
+            return;
+        }
+        publishedEvents.increment();
+        publishToCluster(currentTransport, event.getTenantDomain(), Collections.singletonList(event));
+    }
+
+    @Override
+    public void addListener(InvalidationListener listener) {
+
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(InvalidationListener listener) {
+
+        listeners.remove(listener);
+    }
+
+    /**
+     * Remove every listener.
+     */
+    public void clearListeners() {
+
+        listeners.clear();
+    }
+
+    /**
+     * Attach a cluster transport, replacing the current one.
+     *
+     * @param transport transport, or null to keep invalidations within this node
+     */
+    public void setTransport(InvalidationTransport transport) {
+
+        InvalidationTransport previous = this.transport;
+        if (previous != null) {
+            previous.stop();
+        }
+        this.transport = transport;
+        if (transport != null) {
+            transport.start(this::receive);
+        }
+    }
+
+    /**
+     * Check whether a cluster transport is attached, so that events reach the other nodes.
+     *
+     * @return true if a transport is attached
+     */
+    public boolean hasTransport() {
+
+        return transport != null;
+    }
+
+    public String getNodeId() {
+
+        return nodeId;
+    }
+
+    public long getPublishedEventCount() {
+
+        return publishedEvents.sum();
+    }
+
+    public long getDeliveredEventCount() {
+
+        return deliveredEvents.sum();
+    }
+
+    /**
+     * Deliver every pending event immediately.
+     */
+    public void flushAll() {
+
+        for (TenantBatch batch : pending.values()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Start the delivery thread, if it is not running.
+     */
+    public synchronized void start() {
+
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "oid4vci-invalidation-bus");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Deliver pending events, detach the transport and stop the delivery thread. The bus can be started again.
+     */
+    public void shutdown() {
+
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            stopped = flusher;
+            flusher = null;
+        }
+        flushAll();
+        setTransport(null);
+        if (stopped != null) {
+            stopped.shutdown();
+        }
+    }
+
+    private void receive(String originNodeId, List<InvalidationEvent> events) {
+
+        if (nodeId.equals(originNodeId)) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Received " + events.size() + " invalidation events from node: " + originNodeId);
+        }
+        deliverLocally(events);
+    }
+
+    private void flush(TenantBatch batch) {
+
+        pending.remove(batch.tenantDomain, batch);
+        List<InvalidationEvent> events = batch.close(collapseThreshold);
+        if (!events.isEmpty()) {
+            deliver(batch.tenantDomain, events);
+        }
+    }
+
+    private void deliver(String tenantDomain, List<InvalidationEvent> events) {
+
+        deliverLocally(events);
+
+        InvalidationTransport currentTransport = transport;
+        if (currentTransport != null) {
+            publishToCluster(currentTransport, tenantDomain, events);
+        }
+    }
+
+    private void publishToCluster(InvalidationTransport currentTransport, String tenantDomain,
+                                  List<InvalidationEvent> events) {
+
+        try {
+            currentTransport.publish(nodeId, events);
+        } catch (RuntimeException e) {
+            log.error("Error while publishing invalidation events of tenant: " + tenantDomain
+                    + " to the cluster", e);
+        }
+    }
+
+    private void deliverLocally(List<InvalidationEvent> events) {
+
+        for (InvalidationEvent event : events) {
+            for (InvalidationListener listener : listeners) {
+                try {
+                    listener.onInvalidation(event);
+                } catch (RuntimeException e) {
+                    log.error("Invalidation listener failed on event: " + event, e);
+                }
+            }
+            deliveredEvents.increment();
+        }
+    }
+
+    /**
+     * Events of one tenant collected during a coalescing window.
+     */
+    private static final class TenantBatch {
+
+        private final String tenantDomain;
+        private final Set<InvalidationEvent> events = new LinkedHashSet<>();
+        private boolean tenantInvalidated;
+        private boolean closed;
+
+        TenantBatch(String tenantDomain) {
+
+            this.tenantDomain = tenantDomain;
+        }
+
+        synchronized boolean add(InvalidationEvent event) {
+
+            if (closed) {
+                return false;
+            }
+            if (event.getType() == InvalidationEvent.Type.TENANT) {
+                tenantInvalidated = true;
+                events.removeIf(pendingEvent -> pendingEvent.getType() != InvalidationEvent.Type.SIGNING_KEY);
+            } else if (!tenantInvalidated || event.getType() == InvalidationEvent.Type.SIGNING_KEY) {
+                events.add(event);
+            }
+            return true;
+        }
+
+        synchronized List<InvalidationEvent> close(int collapseThreshold) {
+
+            if (closed) {
+                return Collections.emptyList();
+            }
+            closed = true;
+            List<InvalidationEvent> batch = new ArrayList<>(events.size() + 1);
+            if (tenantInvalidated || events.size() > collapseThreshold) {
+                batch.add(InvalidationEvent.tenant(tenantDomain));
+                // A tenant invalidation drops cached state but does not imply a key rotation.
+                for (InvalidationEvent event : events) {
+                    if (event.getType() == InvalidationEvent.Type.SIGNING_KEY) {
+                        batch.add(event);
+                    }
+                }
+            } else {
+                batch.addAll(events);
+            }
+            return batch;
+        }
+    }
+}
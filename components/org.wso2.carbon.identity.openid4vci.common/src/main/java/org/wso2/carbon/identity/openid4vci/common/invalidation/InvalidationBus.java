@@ -0,0 +1,20 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+/**
+ * Publishes invalidations of cached OID4VCI state to the listeners of this node and, when a transport is attached,
+ * to the other nodes of the cluster.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Publish an invalidation. Delivery is asynchronous and events of the same tenant published close together may
+     * be merged.
+     *
+     * @param event invalidation event
+     */
+    void publish(InvalidationEvent event);
+
+    void addListener(InvalidationListener listener);
+
+    void removeListener(InvalidationListener listener);
+}
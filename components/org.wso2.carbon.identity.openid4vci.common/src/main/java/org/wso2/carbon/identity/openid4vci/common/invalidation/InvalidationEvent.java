@@ -0,0 +1,130 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Invalidation of cached OID4VCI state of a tenant, published on the {@link InvalidationBus}.
+ */
+public final class InvalidationEvent implements Serializable {
+
+    private static final long serialVersionUID = 3527461398817465092L;
+
+    /**
+     * Kinds of state an event invalidates.
+     */
+    public enum Type {
+
+        /**
+         * Every cached entry of the tenant.
+         */
+        TENANT,
+
+        /**
+         * A credential configuration and everything derived from it, identified by the configuration id.
+         */
+        CONFIGURATION,
+
+        /**
+         * A credential offer, identified by the offer id.
+         */
+        OFFER,
+
+        /**
+         * The signing key of the tenant, after a key rotation.
+         */
+        SIGNING_KEY,
+
+        /**
+         * A revoked JWT access token, identified by its token id. When revocations are merged into a tenant event,
+         * every access token of the tenant issued until then is treated as possibly revoked.
+         */
+        ACCESS_TOKEN
+    }
+
+    private final Type type;
+    private final String tenantDomain;
+    private final String identifier;
+
+    private InvalidationEvent(Type type, String tenantDomain, String identifier) {
+
+        this.type = Objects.requireNonNull(type, "type");
+        this.tenantDomain = Objects.requireNonNull(tenantDomain, "tenantDomain");
+        this.identifier = identifier;
+    }
+
+    public static InvalidationEvent tenant(String tenantDomain) {
+
+        return new InvalidationEvent(Type.TENANT, tenantDomain, null);
+    }
+
+    public static InvalidationEvent configuration(String tenantDomain, String credentialConfigurationId) {
+
+        return new InvalidationEvent(Type.CONFIGURATION, tenantDomain,
+                Objects.requireNonNull(credentialConfigurationId, "credentialConfigurationId"));
+    }
+
+    public static InvalidationEvent offer(String tenantDomain, String offerId) {
+
+        return new InvalidationEvent(Type.OFFER, tenantDomain, Objects.requireNonNull(offerId, "offerId"));
+    }
+
+    public static InvalidationEvent accessToken(String tenantDomain, String tokenId) {
+
+        return new InvalidationEvent(Type.ACCESS_TOKEN, tenantDomain, Objects.requireNonNull(tokenId, "tokenId"));
+    }
+
+    public static InvalidationEvent signingKey(String tenantDomain) {
+
+        return new InvalidationEvent(Type.SIGNING_KEY, tenantDomain, null);
+    }
+
+    public Type getType() {
+
+        return type;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    /**
+     * Get the id of the invalidated configuration, offer or access token.
+     *
+     * @return configuration, offer or token id, or null for tenant and signing key events
+     */
+    public String getIdentifier() {
+
+        return identifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InvalidationEvent)) {
+            return false;
+        }
+        InvalidationEvent other = (InvalidationEvent) o;
+        return type == other.type && tenantDomain.equals(other.tenantDomain)
+                && Objects.equals(identifier, other.identifier);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(type, tenantDomain, identifier);
+    }
+
+    @Override
+    public String toString() {
+
+        if (identifier == null) {
+            return type + "[" + tenantDomain + "]";
+        }
+        return type + "[" + tenantDomain + ", " + identifier + "]";
+    }
+}
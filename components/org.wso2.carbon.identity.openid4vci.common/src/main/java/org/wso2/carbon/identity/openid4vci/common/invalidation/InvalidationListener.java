@@ -0,0 +1,16 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+/**
+ * Receives invalidation events delivered by the {@link InvalidationBus}. Listeners registered as OSGi services are
+ * added to the bus automatically.
+ */
+public interface InvalidationListener {
+
+    /**
+     * Drop the cached state covered by the event. Called on the bus delivery thread, so implementations must not
+     * block.
+     *
+     * @param event invalidation event
+     */
+    void onInvalidation(InvalidationEvent event);
+}
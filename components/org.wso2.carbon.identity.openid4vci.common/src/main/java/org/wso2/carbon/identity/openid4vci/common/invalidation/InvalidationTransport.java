@@ -0,0 +1,40 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidation events between the nodes of a cluster. Implementations registered as OSGi services are
+ * attached to the {@link InvalidationBus}; without one, invalidations stay within the node.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Start delivering batches published by other nodes.
+     *
+     * @param receiver receiver of the batches of other nodes, along with the id of the publishing node
+     */
+    void start(BatchReceiver receiver);
+
+    /**
+     * Publish a batch of events to the other nodes of the cluster.
+     *
+     * @param originNodeId id of the publishing node
+     * @param events       coalesced events
+     */
+    void publish(String originNodeId, List<InvalidationEvent> events);
+
+    /**
+     * Stop delivering batches to the receiver.
+     */
+    void stop();
+
+    /**
+     * Receiver of the batches published by other nodes.
+     */
+    @FunctionalInterface
+    interface BatchReceiver {
+
+        void receive(String originNodeId, List<InvalidationEvent> events);
+    }
+}
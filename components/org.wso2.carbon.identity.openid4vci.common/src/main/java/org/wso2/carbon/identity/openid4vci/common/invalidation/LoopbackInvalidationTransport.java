@@ -0,0 +1,60 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process transport connecting invalidation buses within one JVM, standing in for a cluster transport. Every
+ * transport created through {@link #newPeer()} joins the same loopback network, and a published batch is delivered
+ * synchronously to the receivers of all other started peers.
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private final List<LoopbackInvalidationTransport> network;
+    private volatile BatchReceiver receiver;
+
+    public LoopbackInvalidationTransport() {
+
+        this(new CopyOnWriteArrayList<>());
+    }
+
+    private LoopbackInvalidationTransport(List<LoopbackInvalidationTransport> network) {
+
+        this.network = network;
+    }
+
+    /**
+     * Create another transport on the same loopback network.
+     *
+     * @return new peer transport
+     */
+    public LoopbackInvalidationTransport newPeer() {
+
+        return new LoopbackInvalidationTransport(network);
+    }
+
+    @Override
+    public void start(BatchReceiver receiver) {
+
+        this.receiver = receiver;
+        network.add(this);
+    }
+
+    @Override
+    public void publish(String originNodeId, List<InvalidationEvent> events) {
+
+        for (LoopbackInvalidationTransport peer : network) {
+            BatchReceiver peerReceiver = peer.receiver;
+            if (peer != this && peerReceiver != null) {
+                peerReceiver.receive(originNodeId, events);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+
+        network.remove(this);
+        receiver = null;
+    }
+}
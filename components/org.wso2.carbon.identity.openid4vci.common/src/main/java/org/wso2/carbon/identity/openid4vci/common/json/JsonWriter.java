@@ -0,0 +1,356 @@
+package org.wso2.carbon.identity.openid4vci.common.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON writer that encodes UTF-8 straight into a growable byte buffer. It is meant for the small,
+ * fixed-shape documents returned by the endpoints, which it writes without building an intermediate map or going
+ * through reflection. Strings are escaped as required by RFC 8259; U+2028 and U+2029 are escaped as well so that
+ * the output is also safe to embed in JavaScript.
+ * <p>
+ * A writer is not thread safe. {@link #forCurrentThread()} hands out a writer whose buffer is reused by later
+ * documents written on the same thread, so the document must be copied out with {@link #toByteArray()} or
+ * {@link #toString()} before another document is started on that thread.
+ */
+public final class JsonWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final int MAX_DEPTH = 64;
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(JsonWriter::new);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int depth;
+    private long hasElements;
+    private boolean afterName;
+
+    /**
+     * Get the writer of the current thread, reset and ready for a new document.
+     *
+     * @return writer of the current thread
+     */
+    public static JsonWriter forCurrentThread() {
+
+        return WRITERS.get().reset();
+    }
+
+    /**
+     * Discard the written document. Buffers grown by a large document are released.
+     *
+     * @return this writer
+     */
+    public JsonWriter reset() {
+
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        length = 0;
+        depth = 0;
+        hasElements = 0;
+        afterName = false;
+        return this;
+    }
+
+    public JsonWriter beginObject() {
+
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() {
+
+        pop();
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() {
+
+        pop();
+        writeByte(']');
+        return this;
+    }
+
+    /**
+     * Write the name of the next member of the current object.
+     *
+     * @param name member name
+     * @return this writer
+     */
+    public JsonWriter name(String name) {
+
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("A member name must be written inside an object, before its value");
+        }
+        separate();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Write a string value, or null.
+     *
+     * @param value string value
+     * @return this writer
+     */
+    public JsonWriter value(String value) {
+
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+
+        beforeValue();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    /**
+     * Write a value that is already encoded as JSON, such as a document rendered from a template. The value is
+     * written as is, without validation.
+     *
+     * @param json encoded JSON value
+     * @return this writer
+     */
+    public JsonWriter rawValue(String json) {
+
+        beforeValue();
+        writeBytes(json.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Write a name and a string value. Null values are omitted.
+     *
+     * @param name  member name
+     * @param value string value
+     * @return this writer
+     */
+    public JsonWriter member(String name, String value) {
+
+        return value == null ? this : name(name).value(value);
+    }
+
+    /**
+     * Copy the written document.
+     *
+     * @return UTF-8 encoded document
+     */
+    public byte[] toByteArray() {
+
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Write the document to a stream.
+     *
+     * @param out stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+
+        out.write(buffer, 0, length);
+    }
+
+    public int size() {
+
+        return length;
+    }
+
+    @Override
+    public String toString() {
+
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void beforeValue() {
+
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            separate();
+        }
+    }
+
+    private void separate() {
+
+        long bit = 1L << (depth - 1);
+        if ((hasElements & bit) != 0) {
+            writeByte(',');
+        } else {
+            hasElements |= bit;
+        }
+    }
+
+    private void push() {
+
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON documents deeper than " + MAX_DEPTH + " levels are not supported");
+        }
+        depth++;
+        hasElements &= ~(1L << (depth - 1));
+    }
+
+    private void pop() {
+
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("No object or array is open, or a member has no value");
+        }
+        depth--;
+    }
+
+    private void writeString(String value) {
+
+        int stringLength = value.length();
+        // Every char takes at most 6 bytes, either as an escape or as half of a surrogate pair.
+        ensureCapacity(stringLength * 6 + 2);
+        byte[] out = buffer;
+        int position = length;
+        out[position++] = '"';
+        for (int i = 0; i < stringLength; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    out[position++] = (byte) c;
+                } else {
+                    position = writeAsciiEscape(out, position, c);
+                }
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | (c >> 6));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < stringLength
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[position++] = (byte) (0xF0 | (codePoint >> 18));
+                out[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c) || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                position = writeUnicodeEscape(out, position, c);
+            } else {
+                out[position++] = (byte) (0xE0 | (c >> 12));
+                out[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[position++] = '"';
+        length = position;
+    }
+
+    private static int writeAsciiEscape(byte[] out, int position, char c) {
+
+        char escaped;
+        switch (c) {
+            case '"':
+                escaped = '"';
+                break;
+            case '\\':
+                escaped = '\\';
+                break;
+            case '\n':
+                escaped = 'n';
+                break;
+            case '\r':
+                escaped = 'r';
+                break;
+            case '\t':
+                escaped = 't';
+                break;
+            case '\b':
+                escaped = 'b';
+                break;
+            case '\f':
+                escaped = 'f';
+                break;
+            default:
+                return writeUnicodeEscape(out, position, c);
+        }
+        out[position++] = '\\';
+        out[position++] = (byte) escaped;
+        return position;
+    }
+
+    private static int writeUnicodeEscape(byte[] out, int position, char c) {
+
+        out[position++] = '\\';
+        out[position++] = 'u';
+        out[position++] = HEX[(c >> 12) & 0xF];
+        out[position++] = HEX[(c >> 8) & 0xF];
+        out[position++] = HEX[(c >> 4) & 0xF];
+        out[position++] = HEX[c & 0xF];
+        return position;
+    }
+
+    private void writeAscii(String value) {
+
+        int valueLength = value.length();
+        ensureCapacity(valueLength);
+        for (int i = 0; i < valueLength; i++) {
+            buffer[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(char c) {
+
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int additional) {
+
+        int required = length + additional;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.wso2.carbon.identity.openid4vci.common.tenant;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Typed key of a slot of per-tenant state held by the {@link TenantStateManager}. A key carries the estimator used
+ * to charge the values stored under it against the memory budget.
+ *
+ * @param <V> type of the value stored under the key
+ */
+public final class TenantStateKey<V> {
+
+    private final String name;
+    private final Class<V> type;
+    private final ToLongFunction<? super V> sizeEstimator;
+
+    public TenantStateKey(String name, Class<V> type, ToLongFunction<? super V> sizeEstimator) {
+
+        this.name = name;
+        this.type = type;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    V cast(Object value) {
+
+        return type.cast(value);
+    }
+
+    long estimateSize(V value) {
+
+        return Math.max(0L, sizeEstimator.applyAsLong(value));
+    }
+
+    /**
+     * Estimate the retained size of a string, including the string object and its character array.
+     *
+     * @param value string to estimate, may be null
+     * @return estimated size in bytes
+     */
+    public static long estimateStringSize(String value) {
+
+        return value == null ? 0L : 40L + 2L * value.length();
+    }
+
+    @Override
+    public String toString() {
+
+        return name;
+    }
+}
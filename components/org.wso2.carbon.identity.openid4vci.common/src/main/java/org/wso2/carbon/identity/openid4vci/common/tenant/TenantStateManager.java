@@ -0,0 +1,322 @@
+package org.wso2.carbon.identity.openid4vci.common.tenant;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Central holder of the cached per-tenant state of the OID4VCI components. Values are stored in typed slots of a
+ * tenant and charged against a global memory budget using the estimator of their key. When the budget is exceeded
+ * whole tenants are evicted, least recently used first, so an idle tenant gives up all of its state at once and
+ * rebuilds it on its next request.
+ */
+public class TenantStateManager implements TenantStateManagerMBean {
+
+    private static final Log log = LogFactory.getLog(TenantStateManager.class);
+    private static final String MAX_BYTES_PROPERTY = "OpenID4VCI.TenantState.MaxBytes";
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final String MBEAN_NAME = "org.wso2.carbon.identity.openid4vci:type=TenantStateManager";
+    private static final long TENANT_OVERHEAD_BYTES = 256;
+    private static final long SLOT_OVERHEAD_BYTES = 64;
+    private static final int LOW_WATERMARK_PERCENT = 90;
+    private static final TenantStateManager instance = new TenantStateManager(
+            Util.readPositiveLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+
+    private final long maxBytes;
+    private final ConcurrentMap<String, TenantState> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final LongAdder evictedTenants = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    TenantStateManager(long maxBytes) {
+
+        this.maxBytes = maxBytes;
+    }
+
+    public static TenantStateManager getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get a value of a tenant, marking the tenant as recently used.
+     *
+     * @param tenantDomain tenant domain
+     * @param key          slot of the value
+     * @param <V>          type of the value
+     * @return the value, or null if the tenant has no value in the slot
+     */
+    public <V> V get(String tenantDomain, TenantStateKey<V> key) {
+
+        TenantState state = tenants.get(tenantDomain);
+        if (state == null) {
+            misses.increment();
+            return null;
+        }
+        state.lastAccessNanos = System.nanoTime();
+        Slot slot = state.slots.get(key.getName());
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return key.cast(slot.value);
+    }
+
+    /**
+     * Store a value of a tenant, replacing any previous value in the slot. Storing may evict other tenants if the
+     * memory budget is exceeded.
+     *
+     * @param tenantDomain tenant domain
+     * @param key          slot of the value
+     * @param value        value to store
+     * @param <V>          type of the value
+     */
+    public <V> void put(String tenantDomain, TenantStateKey<V> key, V value) {
+
+        if (tenantDomain == null || value == null) {
+            return;
+        }
+        Slot slot = new Slot(value, SLOT_OVERHEAD_BYTES + key.estimateSize(value));
+        while (true) {
+            TenantState state = tenants.computeIfAbsent(tenantDomain, TenantState::new);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                if (state.bytes == 0) {
+                    charge(state, TENANT_OVERHEAD_BYTES);
+                }
+                Slot previous = state.slots.put(key.getName(), slot);
+                charge(state, slot.bytes - (previous == null ? 0 : previous.bytes));
+                state.lastAccessNanos = System.nanoTime();
+            }
+            break;
+        }
+        if (residentBytes.get() > maxBytes) {
+            evictIdleTenants(tenantDomain);
+        }
+    }
+
+    /**
+     * Remove a single value of a tenant.
+     *
+     * @param tenantDomain tenant domain
+     * @param key          slot of the value
+     */
+    public void remove(String tenantDomain, TenantStateKey<?> key) {
+
+        TenantState state = tenantDomain == null ? null : tenants.get(tenantDomain);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            Slot previous = state.slots.remove(key.getName());
+            if (previous != null) {
+                charge(state, -previous.bytes);
+            }
+        }
+    }
+
+    /**
+     * Drop all state of a tenant, for example when the tenant is updated or deleted.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void evictTenant(String tenantDomain) {
+
+        TenantState state = tenantDomain == null ? null : tenants.get(tenantDomain);
+        if (state != null && release(state) >= 0 && log.isDebugEnabled()) {
+            log.debug("Dropped the OID4VCI state of tenant: " + tenantDomain);
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        for (TenantState state : tenants.values()) {
+            release(state);
+        }
+    }
+
+    @Override
+    public long getMaxBytes() {
+
+        return maxBytes;
+    }
+
+    @Override
+    public long getResidentBytes() {
+
+        return residentBytes.get();
+    }
+
+    @Override
+    public int getResidentTenants() {
+
+        return tenants.size();
+    }
+
+    @Override
+    public long getEvictedTenants() {
+
+        return evictedTenants.sum();
+    }
+
+    @Override
+    public long getEvictedBytes() {
+
+        return evictedBytes.sum();
+    }
+
+    @Override
+    public long getHits() {
+
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+
+        return misses.sum();
+    }
+
+    /**
+     * Register this manager with the platform MBean server.
+     */
+    public void registerMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the tenant state manager MBean", e);
+        }
+    }
+
+    /**
+     * Unregister this manager from the platform MBean server.
+     */
+    public void unregisterMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while unregistering the tenant state manager MBean", e);
+        }
+    }
+
+    private void evictIdleTenants(String activeTenant) {
+
+        // Only one thread evicts at a time; others proceed, as the budget is allowed to overshoot briefly.
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long target = maxBytes / 100 * LOW_WATERMARK_PERCENT;
+            if (residentBytes.get() <= maxBytes) {
+                return;
+            }
+            List<Map.Entry<String, TenantState>> candidates = new ArrayList<>(tenants.entrySet());
+            candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos));
+            int evicted = 0;
+            for (Map.Entry<String, TenantState> candidate : candidates) {
+                if (residentBytes.get() <= target) {
+                    break;
+                }
+                if (!candidate.getKey().equals(activeTenant)) {
+                    long bytes = release(candidate.getValue());
+                    if (bytes >= 0) {
+                        evictedTenants.increment();
+                        evictedBytes.add(bytes);
+                        evicted++;
+                    }
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Evicted the OID4VCI state of " + evicted + " idle tenants. Resident bytes: "
+                        + residentBytes.get() + " of " + maxBytes);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private long release(TenantState state) {
+
+        long released;
+        synchronized (state) {
+            if (state.evicted) {
+                return -1;
+            }
+            state.evicted = true;
+            released = state.bytes;
+            residentBytes.addAndGet(-released);
+            state.bytes = 0;
+            state.slots.clear();
+        }
+        tenants.remove(state.tenantDomain, state);
+        return released;
+    }
+
+    private void charge(TenantState state, long delta) {
+
+        state.bytes += delta;
+        residentBytes.addAndGet(delta);
+    }
+
+    /**
+     * State of one resident tenant. Slots are written under the monitor of the state so that its byte count stays
+     * consistent with the global count when the tenant is evicted concurrently.
+     */
+    private static final class TenantState {
+
+        private final String tenantDomain;
+        private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+        private volatile long lastAccessNanos = System.nanoTime();
+        private long bytes;
+        private boolean evicted;
+
+        private TenantState(String tenantDomain) {
+
+            this.tenantDomain = tenantDomain;
+        }
+    }
+
+    private static final class Slot {
+
+        private final Object value;
+        private final long bytes;
+
+        private Slot(Object value, long bytes) {
+
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
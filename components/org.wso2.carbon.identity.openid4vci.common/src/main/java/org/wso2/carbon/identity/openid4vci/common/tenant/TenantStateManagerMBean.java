@@ -0,0 +1,26 @@
+package org.wso2.carbon.identity.openid4vci.common.tenant;
+
+/**
+ * JMX view of the per-tenant state held by the {@link TenantStateManager}.
+ */
+public interface TenantStateManagerMBean {
+
+    long getMaxBytes();
+
+    long getResidentBytes();
+
+    int getResidentTenants();
+
+    long getEvictedTenants();
+
+    long getEvictedBytes();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Evict all resident tenants.
+     */
+    void clear();
+}
@@ -0,0 +1,98 @@
+package org.wso2.carbon.identity.openid4vci.common.url;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.constant.Constants;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateKey;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateManager;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+
+import java.util.Objects;
+
+/**
+ * Registry of the OID4VCI service URLs of each tenant. URLs are built once per tenant with the service URL builder
+ * and reused until the tenant is updated, the server host name changes or the tenant is evicted by the
+ * {@link TenantStateManager}.
+ */
+public class TenantServiceUrlRegistry {
+
+    private static final Log log = LogFactory.getLog(TenantServiceUrlRegistry.class);
+    private static final TenantServiceUrlRegistry instance = new TenantServiceUrlRegistry();
+
+    private static final TenantStateKey<TenantServiceUrls> URLS_KEY = new TenantStateKey<>("service-urls",
+            TenantServiceUrls.class, TenantServiceUrlRegistry::estimateSize);
+
+    private final TenantStateManager stateManager = TenantStateManager.getInstance();
+
+    private TenantServiceUrlRegistry() {
+
+    }
+
+    public static TenantServiceUrlRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the service URLs of a tenant, building them if they are not registered yet or were built for a different
+     * host name.
+     *
+     * @param tenantDomain tenant domain
+     * @return service URLs of the tenant
+     * @throws URLBuilderException if the URLs cannot be built
+     */
+    public TenantServiceUrls getUrls(String tenantDomain) throws URLBuilderException {
+
+        String effectiveTenant = tenantDomain == null || tenantDomain.trim().isEmpty()
+                ? MultitenantConstants.SUPER_TENANT_DOMAIN_NAME : tenantDomain;
+        String hostName = IdentityUtil.getHostName();
+        TenantServiceUrls urls = stateManager.get(effectiveTenant, URLS_KEY);
+        if (urls != null && Objects.equals(urls.getHostName(), hostName)) {
+            return urls;
+        }
+
+        urls = buildUrls(effectiveTenant, hostName);
+        stateManager.put(effectiveTenant, URLS_KEY, urls);
+        return urls;
+    }
+
+    /**
+     * Drop the registered URLs of a tenant, so that they are rebuilt on next use.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void invalidateTenant(String tenantDomain) {
+
+        if (tenantDomain == null) {
+            return;
+        }
+        stateManager.remove(tenantDomain, URLS_KEY);
+        if (log.isDebugEnabled()) {
+            log.debug("Invalidated OID4VCI service URLs of tenant: " + tenantDomain);
+        }
+    }
+
+    private static long estimateSize(TenantServiceUrls urls) {
+
+        return 48 + TenantStateKey.estimateStringSize(urls.getHostName())
+                + TenantStateKey.estimateStringSize(urls.getCredentialIssuerUrl())
+                + TenantStateKey.estimateStringSize(urls.getCredentialEndpointUrl())
+                + TenantStateKey.estimateStringSize(urls.getAuthorizationServerUrl())
+                + TenantStateKey.estimateStringSize(urls.getCredentialOfferUrl(""));
+    }
+
+    private static TenantServiceUrls buildUrls(String tenantDomain, String hostName) throws URLBuilderException {
+
+        return new TenantServiceUrls(tenantDomain, hostName,
+                Util.buildServiceUrl(tenantDomain, Constants.CONTEXT_OPENID4VCI).getAbsolutePublicURL(),
+                Util.buildServiceUrl(tenantDomain, Constants.CONTEXT_OPENID4VCI, Constants.SEGMENT_CREDENTIAL)
+                        .getAbsolutePublicURL(),
+                Util.buildServiceUrl(tenantDomain, Constants.SEGMENT_OAUTH2, Constants.SEGMENT_TOKEN)
+                        .getAbsolutePublicURL(),
+                Util.buildServiceUrl(tenantDomain, Constants.CONTEXT_OPENID4VCI, Constants.SEGMENT_CREDENTIAL_OFFER)
+                        .getAbsolutePublicURL());
+    }
+}
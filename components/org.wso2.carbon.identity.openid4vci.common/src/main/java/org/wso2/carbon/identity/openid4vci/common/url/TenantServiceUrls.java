@@ -0,0 +1,66 @@
+package org.wso2.carbon.identity.openid4vci.common.url;
+
+/**
+ * Absolute public URLs of the OID4VCI services of a single tenant.
+ */
+public class TenantServiceUrls {
+
+    private final String tenantDomain;
+    private final String hostName;
+    private final String credentialIssuerUrl;
+    private final String credentialEndpointUrl;
+    private final String authorizationServerUrl;
+    private final String credentialOfferUrl;
+
+    public TenantServiceUrls(String tenantDomain, String hostName, String credentialIssuerUrl,
+                             String credentialEndpointUrl, String authorizationServerUrl, String credentialOfferUrl) {
+
+        this.tenantDomain = tenantDomain;
+        this.hostName = hostName;
+        this.credentialIssuerUrl = credentialIssuerUrl;
+        this.credentialEndpointUrl = credentialEndpointUrl;
+        this.authorizationServerUrl = authorizationServerUrl;
+        this.credentialOfferUrl = credentialOfferUrl;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    /**
+     * Get the server host name the URLs were built with.
+     *
+     * @return host name
+     */
+    public String getHostName() {
+
+        return hostName;
+    }
+
+    public String getCredentialIssuerUrl() {
+
+        return credentialIssuerUrl;
+    }
+
+    public String getCredentialEndpointUrl() {
+
+        return credentialEndpointUrl;
+    }
+
+    public String getAuthorizationServerUrl() {
+
+        return authorizationServerUrl;
+    }
+
+    /**
+     * Get the URL a credential offer is served from, suitable for use as a credential_offer_uri.
+     *
+     * @param offerId offer id
+     * @return credential offer URL
+     */
+    public String getCredentialOfferUrl(String offerId) {
+
+        return credentialOfferUrl + "/" + offerId;
+    }
+}
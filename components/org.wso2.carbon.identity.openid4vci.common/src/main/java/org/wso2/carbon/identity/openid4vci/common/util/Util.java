@@ -1,15 +1,21 @@
 package org.wso2.carbon.identity.openid4vci.common.util;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.core.ServiceURL;
 import org.wso2.carbon.identity.core.ServiceURLBuilder;
 import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 
 /**
  * Utility class for OID4VCI component.
  */
 public class Util {
 
+    private static final Log log = LogFactory.getLog(Util.class);
+
     public static ServiceURL buildServiceUrl(String tenantDomain, String... pathSegments) throws URLBuilderException {
 
         ServiceURLBuilder builder = ServiceURLBuilder.create().addPath(pathSegments);
@@ -18,4 +24,30 @@ public class Util {
         }
         return builder.build();
     }
+
+    /**
+     * Read a positive number from the identity configuration, warning about values that are not one.
+     *
+     * @param property     configuration property
+     * @param defaultValue value used when the property is not set or is not a positive number
+     * @return configured value, or the default
+     */
+    public static long readPositiveLong(String property, long defaultValue) {
+
+        String value = IdentityUtil.getProperty(property);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the warning below.
+        }
+        log.warn("Invalid value configured for " + property + ": " + value + ". Using the default of "
+                + defaultValue + ".");
+        return defaultValue;
+    }
 }
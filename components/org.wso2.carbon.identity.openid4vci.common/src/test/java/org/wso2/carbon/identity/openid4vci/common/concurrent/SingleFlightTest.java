@@ -0,0 +1,191 @@
+package org.wso2.carbon.identity.openid4vci.common.concurrent;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests coalescing concurrent loads of a key and propagating their outcome to every waiting caller.
+ */
+public class SingleFlightTest {
+
+    private static final int WAITERS = 8;
+
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp() {
+
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCoalescesConcurrentLoadsOfKey() throws Exception {
+
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(10, TimeUnit.SECONDS);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.load("key", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "value";
+        }, IOException::new));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        List<Future<String>> waiters = submitWaiters(singleFlight, loads);
+        awaitCoalesced(singleFlight, WAITERS);
+        release.countDown();
+
+        assertEquals(leader.get(10, TimeUnit.SECONDS), "value");
+        for (Future<String> waiter : waiters) {
+            assertEquals(waiter.get(10, TimeUnit.SECONDS), "value");
+        }
+        assertEquals(loads.get(), 1);
+        assertEquals(singleFlight.getInFlightCount(), 0);
+    }
+
+    @Test
+    public void testStartsNewLoadOnceLoadCompletes() throws IOException {
+
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(10, TimeUnit.SECONDS);
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load("key", loads::incrementAndGet, IOException::new);
+        int second = singleFlight.load("key", loads::incrementAndGet, IOException::new);
+
+        assertEquals(second, 2);
+        assertEquals(singleFlight.getCoalescedCalls(), 0);
+    }
+
+    @Test
+    public void testPropagatesCheckedFailureToAllWaiters() throws Exception {
+
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(10, TimeUnit.SECONDS);
+        IOException failure = new IOException("load failed");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load("key", () -> {
+            loading.countDown();
+            release.await();
+            throw failure;
+        }, IOException::new));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        List<Future<String>> waiters = submitWaiters(singleFlight, new AtomicInteger());
+        awaitCoalesced(singleFlight, WAITERS);
+        release.countDown();
+
+        assertSame(failureOf(leader), failure);
+        for (Future<String> waiter : waiters) {
+            // Waiters receive the failure through their error mapper.
+            assertSame(failureOf(waiter).getCause(), failure);
+        }
+        assertEquals(singleFlight.getInFlightCount(), 0);
+    }
+
+    @Test
+    public void testRethrowsRuntimeFailureToAllWaitersUnchanged() throws Exception {
+
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(10, TimeUnit.SECONDS);
+        IllegalStateException failure = new IllegalStateException("load failed");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load("key", () -> {
+            loading.countDown();
+            release.await();
+            throw failure;
+        }, IOException::new));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        List<Future<String>> waiters = submitWaiters(singleFlight, new AtomicInteger());
+        awaitCoalesced(singleFlight, WAITERS);
+        release.countDown();
+
+        assertSame(failureOf(leader), failure);
+        for (Future<String> waiter : waiters) {
+            assertSame(failureOf(waiter), failure);
+        }
+    }
+
+    @Test
+    public void testMapsWaitTimeout() throws Exception {
+
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(50, TimeUnit.MILLISECONDS);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load("key", () -> {
+            loading.countDown();
+            release.await();
+            return "value";
+        }, IOException::new));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        try {
+            singleFlight.load("key", () -> "other", IOException::new);
+            fail("Expected the wait to time out");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        release.countDown();
+        assertEquals(leader.get(10, TimeUnit.SECONDS), "value");
+    }
+
+    private List<Future<String>> submitWaiters(SingleFlight<String, String> singleFlight, AtomicInteger loads) {
+
+        List<Future<String>> waiters = new ArrayList<>(WAITERS);
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(executor.submit(() -> singleFlight.load("key", () -> {
+                loads.incrementAndGet();
+                return "unexpected";
+            }, IOException::new)));
+        }
+        return waiters;
+    }
+
+    private static void awaitCoalesced(SingleFlight<?, ?> singleFlight, long calls) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (singleFlight.getCoalescedCalls() < calls) {
+            if (System.nanoTime() > deadline) {
+                fail("Callers did not start waiting for the load in flight");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static Throwable failureOf(Future<String> future) throws Exception {
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("Expected the load to fail");
+        return null;
+    }
+}
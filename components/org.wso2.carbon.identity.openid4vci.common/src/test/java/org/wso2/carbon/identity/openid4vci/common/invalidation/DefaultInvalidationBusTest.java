@@ -0,0 +1,167 @@
+package org.wso2.carbon.identity.openid4vci.common.invalidation;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests coalescing and delivering invalidation events between two buses joined by a loopback transport.
+ */
+public class DefaultInvalidationBusTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String OTHER_TENANT = "example.com";
+    private static final int COLLAPSE_THRESHOLD = 4;
+    // Long enough that only flushAll() closes a window during a test.
+    private static final long COALESCE_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private DefaultInvalidationBus node;
+    private DefaultInvalidationBus peer;
+    private RecordingListener nodeEvents;
+    private RecordingListener peerEvents;
+
+    @BeforeMethod
+    public void setUp() {
+
+        LoopbackInvalidationTransport transport = new LoopbackInvalidationTransport();
+        node = newBus(transport);
+        peer = newBus(transport.newPeer());
+        nodeEvents = new RecordingListener();
+        peerEvents = new RecordingListener();
+        node.addListener(nodeEvents);
+        peer.addListener(peerEvents);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        node.shutdown();
+        peer.shutdown();
+    }
+
+    @Test
+    public void testDeliversDuplicatesWithinWindowOnce() {
+
+        InvalidationEvent offer = InvalidationEvent.offer(TENANT, "offer-1");
+        node.publish(offer);
+        node.publish(offer);
+        node.publish(InvalidationEvent.offer(TENANT, "offer-1"));
+        assertTrue(nodeEvents.events.isEmpty(), "Events must be buffered until the window closes");
+
+        node.flushAll();
+
+        assertEquals(nodeEvents.events, Collections.singletonList(offer));
+        assertEquals(peerEvents.events, Collections.singletonList(offer));
+        assertEquals(node.getPublishedEventCount(), 3);
+        assertEquals(node.getDeliveredEventCount(), 1);
+    }
+
+    @Test
+    public void testDeliversDistinctEventsBelowThresholdInOrder() {
+
+        List<InvalidationEvent> published = Arrays.asList(InvalidationEvent.offer(TENANT, "offer-1"),
+                InvalidationEvent.configuration(TENANT, "config-1"), InvalidationEvent.accessToken(TENANT, "jti-1"));
+        for (InvalidationEvent event : published) {
+            node.publish(event);
+        }
+        node.flushAll();
+
+        assertEquals(nodeEvents.events, published);
+        assertEquals(peerEvents.events, published);
+    }
+
+    @Test
+    public void testCollapsesEventsAboveThresholdIntoTenantInvalidation() {
+
+        for (int i = 0; i <= COLLAPSE_THRESHOLD; i++) {
+            node.publish(InvalidationEvent.offer(TENANT, "offer-" + i));
+        }
+        node.publish(InvalidationEvent.offer(OTHER_TENANT, "offer-0"));
+        node.flushAll();
+
+        assertEquals(nodeEvents.forTenant(TENANT), Collections.singletonList(InvalidationEvent.tenant(TENANT)));
+        assertEquals(peerEvents.forTenant(TENANT), Collections.singletonList(InvalidationEvent.tenant(TENANT)));
+        assertEquals(nodeEvents.forTenant(OTHER_TENANT),
+                Collections.singletonList(InvalidationEvent.offer(OTHER_TENANT, "offer-0")));
+    }
+
+    @Test
+    public void testTenantInvalidationAbsorbsEventsButKeepsKeyRotation() {
+
+        node.publish(InvalidationEvent.offer(TENANT, "offer-1"));
+        node.publish(InvalidationEvent.signingKey(TENANT));
+        node.publish(InvalidationEvent.tenant(TENANT));
+        node.publish(InvalidationEvent.configuration(TENANT, "config-1"));
+        node.flushAll();
+
+        List<InvalidationEvent> expected = Arrays.asList(InvalidationEvent.tenant(TENANT),
+                InvalidationEvent.signingKey(TENANT));
+        assertEquals(nodeEvents.events, expected);
+        assertEquals(peerEvents.events, expected);
+    }
+
+    @Test
+    public void testDeliversEventsFromPeerOnlyOnce() {
+
+        InvalidationEvent event = InvalidationEvent.signingKey(TENANT);
+        peer.publish(event);
+        peer.flushAll();
+        node.flushAll();
+
+        assertEquals(nodeEvents.events, Collections.singletonList(event));
+        assertEquals(peerEvents.events, Collections.singletonList(event));
+    }
+
+    @Test
+    public void testDeliversAtOnceWhileStopped() {
+
+        DefaultInvalidationBus stopped = new DefaultInvalidationBus(COALESCE_WINDOW_MILLIS, COLLAPSE_THRESHOLD);
+        RecordingListener listener = new RecordingListener();
+        stopped.addListener(listener);
+
+        InvalidationEvent event = InvalidationEvent.offer(TENANT, "offer-1");
+        stopped.publish(event);
+        stopped.publish(event);
+
+        assertEquals(listener.events, Arrays.asList(event, event));
+    }
+
+    private static DefaultInvalidationBus newBus(InvalidationTransport transport) {
+
+        DefaultInvalidationBus bus = new DefaultInvalidationBus(COALESCE_WINDOW_MILLIS, COLLAPSE_THRESHOLD);
+        bus.setTransport(transport);
+        bus.start();
+        return bus;
+    }
+
+    private static final class RecordingListener implements InvalidationListener {
+
+        private final List<InvalidationEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onInvalidation(InvalidationEvent event) {
+
+            events.add(event);
+        }
+
+        private List<InvalidationEvent> forTenant(String tenantDomain) {
+
+            List<InvalidationEvent> tenantEvents = new CopyOnWriteArrayList<>();
+            for (InvalidationEvent event : events) {
+                if (event.getTenantDomain().equals(tenantDomain)) {
+                    tenantEvents.add(event);
+                }
+            }
+            return tenantEvents;
+        }
+    }
+}
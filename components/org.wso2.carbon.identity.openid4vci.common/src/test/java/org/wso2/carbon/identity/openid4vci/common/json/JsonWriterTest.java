@@ -0,0 +1,125 @@
+package org.wso2.carbon.identity.openid4vci.common.json;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests escaping and UTF-8 encoding of strings and the structure of documents written by the streaming JSON writer.
+ */
+public class JsonWriterTest {
+
+    @Test
+    public void testEscapesQuotesBackslashesAndShortControlCharacters() {
+
+        assertEquals(write("\"\\\n\r\t\b\f"), "\"\\\"\\\\\\n\\r\\t\\b\\f\"");
+    }
+
+    @Test
+    public void testEscapesOtherControlCharactersAsUnicode() {
+
+        assertEquals(write("a\u0000b\u0001c\u001fd\u007fe"), "\"a\\u0000b\\u0001c\\u001fd\u007fe\"");
+    }
+
+    @Test
+    public void testEscapesJavaScriptLineTerminators() {
+
+        assertEquals(write("a\u2028b\u2029c"), "\"a\\u2028b\\u2029c\"");
+    }
+
+    @Test
+    public void testEncodesSurrogatePairAsFourByteSequence() {
+
+        String emoji = new String(Character.toChars(0x1F600));
+        byte[] encoded = JsonWriter.forCurrentThread().value(emoji).toByteArray();
+
+        assertEquals(encoded, new byte[]{'"', (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, '"'});
+        assertEquals(new String(encoded, StandardCharsets.UTF_8), "\"" + emoji + "\"");
+    }
+
+    @Test
+    public void testEscapesUnpairedSurrogates() {
+
+        assertEquals(write("a\ud800b"), "\"a\\ud800b\"");
+        assertEquals(write("a\udc00b"), "\"a\\udc00b\"");
+        assertEquals(write("\udc00\ud800"), "\"\\udc00\\ud800\"");
+        assertEquals(write("a\ud800"), "\"a\\ud800\"");
+    }
+
+    @Test
+    public void testEncodesTwoAndThreeByteCharacters() {
+
+        byte[] encoded = JsonWriter.forCurrentThread().value("\u00e9\u20ac").toByteArray();
+
+        assertEquals(encoded, new byte[]{'"', (byte) 0xC3, (byte) 0xA9, (byte) 0xE2, (byte) 0x82, (byte) 0xAC, '"'});
+    }
+
+    @Test
+    public void testWritesNestedDocument() {
+
+        String document = JsonWriter.forCurrentThread()
+                .beginObject()
+                .member("a", "1")
+                .member("omitted", null)
+                .name("b").beginArray().value(1).value(true).nullValue().beginObject().endObject().endArray()
+                .name("c").rawValue("{\"d\":[]}")
+                .name("e").value(false)
+                .endObject()
+                .toString();
+
+        assertEquals(document, "{\"a\":\"1\",\"b\":[1,true,null,{}],\"c\":{\"d\":[]},\"e\":false}");
+    }
+
+    @Test
+    public void testRejectsNameOutsideObjectOrBeforeValue() {
+
+        try {
+            JsonWriter.forCurrentThread().name("a");
+            fail("Expected a name outside an object to be rejected");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        try {
+            JsonWriter.forCurrentThread().beginObject().name("a").name("b");
+            fail("Expected a name without a value to be rejected");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        try {
+            JsonWriter.forCurrentThread().beginObject().name("a").endObject();
+            fail("Expected closing an object with a member without a value to be rejected");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testReusesWriterOfThreadForNextDocument() throws Exception {
+
+        JsonWriter writer = JsonWriter.forCurrentThread();
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100 * 1024; i++) {
+            large.append('x');
+        }
+        writer.beginArray().value(large.toString()).endArray();
+
+        JsonWriter next = JsonWriter.forCurrentThread();
+        next.beginArray().value(1).endArray();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        next.writeTo(out);
+
+        assertSame(next, writer);
+        assertEquals(next.size(), 3);
+        assertEquals(out.toString("UTF-8"), "[1]");
+    }
+
+    private static String write(String value) {
+
+        return JsonWriter.forCurrentThread().value(value).toString();
+    }
+}
@@ -0,0 +1,97 @@
+package org.wso2.carbon.identity.openid4vci.common.tenant;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests charging tenant state against the memory budget and evicting least recently used tenants.
+ */
+public class TenantStateManagerTest {
+
+    // A tenant holding one value of VALUE_BYTES is charged exactly TENANT_BYTES.
+    private static final long TENANT_BYTES = 2000;
+    private static final long VALUE_BYTES = TENANT_BYTES - 256 - 64;
+    private static final TenantStateKey<Long> SIZED = new TenantStateKey<>("sized", Long.class, Long::longValue);
+    private static final TenantStateKey<Long> OTHER = new TenantStateKey<>("other", Long.class, Long::longValue);
+
+    @Test
+    public void testChargesValuesAndReleasesRemovedValues() {
+
+        TenantStateManager manager = new TenantStateManager(TENANT_BYTES * 10);
+
+        manager.put("tenant-1", SIZED, VALUE_BYTES);
+        assertEquals(manager.getResidentBytes(), TENANT_BYTES);
+        manager.put("tenant-1", SIZED, VALUE_BYTES + 100);
+        assertEquals(manager.getResidentBytes(), TENANT_BYTES + 100);
+        manager.put("tenant-1", OTHER, 36L);
+        assertEquals(manager.getResidentBytes(), TENANT_BYTES + 200);
+
+        manager.remove("tenant-1", OTHER);
+        assertEquals(manager.getResidentBytes(), TENANT_BYTES + 100);
+        assertNull(manager.get("tenant-1", OTHER));
+        assertEquals(manager.get("tenant-1", SIZED), Long.valueOf(VALUE_BYTES + 100));
+
+        manager.evictTenant("tenant-1");
+        assertEquals(manager.getResidentBytes(), 0);
+        assertEquals(manager.getResidentTenants(), 0);
+        assertNull(manager.get("tenant-1", SIZED));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedTenantsDownToLowWatermark() throws InterruptedException {
+
+        TenantStateManager manager = new TenantStateManager(TENANT_BYTES * 5);
+        for (int i = 0; i < 5; i++) {
+            manager.put("tenant-" + i, SIZED, VALUE_BYTES);
+            Thread.sleep(2);
+        }
+        assertEquals(manager.getResidentBytes(), TENANT_BYTES * 5);
+        assertEquals(manager.getEvictedTenants(), 0);
+
+        // Reading a tenant makes it the most recently used one.
+        assertNotNull(manager.get("tenant-0", SIZED));
+        Thread.sleep(2);
+        manager.put("tenant-5", SIZED, VALUE_BYTES);
+
+        // Eviction stops once the resident bytes fall to 90% of the budget.
+        assertNull(manager.get("tenant-1", SIZED));
+        assertNull(manager.get("tenant-2", SIZED));
+        assertNotNull(manager.get("tenant-0", SIZED));
+        assertNotNull(manager.get("tenant-3", SIZED));
+        assertNotNull(manager.get("tenant-4", SIZED));
+        assertNotNull(manager.get("tenant-5", SIZED));
+        assertEquals(manager.getResidentBytes(), TENANT_BYTES * 4);
+        assertEquals(manager.getEvictedTenants(), 2);
+        assertEquals(manager.getEvictedBytes(), TENANT_BYTES * 2);
+    }
+
+    @Test
+    public void testDoesNotEvictTenantBeingWritten() {
+
+        TenantStateManager manager = new TenantStateManager(TENANT_BYTES);
+        manager.put("tenant-1", SIZED, VALUE_BYTES);
+
+        manager.put("tenant-2", SIZED, VALUE_BYTES * 2);
+
+        assertNull(manager.get("tenant-1", SIZED));
+        assertNotNull(manager.get("tenant-2", SIZED));
+        assertEquals(manager.getResidentTenants(), 1);
+    }
+
+    @Test
+    public void testCountsHitsAndMisses() {
+
+        TenantStateManager manager = new TenantStateManager(TENANT_BYTES);
+        manager.put("tenant-1", SIZED, 1L);
+
+        manager.get("tenant-1", SIZED);
+        manager.get("tenant-1", OTHER);
+        manager.get("tenant-2", SIZED);
+
+        assertEquals(manager.getHits(), 1);
+        assertEquals(manager.getMisses(), 2);
+    }
+}
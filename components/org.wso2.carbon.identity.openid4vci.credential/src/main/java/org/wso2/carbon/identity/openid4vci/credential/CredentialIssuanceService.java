@@ -7,21 +7,39 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.SingleFlight;
+import org.wso2.carbon.identity.openid4vci.credential.claims.ClaimRetrievalGuard;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.DPoPProofValidator;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.VerifiedDPoPProof;
 import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceReqDTO;
 import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceRespDTO;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
 import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
 import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuer;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuerContext;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuancePipeline;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuancePipelineContext;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuanceStage;
+import org.wso2.carbon.identity.openid4vci.credential.ratelimit.IssuanceRateLimiter;
+import org.wso2.carbon.identity.openid4vci.credential.response.CredentialIssuanceResponse;
+import org.wso2.carbon.identity.openid4vci.credential.scheduling.TenantIssuanceScheduler;
+import org.wso2.carbon.identity.openid4vci.credential.stats.IssuanceStageStatistics;
+import org.wso2.carbon.identity.openid4vci.credential.token.LocalAccessTokenValidator;
 import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 import org.wso2.carbon.identity.vc.config.management.exception.VCConfigMgtException;
 import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
-import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Default implementation for credential issuance processing.
@@ -30,80 +48,293 @@ public class CredentialIssuanceService {
 
     private static final Log log = LogFactory.getLog(CredentialIssuanceService.class);
     private final CredentialIssuer credentialIssuer;
+    private final IssuancePipeline issuancePipeline;
+    private final SingleFlight<String, VCCredentialConfiguration> configurationLoads = new SingleFlight<>();
 
     public CredentialIssuanceService() {
         this.credentialIssuer = new CredentialIssuer();
+        this.issuancePipeline = new IssuancePipeline(IssuanceStageStatistics.getInstance());
     }
 
     public CredentialIssuanceRespDTO issueCredential(CredentialIssuanceReqDTO reqDTO)
             throws CredentialIssuanceException {
 
+        try {
+            return issueCredentialAsync(reqDTO).join();
+        } catch (RuntimeException e) {
+            Throwable cause = CompletableFutures.unwrap(e);
+            if (cause instanceof CredentialIssuanceException) {
+                throw (CredentialIssuanceException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CredentialIssuanceException("Error issuing credential", cause);
+        }
+    }
+
+    /**
+     * Issue a credential without blocking on admission or credential signing. The access token is verified and
+     * the issuance quotas are charged on the calling thread before an issuance slot is requested. The stages up to
+     * claim retrieval run on the calling thread when an issuance slot is free, and on a scheduler worker once the
+     * request is admitted otherwise. The slot is returned as soon as signing has been started; signing and response
+     * serialization complete on the thread that completes the format handler.
+     *
+     * @param reqDTO credential issuance request
+     * @return future completed with the issuance response, or failed with a {@link CredentialIssuanceException}
+     */
+    public CompletableFuture<CredentialIssuanceRespDTO> issueCredentialAsync(CredentialIssuanceReqDTO reqDTO) {
+
         if (reqDTO == null) {
-            throw new CredentialIssuanceException("Credential issuance request cannot be null");
+            return CompletableFutures.failed(
+                    new CredentialIssuanceException("Credential issuance request cannot be null"));
         }
 
         VCCredentialConfigManager configManager =
                 CredentialIssuanceDataHolder.getInstance().getVcCredentialConfigManager();
         if (configManager == null) {
-            throw new CredentialIssuanceException("VC credential configuration manager is not available");
+            return CompletableFutures.failed(
+                    new CredentialIssuanceException("VC credential configuration manager is not available"));
         }
 
-        AccessTokenDO accessTokenDO;
+        TenantIssuanceScheduler scheduler = TenantIssuanceScheduler.getInstance();
+        IssuancePipelineContext context = new IssuancePipelineContext(reqDTO);
+        CompletableFuture<Void> admission;
         try {
-            accessTokenDO = CredentialIssuanceDataHolder.getInstance().getTokenProvider()
-                    .getVerifiedAccessToken(reqDTO.getToken(), false);
-        } catch (IdentityOAuth2Exception e) {
-            throw new CredentialIssuanceException("Error verifying access token", e);
+            issuancePipeline.executeStage(IssuanceStage.TOKEN_VERIFICATION, context, this::verifyAccessToken);
+            // Quotas are charged before a slot is requested, so that requests over quota neither queue nor hold a
+            // slot, and only once the caller is authenticated, so that unauthenticated requests cannot drain them.
+            IssuanceRateLimiter.getInstance().acquire(reqDTO.getTenantDomain(),
+                    reqDTO.getCredentialConfigurationId());
+            admission = scheduler.acquire(reqDTO.getTenantDomain());
+        } catch (CredentialIssuanceException | RuntimeException e) {
+            admission = CompletableFutures.failed(e);
         }
+        return admission.thenCompose(admitted -> {
+            try {
+                return executeStages(context, configManager);
+            } finally {
+                // Signing in flight is bounded by the signer, so the slot only covers the stages run here.
+                scheduler.release(reqDTO.getTenantDomain());
+            }
+        }).handle((ignored, failure) -> {
+            issuancePipeline.complete(context);
+            if (failure != null) {
+                throw CompletableFutures.propagate(CompletableFutures.unwrap(failure));
+            }
+            CredentialIssuanceRespDTO respDTO = new CredentialIssuanceRespDTO();
+            respDTO.setCredential(context.getCredential());
+            respDTO.setResponsePayload(context.getResponsePayload());
+            return respDTO;
+        });
+    }
+
+    /**
+     * Get the per-stage latency statistics of credential issuance.
+     *
+     * @return issuance stage statistics
+     */
+    public IssuanceStageStatistics getStageStatistics() {
 
-        String[] scopes  = accessTokenDO.getScope();
-        AuthenticatedUser authenticatedUser = accessTokenDO.getAuthzUser();
+        return issuancePipeline.getStatistics();
+    }
+
+    /**
+     * Run the issuance stages of an authenticated and admitted request up to the start of signing.
+     *
+     * @return future completed once the credential is signed and the response serialized
+     */
+    private CompletableFuture<Void> executeStages(IssuancePipelineContext context,
+                                                  VCCredentialConfigManager configManager) {
 
         try {
-            List<VCCredentialConfiguration> credentialConfigurations = configManager.list(reqDTO.getTenantDomain());
-            VCCredentialConfiguration credentialConfiguration = credentialConfigurations.stream()
-                    .filter(config -> config.getIdentifier()
-                            .equals(reqDTO.getCredentialConfigurationId())).findFirst().orElseThrow(() ->
-                            new CredentialIssuanceException("unknown credential configuration: No matching " +
-                                    "credential configuration found for ID: " + reqDTO.getCredentialConfigurationId()));
-            credentialConfiguration = configManager.get(credentialConfiguration.getId(), reqDTO.getTenantDomain());
+            issuancePipeline.executeStage(IssuanceStage.CONFIGURATION_RESOLUTION, context,
+                    ctx -> resolveCredentialConfiguration(ctx, configManager));
+            issuancePipeline.executeStage(IssuanceStage.SCOPE_VALIDATION, context,
+                    ctx -> validateScope(ctx.getScopes(), ctx.getCredentialConfiguration().getScope()));
+            issuancePipeline.executeStage(IssuanceStage.REALM_RESOLUTION, context, this::resolveUserRealm);
+            issuancePipeline.executeStage(IssuanceStage.CLAIM_RETRIEVAL, context, this::retrieveUserClaims);
+            return issuancePipeline.executeStageAsync(IssuanceStage.CREDENTIAL_SIGNING, context,
+                    this::signCredential)
+                    .thenRun(() -> {
+                        try {
+                            issuancePipeline.executeStage(IssuanceStage.RESPONSE_SERIALIZATION, context,
+                                    this::serializeResponse);
+                        } catch (CredentialIssuanceException e) {
+                            throw CompletableFutures.propagate(e);
+                        }
+                    });
+        } catch (CredentialIssuanceException | RuntimeException e) {
+            return CompletableFutures.failed(e);
+        }
+    }
 
-            // Validate scope - check if the required scope exists in JWT token
-            validateScope(scopes, credentialConfiguration.getScope());
+    private void verifyAccessToken(IssuancePipelineContext context) throws CredentialIssuanceException {
 
+        String token = context.getRequest().getToken();
+        AccessTokenDO accessTokenDO = LocalAccessTokenValidator.getInstance().validate(context.getTenantDomain(),
+                token);
+        if (accessTokenDO == null) {
+            try {
+                accessTokenDO = CredentialIssuanceDataHolder.getInstance().getTokenProvider()
+                        .getVerifiedAccessToken(token, false);
+            } catch (IdentityOAuth2Exception e) {
+                throw new CredentialIssuanceException("Error verifying access token", e);
+            }
+        }
+        validateTokenBinding(accessTokenDO, context.getRequest());
+        validateAttestedClient(accessTokenDO, context.getRequest());
 
-            UserRealm realm = IdentityTenantUtil.getRealm(reqDTO.getTenantDomain(),
-                    authenticatedUser.toFullQualifiedUsername());
+        context.setScopes(accessTokenDO.getScope());
+        context.setAuthenticatedUser(accessTokenDO.getAuthzUser());
+    }
 
-            Map<String, String> claims = realm.getUserStoreManager().getUserClaimValues(MultitenantUtils
-                            .getTenantAwareUsername(authenticatedUser.toFullQualifiedUsername()),
-                    credentialConfiguration.getClaims().toArray(new String[0]), null);
-            claims.put("id", authenticatedUser.getUserId());
+    /**
+     * Check that a DPoP-bound access token is presented with the DPoP scheme and a proof signed with the bound key,
+     * and that the DPoP scheme is not used with an unbound token. The proof is then registered for replay detection.
+     */
+    private static void validateTokenBinding(AccessTokenDO accessTokenDO, CredentialIssuanceReqDTO request)
+            throws CredentialIssuanceException {
 
-            CredentialIssuerContext issuerContext = new CredentialIssuerContext();
-            issuerContext.setConfigurationId(credentialConfiguration.getId());
-            issuerContext.setCredentialConfiguration(credentialConfiguration);
-            issuerContext.setTenantDomain(reqDTO.getTenantDomain());
-            issuerContext.setClaims(claims);
+        TokenBinding tokenBinding = accessTokenDO.getTokenBinding();
+        boolean dpopBound = tokenBinding != null
+                && DPoPProofValidator.DPOP_BINDING_TYPE.equals(tokenBinding.getBindingType());
+        if (dpopBound != request.isDpopScheme()) {
+            throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+        }
+        if (!dpopBound) {
+            return;
+        }
+        VerifiedDPoPProof proof = request.getDpopProof();
+        if (proof == null || !tokenBinding.getBindingValue().equals(proof.getKeyThumbprint())) {
+            throw CredentialIssuanceClientErrors.DPOP_KEY_MISMATCH;
+        }
+        DPoPProofValidator.getInstance().register(proof);
+    }
 
-            String credential = credentialIssuer.issueCredential(issuerContext);
-            CredentialIssuanceRespDTO respDTO = new CredentialIssuanceRespDTO();
-            respDTO.setCredential(credential);
-            return respDTO;
+    /**
+     * Check that the client attestation presented with the request is issued for the client the access token was
+     * issued to.
+     */
+    private static void validateAttestedClient(AccessTokenDO accessTokenDO, CredentialIssuanceReqDTO request)
+            throws CredentialIssuanceException {
 
+        String attestedClientId = request.getAttestedClientId();
+        if (attestedClientId != null && !attestedClientId.equals(accessTokenDO.getConsumerKey())) {
+            throw CredentialIssuanceClientErrors.CLIENT_ATTESTATION_MISMATCH;
+        }
+    }
+
+    private void resolveCredentialConfiguration(IssuancePipelineContext context,
+                                                VCCredentialConfigManager configManager)
+            throws CredentialIssuanceException {
+
+        String tenantDomain = context.getTenantDomain();
+        String credentialConfigurationId = context.getRequest().getCredentialConfigurationId();
+        // Requests of the same tenant and configuration arriving together share a single lookup.
+        context.setCredentialConfiguration(configurationLoads.load(tenantDomain + ":" + credentialConfigurationId,
+                () -> loadCredentialConfiguration(configManager, tenantDomain, credentialConfigurationId),
+                e -> toCoalescedLoadException(e, "Error retrieving credential configurations for tenant: "
+                        + tenantDomain)));
+    }
+
+    private VCCredentialConfiguration loadCredentialConfiguration(VCCredentialConfigManager configManager,
+                                                                  String tenantDomain,
+                                                                  String credentialConfigurationId)
+            throws CredentialIssuanceException {
 
+        try {
+            List<VCCredentialConfiguration> credentialConfigurations = configManager.list(tenantDomain);
+            VCCredentialConfiguration credentialConfiguration = null;
+            for (VCCredentialConfiguration config : credentialConfigurations) {
+                if (config.getIdentifier().equals(credentialConfigurationId)) {
+                    credentialConfiguration = config;
+                    break;
+                }
+            }
+            if (credentialConfiguration == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("No matching credential configuration found for ID: " + credentialConfigurationId
+                            + " in tenant: " + tenantDomain);
+                }
+                throw CredentialIssuanceClientErrors.UNKNOWN_CREDENTIAL_CONFIGURATION;
+            }
+            return configManager.get(credentialConfiguration.getId(), tenantDomain);
         } catch (VCConfigMgtException e) {
             throw new CredentialIssuanceException("Error retrieving credential configurations for tenant: "
-                    + reqDTO.getTenantDomain(), e);
+                    + tenantDomain, e);
+        }
+    }
+
+    private void resolveUserRealm(IssuancePipelineContext context) throws CredentialIssuanceException {
+
+        try {
+            context.setUserRealm(IdentityTenantUtil.getRealm(context.getTenantDomain(),
+                    context.getAuthenticatedUser().toFullQualifiedUsername()));
+        } catch (IdentityException e) {
+            throw new CredentialIssuanceException("Error retrieving user realm for tenant: "
+                    + context.getTenantDomain(), e);
+        }
+    }
+
+    private void retrieveUserClaims(IssuancePipelineContext context) throws CredentialIssuanceException {
+
+        AuthenticatedUser authenticatedUser = context.getAuthenticatedUser();
+        VCCredentialConfiguration credentialConfiguration = context.getCredentialConfiguration();
+        String userStoreDomain = authenticatedUser.getUserStoreDomain() != null
+                ? authenticatedUser.getUserStoreDomain() : UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+        try {
+            String userId = authenticatedUser.getUserId();
+            UserStoreManager userStoreManager = context.getUserRealm().getUserStoreManager();
+            String username = MultitenantUtils.getTenantAwareUsername(authenticatedUser.toFullQualifiedUsername());
+            String[] claimUris = credentialConfiguration.getClaims().toArray(new String[0]);
+            Map<String, String> claims = ClaimRetrievalGuard.getInstance().retrieve(context.getTenantDomain(),
+                    userStoreDomain, userId + ":" + credentialConfiguration.getId(),
+                    () -> userStoreManager.getUserClaimValues(username, claimUris, null));
+            claims.put("id", userId);
+            context.setClaims(claims);
         } catch (IdentityException e) {
             throw new CredentialIssuanceException("Error retrieving user realm for tenant: "
-                    + reqDTO.getTenantDomain(), e);
+                    + context.getTenantDomain(), e);
         } catch (UserStoreException e) {
             throw new CredentialIssuanceException("Error retrieving user claims for user: "
                     + authenticatedUser.toFullQualifiedUsername(), e);
         }
     }
 
+    private CompletableFuture<Void> signCredential(IssuancePipelineContext context) {
+
+        VCCredentialConfiguration credentialConfiguration = context.getCredentialConfiguration();
+        CredentialIssuerContext issuerContext = new CredentialIssuerContext();
+        issuerContext.setConfigurationId(credentialConfiguration.getId());
+        issuerContext.setCredentialConfiguration(credentialConfiguration);
+        issuerContext.setTenantDomain(context.getTenantDomain());
+        issuerContext.setClaims(context.getClaims());
+
+        return credentialIssuer.issueCredentialAsync(issuerContext).thenAccept(credential -> context.setCredential(
+                credential == null ? null : new String(credential, StandardCharsets.UTF_8)));
+    }
+
+    private void serializeResponse(IssuancePipelineContext context) throws CredentialIssuanceException {
+
+        context.setResponsePayload(CredentialIssuanceResponse.builder()
+                .credential(context.getCredential())
+                .build()
+                .toJson());
+    }
+
+    /**
+     * Convert the failure observed while waiting for a lookup started by another request. Failures of the lookup
+     * itself are rethrown as they are, so that they keep their error code.
+     */
+    private static CredentialIssuanceException toCoalescedLoadException(Throwable e, String message) {
+
+        if (e instanceof CredentialIssuanceException) {
+            return (CredentialIssuanceException) e;
+        }
+        return new CredentialIssuanceException(message, e);
+    }
+
     /**
      * Validates if the required scope from credential configuration exists in the JWT token scope.
      *
@@ -122,7 +353,9 @@ public class CredentialIssuanceService {
             }
         }
 
-        throw new CredentialIssuanceException("Access token does not contain the required scope: "
-                + requiredScope);
+        if (log.isDebugEnabled()) {
+            log.debug("Required scope: " + requiredScope + " is not present in access token scopes");
+        }
+        throw CredentialIssuanceClientErrors.INSUFFICIENT_SCOPE;
     }
 }
@@ -0,0 +1,169 @@
+package org.wso2.carbon.identity.openid4vci.credential.attestation;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Attester certificates of the client attestation trust store. Attesters are distrusted by removing them from the
+ * trust store file, so the file is checked once per check interval and read again when its modification time or size
+ * has changed. Every load starts a new generation, by which the caches built on earlier certificates tell that they
+ * are stale.
+ */
+class AttesterTrustStore {
+
+    private static final Log log = LogFactory.getLog(AttesterTrustStore.class);
+
+    private final String location;
+    private final String type;
+    private final String password;
+    private final long checkIntervalNanos;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Create a trust store that is read from a file on first use.
+     *
+     * @param location           path of the trust store file, or null if none is configured
+     * @param type               key store type of the trust store
+     * @param password           password of the trust store, or null
+     * @param checkIntervalNanos interval at which the trust store file is checked for changes
+     */
+    AttesterTrustStore(String location, String type, String password, long checkIntervalNanos) {
+
+        this.location = StringUtils.trimToNull(location);
+        this.type = type;
+        this.password = password;
+        this.checkIntervalNanos = checkIntervalNanos;
+    }
+
+    /**
+     * Check the trust store file for changes once the check interval has passed since the last check, and read it
+     * again if it has changed.
+     *
+     * @return generation of the trust anchors in use
+     */
+    long refresh() {
+
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.checkedAtNanos < checkIntervalNanos) {
+            return current.generation;
+        }
+        synchronized (this) {
+            current = snapshot;
+            long now = System.nanoTime();
+            if (current != null && now - current.checkedAtNanos < checkIntervalNanos) {
+                return current.generation;
+            }
+            File file = location == null ? null : new File(location);
+            long lastModified = file == null ? 0 : file.lastModified();
+            long length = file == null ? 0 : file.length();
+            if (current != null && current.lastModified == lastModified && current.length == length) {
+                snapshot = new Snapshot(current.anchors, current.generation, lastModified, length, now);
+                return current.generation;
+            }
+            Set<TrustAnchor> anchors = load();
+            long generation = current == null ? 0 : current.generation + 1;
+            snapshot = new Snapshot(anchors, generation, lastModified, length, now);
+            if (current != null) {
+                log.info("Reloaded the client attestation trust store: " + location + " with " + anchors.size()
+                        + " trusted certificates.");
+            }
+            return generation;
+        }
+    }
+
+    /**
+     * Get the trust anchors of the last load of the trust store.
+     *
+     * @return trusted attester certificates, empty if the trust store is missing or cannot be read
+     */
+    Set<TrustAnchor> getTrustAnchors() {
+
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current.anchors;
+    }
+
+    /**
+     * Get the generation of the last load of the trust store, without checking the file for changes.
+     *
+     * @return generation of the trust anchors in use, or -1 if the trust store has not been read yet
+     */
+    long getGeneration() {
+
+        Snapshot current = snapshot;
+        return current == null ? -1 : current.generation;
+    }
+
+    /**
+     * Read the attester certificates of the trust store. A dedicated trust store is required, since the certificate
+     * authorities of the server trust store are not attesters.
+     */
+    private Set<TrustAnchor> load() {
+
+        if (location == null) {
+            log.warn("No trust store is configured for client attestations. Client attestations will be rejected.");
+            return Collections.emptySet();
+        }
+        try (InputStream inputStream = new FileInputStream(location)) {
+            KeyStore trustStore = KeyStore.getInstance(type);
+            trustStore.load(inputStream, password == null ? null : password.toCharArray());
+            Set<TrustAnchor> anchors = new HashSet<>();
+            for (Enumeration<String> aliases = trustStore.aliases(); aliases.hasMoreElements(); ) {
+                String alias = aliases.nextElement();
+                Certificate certificate = trustStore.getCertificate(alias);
+                if (trustStore.isCertificateEntry(alias) && certificate instanceof X509Certificate) {
+                    anchors.add(new TrustAnchor((X509Certificate) certificate, null));
+                }
+            }
+            if (anchors.isEmpty()) {
+                log.warn("The client attestation trust store " + location + " has no trusted certificates. Client "
+                        + "attestations will be rejected.");
+            }
+            return Collections.unmodifiableSet(anchors);
+        } catch (IOException | GeneralSecurityException e) {
+            log.error("Error loading the client attestation trust store: " + location
+                    + ". Client attestations will be rejected.", e);
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Trust anchors of one load of the trust store, with the file state they were read from.
+     */
+    private static final class Snapshot {
+
+        private final Set<TrustAnchor> anchors;
+        private final long generation;
+        private final long lastModified;
+        private final long length;
+        private final long checkedAtNanos;
+
+        private Snapshot(Set<TrustAnchor> anchors, long generation, long lastModified, long length,
+                         long checkedAtNanos) {
+
+            this.anchors = anchors;
+            this.generation = generation;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checkedAtNanos = checkedAtNanos;
+        }
+    }
+}
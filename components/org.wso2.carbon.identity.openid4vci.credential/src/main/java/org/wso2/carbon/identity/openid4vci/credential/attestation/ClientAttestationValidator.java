@@ -0,0 +1,569 @@
+package org.wso2.carbon.identity.openid4vci.credential.attestation;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrls;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.replay.ProofReplayCache;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies attestation-based client authentication of wallets: a client attestation JWT, issued to a wallet
+ * instance by a trusted attester and sent in {@value #ATTESTATION_HEADER}, and a proof of possession of the attested
+ * instance key sent in {@value #ATTESTATION_POP_HEADER}. Attesters are trusted through the certificates of the
+ * configured trust store, which must chain the {@code x5c} of the attestation header.
+ * <p>
+ * A wallet instance presents the same attestation until it expires, so validating the attester chain on every
+ * request would be wasted work. Attester keys are cached by the encoded attestation header once their chain has
+ * been validated, and verified attestations are cached until their expiry together with a verifier for the instance
+ * key. Repeat requests of a wallet instance then only verify the signature and claims of the proof of possession.
+ * Attestations whose chain failed validation are remembered for a while too, so that a wallet presenting an untrusted
+ * attestation again is rejected without validating the chain again.
+ * <p>
+ * The trust store is checked for changes at an interval. Once it has been read again, the cached attester keys,
+ * attestations and failed chains are dropped, so that a distrusted attester is rejected and a newly trusted one
+ * accepted from the next request on.
+ */
+public class ClientAttestationValidator {
+
+    /**
+     * Request header carrying the client attestation JWT.
+     */
+    public static final String ATTESTATION_HEADER = "OAuth-Client-Attestation";
+
+    /**
+     * Request header carrying the proof of possession of the attested instance key.
+     */
+    public static final String ATTESTATION_POP_HEADER = "OAuth-Client-Attestation-PoP";
+
+    private static final Log log = LogFactory.getLog(ClientAttestationValidator.class);
+    private static final String REQUIRED_PROPERTY = "OpenID4VCI.ClientAttestation.Required";
+    private static final String TRUST_STORE_LOCATION_PROPERTY = "OpenID4VCI.ClientAttestation.TrustStore.Location";
+    private static final String TRUST_STORE_PASSWORD_PROPERTY = "OpenID4VCI.ClientAttestation.TrustStore.Password";
+    private static final String TRUST_STORE_TYPE_PROPERTY = "OpenID4VCI.ClientAttestation.TrustStore.Type";
+    private static final String TRUST_STORE_CHECK_INTERVAL_PROPERTY =
+            "OpenID4VCI.ClientAttestation.TrustStore.CheckInterval";
+    private static final String FAILED_CHAIN_RETENTION_PROPERTY = "OpenID4VCI.ClientAttestation.FailedChainRetention";
+    private static final String CLOCK_SKEW_PROPERTY = "OpenID4VCI.ClientAttestation.ClockSkew";
+    private static final String PROOF_LIFETIME_PROPERTY = "OpenID4VCI.ClientAttestation.ProofLifetime";
+    private static final String MAX_TRACKED_PROOFS_PROPERTY = "OpenID4VCI.ClientAttestation.MaxTrackedProofs";
+    private static final String CACHE_SIZE_PROPERTY = "OpenID4VCI.ClientAttestation.CacheSize";
+    private static final String DEFAULT_TRUST_STORE_TYPE = "JKS";
+    private static final long DEFAULT_TRUST_STORE_CHECK_INTERVAL_SECONDS = 60;
+    private static final long DEFAULT_FAILED_CHAIN_RETENTION_SECONDS = 60;
+    private static final long DEFAULT_CLOCK_SKEW_SECONDS = 60;
+    private static final long DEFAULT_PROOF_LIFETIME_SECONDS = 60;
+    private static final long DEFAULT_MAX_TRACKED_PROOFS = 1_000_000;
+    private static final long DEFAULT_CACHE_SIZE = 10_000;
+    private static final String ATTESTATION_JWT_TYPE = "oauth-client-attestation+jwt";
+    private static final String ATTESTATION_POP_JWT_TYPE = "oauth-client-attestation-pop+jwt";
+    private static final String CONFIRMATION_CLAIM = "cnf";
+    private static final String JWK_CONFIRMATION = "jwk";
+    private static final List<JWSAlgorithm> SUPPORTED_ALGORITHMS = Arrays.asList(JWSAlgorithm.RS256,
+            JWSAlgorithm.PS256, JWSAlgorithm.ES256);
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+    private static final ClientAttestationValidator instance = new ClientAttestationValidator();
+
+    private final boolean required;
+    private final AttesterTrustStore trustStore;
+    private final long clockSkewMillis;
+    private final long proofLifetimeMillis;
+    private final long failedChainRetentionMillis;
+    private final int cacheSize;
+    private final ProofReplayCache replayCache;
+    private final ConcurrentMap<String, AttesterKey> attesterKeys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, VerifiedClientAttestation> attestations = new ConcurrentHashMap<>();
+    // Attestation headers whose chain failed validation, with the time until which they are rejected outright.
+    private final ConcurrentMap<String, Long> failedChains = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, JWSHeader> proofHeaders = new ConcurrentHashMap<>();
+    private volatile long cachedGeneration;
+
+    private ClientAttestationValidator() {
+
+        this(Boolean.parseBoolean(IdentityUtil.getProperty(REQUIRED_PROPERTY)),
+                new AttesterTrustStore(IdentityUtil.getProperty(TRUST_STORE_LOCATION_PROPERTY),
+                        StringUtils.defaultIfBlank(IdentityUtil.getProperty(TRUST_STORE_TYPE_PROPERTY),
+                                DEFAULT_TRUST_STORE_TYPE),
+                        IdentityUtil.getProperty(TRUST_STORE_PASSWORD_PROPERTY),
+                        TimeUnit.SECONDS.toNanos(Util.readPositiveLong(TRUST_STORE_CHECK_INTERVAL_PROPERTY,
+                                DEFAULT_TRUST_STORE_CHECK_INTERVAL_SECONDS))),
+                TimeUnit.SECONDS.toMillis(Util.readPositiveLong(CLOCK_SKEW_PROPERTY, DEFAULT_CLOCK_SKEW_SECONDS)),
+                TimeUnit.SECONDS.toMillis(Util.readPositiveLong(PROOF_LIFETIME_PROPERTY,
+                        DEFAULT_PROOF_LIFETIME_SECONDS)),
+                TimeUnit.SECONDS.toMillis(Util.readPositiveLong(FAILED_CHAIN_RETENTION_PROPERTY,
+                        DEFAULT_FAILED_CHAIN_RETENTION_SECONDS)),
+                (int) Util.readPositiveLong(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE),
+                (int) Util.readPositiveLong(MAX_TRACKED_PROOFS_PROPERTY, DEFAULT_MAX_TRACKED_PROOFS));
+    }
+
+    ClientAttestationValidator(boolean required, AttesterTrustStore trustStore, long clockSkewMillis,
+                               long proofLifetimeMillis, long failedChainRetentionMillis, int cacheSize,
+                               int maxTrackedProofs) {
+
+        this.required = required;
+        this.trustStore = trustStore;
+        this.clockSkewMillis = clockSkewMillis;
+        this.proofLifetimeMillis = proofLifetimeMillis;
+        this.failedChainRetentionMillis = failedChainRetentionMillis;
+        this.cacheSize = cacheSize;
+        // A proof is accepted from one lifetime before to one lifetime after its issue time.
+        this.replayCache = new ProofReplayCache(2 * proofLifetimeMillis, maxTrackedProofs);
+    }
+
+    public static ClientAttestationValidator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Verify the client attestation and proof of possession presented with a request to a tenant.
+     *
+     * @param attestation  value of the {@value #ATTESTATION_HEADER} header, or null
+     * @param proof        value of the {@value #ATTESTATION_POP_HEADER} header, or null
+     * @param tenantDomain tenant domain the request is sent to
+     * @return the verified attestation, or null if the request carries none and attestation is not required
+     * @throws CredentialIssuanceException if the attestation or its proof of possession is missing or invalid
+     */
+    public VerifiedClientAttestation verify(String attestation, String proof, String tenantDomain)
+            throws CredentialIssuanceException {
+
+        if (attestation == null && proof == null) {
+            if (required) {
+                throw invalidAttestation("the request carries no client attestation");
+            }
+            return null;
+        }
+        if (attestation == null) {
+            throw invalidAttestation("the request carries a proof of possession without an attestation");
+        }
+        if (proof == null) {
+            throw invalidProof("the request carries an attestation without a proof of possession");
+        }
+        VerifiedClientAttestation verified = resolveAttestation(attestation);
+        verifyProof(verified, proof, tenantDomain);
+        return verified;
+    }
+
+    private VerifiedClientAttestation resolveAttestation(String attestation) throws CredentialIssuanceException {
+
+        long now = System.currentTimeMillis();
+        long generation = trustStore.refresh();
+        dropCachesOfEarlierGeneration(generation);
+        VerifiedClientAttestation verified = attestations.get(attestation);
+        if (verified != null) {
+            if (verified.getExpiresAtMillis() + clockSkewMillis > now) {
+                return verified;
+            }
+            attestations.remove(attestation, verified);
+            throw invalidAttestation("the attestation has expired");
+        }
+        verified = verifyAttestation(attestation, now, generation);
+        cache(attestations, attestation, verified, generation);
+        return verified;
+    }
+
+    private VerifiedClientAttestation verifyAttestation(String attestation, long now, long generation)
+            throws CredentialIssuanceException {
+
+        int[] separators = separators(attestation);
+        if (separators == null) {
+            throw invalidAttestation("the attestation is not a compact JWS");
+        }
+        String encodedHeader = attestation.substring(0, separators[0]);
+        AttesterKey key = attesterKeys.get(encodedHeader);
+        if (key == null || key.notAfterMillis <= now) {
+            if (key != null) {
+                attesterKeys.remove(encodedHeader, key);
+            }
+            Long failedUntil = failedChains.get(encodedHeader);
+            if (failedUntil != null) {
+                if (failedUntil > now) {
+                    throw invalidAttestation("the attestation certificate chain recently failed validation");
+                }
+                failedChains.remove(encodedHeader, failedUntil);
+            }
+            key = parseAttesterKey(encodedHeader, now, generation);
+            cache(attesterKeys, encodedHeader, key, generation);
+        }
+        try {
+            byte[] signingInput = attestation.substring(0, separators[1]).getBytes(StandardCharsets.US_ASCII);
+            if (!key.verifier.verify(key.header, signingInput,
+                    new Base64URL(attestation.substring(separators[1] + 1)))) {
+                throw invalidAttestation("the attestation signature is invalid");
+            }
+        } catch (JOSEException e) {
+            throw invalidAttestation("the attestation signature cannot be verified");
+        }
+
+        JWTClaimsSet claims;
+        Map<String, Object> confirmation;
+        try {
+            claims = JWTClaimsSet.parse(
+                    new Base64URL(attestation.substring(separators[0] + 1, separators[1])).decodeToString());
+            confirmation = claims.getJSONObjectClaim(CONFIRMATION_CLAIM);
+        } catch (ParseException e) {
+            throw invalidAttestation("the attestation claims cannot be parsed");
+        }
+        if (StringUtils.isEmpty(claims.getIssuer()) || StringUtils.isEmpty(claims.getSubject())) {
+            throw invalidAttestation("the attestation has no issuer or subject");
+        }
+        Date expiresAt = claims.getExpirationTime();
+        Date notBefore = claims.getNotBeforeTime();
+        if (expiresAt == null || expiresAt.getTime() + clockSkewMillis <= now
+                || notBefore != null && notBefore.getTime() - clockSkewMillis > now) {
+            throw invalidAttestation("the attestation is expired or not yet valid");
+        }
+
+        Object instanceKey = confirmation == null ? null : confirmation.get(JWK_CONFIRMATION);
+        if (!(instanceKey instanceof Map)) {
+            throw invalidAttestation("the attestation has no cnf.jwk");
+        }
+        JWSVerifier instanceKeyVerifier;
+        try {
+            @SuppressWarnings("unchecked")
+            JWK jwk = JWK.parse((Map<String, Object>) instanceKey);
+            if (jwk.isPrivate()) {
+                throw invalidAttestation("the attested instance key is not a public key");
+            }
+            instanceKeyVerifier = toVerifier(jwk);
+        } catch (ParseException | JOSEException e) {
+            throw invalidAttestation("the attested instance key cannot be used");
+        }
+        if (instanceKeyVerifier == null) {
+            throw invalidAttestation("the attested instance key type is not supported");
+        }
+        return new VerifiedClientAttestation(claims.getIssuer(), claims.getSubject(),
+                Math.min(expiresAt.getTime(), key.notAfterMillis), instanceKeyVerifier);
+    }
+
+    private AttesterKey parseAttesterKey(String encodedHeader, long now, long generation)
+            throws CredentialIssuanceException {
+
+        JWSHeader header;
+        try {
+            header = JWSHeader.parse(new Base64URL(encodedHeader));
+        } catch (ParseException e) {
+            throw invalidAttestation("the attestation header cannot be parsed");
+        }
+        JOSEObjectType type = header.getType();
+        if (type == null || !ATTESTATION_JWT_TYPE.equals(type.getType())) {
+            throw invalidAttestation("the attestation type is not " + ATTESTATION_JWT_TYPE);
+        }
+        if (!SUPPORTED_ALGORITHMS.contains(header.getAlgorithm())) {
+            throw invalidAttestation("the attestation algorithm is not supported");
+        }
+        List<Base64> encodedChain = header.getX509CertChain();
+        if (encodedChain == null || encodedChain.isEmpty()) {
+            throw invalidAttestation("the attestation header has no x5c certificate chain");
+        }
+
+        List<X509Certificate> chain = new ArrayList<>(encodedChain.size());
+        long notAfterMillis = Long.MAX_VALUE;
+        try {
+            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            for (Base64 encodedCertificate : encodedChain) {
+                X509Certificate certificate = (X509Certificate) certificateFactory.generateCertificate(
+                        new ByteArrayInputStream(encodedCertificate.decode()));
+                chain.add(certificate);
+                notAfterMillis = Math.min(notAfterMillis, certificate.getNotAfter().getTime());
+            }
+            PKIXParameters parameters = new PKIXParameters(trustStore.getTrustAnchors());
+            // Attester certificates are not expected to carry reachable revocation endpoints; distrusted attesters
+            // are removed from the trust store instead.
+            parameters.setRevocationEnabled(false);
+            parameters.setDate(new Date(now));
+            CertPathValidator.getInstance("PKIX").validate(certificateFactory.generateCertPath(chain), parameters);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Attestation certificate chain validation failed", e);
+            }
+            cache(failedChains, encodedHeader, now + failedChainRetentionMillis, generation);
+            throw invalidAttestation("the attestation certificate chain is not trusted");
+        }
+
+        PublicKey publicKey = chain.get(0).getPublicKey();
+        JWSVerifier verifier;
+        try {
+            if (publicKey instanceof RSAPublicKey && !JWSAlgorithm.ES256.equals(header.getAlgorithm())) {
+                verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
+            } else if (publicKey instanceof ECPublicKey && JWSAlgorithm.ES256.equals(header.getAlgorithm())) {
+                verifier = new ECDSAVerifier((ECPublicKey) publicKey);
+            } else {
+                throw invalidAttestation("the attester key does not match the attestation algorithm");
+            }
+        } catch (JOSEException e) {
+            throw invalidAttestation("the attester key cannot be used");
+        }
+        return new AttesterKey(header, verifier, notAfterMillis);
+    }
+
+    private void verifyProof(VerifiedClientAttestation attestation, String proof, String tenantDomain)
+            throws CredentialIssuanceException {
+
+        int[] separators = separators(proof);
+        if (separators == null) {
+            throw invalidProof("the proof of possession is not a compact JWS");
+        }
+        JWSHeader header = resolveProofHeader(proof.substring(0, separators[0]));
+
+        JWTClaimsSet claims;
+        String proofIssuer;
+        try {
+            claims = JWTClaimsSet.parse(new Base64URL(proof.substring(separators[0] + 1, separators[1]))
+                    .decodeToString());
+            proofIssuer = claims.getIssuer();
+        } catch (ParseException e) {
+            throw invalidProof("the proof of possession claims cannot be parsed");
+        }
+        if (StringUtils.isEmpty(proofIssuer)) {
+            throw invalidProof("the proof of possession has no issuer");
+        }
+        if (!proofIssuer.equals(attestation.getClientId())) {
+            throw invalidProof("the proof of possession is issued by " + proofIssuer);
+        }
+        if (!isAddressedTo(claims.getAudience(), tenantDomain)) {
+            throw invalidProof("the proof of possession is not addressed to this issuer");
+        }
+        Date issuedAt = claims.getIssueTime();
+        if (issuedAt == null || Math.abs(System.currentTimeMillis() - issuedAt.getTime()) > proofLifetimeMillis) {
+            throw invalidProof("the proof of possession is not issued within the acceptance window");
+        }
+        String proofId = claims.getJWTID();
+        if (StringUtils.isEmpty(proofId)) {
+            throw invalidProof("the proof of possession has no jti");
+        }
+
+        try {
+            byte[] signingInput = proof.substring(0, separators[1]).getBytes(StandardCharsets.US_ASCII);
+            if (!attestation.getInstanceKeyVerifier().verify(header, signingInput,
+                    new Base64URL(proof.substring(separators[1] + 1)))) {
+                throw invalidProof("the proof of possession signature is invalid");
+            }
+        } catch (JOSEException e) {
+            throw invalidProof("the proof of possession signature cannot be verified");
+        }
+
+        if (!replayCache.register(toLong(sha256(attestation.getClientId() + ' ' + proofId)))) {
+            if (log.isDebugEnabled()) {
+                log.debug("Rejected client attestation proof of possession, since its jti has been seen or the "
+                        + "replay cache is full");
+            }
+            throw CredentialIssuanceClientErrors.CLIENT_ATTESTATION_POP_REPLAYED;
+        }
+    }
+
+    private JWSHeader resolveProofHeader(String encodedHeader) throws CredentialIssuanceException {
+
+        JWSHeader header = proofHeaders.get(encodedHeader);
+        if (header != null) {
+            return header;
+        }
+        try {
+            header = JWSHeader.parse(new Base64URL(encodedHeader));
+        } catch (ParseException e) {
+            throw invalidProof("the proof of possession header cannot be parsed");
+        }
+        JOSEObjectType type = header.getType();
+        if (type == null || !ATTESTATION_POP_JWT_TYPE.equals(type.getType())) {
+            throw invalidProof("the proof of possession type is not " + ATTESTATION_POP_JWT_TYPE);
+        }
+        if (!SUPPORTED_ALGORITHMS.contains(header.getAlgorithm())) {
+            throw invalidProof("the proof of possession algorithm is not supported");
+        }
+        evictIfFull(proofHeaders);
+        proofHeaders.put(encodedHeader, header);
+        return header;
+    }
+
+    private static boolean isAddressedTo(List<String> audience, String tenantDomain)
+            throws CredentialIssuanceException {
+
+        if (audience == null || audience.isEmpty()) {
+            return false;
+        }
+        TenantServiceUrls urls;
+        try {
+            urls = TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain);
+        } catch (URLBuilderException e) {
+            throw new CredentialIssuanceException("Error building the issuer URLs of tenant: " + tenantDomain, e);
+        }
+        String credentialIssuer = StringUtils.removeEnd(urls.getCredentialIssuerUrl(), "/");
+        String authorizationServer = StringUtils.removeEnd(urls.getAuthorizationServerUrl(), "/");
+        for (String value : audience) {
+            String normalized = StringUtils.removeEnd(value, "/");
+            if (normalized != null && (normalized.equals(credentialIssuer) || normalized.equals(authorizationServer))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the cached attester keys, attestations and failed chains once the trust store has been read again, since
+     * they were validated against the certificates it trusted before.
+     */
+    private void dropCachesOfEarlierGeneration(long generation) {
+
+        if (generation <= cachedGeneration) {
+            return;
+        }
+        synchronized (this) {
+            if (generation > cachedGeneration) {
+                attesterKeys.clear();
+                attestations.clear();
+                failedChains.clear();
+                cachedGeneration = generation;
+            }
+        }
+    }
+
+    private static JWSVerifier toVerifier(JWK jwk) throws JOSEException {
+
+        if (KeyType.RSA.equals(jwk.getKeyType())) {
+            return new RSASSAVerifier(jwk.toRSAKey());
+        }
+        if (KeyType.EC.equals(jwk.getKeyType())) {
+            return new ECDSAVerifier(jwk.toECKey());
+        }
+        return null;
+    }
+
+    /**
+     * Get the positions of the two separators of a compact JWS, or null if it does not have exactly three parts.
+     */
+    private static int[] separators(String jws) {
+
+        int headerEnd = jws.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : jws.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0 || jws.indexOf('.', payloadEnd + 1) >= 0) {
+            return null;
+        }
+        return new int[]{headerEnd, payloadEnd};
+    }
+
+    private <V> void cache(ConcurrentMap<String, V> cache, String key, V value, long generation) {
+
+        evictIfFull(cache);
+        cache.put(key, value);
+        // The trust store may have been read again while the value was validated; the caches are then dropped, but
+        // possibly before this value was added.
+        if (trustStore.getGeneration() != generation) {
+            cache.remove(key, value);
+        }
+    }
+
+    /**
+     * Get the number of attestation headers whose failed chain validation is remembered.
+     */
+    int getFailedChainCount() {
+
+        return failedChains.size();
+    }
+
+    private <V> void evictIfFull(ConcurrentMap<String, V> cache) {
+
+        if (cache.size() >= cacheSize) {
+            // Drop an arbitrary entry; the attestations of active wallets are verified again on their next request.
+            Iterator<String> iterator = cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static byte[] sha256(String value) {
+
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long toLong(byte[] bytes) {
+
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static CredentialIssuanceException invalidAttestation(String reason) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected client attestation, since " + reason);
+        }
+        return CredentialIssuanceClientErrors.INVALID_CLIENT_ATTESTATION;
+    }
+
+    private static CredentialIssuanceException invalidProof(String reason) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected client attestation proof of possession, since " + reason);
+        }
+        return CredentialIssuanceClientErrors.INVALID_CLIENT_ATTESTATION_POP;
+    }
+
+    /**
+     * Parsed attestation header with the verifier of the attester key its chain was validated for.
+     */
+    private static final class AttesterKey {
+
+        private final JWSHeader header;
+        private final JWSVerifier verifier;
+        private final long notAfterMillis;
+
+        private AttesterKey(JWSHeader header, JWSVerifier verifier, long notAfterMillis) {
+
+            this.header = header;
+            this.verifier = verifier;
+            this.notAfterMillis = notAfterMillis;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.wso2.carbon.identity.openid4vci.credential.attestation;
+
+import com.nimbusds.jose.JWSVerifier;
+
+/**
+ * Client attestation whose attester chain, signature and claims have been verified, with a verifier for the key of
+ * the attested wallet instance. It stays usable until the attestation or the attester certificate expires.
+ */
+public class VerifiedClientAttestation {
+
+    private final String attesterId;
+    private final String clientId;
+    private final long expiresAtMillis;
+    private final JWSVerifier instanceKeyVerifier;
+
+    VerifiedClientAttestation(String attesterId, String clientId, long expiresAtMillis,
+                              JWSVerifier instanceKeyVerifier) {
+
+        this.attesterId = attesterId;
+        this.clientId = clientId;
+        this.expiresAtMillis = expiresAtMillis;
+        this.instanceKeyVerifier = instanceKeyVerifier;
+    }
+
+    /**
+     * Get the identifier of the attester that issued the attestation.
+     *
+     * @return attester identifier, the {@code iss} of the attestation
+     */
+    public String getAttesterId() {
+
+        return attesterId;
+    }
+
+    /**
+     * Get the client id the attestation is issued for.
+     *
+     * @return client id, the {@code sub} of the attestation
+     */
+    public String getClientId() {
+
+        return clientId;
+    }
+
+    /**
+     * Get the time the attestation stops being accepted.
+     *
+     * @return expiry in epoch milliseconds
+     */
+    public long getExpiresAtMillis() {
+
+        return expiresAtMillis;
+    }
+
+    JWSVerifier getInstanceKeyVerifier() {
+
+        return instanceKeyVerifier;
+    }
+}
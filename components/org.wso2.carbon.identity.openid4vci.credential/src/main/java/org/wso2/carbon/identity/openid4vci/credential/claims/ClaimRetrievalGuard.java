@@ -0,0 +1,279 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreClientException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Isolates claim retrieval from slow or failing user stores. Each user store domain of a tenant gets a bulkhead
+ * that limits the calls in flight to it, and a circuit breaker that fails fast while the store is down. Calls run
+ * on a separate thread and the request thread waits for them only up to a timeout, so a hung store ties up at most
+ * the bulkhead of its own domain. When a call cannot be made or does not finish in time, the claim values last
+ * read for the user are served if they are within the staleness bound. Only failures of the store itself count
+ * towards its circuit breaker; errors caused by the request, such as an unknown user, show that the store is up.
+ */
+public class ClaimRetrievalGuard {
+
+    private static final Log log = LogFactory.getLog(ClaimRetrievalGuard.class);
+    private static final String MAX_CONCURRENCY_PROPERTY = "OpenID4VCI.ClaimRetrieval.MaxConcurrency";
+    private static final String TIMEOUT_PROPERTY = "OpenID4VCI.ClaimRetrieval.Timeout";
+    private static final String MAX_STALENESS_PROPERTY = "OpenID4VCI.ClaimRetrieval.MaxStaleness";
+    private static final String STALE_CACHE_SIZE_PROPERTY = "OpenID4VCI.ClaimRetrieval.StaleCacheSize";
+    private static final String BREAKER_FAILURE_RATE_PROPERTY = "OpenID4VCI.ClaimRetrieval.CircuitBreaker.FailureRate";
+    private static final String BREAKER_OPEN_DURATION_PROPERTY =
+            "OpenID4VCI.ClaimRetrieval.CircuitBreaker.OpenDuration";
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 3000;
+    private static final long DEFAULT_MAX_STALENESS_SECONDS = 300;
+    private static final int DEFAULT_STALE_CACHE_SIZE = 10000;
+    private static final int DEFAULT_FAILURE_RATE_PERCENT = 50;
+    private static final long DEFAULT_OPEN_DURATION_MILLIS = 5000;
+    private static final long MAX_OPEN_DURATION_MILLIS = 60000;
+    private static final int BREAKER_WINDOW_SIZE = 20;
+    private static final int BREAKER_MINIMUM_CALLS = 10;
+    private static final ClaimRetrievalGuard instance = new ClaimRetrievalGuard();
+
+    private final int maxConcurrency;
+    private final long timeoutMillis;
+    private final long maxStalenessMillis;
+    private final int failureRatePercent;
+    private final long openDurationMillis;
+    private final StaleClaimCache staleClaims;
+    private final ConcurrentMap<String, UserStoreGuard> userStores = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ClaimRetrievalThreadFactory());
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+    private final LongAdder staleResponses = new LongAdder();
+
+    private ClaimRetrievalGuard() {
+
+        this((int) Util.readPositiveLong(MAX_CONCURRENCY_PROPERTY, DEFAULT_MAX_CONCURRENCY),
+                Util.readPositiveLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MILLIS),
+                TimeUnit.SECONDS.toMillis(Util.readPositiveLong(MAX_STALENESS_PROPERTY,
+                        DEFAULT_MAX_STALENESS_SECONDS)),
+                (int) Util.readPositiveLong(STALE_CACHE_SIZE_PROPERTY, DEFAULT_STALE_CACHE_SIZE),
+                (int) Math.min(100, Util.readPositiveLong(BREAKER_FAILURE_RATE_PROPERTY,
+                        DEFAULT_FAILURE_RATE_PERCENT)),
+                Util.readPositiveLong(BREAKER_OPEN_DURATION_PROPERTY, DEFAULT_OPEN_DURATION_MILLIS));
+    }
+
+    ClaimRetrievalGuard(int maxConcurrency, long timeoutMillis, long maxStalenessMillis, int staleCacheSize,
+                        int failureRatePercent, long openDurationMillis) {
+
+        this.maxConcurrency = maxConcurrency;
+        this.timeoutMillis = timeoutMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.failureRatePercent = failureRatePercent;
+        this.openDurationMillis = openDurationMillis;
+        this.staleClaims = new StaleClaimCache(staleCacheSize);
+    }
+
+    public static ClaimRetrievalGuard getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Retrieve claim values through the guard of a user store.
+     *
+     * @param tenantDomain    tenant domain of the user
+     * @param userStoreDomain user store domain of the user
+     * @param cacheKey        key identifying the user and the requested claims
+     * @param loader          reads the claim values from the user store
+     * @return claim values, possibly served from the stale cache if the store is unavailable
+     * @throws UserStoreException          if the user store fails
+     * @throws CredentialIssuanceException if the store is unavailable and no fresh enough values are cached
+     */
+    public Map<String, String> retrieve(String tenantDomain, String userStoreDomain, String cacheKey,
+                                        UserClaimLoader loader)
+            throws UserStoreException, CredentialIssuanceException {
+
+        UserStoreGuard store = userStores.computeIfAbsent(tenantDomain + "/" + userStoreDomain,
+                key -> new UserStoreGuard(userStoreDomain));
+        if (!store.circuitBreaker.allowRequest()) {
+            shortCircuits.increment();
+            return serveStale(tenantDomain, store, cacheKey, "circuit breaker is open");
+        }
+        if (!store.permits.tryAcquire()) {
+            store.circuitBreaker.onRejected();
+            rejections.increment();
+            return serveStale(tenantDomain, store, cacheKey, "concurrency limit of " + maxConcurrency
+                    + " is reached");
+        }
+
+        // Whoever claims the permit first releases it: the call once it finishes, or the caller if it cancels the
+        // call before it starts. A call that hangs keeps its permit until the store returns.
+        AtomicBoolean permitClaimed = new AtomicBoolean();
+        Future<Map<String, String>> future;
+        try {
+            future = executor.submit(() -> {
+                if (!permitClaimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return load(tenantDomain, loader);
+                } finally {
+                    store.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            store.permits.release();
+            store.circuitBreaker.onRejected();
+            throw new CredentialIssuanceException("Claim retrieval is not available", e);
+        }
+
+        Map<String, String> claims;
+        try {
+            claims = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancel(future, store, permitClaimed);
+            store.circuitBreaker.onFailure();
+            timeouts.increment();
+            return serveStale(tenantDomain, store, cacheKey, "call did not complete within " + timeoutMillis
+                    + " ms");
+        } catch (InterruptedException e) {
+            cancel(future, store, permitClaimed);
+            store.circuitBreaker.onRejected();
+            Thread.currentThread().interrupt();
+            throw new CredentialIssuanceException("Interrupted while retrieving user claims", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UserStoreClientException) {
+                // The store answered; the request, not the store, is at fault.
+                store.circuitBreaker.onSuccess();
+            } else {
+                store.circuitBreaker.onFailure();
+            }
+            if (cause instanceof UserStoreException) {
+                throw (UserStoreException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CredentialIssuanceException("Error retrieving user claims", cause);
+        }
+        store.circuitBreaker.onSuccess();
+        staleClaims.put(tenantDomain, cacheKey, claims);
+        return claims;
+    }
+
+    /**
+     * Drop the cached claim values of a tenant.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void invalidateTenant(String tenantDomain) {
+
+        staleClaims.invalidateTenant(tenantDomain);
+    }
+
+    public long getTimeouts() {
+
+        return timeouts.sum();
+    }
+
+    public long getRejections() {
+
+        return rejections.sum();
+    }
+
+    public long getShortCircuits() {
+
+        return shortCircuits.sum();
+    }
+
+    public long getStaleResponses() {
+
+        return staleResponses.sum();
+    }
+
+    public void clear() {
+
+        staleClaims.clear();
+    }
+
+    private static Map<String, String> load(String tenantDomain, UserClaimLoader loader) throws UserStoreException {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            return loader.load();
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private static void cancel(Future<?> future, UserStoreGuard store, AtomicBoolean permitClaimed) {
+
+        future.cancel(true);
+        if (permitClaimed.compareAndSet(false, true)) {
+            store.permits.release();
+        }
+    }
+
+    private Map<String, String> serveStale(String tenantDomain, UserStoreGuard store, String cacheKey,
+                                           String reason) throws CredentialIssuanceException {
+
+        Map<String, String> claims = staleClaims.get(tenantDomain, cacheKey, maxStalenessMillis);
+        if (claims == null) {
+            throw new CredentialIssuanceException("User store is unavailable for domain: " + store.userStoreDomain
+                    + ", " + reason);
+        }
+        staleResponses.increment();
+        if (log.isDebugEnabled()) {
+            log.debug("Serving cached claim values as user store domain: " + store.userStoreDomain
+                    + " is unavailable, " + reason);
+        }
+        return claims;
+    }
+
+    /**
+     * Bulkhead and circuit breaker of one user store domain of a tenant.
+     */
+    private final class UserStoreGuard {
+
+        private final String userStoreDomain;
+        private final Semaphore permits = new Semaphore(maxConcurrency);
+        private final UserStoreCircuitBreaker circuitBreaker = new UserStoreCircuitBreaker(BREAKER_WINDOW_SIZE,
+                BREAKER_MINIMUM_CALLS, failureRatePercent, openDurationMillis, MAX_OPEN_DURATION_MILLIS);
+
+        private UserStoreGuard(String userStoreDomain) {
+
+            this.userStoreDomain = userStoreDomain;
+        }
+    }
+
+    private static final class ClaimRetrievalThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "oid4vci-claim-retrieval-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the last claim values read for each user and credential configuration, kept apart per tenant.
+ * Entries are only served when the user store cannot answer in time, and only while they are younger than the
+ * configured staleness bound.
+ */
+public class StaleClaimCache {
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    public StaleClaimCache(int maxEntries) {
+
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Remember the claim values read for a key.
+     *
+     * @param tenantDomain tenant domain of the user
+     * @param key          cache key of the user and credential configuration
+     * @param claims       claim values read from the user store
+     */
+    public synchronized void put(String tenantDomain, String key, Map<String, String> claims) {
+
+        entries.put(tenantDomain + "/" + key, new Entry(tenantDomain,
+                Collections.unmodifiableMap(new HashMap<>(claims)), System.currentTimeMillis()));
+        if (entries.size() > maxEntries) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Get the claim values of a key if they were read within the staleness bound.
+     *
+     * @param tenantDomain       tenant domain of the user
+     * @param key                cache key of the user and credential configuration
+     * @param maxStalenessMillis maximum age of the values
+     * @return a modifiable copy of the claim values, or null if there are none fresh enough
+     */
+    public synchronized Map<String, String> get(String tenantDomain, String key, long maxStalenessMillis) {
+
+        String tenantKey = tenantDomain + "/" + key;
+        Entry entry = entries.get(tenantKey);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.readAtMillis > maxStalenessMillis) {
+            entries.remove(tenantKey);
+            return null;
+        }
+        return new HashMap<>(entry.claims);
+    }
+
+    public synchronized void invalidateTenant(String tenantDomain) {
+
+        entries.values().removeIf(entry -> entry.tenantDomain.equals(tenantDomain));
+    }
+
+    public synchronized void clear() {
+
+        entries.clear();
+    }
+
+    private static final class Entry {
+
+        private final String tenantDomain;
+        private final Map<String, String> claims;
+        private final long readAtMillis;
+
+        private Entry(String tenantDomain, Map<String, String> claims, long readAtMillis) {
+
+            this.tenantDomain = tenantDomain;
+            this.claims = claims;
+            this.readAtMillis = readAtMillis;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
+
+/**
+ * Drops the cached claim values of a tenant when the tenant is invalidated.
+ */
+public class StaleClaimInvalidationListener implements InvalidationListener {
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+
+        if (event.getType() == InvalidationEvent.Type.TENANT) {
+            ClaimRetrievalGuard.getInstance().invalidateTenant(event.getTenantDomain());
+        }
+    }
+}
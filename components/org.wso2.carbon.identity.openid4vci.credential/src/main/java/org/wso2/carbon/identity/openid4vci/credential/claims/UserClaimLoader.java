@@ -0,0 +1,20 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+import org.wso2.carbon.user.api.UserStoreException;
+
+import java.util.Map;
+
+/**
+ * Reads claim values of a user from the user store.
+ */
+@FunctionalInterface
+public interface UserClaimLoader {
+
+    /**
+     * Load the claim values.
+     *
+     * @return claim values keyed by claim URI
+     * @throws UserStoreException if the user store fails
+     */
+    Map<String, String> load() throws UserStoreException;
+}
@@ -0,0 +1,142 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+/**
+ * Circuit breaker of a single user store. The breaker opens when the failure rate over the most recent calls
+ * reaches a threshold, and lets a single probe through once the open period has elapsed. Every failed probe
+ * doubles the open period up to a maximum, so a store that stays down is probed less and less often, while a
+ * successful probe closes the breaker and resets the period.
+ */
+public class UserStoreCircuitBreaker {
+
+    /**
+     * State of the breaker.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recordedCalls;
+    private int failedCalls;
+    private long openMillis;
+    private long openUntilMillis;
+    private boolean probeInFlight;
+
+    public UserStoreCircuitBreaker(int windowSize, int minimumCalls, int failureRatePercent, long baseOpenMillis,
+                                   long maxOpenMillis) {
+
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRatePercent = failureRatePercent;
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = Math.max(baseOpenMillis, maxOpenMillis);
+        this.openMillis = baseOpenMillis;
+    }
+
+    /**
+     * Check whether a call may be made to the store.
+     *
+     * @return true if the breaker is closed, or if this call is the probe of a half-open breaker
+     */
+    public synchronized boolean allowRequest() {
+
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() < openUntilMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probeInFlight = false;
+            openMillis = baseOpenMillis;
+            resetWindow();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, maxOpenMillis);
+            trip();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recordedCalls >= minimumCalls
+                && failedCalls * 100 >= failureRatePercent * recordedCalls) {
+            trip();
+        }
+    }
+
+    /**
+     * Release the probe of a half-open breaker whose call could not be made, so that another request may probe.
+     */
+    public synchronized void onRejected() {
+
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+
+        return state;
+    }
+
+    private void record(boolean failed) {
+
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[position]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[position] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void trip() {
+
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntilMillis = System.currentTimeMillis() + openMillis;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+
+        position = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+    }
+}
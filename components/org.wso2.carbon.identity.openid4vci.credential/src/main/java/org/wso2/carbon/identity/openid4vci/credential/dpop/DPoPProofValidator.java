@@ -0,0 +1,340 @@
+package org.wso2.carbon.identity.openid4vci.credential.dpop;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.replay.ProofReplayCache;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates DPoP proofs (RFC 9449) presented to the credential endpoint. A proof must be a {@code dpop+jwt} signed
+ * with the public key in its header, for the method and URI of the request, issued within the acceptance window,
+ * bound to the presented access token through {@code ath}, and not seen before on this node with the same key.
+ * Proof ids are only remembered through {@link #register(VerifiedDPoPProof)} once the access token has been verified
+ * to be bound to the proof key, so self-signed proofs sent with made up tokens cannot fill the replay cache.
+ * <p>
+ * Wallets sign every proof with the same key, so the encoded proof header repeats from request to request. Parsed
+ * headers are cached together with the verifier and the JWK thumbprint of their key, which leaves the signature
+ * check and the claims of the proof as the only per-request work.
+ */
+public class DPoPProofValidator {
+
+    /**
+     * Token binding type of DPoP-bound access tokens.
+     */
+    public static final String DPOP_BINDING_TYPE = "DPoP";
+
+    private static final Log log = LogFactory.getLog(DPoPProofValidator.class);
+    private static final String PROOF_LIFETIME_PROPERTY = "OpenID4VCI.DPoP.ProofLifetime";
+    private static final String MAX_TRACKED_PROOFS_PROPERTY = "OpenID4VCI.DPoP.MaxTrackedProofs";
+    private static final String MAX_TRACKED_PROOFS_PER_KEY_PROPERTY = "OpenID4VCI.DPoP.MaxTrackedProofsPerKey";
+    private static final String KEY_CACHE_SIZE_PROPERTY = "OpenID4VCI.DPoP.KeyCacheSize";
+    private static final long DEFAULT_PROOF_LIFETIME_SECONDS = 60;
+    private static final long DEFAULT_MAX_TRACKED_PROOFS = 1_000_000;
+    private static final long DEFAULT_MAX_TRACKED_PROOFS_PER_KEY = 1000;
+    private static final long DEFAULT_KEY_CACHE_SIZE = 10_000;
+    private static final String DPOP_JWT_TYPE = "dpop+jwt";
+    private static final List<JWSAlgorithm> SUPPORTED_ALGORITHMS = Arrays.asList(JWSAlgorithm.RS256,
+            JWSAlgorithm.PS256, JWSAlgorithm.ES256);
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+    private static final DPoPProofValidator instance = new DPoPProofValidator(
+            TimeUnit.SECONDS.toMillis(Util.readPositiveLong(PROOF_LIFETIME_PROPERTY, DEFAULT_PROOF_LIFETIME_SECONDS)),
+            (int) Util.readPositiveLong(MAX_TRACKED_PROOFS_PROPERTY, DEFAULT_MAX_TRACKED_PROOFS),
+            (int) Util.readPositiveLong(MAX_TRACKED_PROOFS_PER_KEY_PROPERTY, DEFAULT_MAX_TRACKED_PROOFS_PER_KEY),
+            (int) Util.readPositiveLong(KEY_CACHE_SIZE_PROPERTY, DEFAULT_KEY_CACHE_SIZE));
+
+    private final long proofLifetimeMillis;
+    private final int keyCacheSize;
+    private final ProofReplayCache replayCache;
+    private final ConcurrentMap<String, ProofKey> proofKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Create a validator.
+     *
+     * @param proofLifetimeMillis    how far the issue time of a proof may be from the current time
+     * @param maxTrackedProofs       maximum number of proof ids remembered for replay detection
+     * @param maxTrackedProofsPerKey maximum number of proof ids remembered for one proof key
+     * @param keyCacheSize           maximum number of parsed proof headers kept
+     */
+    public DPoPProofValidator(long proofLifetimeMillis, int maxTrackedProofs, int maxTrackedProofsPerKey,
+                              int keyCacheSize) {
+
+        this.proofLifetimeMillis = proofLifetimeMillis;
+        this.keyCacheSize = keyCacheSize;
+        // A proof is accepted from one lifetime before to one lifetime after its issue time.
+        this.replayCache = new ProofReplayCache(2 * proofLifetimeMillis, maxTrackedProofs, maxTrackedProofsPerKey);
+    }
+
+    public static DPoPProofValidator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Validate a DPoP proof.
+     *
+     * @param proof       value of the DPoP header
+     * @param httpMethod  method of the request
+     * @param targetUris  URIs the request may have been sent to, such as the request URL and the published
+     *                    credential endpoint URL
+     * @param accessToken access token presented with the proof
+     * @return the verified proof, to be registered once the access token is verified to be bound to its key
+     * @throws CredentialIssuanceException if the proof is invalid
+     */
+    public VerifiedDPoPProof validate(String proof, String httpMethod, Collection<String> targetUris,
+                                      String accessToken) throws CredentialIssuanceException {
+
+        int headerEnd = proof.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : proof.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0 || proof.indexOf('.', payloadEnd + 1) >= 0) {
+            throw invalid("the proof is not a compact JWS");
+        }
+        ProofKey key = resolveKey(proof.substring(0, headerEnd));
+
+        JWTClaimsSet claims;
+        String htm;
+        String htu;
+        String ath;
+        try {
+            claims = JWTClaimsSet.parse(new Base64URL(proof.substring(headerEnd + 1, payloadEnd)).decodeToString());
+            htm = claims.getStringClaim("htm");
+            htu = claims.getStringClaim("htu");
+            ath = claims.getStringClaim("ath");
+        } catch (ParseException e) {
+            throw invalid("the proof claims cannot be parsed");
+        }
+        if (!httpMethod.equals(htm)) {
+            throw invalid("the proof is for method " + htm);
+        }
+        if (htu == null || !matchesTarget(htu, targetUris)) {
+            throw invalid("the proof is for URI " + htu);
+        }
+        Date issuedAt = claims.getIssueTime();
+        if (issuedAt == null || Math.abs(System.currentTimeMillis() - issuedAt.getTime()) > proofLifetimeMillis) {
+            throw invalid("the proof is not issued within the acceptance window");
+        }
+        String proofId = claims.getJWTID();
+        if (proofId == null || proofId.isEmpty()) {
+            throw invalid("the proof has no jti");
+        }
+
+        try {
+            byte[] signingInput = proof.substring(0, payloadEnd).getBytes(StandardCharsets.US_ASCII);
+            if (!key.verifier.verify(key.header, signingInput, new Base64URL(proof.substring(payloadEnd + 1)))) {
+                throw invalid("the proof signature is invalid");
+            }
+        } catch (JOSEException e) {
+            throw invalid("the proof signature cannot be verified");
+        }
+
+        if (accessToken != null) {
+            byte[] expected = BASE64URL.encodeToString(sha256(accessToken)).getBytes(StandardCharsets.US_ASCII);
+            if (ath == null || !MessageDigest.isEqual(expected, ath.getBytes(StandardCharsets.US_ASCII))) {
+                throw invalid("the proof is not bound to the presented access token");
+            }
+        }
+        return new VerifiedDPoPProof(key.thumbprint, key.thumbprintDigest,
+                toLong(sha256(key.thumbprint + ' ' + proofId)));
+    }
+
+    /**
+     * Remember the id of a proof, rejecting it if the same key has presented it before within the acceptance
+     * window. Ids are tracked per key and capped per key, so a wallet sending many proofs has its own proofs refused
+     * once it reaches the cap, rather than filling the stripe of the replay cache it shares with other wallets. The
+     * stripe can still fill when many wallets sharing it are busy at once, and the proofs of all of them are then
+     * refused until a generation of ids expires.
+     *
+     * @param proof proof presented with an access token bound to its key
+     * @throws CredentialIssuanceException if the proof is replayed or the replay cache has no room for it
+     */
+    public void register(VerifiedDPoPProof proof) throws CredentialIssuanceException {
+
+        if (!replayCache.register(proof.getKeyDigest(), proof.getReplayId())) {
+            if (log.isDebugEnabled()) {
+                log.debug("Rejected DPoP proof, since its jti has been seen with the same key, or the replay cache "
+                        + "is full for its key or its stripe");
+            }
+            throw CredentialIssuanceClientErrors.DPOP_PROOF_REPLAYED;
+        }
+    }
+
+    /**
+     * Get the number of proofs refused because the replay cache was full.
+     *
+     * @return refused proof count
+     */
+    public long getRefusedWhenReplayCacheFull() {
+
+        return replayCache.getRefusedWhenFull();
+    }
+
+    private ProofKey resolveKey(String encodedHeader) throws CredentialIssuanceException {
+
+        ProofKey key = proofKeys.get(encodedHeader);
+        if (key != null) {
+            return key;
+        }
+        key = parseKey(encodedHeader);
+        if (proofKeys.size() >= keyCacheSize) {
+            // Drop an arbitrary entry; the keys of active wallets are parsed again on their next proof.
+            Iterator<String> iterator = proofKeys.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        proofKeys.put(encodedHeader, key);
+        return key;
+    }
+
+    private static ProofKey parseKey(String encodedHeader) throws CredentialIssuanceException {
+
+        JWSHeader header;
+        try {
+            header = JWSHeader.parse(new Base64URL(encodedHeader));
+        } catch (ParseException e) {
+            throw invalid("the proof header cannot be parsed");
+        }
+        JOSEObjectType type = header.getType();
+        if (type == null || !DPOP_JWT_TYPE.equals(type.getType())) {
+            throw invalid("the proof type is not " + DPOP_JWT_TYPE);
+        }
+        if (!SUPPORTED_ALGORITHMS.contains(header.getAlgorithm())) {
+            throw invalid("the proof algorithm is not supported");
+        }
+        JWK jwk = header.getJWK();
+        if (jwk == null || jwk.isPrivate()) {
+            throw invalid("the proof header has no public JWK");
+        }
+        try {
+            JWSVerifier verifier;
+            if (KeyType.RSA.equals(jwk.getKeyType())) {
+                verifier = new RSASSAVerifier(jwk.toRSAKey());
+            } else if (KeyType.EC.equals(jwk.getKeyType())) {
+                verifier = new ECDSAVerifier(jwk.toECKey());
+            } else {
+                throw invalid("the proof key type is not supported");
+            }
+            String thumbprint = jwk.computeThumbprint().toString();
+            return new ProofKey(header, verifier, thumbprint, toLong(sha256(thumbprint)));
+        } catch (JOSEException e) {
+            throw invalid("the proof key cannot be used");
+        }
+    }
+
+    private static boolean matchesTarget(String htu, Collection<String> targetUris) {
+
+        String normalized = normalize(htu);
+        if (normalized == null) {
+            return false;
+        }
+        for (String targetUri : targetUris) {
+            if (targetUri != null && normalized.equals(normalize(targetUri))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalize a URI for comparison as required for {@code htu}: the query and fragment are dropped, the scheme and
+     * host are lower-cased and default ports are removed.
+     */
+    private static String normalize(String uri) {
+
+        try {
+            URI parsed = new URI(uri);
+            if (parsed.getScheme() == null || parsed.getHost() == null) {
+                return null;
+            }
+            String scheme = parsed.getScheme().toLowerCase(Locale.ROOT);
+            int port = parsed.getPort();
+            if ("https".equals(scheme) && port == 443 || "http".equals(scheme) && port == 80) {
+                port = -1;
+            }
+            String path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+            return scheme + "://" + parsed.getHost().toLowerCase(Locale.ROOT) + (port == -1 ? "" : ":" + port) + path;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static byte[] sha256(String value) {
+
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long toLong(byte[] bytes) {
+
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static CredentialIssuanceException invalid(String reason) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected DPoP proof, since " + reason);
+        }
+        return CredentialIssuanceClientErrors.INVALID_DPOP_PROOF;
+    }
+
+    /**
+     * Parsed proof header with the verifier and thumbprint of its key.
+     */
+    private static final class ProofKey {
+
+        private final JWSHeader header;
+        private final JWSVerifier verifier;
+        private final String thumbprint;
+        private final long thumbprintDigest;
+
+        private ProofKey(JWSHeader header, JWSVerifier verifier, String thumbprint, long thumbprintDigest) {
+
+            this.header = header;
+            this.verifier = verifier;
+            this.thumbprint = thumbprint;
+            this.thumbprintDigest = thumbprintDigest;
+        }
+    }
+}
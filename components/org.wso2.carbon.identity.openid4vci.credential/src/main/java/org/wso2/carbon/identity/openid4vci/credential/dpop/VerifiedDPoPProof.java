@@ -0,0 +1,39 @@
+package org.wso2.carbon.identity.openid4vci.credential.dpop;
+
+/**
+ * DPoP proof whose signature and claims have been verified. Its id is not yet remembered for replay detection; that
+ * happens once the access token it is presented with is verified to be bound to its key.
+ */
+public class VerifiedDPoPProof {
+
+    private final String keyThumbprint;
+    private final long keyDigest;
+    private final long replayId;
+
+    VerifiedDPoPProof(String keyThumbprint, long keyDigest, long replayId) {
+
+        this.keyThumbprint = keyThumbprint;
+        this.keyDigest = keyDigest;
+        this.replayId = replayId;
+    }
+
+    /**
+     * Get the JWK thumbprint of the key that signed the proof.
+     *
+     * @return base64url encoded SHA-256 JWK thumbprint
+     */
+    public String getKeyThumbprint() {
+
+        return keyThumbprint;
+    }
+
+    long getKeyDigest() {
+
+        return keyDigest;
+    }
+
+    long getReplayId() {
+
+        return replayId;
+    }
+}
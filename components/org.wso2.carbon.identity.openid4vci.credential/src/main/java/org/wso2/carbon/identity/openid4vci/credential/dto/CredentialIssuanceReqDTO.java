@@ -1,5 +1,7 @@
 package org.wso2.carbon.identity.openid4vci.credential.dto;
 
+import org.wso2.carbon.identity.openid4vci.credential.dpop.VerifiedDPoPProof;
+
 /**
  * DTO for credential issuance request.
  */
@@ -8,6 +10,9 @@ public class CredentialIssuanceReqDTO {
     private String tenantDomain;
     private String credentialConfigurationId;
     private String token;
+    private boolean dpopScheme;
+    private VerifiedDPoPProof dpopProof;
+    private String attestedClientId;
 
     public String getTenantDomain() {
         return tenantDomain;
@@ -32,4 +37,43 @@ public class CredentialIssuanceReqDTO {
     public void setToken(String token) {
         this.token = token;
     }
+
+    /**
+     * Check whether the access token was presented with the DPoP authorization scheme.
+     *
+     * @return true for the DPoP scheme, false for the Bearer scheme
+     */
+    public boolean isDpopScheme() {
+        return dpopScheme;
+    }
+
+    public void setDpopScheme(boolean dpopScheme) {
+        this.dpopScheme = dpopScheme;
+    }
+
+    /**
+     * Get the validated DPoP proof of the request.
+     *
+     * @return verified DPoP proof, or null if the request carries no DPoP proof
+     */
+    public VerifiedDPoPProof getDpopProof() {
+        return dpopProof;
+    }
+
+    public void setDpopProof(VerifiedDPoPProof dpopProof) {
+        this.dpopProof = dpopProof;
+    }
+
+    /**
+     * Get the client id the verified client attestation of the request was issued for.
+     *
+     * @return attested client id, or null if the request carries no client attestation
+     */
+    public String getAttestedClientId() {
+        return attestedClientId;
+    }
+
+    public void setAttestedClientId(String attestedClientId) {
+        this.attestedClientId = attestedClientId;
+    }
 }
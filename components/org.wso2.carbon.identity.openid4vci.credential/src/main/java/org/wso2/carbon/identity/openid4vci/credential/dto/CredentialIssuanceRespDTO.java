@@ -6,6 +6,7 @@ package org.wso2.carbon.identity.openid4vci.credential.dto;
 public class CredentialIssuanceRespDTO {
 
     private String credential;
+    private String responsePayload;
 
     public String getCredential() {
         return credential;
@@ -14,4 +15,17 @@ public class CredentialIssuanceRespDTO {
     public void setCredential(String credential) {
         this.credential = credential;
     }
+
+    /**
+     * Get the serialized credential response body.
+     *
+     * @return JSON response body
+     */
+    public String getResponsePayload() {
+        return responsePayload;
+    }
+
+    public void setResponsePayload(String responsePayload) {
+        this.responsePayload = responsePayload;
+    }
 }
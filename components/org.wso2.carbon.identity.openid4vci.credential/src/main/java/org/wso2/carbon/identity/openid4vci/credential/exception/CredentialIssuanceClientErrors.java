@@ -0,0 +1,44 @@
+package org.wso2.carbon.identity.openid4vci.credential.exception;
+
+/**
+ * Preallocated exceptions for the client errors expected on the issuance path. They carry no stack trace and no
+ * request specific detail, so the same instance can be thrown for every request that makes the error.
+ */
+public final class CredentialIssuanceClientErrors {
+
+    public static final CredentialIssuanceException UNKNOWN_CREDENTIAL_CONFIGURATION = stackless(
+            CredentialIssuanceErrorCode.UNKNOWN_CREDENTIAL_CONFIGURATION,
+            "No matching credential configuration found for the requested ID");
+    public static final CredentialIssuanceException INVALID_ACCESS_TOKEN = stackless(
+            CredentialIssuanceErrorCode.INVALID_TOKEN, "Access token is invalid, expired or revoked");
+    public static final CredentialIssuanceException INVALID_DPOP_PROOF = stackless(
+            CredentialIssuanceErrorCode.INVALID_DPOP_PROOF, "DPoP proof is invalid");
+    public static final CredentialIssuanceException DPOP_PROOF_REPLAYED = stackless(
+            CredentialIssuanceErrorCode.INVALID_DPOP_PROOF, "DPoP proof has already been used");
+    public static final CredentialIssuanceException DPOP_KEY_MISMATCH = stackless(
+            CredentialIssuanceErrorCode.INVALID_DPOP_PROOF, "DPoP proof is not signed with the key bound to the "
+                    + "access token");
+    public static final CredentialIssuanceException INVALID_CLIENT_ATTESTATION = stackless(
+            CredentialIssuanceErrorCode.INVALID_CLIENT_ATTESTATION, "Client attestation is missing or invalid");
+    public static final CredentialIssuanceException INVALID_CLIENT_ATTESTATION_POP = stackless(
+            CredentialIssuanceErrorCode.INVALID_CLIENT_ATTESTATION, "Client attestation proof of possession is "
+                    + "missing or invalid");
+    public static final CredentialIssuanceException CLIENT_ATTESTATION_POP_REPLAYED = stackless(
+            CredentialIssuanceErrorCode.INVALID_CLIENT_ATTESTATION, "Client attestation proof of possession has "
+                    + "already been used");
+    public static final CredentialIssuanceException CLIENT_ATTESTATION_MISMATCH = stackless(
+            CredentialIssuanceErrorCode.INVALID_CLIENT_ATTESTATION, "Client attestation is not issued for the "
+                    + "client of the access token");
+    public static final CredentialIssuanceException INSUFFICIENT_SCOPE = stackless(
+            CredentialIssuanceErrorCode.INSUFFICIENT_SCOPE,
+            "Access token does not contain the scope required by the credential configuration");
+
+    private CredentialIssuanceClientErrors() {
+
+    }
+
+    private static CredentialIssuanceException stackless(CredentialIssuanceErrorCode errorCode, String message) {
+
+        return new CredentialIssuanceException(errorCode, message, true);
+    }
+}
@@ -0,0 +1,20 @@
+package org.wso2.carbon.identity.openid4vci.credential.exception;
+
+/**
+ * Error codes of failed credential requests, as defined by the OpenID4VCI specification, RFC 6750, RFC 9449 and
+ * OAuth 2.0 attestation-based client authentication.
+ */
+public enum CredentialIssuanceErrorCode {
+
+    INVALID_CREDENTIAL_REQUEST,
+    UNKNOWN_CREDENTIAL_CONFIGURATION,
+    UNKNOWN_CREDENTIAL_IDENTIFIER,
+    INVALID_PROOF,
+    INVALID_NONCE,
+    INVALID_ENCRYPTION_PARAMETERS,
+    CREDENTIAL_REQUEST_DENIED,
+    INVALID_TOKEN,
+    INVALID_DPOP_PROOF,
+    INVALID_CLIENT_ATTESTATION,
+    INSUFFICIENT_SCOPE
+}
@@ -5,13 +5,47 @@ package org.wso2.carbon.identity.openid4vci.credential.exception;
  */
 public class CredentialIssuanceException extends Exception {
 
+    private final CredentialIssuanceErrorCode errorCode;
+
     public CredentialIssuanceException(String message) {
 
-        super(message);
+        this(CredentialIssuanceErrorCode.INVALID_CREDENTIAL_REQUEST, message);
     }
 
     public CredentialIssuanceException(String message, Throwable cause) {
 
         super(message, cause);
+        this.errorCode = CredentialIssuanceErrorCode.INVALID_CREDENTIAL_REQUEST;
+    }
+
+    public CredentialIssuanceException(CredentialIssuanceErrorCode errorCode, String message) {
+
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Create an exception without a stack trace or suppressed exceptions. Expected client errors are raised this
+     * way, since filling in the stack trace costs more than the rest of the failed request.
+     *
+     * @param errorCode error code reported to the client
+     * @param message   error description
+     * @param stackless whether to skip capturing the stack trace
+     */
+    protected CredentialIssuanceException(CredentialIssuanceErrorCode errorCode, String message, boolean stackless) {
+
+        super(message, null, !stackless, !stackless);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Get the error code reported to the client. Failures that do not set a code are reported as
+     * {@link CredentialIssuanceErrorCode#INVALID_CREDENTIAL_REQUEST}.
+     *
+     * @return error code
+     */
+    public CredentialIssuanceErrorCode getErrorCode() {
+
+        return errorCode;
     }
 }
@@ -0,0 +1,12 @@
+package org.wso2.carbon.identity.openid4vci.credential.exception;
+
+/**
+ * Exception thrown when a credential request exceeds the issuance quota of its tenant or credential configuration.
+ */
+public class IssuanceRateLimitedException extends IssuanceRejectedException {
+
+    public IssuanceRateLimitedException(String message, long retryAfterSeconds) {
+
+        super(message, retryAfterSeconds);
+    }
+}
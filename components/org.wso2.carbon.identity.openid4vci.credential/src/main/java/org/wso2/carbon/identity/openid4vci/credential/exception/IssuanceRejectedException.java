@@ -0,0 +1,22 @@
+package org.wso2.carbon.identity.openid4vci.credential.exception;
+
+/**
+ * Exception thrown when a credential request is turned away because the issuer is over capacity. The request may
+ * be retried after the suggested delay. These are raised most often when the issuer is overloaded, so they are
+ * created without a stack trace.
+ */
+public class IssuanceRejectedException extends CredentialIssuanceException {
+
+    private final long retryAfterSeconds;
+
+    public IssuanceRejectedException(String message, long retryAfterSeconds) {
+
+        super(CredentialIssuanceErrorCode.CREDENTIAL_REQUEST_DENIED, message, true);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+
+        return retryAfterSeconds;
+    }
+}
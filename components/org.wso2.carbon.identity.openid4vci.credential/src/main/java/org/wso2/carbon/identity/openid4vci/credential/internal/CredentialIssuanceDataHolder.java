@@ -2,11 +2,15 @@ package org.wso2.carbon.identity.openid4vci.credential.internal;
 
 import org.wso2.carbon.identity.oauth.tokenprocessor.DefaultTokenProvider;
 import org.wso2.carbon.identity.oauth.tokenprocessor.TokenProvider;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.AsyncCredentialFormatHandler;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.CredentialFormatHandler;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuanceStageInterceptor;
+import org.wso2.carbon.identity.openid4vci.credential.signing.CredentialSigner;
 import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data holder for OID4VCI credential issuance component.
@@ -16,7 +20,10 @@ public class CredentialIssuanceDataHolder {
     private static final CredentialIssuanceDataHolder instance = new CredentialIssuanceDataHolder();
     private VCCredentialConfigManager vcCredentialConfigManager;
     private final List<CredentialFormatHandler> credentialFormatHandlers = new ArrayList<>();
+    private final List<AsyncCredentialFormatHandler> asyncCredentialFormatHandlers = new CopyOnWriteArrayList<>();
+    private final List<IssuanceStageInterceptor> issuanceStageInterceptors = new CopyOnWriteArrayList<>();
     private TokenProvider tokenProvider;
+    private volatile CredentialSigner credentialSigner;
 
     private CredentialIssuanceDataHolder() {
 
@@ -52,6 +59,36 @@ public class CredentialIssuanceDataHolder {
         this.credentialFormatHandlers.remove(handler);
     }
 
+    public List<AsyncCredentialFormatHandler> getAsyncCredentialFormatHandlers() {
+
+        return asyncCredentialFormatHandlers;
+    }
+
+    public void addAsyncCredentialFormatHandler(AsyncCredentialFormatHandler handler) {
+
+        this.asyncCredentialFormatHandlers.add(handler);
+    }
+
+    public void removeAsyncCredentialFormatHandler(AsyncCredentialFormatHandler handler) {
+
+        this.asyncCredentialFormatHandlers.remove(handler);
+    }
+
+    public List<IssuanceStageInterceptor> getIssuanceStageInterceptors() {
+
+        return issuanceStageInterceptors;
+    }
+
+    public void addIssuanceStageInterceptor(IssuanceStageInterceptor interceptor) {
+
+        this.issuanceStageInterceptors.add(interceptor);
+    }
+
+    public void removeIssuanceStageInterceptor(IssuanceStageInterceptor interceptor) {
+
+        this.issuanceStageInterceptors.remove(interceptor);
+    }
+
     public TokenProvider getTokenProvider() {
 
         if (tokenProvider == null) {
@@ -64,4 +101,14 @@ public class CredentialIssuanceDataHolder {
 
         this.tokenProvider = tokenProvider;
     }
+
+    public CredentialSigner getCredentialSigner() {
+
+        return credentialSigner;
+    }
+
+    public void setCredentialSigner(CredentialSigner credentialSigner) {
+
+        this.credentialSigner = credentialSigner;
+    }
 }
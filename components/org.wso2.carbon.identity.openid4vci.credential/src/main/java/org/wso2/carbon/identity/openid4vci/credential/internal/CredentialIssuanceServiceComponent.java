@@ -8,11 +8,28 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.carbon.core.ServerStartupObserver;
+import org.wso2.carbon.identity.oauth.event.OAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth.tokenprocessor.TokenProvider;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
 import org.wso2.carbon.identity.openid4vci.credential.CredentialIssuanceService;
+import org.wso2.carbon.identity.openid4vci.credential.claims.ClaimRetrievalGuard;
+import org.wso2.carbon.identity.openid4vci.credential.claims.StaleClaimInvalidationListener;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.AsyncCredentialFormatHandler;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.CredentialFormatHandler;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.impl.JwtVcJsonFormatHandler;
+import org.wso2.carbon.identity.openid4vci.credential.jfr.FlightRecorderStageInterceptor;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuanceStageInterceptor;
+import org.wso2.carbon.identity.openid4vci.credential.ratelimit.IssuanceRateLimiter;
+import org.wso2.carbon.identity.openid4vci.credential.ratelimit.QuotaLeaseProvider;
+import org.wso2.carbon.identity.openid4vci.credential.scheduling.TenantIssuanceScheduler;
+import org.wso2.carbon.identity.openid4vci.credential.signing.CredentialSigner;
+import org.wso2.carbon.identity.openid4vci.credential.signing.SigningMaterialInvalidationListener;
+import org.wso2.carbon.identity.openid4vci.credential.signing.remote.RemoteCredentialSigner;
+import org.wso2.carbon.identity.openid4vci.credential.stats.IssuanceStageStatistics;
+import org.wso2.carbon.identity.openid4vci.credential.token.AccessTokenRevocationInterceptor;
+import org.wso2.carbon.identity.openid4vci.credential.token.LocalTokenValidationInvalidationListener;
 import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 
 /**
@@ -25,14 +42,36 @@ import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 public class CredentialIssuanceServiceComponent {
 
     private static final Log log = LogFactory.getLog(CredentialIssuanceServiceComponent.class);
-
+    private static final String FLIGHT_RECORDER_EVENT_CLASS = "jdk.jfr.Event";
+    private RemoteCredentialSigner remoteCredentialSigner;
 
     protected void activate(ComponentContext context) {
 
         try {
             BundleContext bundleContext = context.getBundleContext();
             bundleContext.registerService(CredentialIssuanceService.class, new CredentialIssuanceService(), null);
-            bundleContext.registerService(CredentialFormatHandler.class, new JwtVcJsonFormatHandler(), null);
+            bundleContext.registerService(new String[]{CredentialFormatHandler.class.getName(),
+                    AsyncCredentialFormatHandler.class.getName()}, new JwtVcJsonFormatHandler(), null);
+            remoteCredentialSigner = RemoteCredentialSigner.fromConfiguration();
+            if (remoteCredentialSigner != null) {
+                bundleContext.registerService(CredentialSigner.class, remoteCredentialSigner, null);
+            }
+            bundleContext.registerService(InvalidationListener.class, new SigningMaterialInvalidationListener(
+                    remoteCredentialSigner), null);
+            bundleContext.registerService(InvalidationListener.class, new StaleClaimInvalidationListener(), null);
+            bundleContext.registerService(InvalidationListener.class, new LocalTokenValidationInvalidationListener(),
+                    null);
+            bundleContext.registerService(OAuthEventInterceptor.class, new AccessTokenRevocationInterceptor(), null);
+            IssuanceStageStatistics.getInstance().registerMBean();
+            TenantIssuanceScheduler.getInstance().start();
+            TenantIssuanceScheduler.getInstance().registerMBean();
+            bundleContext.registerService(ServerStartupObserver.class, new IssuanceWarmUpStartupObserver(), null);
+            if (isFlightRecorderAvailable()) {
+                bundleContext.registerService(IssuanceStageInterceptor.class, new FlightRecorderStageInterceptor(),
+                        null);
+            } else if (log.isDebugEnabled()) {
+                log.debug("Flight recorder is not available. Issuance stage events will not be emitted.");
+            }
             if (log.isDebugEnabled()) {
                 log.debug("OID4VCI credential issuance component activated");
             }
@@ -41,6 +80,21 @@ public class CredentialIssuanceServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+
+        IssuanceStageStatistics.getInstance().unregisterMBean();
+        TenantIssuanceScheduler.getInstance().unregisterMBean();
+        TenantIssuanceScheduler.getInstance().stop();
+        ClaimRetrievalGuard.getInstance().clear();
+        if (remoteCredentialSigner != null) {
+            remoteCredentialSigner.shutdown();
+            remoteCredentialSigner = null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("OID4VCI credential issuance component deactivated");
+        }
+    }
+
     @Reference(
             name = "vc.config.mgt.service.component",
             service = VCCredentialConfigManager.class,
@@ -81,6 +135,92 @@ public class CredentialIssuanceServiceComponent {
         CredentialIssuanceDataHolder.getInstance().removeCredentialFormatHandler(credentialFormatHandler);
     }
 
+    @Reference(
+            name = "openid4vci.issuer.credential.handler.format.async",
+            service = AsyncCredentialFormatHandler.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "removeAsyncCredentialFormatHandler"
+    )
+    protected void addAsyncCredentialFormatHandler(AsyncCredentialFormatHandler credentialFormatHandler) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Adding the AsyncCredentialFormatHandler Service : " + credentialFormatHandler.getFormat());
+        }
+        CredentialIssuanceDataHolder.getInstance().addAsyncCredentialFormatHandler(credentialFormatHandler);
+    }
+
+    protected void removeAsyncCredentialFormatHandler(AsyncCredentialFormatHandler credentialFormatHandler) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Removing the AsyncCredentialFormatHandler Service : " + credentialFormatHandler.getFormat());
+        }
+        CredentialIssuanceDataHolder.getInstance().removeAsyncCredentialFormatHandler(credentialFormatHandler);
+    }
+
+    @Reference(
+            name = "openid4vci.issuance.stage.interceptor",
+            service = IssuanceStageInterceptor.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "removeIssuanceStageInterceptor"
+    )
+    protected void addIssuanceStageInterceptor(IssuanceStageInterceptor interceptor) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Adding the IssuanceStageInterceptor Service : " + interceptor.getClass().getName());
+        }
+        CredentialIssuanceDataHolder.getInstance().addIssuanceStageInterceptor(interceptor);
+    }
+
+    protected void removeIssuanceStageInterceptor(IssuanceStageInterceptor interceptor) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Removing the IssuanceStageInterceptor Service : " + interceptor.getClass().getName());
+        }
+        CredentialIssuanceDataHolder.getInstance().removeIssuanceStageInterceptor(interceptor);
+    }
+
+    @Reference(
+            name = "openid4vci.issuance.quota.lease.provider",
+            service = QuotaLeaseProvider.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetQuotaLeaseProvider"
+    )
+    protected void setQuotaLeaseProvider(QuotaLeaseProvider quotaLeaseProvider) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Setting the QuotaLeaseProvider Service : " + quotaLeaseProvider.getClass().getName());
+        }
+        IssuanceRateLimiter.getInstance().setLeaseProvider(quotaLeaseProvider);
+    }
+
+    protected void unsetQuotaLeaseProvider(QuotaLeaseProvider quotaLeaseProvider) {
+
+        IssuanceRateLimiter.getInstance().setLeaseProvider(null);
+    }
+
+    @Reference(
+            name = "openid4vci.credential.signer",
+            service = CredentialSigner.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetCredentialSigner"
+    )
+    protected void setCredentialSigner(CredentialSigner credentialSigner) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Setting the CredentialSigner Service : " + credentialSigner.getClass().getName());
+        }
+        CredentialIssuanceDataHolder.getInstance().setCredentialSigner(credentialSigner);
+    }
+
+    protected void unsetCredentialSigner(CredentialSigner credentialSigner) {
+
+        CredentialIssuanceDataHolder.getInstance().setCredentialSigner(null);
+    }
+
     @Reference(
             name = "token.provider",
             service = TokenProvider.class,
@@ -103,4 +243,14 @@ public class CredentialIssuanceServiceComponent {
         }
         OAuth2ServiceComponentHolder.getInstance().setTokenProvider(null);
     }
+
+    private boolean isFlightRecorderAvailable() {
+
+        try {
+            Class.forName(FLIGHT_RECORDER_EVENT_CLASS, false, getClass().getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package org.wso2.carbon.identity.openid4vci.credential.internal;
+
+import org.wso2.carbon.core.ServerStartupObserver;
+import org.wso2.carbon.identity.openid4vci.credential.warmup.IssuanceWarmUp;
+
+/**
+ * Starts issuance warm-up once server startup has completed and tenants, keystores and user stores are available.
+ */
+public class IssuanceWarmUpStartupObserver implements ServerStartupObserver {
+
+    @Override
+    public void completingServerStartup() {
+
+    }
+
+    @Override
+    public void completedServerStartup() {
+
+        IssuanceWarmUp.getInstance().start();
+    }
+}
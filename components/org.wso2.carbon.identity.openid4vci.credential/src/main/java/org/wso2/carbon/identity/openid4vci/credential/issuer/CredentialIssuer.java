@@ -2,11 +2,15 @@ package org.wso2.carbon.identity.openid4vci.credential.issuer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
 import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
 import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.AsyncCredentialFormatHandler;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.CredentialFormatHandler;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.SynchronousFormatHandlerAdapter;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Credential issuer that delegates to format-specific handlers.
@@ -25,23 +29,65 @@ public class CredentialIssuer {
     public String issueCredential(CredentialIssuerContext credentialIssuerContext)
             throws CredentialIssuanceException {
 
+        try {
+            byte[] credential = issueCredentialAsync(credentialIssuerContext).join();
+            return credential == null ? null : new String(credential, StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            Throwable cause = CompletableFutures.unwrap(e);
+            if (cause instanceof CredentialIssuanceException) {
+                throw (CredentialIssuanceException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CredentialIssuanceException("Error issuing credential", cause);
+        }
+    }
+
+    /**
+     * Issue a credential based on the format without blocking on the format handler.
+     *
+     * @param credentialIssuerContext the credential issuer context containing necessary data
+     * @return future completed with the UTF-8 encoded credential, or failed with a
+     * {@link CredentialIssuanceException} if issuance fails or the format is not supported
+     */
+    public CompletableFuture<byte[]> issueCredentialAsync(CredentialIssuerContext credentialIssuerContext) {
+
         if (credentialIssuerContext.getCredentialConfiguration().getFormat() == null) {
-            throw new CredentialIssuanceException("Credential format cannot be null");
+            return CompletableFutures.failed(new CredentialIssuanceException("Credential format cannot be null"));
         }
 
         String format = credentialIssuerContext.getCredentialConfiguration().getFormat();
-        List<CredentialFormatHandler> formatHandlers = CredentialIssuanceDataHolder.getInstance()
-                .getCredentialFormatHandlers();
-        CredentialFormatHandler handler = formatHandlers.stream()
-                .filter(h -> format.equals(h.getFormat()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unsupported credential format: " + format));
+        AsyncCredentialFormatHandler handler = resolveHandler(format);
+        if (handler == null) {
+            return CompletableFutures.failed(new IllegalArgumentException("Unsupported credential format: "
+                    + format));
+        }
         if (log.isDebugEnabled()) {
             log.debug("Issuing credential with format: " + format +
                      " for configuration: " + credentialIssuerContext.getConfigurationId());
         }
 
-        return handler.issueCredential(credentialIssuerContext);
+        try {
+            return handler.issueCredentialAsync(credentialIssuerContext);
+        } catch (RuntimeException e) {
+            return CompletableFutures.failed(e);
+        }
     }
-}
 
+    private static AsyncCredentialFormatHandler resolveHandler(String format) {
+
+        CredentialIssuanceDataHolder dataHolder = CredentialIssuanceDataHolder.getInstance();
+        for (AsyncCredentialFormatHandler handler : dataHolder.getAsyncCredentialFormatHandlers()) {
+            if (format.equals(handler.getFormat())) {
+                return handler;
+            }
+        }
+        for (CredentialFormatHandler handler : dataHolder.getCredentialFormatHandlers()) {
+            if (format.equals(handler.getFormat())) {
+                return new SynchronousFormatHandlerAdapter(handler);
+            }
+        }
+        return null;
+    }
+}
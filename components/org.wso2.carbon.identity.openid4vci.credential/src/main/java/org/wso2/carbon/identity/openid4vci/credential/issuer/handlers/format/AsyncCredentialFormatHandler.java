@@ -0,0 +1,30 @@
+package org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format;
+
+import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuerContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for credential format handlers that issue credentials without blocking the calling thread, for
+ * example handlers that sign with a remote signer or an HSM. When both an asynchronous and a synchronous handler
+ * are registered for a format, the asynchronous handler is used.
+ */
+public interface AsyncCredentialFormatHandler {
+
+    /**
+     * Get the format identifier supported by this handler.
+     *
+     * @return format identifier (e.g., "jwt_vc_json", "ldp_vc", "vc+sd-jwt")
+     */
+    String getFormat();
+
+    /**
+     * Issue a credential in the specific format. Failures are reported by completing the returned future
+     * exceptionally, preferably with a
+     * {@link org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException}.
+     *
+     * @param credentialIssuerContext the credential issuer context containing necessary data
+     * @return future completed with the UTF-8 encoded credential
+     */
+    CompletableFuture<byte[]> issueCredentialAsync(CredentialIssuerContext credentialIssuerContext);
+}
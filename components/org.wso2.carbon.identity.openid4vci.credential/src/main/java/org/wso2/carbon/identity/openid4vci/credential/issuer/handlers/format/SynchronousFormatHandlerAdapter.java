@@ -0,0 +1,68 @@
+package org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format;
+
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuerContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Exposes a synchronous {@link CredentialFormatHandler} as an {@link AsyncCredentialFormatHandler}. Without an
+ * executor the handler runs on the calling thread and the returned future is already complete, so adapting a
+ * handler that signs locally costs no extra thread hand-off.
+ */
+public class SynchronousFormatHandlerAdapter implements AsyncCredentialFormatHandler {
+
+    private final CredentialFormatHandler delegate;
+    private final Executor executor;
+
+    public SynchronousFormatHandlerAdapter(CredentialFormatHandler delegate) {
+
+        this(delegate, null);
+    }
+
+    public SynchronousFormatHandlerAdapter(CredentialFormatHandler delegate, Executor executor) {
+
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String getFormat() {
+
+        return delegate.getFormat();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> issueCredentialAsync(CredentialIssuerContext credentialIssuerContext) {
+
+        if (executor == null) {
+            try {
+                return CompletableFuture.completedFuture(issue(credentialIssuerContext));
+            } catch (CredentialIssuanceException | RuntimeException e) {
+                return CompletableFutures.failed(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return issue(credentialIssuerContext);
+            } catch (CredentialIssuanceException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    public CredentialFormatHandler getDelegate() {
+
+        return delegate;
+    }
+
+    private byte[] issue(CredentialIssuerContext credentialIssuerContext) throws CredentialIssuanceException {
+
+        String credential = delegate.issueCredential(credentialIssuerContext);
+        return credential == null ? null : credential.getBytes(StandardCharsets.UTF_8);
+    }
+}
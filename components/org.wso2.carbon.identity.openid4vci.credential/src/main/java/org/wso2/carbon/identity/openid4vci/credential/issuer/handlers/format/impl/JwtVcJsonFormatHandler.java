@@ -1,43 +1,55 @@
 package org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.impl;
 
-import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.URLBuilderException;
-import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
-import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
-import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
-import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
 import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuerContext;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.AsyncCredentialFormatHandler;
 import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.CredentialFormatHandler;
-import org.wso2.carbon.identity.openid4vci.credential.util.CredentialIssuanceUtil;
+import org.wso2.carbon.identity.openid4vci.credential.signing.CredentialSigner;
+import org.wso2.carbon.identity.openid4vci.credential.signing.LocalKeystoreCredentialSigner;
 
-import java.security.Key;
-import java.security.cert.Certificate;
-import java.security.interfaces.RSAPrivateKey;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-
-import static org.wso2.carbon.identity.openid4vci.common.constant.Constants.CONTEXT_OPENID4VCI;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Handler for JWT VC JSON format credentials.
+ * Handler for JWT VC JSON format credentials. Credentials are signed by the {@link CredentialSigner} registered as
+ * an OSGi service, or with the tenant keystore when no signer is registered.
  */
-public class JwtVcJsonFormatHandler implements CredentialFormatHandler {
+public class JwtVcJsonFormatHandler implements CredentialFormatHandler, AsyncCredentialFormatHandler {
 
     private static final Log log = LogFactory.getLog(JwtVcJsonFormatHandler.class);
     private static final String FORMAT = "jwt_vc_json";
+    private static final CredentialSigner LOCAL_SIGNER = new LocalKeystoreCredentialSigner();
+
+    private final CredentialSigner signer;
+
+    public JwtVcJsonFormatHandler() {
+
+        this(null);
+    }
+
+    /**
+     * Create a handler that always signs with the given signer.
+     *
+     * @param signer credential signer, or null to use the registered signer
+     */
+    public JwtVcJsonFormatHandler(CredentialSigner signer) {
+
+        this.signer = signer;
+    }
 
     @Override
     public String getFormat() {
@@ -47,13 +59,36 @@ public class JwtVcJsonFormatHandler implements CredentialFormatHandler {
     @Override
     public String issueCredential(CredentialIssuerContext credentialIssuerContext) throws CredentialIssuanceException {
 
+        try {
+            return new String(issueCredentialAsync(credentialIssuerContext).join(), StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            Throwable cause = CompletableFutures.unwrap(e);
+            if (cause instanceof CredentialIssuanceException) {
+                throw (CredentialIssuanceException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CredentialIssuanceException("Error occurred while signing JWT", cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<byte[]> issueCredentialAsync(CredentialIssuerContext credentialIssuerContext) {
+
         if (log.isDebugEnabled()) {
             log.debug("Issuing JWT VC JSON credential for configuration: " +
                     credentialIssuerContext.getConfigurationId());
         }
 
-        JWTClaimsSet jwtClaimsSet = createJWTClaimSet(credentialIssuerContext);
-        return signJWT(jwtClaimsSet, credentialIssuerContext);
+        JWTClaimsSet jwtClaimsSet;
+        try {
+            jwtClaimsSet = createJWTClaimSet(credentialIssuerContext);
+        } catch (CredentialIssuanceException e) {
+            return CompletableFutures.failed(e);
+        }
+        return signJWT(jwtClaimsSet, credentialIssuerContext)
+                .thenApply(credential -> credential.getBytes(StandardCharsets.UTF_8));
     }
 
     private JWTClaimsSet createJWTClaimSet(CredentialIssuerContext credentialIssuerContext)
@@ -146,57 +181,28 @@ public class JwtVcJsonFormatHandler implements CredentialFormatHandler {
 
     private String buildCredentialIssuerUrl(String tenantDomain) throws URLBuilderException {
 
-        return Util.buildServiceUrl(tenantDomain, CONTEXT_OPENID4VCI).getAbsolutePublicURL();
+        return TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain).getCredentialIssuerUrl();
     }
 
-    private String signJWT(JWTClaimsSet jwtClaimsSet, CredentialIssuerContext credentialIssuerContext)
-            throws CredentialIssuanceException {
+    private CompletableFuture<String> signJWT(JWTClaimsSet jwtClaimsSet,
+                                              CredentialIssuerContext credentialIssuerContext) {
 
         String signatureAlgorithm = credentialIssuerContext.getCredentialConfiguration()
                 .getSigningAlgorithm();
-        if (JWSAlgorithm.RS256.getName().equals(signatureAlgorithm)) {
-            return signJWTWithRSA(jwtClaimsSet, credentialIssuerContext);
-        } else {
-            throw new CredentialIssuanceException("Invalid signature algorithm provided. " + signatureAlgorithm);
+        if (signatureAlgorithm == null) {
+            return CompletableFutures.failed(new CredentialIssuanceException(
+                    "Invalid signature algorithm provided. " + signatureAlgorithm));
         }
+        return resolveSigner().sign(credentialIssuerContext.getTenantDomain(),
+                JWSAlgorithm.parse(signatureAlgorithm), jwtClaimsSet);
     }
 
-    private String signJWTWithRSA(JWTClaimsSet jwtClaimsSet, CredentialIssuerContext credentialIssuerContext)
-            throws CredentialIssuanceException {
+    private CredentialSigner resolveSigner() {
 
-        try {
-            String tenantDomain = credentialIssuerContext.getTenantDomain();
-            int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-
-            Key privateKey = CredentialIssuanceUtil.getPrivateKey(tenantDomain);
-            JWSSigner signer = OAuth2Util.createJWSSigner((RSAPrivateKey) privateKey);
-            JWSHeader.Builder headerBuilder = new JWSHeader.Builder(JWSAlgorithm.RS256);
-            Certificate certificate;
-            try {
-                certificate = OAuth2Util.getCertificate(tenantDomain, tenantId);
-            } catch (IdentityOAuth2Exception e) {
-                throw new CredentialIssuanceException("Error obtaining the certificate for tenant: " + tenantDomain, e);
-            }
-            String certThumbPrint;
-            try {
-                certThumbPrint = OAuth2Util.getThumbPrintWithPrevAlgorithm(certificate, false);
-            } catch (IdentityOAuth2Exception e) {
-                throw new CredentialIssuanceException("Error obtaining the certificate thumbprint for tenant: "
-                        + tenantDomain, e);
-            }
-            try {
-                headerBuilder.keyID(OAuth2Util.getKID(OAuth2Util.getCertificate(tenantDomain, tenantId),
-                        (JWSAlgorithm) JWSAlgorithm.RS256, tenantDomain));
-            } catch (IdentityOAuth2Exception e) {
-                throw new CredentialIssuanceException("Error obtaining the KID for tenant: " + tenantDomain, e);
-            }
-            headerBuilder.x509CertThumbprint(new Base64URL(certThumbPrint));
-            SignedJWT signedJWT = new SignedJWT(headerBuilder.build(), jwtClaimsSet);
-            signedJWT.sign(signer);
-            return signedJWT.serialize();
-        } catch (JOSEException e) {
-            throw new CredentialIssuanceException("Error occurred while signing JWT", e);
+        if (signer != null) {
+            return signer;
         }
+        CredentialSigner registered = CredentialIssuanceDataHolder.getInstance().getCredentialSigner();
+        return registered != null ? registered : LOCAL_SIGNER;
     }
 }
-
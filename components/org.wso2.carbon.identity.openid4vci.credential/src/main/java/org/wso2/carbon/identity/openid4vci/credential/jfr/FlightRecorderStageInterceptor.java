@@ -0,0 +1,58 @@
+package org.wso2.carbon.identity.openid4vci.credential.jfr;
+
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuancePipelineContext;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuanceStage;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuanceStageInterceptor;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+
+/**
+ * Issuance stage interceptor emitting an {@link IssuanceStageEvent} per stage. When no recording enables the
+ * event, only an enabled check is performed per stage. Must only be loaded on JVMs providing {@code jdk.jfr}.
+ */
+public class FlightRecorderStageInterceptor implements IssuanceStageInterceptor {
+
+    @Override
+    public void beforeStage(IssuanceStage stage, IssuancePipelineContext context) {
+
+        IssuanceStageEvent event = new IssuanceStageEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            context.setAttribute(this, event);
+        }
+    }
+
+    @Override
+    public void afterStage(IssuanceStage stage, IssuancePipelineContext context, long elapsedNanos) {
+
+        commit(stage, context, false);
+    }
+
+    @Override
+    public void onStageFailure(IssuanceStage stage, IssuancePipelineContext context,
+                               CredentialIssuanceException exception) {
+
+        commit(stage, context, true);
+    }
+
+    private void commit(IssuanceStage stage, IssuancePipelineContext context, boolean failed) {
+
+        IssuanceStageEvent event = (IssuanceStageEvent) context.removeAttribute(this);
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage.getStageName();
+            event.tenant = context.getTenantDomain();
+            event.configurationId = context.getRequest().getCredentialConfigurationId();
+            VCCredentialConfiguration configuration = context.getCredentialConfiguration();
+            if (configuration != null) {
+                event.format = configuration.getFormat();
+                event.algorithm = configuration.getSigningAlgorithm();
+            }
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.wso2.carbon.identity.openid4vci.credential.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event emitted for each stage of a credential issuance request. Stages faster than the
+ * threshold are discarded before commit; override it in the recording settings with
+ * {@code org.wso2.carbon.identity.openid4vci.IssuanceStage#threshold}.
+ */
+@Name(IssuanceStageEvent.NAME)
+@Label("Credential Issuance Stage")
+@Description("Time spent in a stage of an OpenID4VCI credential issuance request")
+@Category({"WSO2", "OpenID4VCI"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class IssuanceStageEvent extends Event {
+
+    public static final String NAME = "org.wso2.carbon.identity.openid4vci.IssuanceStage";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("Configuration Identifier")
+    String configurationId;
+
+    @Label("Format")
+    String format;
+
+    @Label("Signing Algorithm")
+    String algorithm;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -1,12 +1,19 @@
 package org.wso2.carbon.identity.openid4vci.credential.model;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Represents an OpenID4VCI credential issuance request payload.
  */
 public class CredentialIssuanceRequest {
 
     private String credentialConfigurationId;
+    private String credentialIdentifier;
     private String scope;
+    private Map<String, List<String>> proofs = Collections.emptyMap();
+    private ResponseEncryption credentialResponseEncryption;
 
     public String getCredentialConfigurationId() {
         return credentialConfigurationId;
@@ -16,6 +23,14 @@ public class CredentialIssuanceRequest {
         this.credentialConfigurationId = credentialConfigurationId;
     }
 
+    public String getCredentialIdentifier() {
+        return credentialIdentifier;
+    }
+
+    public void setCredentialIdentifier(String credentialIdentifier) {
+        this.credentialIdentifier = credentialIdentifier;
+    }
+
     public String getScope() {
         return scope;
     }
@@ -23,4 +38,65 @@ public class CredentialIssuanceRequest {
     public void setScope(String scope) {
         this.scope = scope;
     }
+
+    /**
+     * Get the key proofs of the request, keyed by proof type. A single {@code proof} is reported as a proof type
+     * with one value. Proofs that are JSON objects, such as {@code ldp_vp}, are kept as serialized JSON.
+     *
+     * @return proofs keyed by proof type, empty if the request carries no proof
+     */
+    public Map<String, List<String>> getProofs() {
+        return proofs;
+    }
+
+    public void setProofs(Map<String, List<String>> proofs) {
+        this.proofs = proofs;
+    }
+
+    public ResponseEncryption getCredentialResponseEncryption() {
+        return credentialResponseEncryption;
+    }
+
+    public void setCredentialResponseEncryption(ResponseEncryption credentialResponseEncryption) {
+        this.credentialResponseEncryption = credentialResponseEncryption;
+    }
+
+    /**
+     * Parameters requested by the wallet for encrypting the credential response.
+     */
+    public static class ResponseEncryption {
+
+        private String jwk;
+        private String alg;
+        private String enc;
+
+        /**
+         * Get the public key to encrypt the response with.
+         *
+         * @return serialized JWK
+         */
+        public String getJwk() {
+            return jwk;
+        }
+
+        public void setJwk(String jwk) {
+            this.jwk = jwk;
+        }
+
+        public String getAlg() {
+            return alg;
+        }
+
+        public void setAlg(String alg) {
+            this.alg = alg;
+        }
+
+        public String getEnc() {
+            return enc;
+        }
+
+        public void setEnc(String enc) {
+            this.enc = enc;
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit of work executed by an issuance pipeline stage that completes asynchronously.
+ */
+@FunctionalInterface
+public interface AsyncIssuanceStageAction {
+
+    /**
+     * Start the stage, reading inputs from the pipeline context. Outputs are written to the context before the
+     * returned future completes.
+     *
+     * @param context the pipeline context of the current request
+     * @return future completed when the stage has finished
+     * @throws CredentialIssuanceException if the stage fails before it is started
+     */
+    CompletableFuture<Void> execute(IssuancePipelineContext context) throws CredentialIssuanceException;
+}
@@ -0,0 +1,159 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
+import org.wso2.carbon.identity.openid4vci.credential.stats.IssuanceStageStatistics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Executes credential issuance stages, invoking registered interceptors and timing each stage.
+ */
+public class IssuancePipeline {
+
+    private static final Log log = LogFactory.getLog(IssuancePipeline.class);
+    private final IssuanceStageStatistics statistics;
+
+    public IssuancePipeline(IssuanceStageStatistics statistics) {
+
+        this.statistics = statistics;
+    }
+
+    /**
+     * Execute a single stage of the pipeline.
+     *
+     * @param stage   the stage being executed
+     * @param context the pipeline context of the current request
+     * @param action  the work performed by the stage
+     * @throws CredentialIssuanceException if an interceptor or the stage fails
+     */
+    public void executeStage(IssuanceStage stage, IssuancePipelineContext context, IssuanceStageAction action)
+            throws CredentialIssuanceException {
+
+        List<IssuanceStageInterceptor> interceptors = CredentialIssuanceDataHolder.getInstance()
+                .getIssuanceStageInterceptors();
+        for (IssuanceStageInterceptor interceptor : interceptors) {
+            interceptor.beforeStage(stage, context);
+        }
+
+        long start = System.nanoTime();
+        try {
+            action.execute(context);
+        } catch (CredentialIssuanceException e) {
+            context.setStageNanos(stage, System.nanoTime() - start);
+            notifyFailure(interceptors, stage, context, e);
+            throw e;
+        } catch (RuntimeException e) {
+            context.setStageNanos(stage, System.nanoTime() - start);
+            notifyFailure(interceptors, stage, context, e);
+            throw e;
+        } finally {
+            if (!context.isStageExecuted(stage)) {
+                context.setStageNanos(stage, System.nanoTime() - start);
+            }
+        }
+
+        long elapsedNanos = context.getStageNanos(stage);
+        for (IssuanceStageInterceptor interceptor : interceptors) {
+            try {
+                interceptor.afterStage(stage, context, elapsedNanos);
+            } catch (RuntimeException e) {
+                log.error("Issuance stage interceptor failed after stage: " + stage.getStageName(), e);
+            }
+        }
+    }
+
+    /**
+     * Execute a stage whose work completes asynchronously. The stage is timed until its future completes, and the
+     * interceptors are notified on the thread that completes it.
+     *
+     * @param stage   the stage being executed
+     * @param context the pipeline context of the current request
+     * @param action  the work performed by the stage
+     * @return future completed when the stage and its interceptors have finished, or failed with the
+     * {@link CredentialIssuanceException} of the stage or of an interceptor
+     */
+    public CompletableFuture<Void> executeStageAsync(IssuanceStage stage, IssuancePipelineContext context,
+                                                     AsyncIssuanceStageAction action) {
+
+        List<IssuanceStageInterceptor> interceptors = CredentialIssuanceDataHolder.getInstance()
+                .getIssuanceStageInterceptors();
+        CompletableFuture<Void> stageFuture;
+        long start;
+        try {
+            for (IssuanceStageInterceptor interceptor : interceptors) {
+                interceptor.beforeStage(stage, context);
+            }
+            start = System.nanoTime();
+            try {
+                stageFuture = action.execute(context);
+            } catch (CredentialIssuanceException | RuntimeException e) {
+                stageFuture = CompletableFutures.failed(e);
+            }
+        } catch (CredentialIssuanceException e) {
+            return CompletableFutures.failed(e);
+        }
+
+        return stageFuture.handle((ignored, failure) -> {
+            context.setStageNanos(stage, System.nanoTime() - start);
+            if (failure != null) {
+                Throwable cause = CompletableFutures.unwrap(failure);
+                notifyFailure(interceptors, stage, context, cause);
+                throw CompletableFutures.propagate(cause);
+            }
+            for (IssuanceStageInterceptor interceptor : interceptors) {
+                try {
+                    interceptor.afterStage(stage, context, context.getStageNanos(stage));
+                } catch (RuntimeException e) {
+                    log.error("Issuance stage interceptor failed after stage: " + stage.getStageName(), e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Record the stage timings of a finished request, whether it succeeded or failed.
+     *
+     * @param context the pipeline context of the finished request
+     */
+    public void complete(IssuancePipelineContext context) {
+
+        String configurationId = context.getCredentialConfiguration() != null
+                ? context.getCredentialConfiguration().getIdentifier()
+                : IssuanceStageStatistics.UNRESOLVED_CONFIGURATION;
+        for (IssuanceStage stage : IssuanceStage.values()) {
+            if (context.isStageExecuted(stage)) {
+                statistics.record(context.getTenantDomain(), configurationId, stage, context.getStageNanos(stage));
+            }
+        }
+    }
+
+    public IssuanceStageStatistics getStatistics() {
+
+        return statistics;
+    }
+
+    /**
+     * Notify the interceptors of a failed stage. Failures other than {@link CredentialIssuanceException} are wrapped,
+     * so that interceptors release the state they keep for the stage whatever the stage failed with.
+     */
+    private void notifyFailure(List<IssuanceStageInterceptor> interceptors, IssuanceStage stage,
+                               IssuancePipelineContext context, Throwable failure) {
+
+        CredentialIssuanceException exception = failure instanceof CredentialIssuanceException
+                ? (CredentialIssuanceException) failure
+                : new CredentialIssuanceException("Issuance stage failed: " + stage.getStageName(), failure);
+        for (IssuanceStageInterceptor interceptor : interceptors) {
+            try {
+                interceptor.onStageFailure(stage, context, exception);
+            } catch (RuntimeException e) {
+                log.error("Issuance stage interceptor failed on failure of stage: " + stage.getStageName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceReqDTO;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+import org.wso2.carbon.user.api.UserRealm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-request state shared between the stages of the credential issuance pipeline.
+ */
+public class IssuancePipelineContext {
+
+    private final CredentialIssuanceReqDTO request;
+    private final long[] stageNanos = new long[IssuanceStage.values().length];
+    private int executedStages;
+    private String[] scopes;
+    private AuthenticatedUser authenticatedUser;
+    private VCCredentialConfiguration credentialConfiguration;
+    private UserRealm userRealm;
+    private Map<String, String> claims;
+    private String credential;
+    private String responsePayload;
+    private Map<Object, Object> attributes;
+
+    public IssuancePipelineContext(CredentialIssuanceReqDTO request) {
+
+        this.request = request;
+    }
+
+    public CredentialIssuanceReqDTO getRequest() {
+
+        return request;
+    }
+
+    public String getTenantDomain() {
+
+        return request.getTenantDomain();
+    }
+
+    public String[] getScopes() {
+
+        return scopes;
+    }
+
+    public void setScopes(String[] scopes) {
+
+        this.scopes = scopes;
+    }
+
+    public AuthenticatedUser getAuthenticatedUser() {
+
+        return authenticatedUser;
+    }
+
+    public void setAuthenticatedUser(AuthenticatedUser authenticatedUser) {
+
+        this.authenticatedUser = authenticatedUser;
+    }
+
+    public VCCredentialConfiguration getCredentialConfiguration() {
+
+        return credentialConfiguration;
+    }
+
+    public void setCredentialConfiguration(VCCredentialConfiguration credentialConfiguration) {
+
+        this.credentialConfiguration = credentialConfiguration;
+    }
+
+    public UserRealm getUserRealm() {
+
+        return userRealm;
+    }
+
+    public void setUserRealm(UserRealm userRealm) {
+
+        this.userRealm = userRealm;
+    }
+
+    public Map<String, String> getClaims() {
+
+        return claims;
+    }
+
+    public void setClaims(Map<String, String> claims) {
+
+        this.claims = claims;
+    }
+
+    public String getCredential() {
+
+        return credential;
+    }
+
+    public void setCredential(String credential) {
+
+        this.credential = credential;
+    }
+
+    public String getResponsePayload() {
+
+        return responsePayload;
+    }
+
+    public void setResponsePayload(String responsePayload) {
+
+        this.responsePayload = responsePayload;
+    }
+
+    /**
+     * Get state attached to this request by a pipeline extension. Stages of a request may complete on different
+     * threads, so extensions keep per-request state here rather than in thread locals.
+     *
+     * @param key key chosen by the extension
+     * @return attached value, or null if none
+     */
+    public Object getAttribute(Object key) {
+
+        return attributes == null ? null : attributes.get(key);
+    }
+
+    public void setAttribute(Object key, Object value) {
+
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(key, value);
+    }
+
+    public Object removeAttribute(Object key) {
+
+        return attributes == null ? null : attributes.remove(key);
+    }
+
+    /**
+     * Get the time spent in a stage of this request.
+     *
+     * @param stage the issuance stage
+     * @return elapsed nanoseconds, or zero if the stage has not run
+     */
+    public long getStageNanos(IssuanceStage stage) {
+
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * Check whether a stage has been executed for this request.
+     *
+     * @param stage the issuance stage
+     * @return true if the stage ran, whether it succeeded or failed
+     */
+    public boolean isStageExecuted(IssuanceStage stage) {
+
+        return (executedStages & (1 << stage.ordinal())) != 0;
+    }
+
+    void setStageNanos(IssuanceStage stage, long nanos) {
+
+        stageNanos[stage.ordinal()] = nanos;
+        executedStages |= 1 << stage.ordinal();
+    }
+}
@@ -0,0 +1,27 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+/**
+ * Stages of the credential issuance pipeline, in execution order.
+ */
+public enum IssuanceStage {
+
+    TOKEN_VERIFICATION("token_verification"),
+    CONFIGURATION_RESOLUTION("configuration_resolution"),
+    SCOPE_VALIDATION("scope_validation"),
+    REALM_RESOLUTION("realm_resolution"),
+    CLAIM_RETRIEVAL("claim_retrieval"),
+    CREDENTIAL_SIGNING("credential_signing"),
+    RESPONSE_SERIALIZATION("response_serialization");
+
+    private final String stageName;
+
+    IssuanceStage(String stageName) {
+
+        this.stageName = stageName;
+    }
+
+    public String getStageName() {
+
+        return stageName;
+    }
+}
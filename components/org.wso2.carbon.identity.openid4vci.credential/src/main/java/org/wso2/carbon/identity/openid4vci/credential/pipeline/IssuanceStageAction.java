@@ -0,0 +1,18 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+/**
+ * Unit of work executed by a single issuance pipeline stage.
+ */
+@FunctionalInterface
+public interface IssuanceStageAction {
+
+    /**
+     * Execute the stage, reading inputs from and writing outputs to the pipeline context.
+     *
+     * @param context the pipeline context of the current request
+     * @throws CredentialIssuanceException if the stage fails
+     */
+    void execute(IssuancePipelineContext context) throws CredentialIssuanceException;
+}
@@ -0,0 +1,45 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+/**
+ * Extension point invoked around each stage of the credential issuance pipeline.
+ * Implementations are registered as OSGi services and must be thread safe.
+ */
+public interface IssuanceStageInterceptor {
+
+    /**
+     * Invoked before a stage is executed.
+     *
+     * @param stage   the stage about to run
+     * @param context the pipeline context of the current request
+     * @throws CredentialIssuanceException to abort the issuance before the stage runs
+     */
+    default void beforeStage(IssuanceStage stage, IssuancePipelineContext context)
+            throws CredentialIssuanceException {
+
+    }
+
+    /**
+     * Invoked after a stage completed successfully.
+     *
+     * @param stage        the completed stage
+     * @param context      the pipeline context of the current request
+     * @param elapsedNanos time spent in the stage, in nanoseconds
+     */
+    default void afterStage(IssuanceStage stage, IssuancePipelineContext context, long elapsedNanos) {
+
+    }
+
+    /**
+     * Invoked when a stage fails. The failure is propagated to the caller after all interceptors are notified.
+     *
+     * @param stage     the failed stage
+     * @param context   the pipeline context of the current request
+     * @param exception the failure raised by the stage
+     */
+    default void onStageFailure(IssuanceStage stage, IssuancePipelineContext context,
+                                CredentialIssuanceException exception) {
+
+    }
+}
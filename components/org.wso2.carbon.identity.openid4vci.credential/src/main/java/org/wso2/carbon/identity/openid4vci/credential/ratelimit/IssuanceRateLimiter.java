@@ -0,0 +1,228 @@
+package org.wso2.carbon.identity.openid4vci.credential.ratelimit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRateLimitedException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces issuance quotas per tenant and per credential configuration with token buckets. Quotas are written as
+ * {@code rate:burst}, where the rate is in requests per second and the burst defaults to the rate rounded up.
+ * When quotas are cluster-wide, each node enforces its leased share of them locally and renews the lease
+ * periodically through the {@link QuotaLeaseProvider}.
+ */
+public class IssuanceRateLimiter {
+
+    private static final Log log = LogFactory.getLog(IssuanceRateLimiter.class);
+    private static final String DEFAULT_TENANT_QUOTA_PROPERTY = "OpenID4VCI.RateLimit.DefaultTenantQuota";
+    private static final String TENANT_QUOTAS_PROPERTY = "OpenID4VCI.RateLimit.TenantQuotas";
+    private static final String CONFIGURATION_QUOTAS_PROPERTY = "OpenID4VCI.RateLimit.ConfigurationQuotas";
+    private static final String CLUSTER_WIDE_PROPERTY = "OpenID4VCI.RateLimit.ClusterWide";
+    private static final String CLUSTER_SIZE_PROPERTY = "OpenID4VCI.RateLimit.ClusterSize";
+    private static final String LEASE_DURATION_PROPERTY = "OpenID4VCI.RateLimit.LeaseDuration";
+    private static final long DEFAULT_LEASE_DURATION_SECONDS = 30;
+    private static final double MIN_SHARE = 0.001;
+    private static final IssuanceRateLimiter instance = new IssuanceRateLimiter();
+
+    private final Quota defaultTenantQuota;
+    private final Map<String, Quota> tenantQuotas;
+    private final Map<String, Quota> configurationQuotas;
+    private final boolean clusterWide;
+    private final long leaseDurationNanos;
+    private final boolean enabled;
+    private final QuotaLeaseProvider staticLeaseProvider;
+    private final ConcurrentMap<String, LeasedBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private volatile QuotaLeaseProvider leaseProvider;
+
+    private IssuanceRateLimiter() {
+
+        this(IdentityUtil.getProperty(DEFAULT_TENANT_QUOTA_PROPERTY), IdentityUtil.getProperty(TENANT_QUOTAS_PROPERTY),
+                IdentityUtil.getProperty(CONFIGURATION_QUOTAS_PROPERTY),
+                Boolean.parseBoolean(IdentityUtil.getProperty(CLUSTER_WIDE_PROPERTY)),
+                (int) Util.readPositiveLong(CLUSTER_SIZE_PROPERTY, 1),
+                TimeUnit.SECONDS.toMillis(Util.readPositiveLong(LEASE_DURATION_PROPERTY,
+                        DEFAULT_LEASE_DURATION_SECONDS)));
+    }
+
+    IssuanceRateLimiter(String defaultTenantQuota, String tenantQuotas, String configurationQuotas,
+                        boolean clusterWide, int clusterSize, long leaseDurationMillis) {
+
+        this.defaultTenantQuota = parseQuota(DEFAULT_TENANT_QUOTA_PROPERTY, defaultTenantQuota);
+        this.tenantQuotas = parseQuotas(TENANT_QUOTAS_PROPERTY, tenantQuotas);
+        this.configurationQuotas = parseQuotas(CONFIGURATION_QUOTAS_PROPERTY, configurationQuotas);
+        this.clusterWide = clusterWide;
+        this.leaseDurationNanos = TimeUnit.MILLISECONDS.toNanos(leaseDurationMillis);
+        this.enabled = this.defaultTenantQuota != null || !this.tenantQuotas.isEmpty()
+                || !this.configurationQuotas.isEmpty();
+        this.staticLeaseProvider = new StaticQuotaLeaseProvider(clusterSize);
+        this.leaseProvider = staticLeaseProvider;
+    }
+
+    public static IssuanceRateLimiter getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Take a token from the quota of a credential configuration and of its tenant. The configuration quota is
+     * checked first, so a request refused by it does not use up the tenant quota, and its token is given back when
+     * the tenant quota refuses the request. Only authenticated requests should be charged, so that callers without
+     * a valid access token cannot use up the quota of a tenant.
+     *
+     * @param tenantDomain    tenant domain of the request
+     * @param configurationId credential configuration requested, may be null
+     * @throws IssuanceRateLimitedException if either quota is exhausted
+     */
+    public void acquire(String tenantDomain, String configurationId) throws IssuanceRateLimitedException {
+
+        if (!enabled) {
+            return;
+        }
+        TokenBucket configurationBucket = null;
+        if (configurationId != null) {
+            String key = tenantDomain + "/" + configurationId;
+            configurationBucket = take(key, tenantDomain, configurationQuotas.get(key),
+                    "credential configuration: " + configurationId);
+        }
+        Quota tenantQuota = tenantQuotas.get(tenantDomain);
+        try {
+            take(tenantDomain, tenantDomain, tenantQuota != null ? tenantQuota : defaultTenantQuota,
+                    "tenant: " + tenantDomain);
+        } catch (IssuanceRateLimitedException e) {
+            if (configurationBucket != null) {
+                configurationBucket.refund();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Set the provider of cluster quota leases. Buckets pick up the new shares as their current leases expire.
+     *
+     * @param leaseProvider lease provider, or null to split quotas evenly over the configured cluster size
+     */
+    public void setLeaseProvider(QuotaLeaseProvider leaseProvider) {
+
+        this.leaseProvider = leaseProvider != null ? leaseProvider : staticLeaseProvider;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    public long getRejected() {
+
+        return rejected.sum();
+    }
+
+    private TokenBucket take(String key, String tenantDomain, Quota quota, String subject)
+            throws IssuanceRateLimitedException {
+
+        if (quota == null) {
+            return null;
+        }
+        TokenBucket bucket = bucketFor(key, tenantDomain, quota);
+        long waitNanos = bucket.tryAcquire();
+        if (waitNanos > 0) {
+            rejected.increment();
+            long retryAfterSeconds = Math.max(1L, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                    / TimeUnit.SECONDS.toNanos(1));
+            throw new IssuanceRateLimitedException("Issuance quota exceeded for " + subject, retryAfterSeconds);
+        }
+        return bucket;
+    }
+
+    private TokenBucket bucketFor(String key, String tenantDomain, Quota quota) {
+
+        LeasedBucket leased = buckets.get(key);
+        if (leased != null && (!clusterWide || System.nanoTime() - leased.expiresAtNanos < 0)) {
+            return leased.bucket;
+        }
+        double share = clusterWide ? Math.min(1.0, Math.max(MIN_SHARE, leaseProvider.getLocalShare(tenantDomain)))
+                : 1.0;
+        if (leased != null && leased.share == share) {
+            // Renewing the lease with an unchanged share keeps the bucket, so renewals do not grant a fresh burst.
+            leased.expiresAtNanos = System.nanoTime() + leaseDurationNanos;
+            return leased.bucket;
+        }
+        LeasedBucket renewed = new LeasedBucket(new TokenBucket(quota.ratePerSecond * share,
+                (int) Math.max(1, Math.round(quota.burst * share))), share,
+                System.nanoTime() + leaseDurationNanos);
+        buckets.put(key, renewed);
+        return renewed.bucket;
+    }
+
+    private static Map<String, Quota> parseQuotas(String property, String value) {
+
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Quota> quotas = new HashMap<>();
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf('=');
+            Quota quota = separator > 0 ? parseQuota(property, entry.substring(separator + 1)) : null;
+            if (quota != null) {
+                quotas.put(entry.substring(0, separator).trim(), quota);
+            } else if (separator <= 0) {
+                log.warn("Invalid quota configured in " + property + ": " + entry + ". Expected key=rate:burst.");
+            }
+        }
+        return quotas;
+    }
+
+    private static Quota parseQuota(String property, String value) {
+
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String[] parts = value.trim().split(":");
+        try {
+            double rate = Double.parseDouble(parts[0].trim());
+            int burst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : (int) Math.ceil(rate);
+            if (rate > 0 && burst > 0 && parts.length <= 2) {
+                return new Quota(rate, burst);
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the warning below.
+        }
+        log.warn("Invalid quota configured in " + property + ": " + value + ". Expected rate:burst.");
+        return null;
+    }
+
+    private static final class Quota {
+
+        private final double ratePerSecond;
+        private final int burst;
+
+        private Quota(double ratePerSecond, int burst) {
+
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+
+    private static final class LeasedBucket {
+
+        private final TokenBucket bucket;
+        private final double share;
+        private volatile long expiresAtNanos;
+
+        private LeasedBucket(TokenBucket bucket, double share, long expiresAtNanos) {
+
+            this.bucket = bucket;
+            this.share = share;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
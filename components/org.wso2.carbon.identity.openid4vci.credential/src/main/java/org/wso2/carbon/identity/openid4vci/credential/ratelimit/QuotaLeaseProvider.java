@@ -0,0 +1,17 @@
+package org.wso2.carbon.identity.openid4vci.credential.ratelimit;
+
+/**
+ * Grants this node a lease on part of a cluster-wide issuance quota. The rate limiter multiplies cluster quotas by
+ * the granted share and renews the lease periodically, so a provider that tracks cluster membership or load can
+ * rebalance quotas between nodes without any per-request coordination.
+ */
+public interface QuotaLeaseProvider {
+
+    /**
+     * Get the share of the cluster-wide quotas of a tenant this node may use until the lease is renewed.
+     *
+     * @param tenantDomain tenant domain
+     * @return share in the range (0, 1]
+     */
+    double getLocalShare(String tenantDomain);
+}
@@ -0,0 +1,20 @@
+package org.wso2.carbon.identity.openid4vci.credential.ratelimit;
+
+/**
+ * Lease provider that splits cluster-wide quotas evenly between a fixed number of nodes.
+ */
+public class StaticQuotaLeaseProvider implements QuotaLeaseProvider {
+
+    private final double share;
+
+    public StaticQuotaLeaseProvider(int clusterSize) {
+
+        this.share = 1.0 / Math.max(1, clusterSize);
+    }
+
+    @Override
+    public double getLocalShare(String tenantDomain) {
+
+        return share;
+    }
+}
@@ -0,0 +1,76 @@
+package org.wso2.carbon.identity.openid4vci.credential.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state is the theoretical arrival time of the next request, so a request is
+ * admitted with a single compare-and-set: each admitted request pushes the arrival time forward by one emission
+ * interval, and a request is refused while that would put the arrival time more than the burst ahead of now.
+ */
+public class TokenBucket {
+
+    private final double ratePerSecond;
+    private final int burst;
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Create a bucket.
+     *
+     * @param ratePerSecond sustained rate of admitted requests per second
+     * @param burst         number of requests that may be admitted at once after an idle period
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.capacityNanos = intervalNanos * this.burst;
+    }
+
+    /**
+     * Try to take a token.
+     *
+     * @return zero if a token was taken, otherwise the nanoseconds until one becomes available
+     */
+    public long tryAcquire() {
+
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrivalNanos.get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long excess = next - now - capacityNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back a token taken by {@link #tryAcquire()} for a request that was refused afterwards.
+     */
+    public void refund() {
+
+        while (true) {
+            long arrival = theoreticalArrivalNanos.get();
+            if (theoreticalArrivalNanos.compareAndSet(arrival, arrival - intervalNanos)) {
+                return;
+            }
+        }
+    }
+
+    public double getRatePerSecond() {
+
+        return ratePerSecond;
+    }
+
+    public int getBurst() {
+
+        return burst;
+    }
+}
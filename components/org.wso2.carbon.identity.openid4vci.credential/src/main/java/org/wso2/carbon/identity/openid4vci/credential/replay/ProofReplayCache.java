@@ -0,0 +1,272 @@
+package org.wso2.carbon.identity.openid4vci.credential.replay;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node set of the proof ids seen within the proof acceptance window, used to reject replayed DPoP proofs and
+ * client attestation proofs of possession. Ids are 64-bit digests held in open-addressed {@code long} arrays, split
+ * over lock stripes. Each stripe keeps two generations. An id is remembered for at least one generation, and
+ * generations are rotated in whole, so expired ids cost nothing to drop. When a stripe holds its share of the
+ * maximum, new proofs are refused rather than letting old ids go early.
+ * <p>
+ * Ids can be partitioned, for example by the key that signed the proofs. The ids of a partition are kept in one
+ * stripe and capped per partition, so a key sending many proofs has its own proofs refused once it reaches the cap,
+ * well before it fills the stripe it shares with other keys. A stripe can still fill up when many partitions that
+ * share it are busy at once, in which case the proofs of every partition in it are refused.
+ */
+public class ProofReplayCache {
+
+    private static final int STRIPES = 64;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final long[] EMPTY = new long[0];
+
+    private final long generationMillis;
+    private final int maxEntriesPerStripe;
+    private final int maxEntriesPerPartition;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder refusedWhenFull = new LongAdder();
+
+    /**
+     * Create a replay cache.
+     *
+     * @param generationMillis shortest time an id is remembered, at least the span a proof is accepted for
+     * @param maxEntries       maximum number of ids remembered
+     */
+    public ProofReplayCache(long generationMillis, int maxEntries) {
+
+        this(generationMillis, maxEntries, maxEntries);
+    }
+
+    /**
+     * Create a replay cache that caps the ids remembered per partition.
+     *
+     * @param generationMillis       shortest time an id is remembered, at least the span a proof is accepted for
+     * @param maxEntries             maximum number of ids remembered
+     * @param maxEntriesPerPartition maximum number of ids remembered for one partition
+     */
+    public ProofReplayCache(long generationMillis, int maxEntries, int maxEntriesPerPartition) {
+
+        this.generationMillis = generationMillis;
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / STRIPES);
+        this.maxEntriesPerPartition = Math.max(1, Math.min(maxEntriesPerPartition, maxEntriesPerStripe));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(now);
+        }
+    }
+
+    /**
+     * Remember a proof id.
+     *
+     * @param id digest of the proof id
+     * @return true if the id was not seen within the window and has been remembered, false if it is a replay or
+     * the cache is full
+     */
+    public boolean register(long id) {
+
+        return register(id, id, false);
+    }
+
+    /**
+     * Remember a proof id within a partition. Ids of one partition are kept in the same stripe.
+     *
+     * @param partition digest of the partition, such as the key that signed the proof
+     * @param id        digest of the partition and the proof id
+     * @return true if the id was not seen within the window and has been remembered, false if it is a replay or
+     * the partition or its stripe is full
+     */
+    public boolean register(long partition, long id) {
+
+        return register(partition, id, true);
+    }
+
+    private boolean register(long partition, long id, boolean partitioned) {
+
+        long key = id == 0 ? 1 : id;
+        Stripe stripe = stripes[(int) (partition >>> 58) & (STRIPES - 1)];
+        int result = stripe.register(partitioned ? (partition == 0 ? 1 : partition) : 0, key,
+                System.currentTimeMillis(), generationMillis, maxEntriesPerStripe, maxEntriesPerPartition);
+        if (result == Stripe.FULL) {
+            refusedWhenFull.increment();
+        }
+        return result == Stripe.REGISTERED;
+    }
+
+    /**
+     * Get the number of proofs refused because their partition or the cache was full.
+     *
+     * @return refused proof count
+     */
+    public long getRefusedWhenFull() {
+
+        return refusedWhenFull.sum();
+    }
+
+    /**
+     * Two generations of ids of one stripe.
+     */
+    private static final class Stripe {
+
+        private static final int REGISTERED = 0;
+        private static final int REPLAYED = 1;
+        private static final int FULL = 2;
+
+        private long[] current = new long[INITIAL_CAPACITY];
+        private int currentSize;
+        private long[] previous = EMPTY;
+        private int previousSize;
+        private PartitionCounts currentCounts = new PartitionCounts();
+        private PartitionCounts previousCounts = new PartitionCounts();
+        private long generationStartMillis;
+
+        private Stripe(long now) {
+
+            this.generationStartMillis = now;
+        }
+
+        /**
+         * Remember an id, where a partition of 0 stands for an id that is not partitioned.
+         */
+        private synchronized int register(long partition, long key, long now, long generationMillis,
+                                          int maxEntries, int maxEntriesPerPartition) {
+
+            long elapsed = now - generationStartMillis;
+            if (elapsed >= 2 * generationMillis) {
+                previous = EMPTY;
+                previousSize = 0;
+                previousCounts = new PartitionCounts();
+                current = new long[INITIAL_CAPACITY];
+                currentSize = 0;
+                currentCounts = new PartitionCounts();
+                generationStartMillis = now;
+            } else if (elapsed >= generationMillis) {
+                previous = current;
+                previousSize = currentSize;
+                previousCounts = currentCounts;
+                current = new long[INITIAL_CAPACITY];
+                currentSize = 0;
+                currentCounts = new PartitionCounts();
+                generationStartMillis += generationMillis;
+            }
+
+            if (contains(previous, key) || contains(current, key)) {
+                return REPLAYED;
+            }
+            if (currentSize + previousSize >= maxEntries) {
+                return FULL;
+            }
+            if (partition != 0) {
+                if (previousCounts.get(partition) + currentCounts.get(partition) >= maxEntriesPerPartition) {
+                    return FULL;
+                }
+                currentCounts.increment(partition);
+            }
+            if ((currentSize + 1) * 2 > current.length) {
+                current = rehash(current, current.length * 2);
+            }
+            insert(current, key);
+            currentSize++;
+            return REGISTERED;
+        }
+
+        private static boolean contains(long[] table, long key) {
+
+            if (table.length == 0) {
+                return false;
+            }
+            int mask = table.length - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long slot = table[i];
+                if (slot == key) {
+                    return true;
+                }
+                if (slot == 0) {
+                    return false;
+                }
+            }
+        }
+
+        private static void insert(long[] table, long key) {
+
+            int mask = table.length - 1;
+            int i = (int) key & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+        }
+
+        private static long[] rehash(long[] table, int capacity) {
+
+            long[] resized = new long[capacity];
+            for (long key : table) {
+                if (key != 0) {
+                    insert(resized, key);
+                }
+            }
+            return resized;
+        }
+    }
+
+    /**
+     * Number of ids registered per partition within one generation of a stripe, in an open-addressed table.
+     */
+    private static final class PartitionCounts {
+
+        private static final int INITIAL_PARTITIONS = 16;
+
+        private long[] partitions = new long[INITIAL_PARTITIONS];
+        private int[] counts = new int[INITIAL_PARTITIONS];
+        private int size;
+
+        private int get(long partition) {
+
+            int mask = partitions.length - 1;
+            for (int i = (int) partition & mask; ; i = (i + 1) & mask) {
+                long slot = partitions[i];
+                if (slot == partition) {
+                    return counts[i];
+                }
+                if (slot == 0) {
+                    return 0;
+                }
+            }
+        }
+
+        private void increment(long partition) {
+
+            if ((size + 1) * 2 > partitions.length) {
+                resize();
+            }
+            int mask = partitions.length - 1;
+            int i = (int) partition & mask;
+            while (partitions[i] != 0 && partitions[i] != partition) {
+                i = (i + 1) & mask;
+            }
+            if (partitions[i] == 0) {
+                partitions[i] = partition;
+                size++;
+            }
+            counts[i]++;
+        }
+
+        private void resize() {
+
+            long[] oldPartitions = partitions;
+            int[] oldCounts = counts;
+            partitions = new long[oldPartitions.length * 2];
+            counts = new int[oldPartitions.length * 2];
+            int mask = partitions.length - 1;
+            for (int j = 0; j < oldPartitions.length; j++) {
+                if (oldPartitions[j] != 0) {
+                    int i = (int) oldPartitions[j] & mask;
+                    while (partitions[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    partitions[i] = oldPartitions[j];
+                    counts[i] = oldCounts[j];
+                }
+            }
+        }
+    }
+}
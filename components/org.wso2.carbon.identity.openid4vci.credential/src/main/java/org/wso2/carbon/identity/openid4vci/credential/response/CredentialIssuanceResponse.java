@@ -1,25 +1,29 @@
 package org.wso2.carbon.identity.openid4vci.credential.response;
 
-import com.google.gson.Gson;
+import org.wso2.carbon.identity.openid4vci.common.json.JsonWriter;
 import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Represents the response generated after issuing an OpenID4VCI credential.
  */
 public class CredentialIssuanceResponse {
 
-    private static final Gson GSON = new Gson();
-    private final Map<String, Object> payload;
+    private final String credential;
 
-    private CredentialIssuanceResponse(Map<String, Object> payload) {
-        this.payload = payload;
+    private CredentialIssuanceResponse(String credential) {
+        this.credential = credential;
     }
 
     public String toJson() {
-        return GSON.toJson(payload);
+        return write().toString();
+    }
+
+    public byte[] toJsonBytes() {
+        return write().toByteArray();
+    }
+
+    private JsonWriter write() {
+        return JsonWriter.forCurrentThread().beginObject().name("credential").value(credential).endObject();
     }
 
     public static Builder builder() {
@@ -30,21 +34,21 @@ public class CredentialIssuanceResponse {
      * Builder class for constructing CredentialIssuanceResponse instances.
      */
     public static class Builder {
-        private final Map<String, Object> payload = new HashMap<>();
+        private String credential;
 
         public Builder credential(String credential) {
             if (credential == null) {
                 throw new IllegalArgumentException("Credential cannot be null");
             }
-            payload.put("credential", credential);
+            this.credential = credential;
             return this;
         }
 
         public CredentialIssuanceResponse build() throws CredentialIssuanceException {
-            if (!payload.containsKey("credential")) {
+            if (credential == null) {
                 throw new CredentialIssuanceException("Credential is required");
             }
-            return new CredentialIssuanceResponse(payload);
+            return new CredentialIssuanceResponse(credential);
         }
     }
 }
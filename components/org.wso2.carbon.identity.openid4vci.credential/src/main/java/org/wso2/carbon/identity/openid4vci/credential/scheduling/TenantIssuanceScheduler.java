@@ -0,0 +1,572 @@
+package org.wso2.carbon.identity.openid4vci.credential.scheduling;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRejectedException;
+import org.wso2.carbon.identity.openid4vci.credential.stats.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits credential issuance requests into a bounded number of issuance slots, sharing them between tenants by
+ * weighted fair queuing. Each tenant has its own queue and a cap on the slots it may hold at once. Requests are
+ * tagged with a virtual start time that advances by the inverse of the tenant weight, and a freed slot goes to the
+ * queued request with the lowest tag, so a tenant running a mass enrollment only delays its own requests once the
+ * issuer is saturated. A tenant's tag only advances when one of its requests is admitted, so requests that are
+ * rejected or time out do not push back the tenant's later requests.
+ * <p>
+ * Admission never blocks the calling thread. A queued request is continued on a scheduler worker once it is
+ * admitted, and a request that waits longer than the queue timeout is rejected by the scheduler timer. Tenants that
+ * have been idle for the idle timeout are forgotten, together with their statistics.
+ */
+public class TenantIssuanceScheduler implements TenantIssuanceSchedulerMBean {
+
+    private static final Log log = LogFactory.getLog(TenantIssuanceScheduler.class);
+    private static final Gson GSON = new Gson();
+    private static final String MBEAN_NAME = "org.wso2.carbon.identity.openid4vci:type=TenantIssuanceScheduler";
+    private static final String MAX_CONCURRENCY_PROPERTY = "OpenID4VCI.Scheduler.MaxConcurrency";
+    private static final String MAX_TENANT_CONCURRENCY_PROPERTY = "OpenID4VCI.Scheduler.MaxTenantConcurrency";
+    private static final String MAX_QUEUE_DEPTH_PROPERTY = "OpenID4VCI.Scheduler.MaxQueueDepth";
+    private static final String QUEUE_TIMEOUT_PROPERTY = "OpenID4VCI.Scheduler.QueueTimeout";
+    private static final String TENANT_WEIGHTS_PROPERTY = "OpenID4VCI.Scheduler.TenantWeights";
+    private static final String IDLE_TENANT_TIMEOUT_PROPERTY = "OpenID4VCI.Scheduler.IdleTenantTimeout";
+    private static final int DEFAULT_MAX_CONCURRENCY = 64;
+    private static final int DEFAULT_MAX_TENANT_CONCURRENCY = 32;
+    private static final int DEFAULT_MAX_QUEUE_DEPTH = 256;
+    private static final long DEFAULT_QUEUE_TIMEOUT_MILLIS = 5000;
+    private static final long DEFAULT_IDLE_TENANT_TIMEOUT_SECONDS = 600;
+    private static final int DEFAULT_WEIGHT = 1;
+    private static final TenantIssuanceScheduler instance = new TenantIssuanceScheduler(
+            (int) Util.readPositiveLong(MAX_CONCURRENCY_PROPERTY, DEFAULT_MAX_CONCURRENCY),
+            (int) Util.readPositiveLong(MAX_TENANT_CONCURRENCY_PROPERTY, DEFAULT_MAX_TENANT_CONCURRENCY),
+            (int) Util.readPositiveLong(MAX_QUEUE_DEPTH_PROPERTY, DEFAULT_MAX_QUEUE_DEPTH),
+            Util.readPositiveLong(QUEUE_TIMEOUT_PROPERTY, DEFAULT_QUEUE_TIMEOUT_MILLIS),
+            TimeUnit.SECONDS.toMillis(Util.readPositiveLong(IDLE_TENANT_TIMEOUT_PROPERTY,
+                    DEFAULT_IDLE_TENANT_TIMEOUT_SECONDS)),
+            readWeights());
+
+    private final int maxConcurrency;
+    private final int maxTenantConcurrency;
+    private final int maxQueueDepth;
+    private final long queueTimeoutMillis;
+    private final long idleTenantTimeoutMillis;
+    private final Map<String, Integer> weights;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentMap<String, TenantQueue> tenants = new ConcurrentHashMap<>();
+    private final Set<TenantQueue> backlogged = new LinkedHashSet<>();
+    private int running;
+    private int waiting;
+    private double virtualTime;
+    private volatile ScheduledThreadPoolExecutor timer;
+    private volatile ExecutorService workers;
+
+    TenantIssuanceScheduler(int maxConcurrency, int maxTenantConcurrency, int maxQueueDepth, long queueTimeoutMillis,
+                            long idleTenantTimeoutMillis, Map<String, Integer> weights) {
+
+        this.maxConcurrency = maxConcurrency;
+        this.maxTenantConcurrency = Math.min(maxTenantConcurrency, maxConcurrency);
+        this.maxQueueDepth = maxQueueDepth;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.idleTenantTimeoutMillis = idleTenantTimeoutMillis;
+        this.weights = weights;
+        start();
+    }
+
+    public static TenantIssuanceScheduler getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Start the queue timer, the idle tenant sweep and the workers that continue queued requests. Has no effect if
+     * they are already running.
+     */
+    public synchronized void start() {
+
+        if (timer != null) {
+            return;
+        }
+        ScheduledThreadPoolExecutor newTimer = new ScheduledThreadPoolExecutor(1,
+                new SchedulerThreadFactory("oid4vci-issuance-scheduler-timer"));
+        // Most queued requests are admitted before they time out, so their cancelled timeouts must not pile up.
+        newTimer.setRemoveOnCancelPolicy(true);
+        newTimer.scheduleWithFixedDelay(this::evictIdleTenants, idleTenantTimeoutMillis, idleTenantTimeoutMillis,
+                TimeUnit.MILLISECONDS);
+        workers = Executors.newFixedThreadPool(maxConcurrency,
+                new SchedulerThreadFactory("oid4vci-issuance-scheduler-worker"));
+        timer = newTimer;
+    }
+
+    /**
+     * Stop the queue timer and the workers. Requests still queued are admitted on the thread that frees their slot.
+     */
+    public synchronized void stop() {
+
+        if (timer == null) {
+            return;
+        }
+        timer.shutdownNow();
+        workers.shutdown();
+        timer = null;
+        workers = null;
+    }
+
+    /**
+     * Request an issuance slot for a request of a tenant. The returned future completes once the request is
+     * admitted, on the calling thread if a slot is free and on a scheduler worker otherwise. Every admission must be
+     * paired with a call to {@link #release(String)} once the request no longer needs the slot.
+     *
+     * @param tenantDomain tenant domain of the request
+     * @return future completed on admission, or failed with an {@link IssuanceRejectedException} if the queue of the
+     * tenant is full or the request waited too long
+     */
+    public CompletableFuture<Void> acquire(String tenantDomain) {
+
+        long enqueuedAt = System.nanoTime();
+        String tenant = effectiveTenant(tenantDomain);
+        List<Waiter> admitted = new ArrayList<>();
+        Waiter waiter;
+        boolean admittedAtOnce;
+        lock.lock();
+        try {
+            TenantQueue queue = tenants.computeIfAbsent(tenant, key -> new TenantQueue(key,
+                    weights.getOrDefault(key, DEFAULT_WEIGHT)));
+            queue.lastActiveNanos = enqueuedAt;
+            if (waiting == 0 && running < maxConcurrency && queue.running < maxTenantConcurrency) {
+                admit(queue, virtualTime);
+                queue.waitTime.recordNanos(System.nanoTime() - enqueuedAt);
+                return CompletableFuture.completedFuture(null);
+            }
+            if (queue.waiters.size() >= maxQueueDepth) {
+                queue.rejected.increment();
+                return CompletableFutures.failed(new IssuanceRejectedException(
+                        "Credential issuance queue is full for tenant: " + tenantDomain, retryAfterSeconds()));
+            }
+            waiter = new Waiter(virtualTime, enqueuedAt);
+            queue.waiters.addLast(waiter);
+            backlogged.add(queue);
+            waiting++;
+            // Requests of other tenants may only be waiting because those tenants are at their cap, in which case
+            // a slot is free for this one.
+            dispatch(admitted);
+            admittedAtOnce = admitted.remove(waiter);
+            ScheduledThreadPoolExecutor currentTimer = timer;
+            if (!admittedAtOnce && currentTimer != null) {
+                try {
+                    waiter.timeout = currentTimer.schedule(() -> expire(queue, waiter), queueTimeoutMillis,
+                            TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Stopping; the request waits for a slot without a timeout.
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        continueAdmitted(admitted);
+        if (admittedAtOnce) {
+            waiter.admission.complete(null);
+        }
+        return waiter.admission;
+    }
+
+    /**
+     * Return the issuance slot held by a request of a tenant.
+     *
+     * @param tenantDomain tenant domain of the request
+     */
+    public void release(String tenantDomain) {
+
+        List<Waiter> admitted = new ArrayList<>();
+        lock.lock();
+        try {
+            TenantQueue queue = tenants.get(effectiveTenant(tenantDomain));
+            if (queue == null) {
+                return;
+            }
+            running--;
+            queue.running--;
+            queue.lastActiveNanos = System.nanoTime();
+            dispatch(admitted);
+        } finally {
+            lock.unlock();
+        }
+        continueAdmitted(admitted);
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getMaxTenantConcurrency() {
+
+        return maxTenantConcurrency;
+    }
+
+    @Override
+    public int getRunning() {
+
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getWaiting() {
+
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueueDepth(String tenantDomain) {
+
+        TenantQueue queue = tenants.get(tenantDomain);
+        if (queue == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return queue.waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getWaitPercentileMicros(String tenantDomain, double percentile) {
+
+        TenantQueue queue = tenants.get(tenantDomain);
+        return queue == null ? 0 : queue.waitTime.getPercentileMicros(percentile);
+    }
+
+    /**
+     * Serialize the scheduling statistics of a single tenant as JSON.
+     *
+     * @param tenantDomain tenant domain
+     * @return statistics JSON
+     */
+    public String toJson(String tenantDomain) {
+
+        TenantQueue queue = tenants.get(tenantDomain);
+        if (queue == null) {
+            return GSON.toJson(Collections.emptyMap());
+        }
+        return GSON.toJson(describe(queue));
+    }
+
+    @Override
+    public String getStatisticsAsJson() {
+
+        Map<String, Object> all = new LinkedHashMap<>();
+        for (TenantQueue queue : tenants.values()) {
+            all.put(queue.tenantDomain, describe(queue));
+        }
+        return GSON.toJson(all);
+    }
+
+    /**
+     * Register this scheduler with the platform MBean server.
+     */
+    public void registerMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the tenant issuance scheduler MBean", e);
+        }
+    }
+
+    /**
+     * Unregister this scheduler from the platform MBean server.
+     */
+    public void unregisterMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while unregistering the tenant issuance scheduler MBean", e);
+        }
+    }
+
+    /**
+     * Hand free slots to the queued requests with the lowest start tags, skipping tenants at their cap. The start
+     * tag of the request at the head of a tenant queue is the later of the virtual time it arrived at and the
+     * finish tag of the last admitted request of the tenant. Must be called while holding the lock.
+     *
+     * @param admitted list the admitted requests are added to, to be continued once the lock is released
+     */
+    private void dispatch(List<Waiter> admitted) {
+
+        while (running < maxConcurrency && !backlogged.isEmpty()) {
+            TenantQueue next = null;
+            double nextTag = 0;
+            for (TenantQueue candidate : backlogged) {
+                if (candidate.running >= maxTenantConcurrency) {
+                    continue;
+                }
+                double tag = Math.max(candidate.waiters.peekFirst().arrivalVirtualTime, candidate.lastFinishTag);
+                if (next == null || tag < nextTag) {
+                    next = candidate;
+                    nextTag = tag;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.waiters.pollFirst();
+            if (next.waiters.isEmpty()) {
+                backlogged.remove(next);
+            }
+            waiting--;
+            admit(next, nextTag);
+            next.waitTime.recordNanos(System.nanoTime() - waiter.enqueuedAtNanos);
+            admitted.add(waiter);
+        }
+    }
+
+    /**
+     * Admit a request, advancing the finish tag of its tenant. Must be called while holding the lock.
+     */
+    private void admit(TenantQueue queue, double arrivalVirtualTime) {
+
+        double startTag = Math.max(arrivalVirtualTime, queue.lastFinishTag);
+        queue.lastFinishTag = startTag + 1.0 / queue.weight;
+        running++;
+        queue.running++;
+        queue.admitted.increment();
+        virtualTime = Math.max(virtualTime, startTag);
+    }
+
+    /**
+     * Continue admitted requests on the scheduler workers, so that the thread freeing a slot does not run the
+     * request it hands the slot to.
+     */
+    private void continueAdmitted(List<Waiter> admitted) {
+
+        for (Waiter waiter : admitted) {
+            if (waiter.timeout != null) {
+                waiter.timeout.cancel(false);
+            }
+            ExecutorService currentWorkers = workers;
+            if (currentWorkers == null) {
+                waiter.admission.complete(null);
+                continue;
+            }
+            try {
+                currentWorkers.execute(() -> waiter.admission.complete(null));
+            } catch (RejectedExecutionException e) {
+                waiter.admission.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Reject a request that is still queued once its queue timeout elapses.
+     */
+    private void expire(TenantQueue queue, Waiter waiter) {
+
+        lock.lock();
+        try {
+            if (!queue.waiters.remove(waiter)) {
+                return;
+            }
+            waiting--;
+            if (queue.waiters.isEmpty()) {
+                backlogged.remove(queue);
+            }
+            queue.rejected.increment();
+        } finally {
+            lock.unlock();
+        }
+        waiter.admission.completeExceptionally(new IssuanceRejectedException(
+                "Timed out waiting for a credential issuance slot for tenant: " + queue.tenantDomain,
+                retryAfterSeconds()));
+    }
+
+    /**
+     * Forget tenants with no running or queued requests that have been idle for the idle timeout. A tenant is only
+     * forgotten once its finish tag is behind the virtual time, so that it regains no share by being forgotten.
+     */
+    private void evictIdleTenants() {
+
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTenantTimeoutMillis);
+        lock.lock();
+        try {
+            Iterator<TenantQueue> iterator = tenants.values().iterator();
+            while (iterator.hasNext()) {
+                TenantQueue queue = iterator.next();
+                if (queue.running == 0 && queue.waiters.isEmpty() && queue.lastFinishTag <= virtualTime
+                        && now - queue.lastActiveNanos > idleNanos) {
+                    iterator.remove();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error while evicting idle tenants from the issuance scheduler", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String effectiveTenant(String tenantDomain) {
+
+        return tenantDomain == null ? MultitenantConstants.SUPER_TENANT_DOMAIN_NAME : tenantDomain;
+    }
+
+    private long retryAfterSeconds() {
+
+        return Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis));
+    }
+
+    private Map<String, Object> describe(TenantQueue queue) {
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("weight", queue.weight);
+        lock.lock();
+        try {
+            summary.put("queue_depth", queue.waiters.size());
+            summary.put("running", queue.running);
+        } finally {
+            lock.unlock();
+        }
+        summary.put("admitted", queue.admitted.sum());
+        summary.put("rejected", queue.rejected.sum());
+        summary.put("wait_mean_us", Math.round(queue.waitTime.getMeanMicros()));
+        summary.put("wait_p50_us", queue.waitTime.getPercentileMicros(50));
+        summary.put("wait_p99_us", queue.waitTime.getPercentileMicros(99));
+        summary.put("wait_max_us", queue.waitTime.getMaxMicros());
+        return summary;
+    }
+
+    private static Map<String, Integer> readWeights() {
+
+        Map<String, Integer> weights = new HashMap<>();
+        String value = IdentityUtil.getProperty(TENANT_WEIGHTS_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return weights;
+        }
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            try {
+                int weight = separator > 0 ? Integer.parseInt(entry.substring(separator + 1).trim()) : -1;
+                if (weight > 0) {
+                    weights.put(entry.substring(0, separator).trim(), weight);
+                    continue;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the warning below.
+            }
+            log.warn("Invalid tenant weight configured in " + TENANT_WEIGHTS_PROPERTY + ": " + entry
+                    + ". Expected tenantDomain:weight.");
+        }
+        return weights;
+    }
+
+    /**
+     * Queue and counters of one tenant. Fields other than the statistics are guarded by the scheduler lock.
+     */
+    private static final class TenantQueue {
+
+        private final String tenantDomain;
+        private final int weight;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private int running;
+        private double lastFinishTag;
+        private long lastActiveNanos;
+
+        private TenantQueue(String tenantDomain, int weight) {
+
+            this.tenantDomain = tenantDomain;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Queued request. The timeout is guarded by the scheduler lock.
+     */
+    private static final class Waiter {
+
+        private final double arrivalVirtualTime;
+        private final long enqueuedAtNanos;
+        private final CompletableFuture<Void> admission = new CompletableFuture<>();
+        private ScheduledFuture<?> timeout;
+
+        private Waiter(double arrivalVirtualTime, long enqueuedAtNanos) {
+
+            this.arrivalVirtualTime = arrivalVirtualTime;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private static final class SchedulerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private SchedulerThreadFactory(String namePrefix) {
+
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, namePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
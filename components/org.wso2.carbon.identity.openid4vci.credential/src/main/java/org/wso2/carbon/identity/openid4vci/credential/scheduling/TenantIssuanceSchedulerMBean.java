@@ -0,0 +1,39 @@
+package org.wso2.carbon.identity.openid4vci.credential.scheduling;
+
+/**
+ * JMX management interface exposing the per-tenant queues of the issuance scheduler.
+ */
+public interface TenantIssuanceSchedulerMBean {
+
+    int getMaxConcurrency();
+
+    int getMaxTenantConcurrency();
+
+    int getRunning();
+
+    int getWaiting();
+
+    /**
+     * Get the number of requests of a tenant waiting for an issuance slot.
+     *
+     * @param tenantDomain tenant domain
+     * @return queue depth
+     */
+    int getQueueDepth(String tenantDomain);
+
+    /**
+     * Get a percentile of the time requests of a tenant waited for an issuance slot.
+     *
+     * @param tenantDomain tenant domain
+     * @param percentile   percentile in the range (0, 100]
+     * @return wait time in microseconds
+     */
+    long getWaitPercentileMicros(String tenantDomain, double percentile);
+
+    /**
+     * Get the scheduling statistics of all tenants serialized as JSON.
+     *
+     * @return statistics JSON
+     */
+    String getStatisticsAsJson();
+}
@@ -0,0 +1,25 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Signs credential JWTs with the signing key of a tenant. Implementations may keep the key in the tenant keystore
+ * or delegate to a remote signer such as an HSM or a KMS, in which case signing completes asynchronously.
+ */
+public interface CredentialSigner {
+
+    /**
+     * Sign a credential JWT.
+     *
+     * @param tenantDomain tenant domain whose signing key is used
+     * @param algorithm    JWS algorithm of the credential configuration
+     * @param claimsSet    claims of the credential
+     * @return future completed with the compact serialization of the signed JWT, or failed with a
+     * {@link org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException} if the
+     * credential cannot be signed
+     */
+    CompletableFuture<String> sign(String tenantDomain, JWSAlgorithm algorithm, JWTClaimsSet claimsSet);
+}
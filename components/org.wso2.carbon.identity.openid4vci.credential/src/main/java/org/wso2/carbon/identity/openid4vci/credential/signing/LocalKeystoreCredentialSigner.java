@@ -0,0 +1,44 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.security.interfaces.RSAPrivateKey;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Signs credentials on the calling thread with the private key of the tenant keystore.
+ */
+public class LocalKeystoreCredentialSigner implements CredentialSigner {
+
+    @Override
+    public CompletableFuture<String> sign(String tenantDomain, JWSAlgorithm algorithm, JWTClaimsSet claimsSet) {
+
+        if (!JWSAlgorithm.RS256.equals(algorithm)) {
+            return CompletableFutures.failed(new CredentialIssuanceException("Invalid signature algorithm provided. "
+                    + (algorithm == null ? null : algorithm.getName())));
+        }
+        try {
+            TenantSigningMaterial signingMaterial = TenantSigningMaterialResolver.getInstance().resolve(tenantDomain);
+            JWSSigner signer = OAuth2Util.createJWSSigner((RSAPrivateKey) signingMaterial.getPrivateKey());
+            JWSHeader.Builder headerBuilder = new JWSHeader.Builder(JWSAlgorithm.RS256);
+            headerBuilder.keyID(signingMaterial.getKeyId());
+            headerBuilder.x509CertThumbprint(new Base64URL(signingMaterial.getCertificateThumbprint()));
+            SignedJWT signedJWT = new SignedJWT(headerBuilder.build(), claimsSet);
+            signedJWT.sign(signer);
+            return CompletableFuture.completedFuture(signedJWT.serialize());
+        } catch (CredentialIssuanceException e) {
+            return CompletableFutures.failed(e);
+        } catch (JOSEException e) {
+            return CompletableFutures.failed(new CredentialIssuanceException("Error occurred while signing JWT", e));
+        }
+    }
+}
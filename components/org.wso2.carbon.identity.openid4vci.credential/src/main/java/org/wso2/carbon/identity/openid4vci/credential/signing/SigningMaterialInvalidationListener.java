@@ -0,0 +1,35 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing;
+
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
+import org.wso2.carbon.identity.openid4vci.credential.signing.remote.RemoteCredentialSigner;
+
+/**
+ * Drops the resolved signing material of a tenant, and the remote key metadata of the remote signer if one is
+ * configured, when its signing key is rotated.
+ */
+public class SigningMaterialInvalidationListener implements InvalidationListener {
+
+    private final RemoteCredentialSigner remoteCredentialSigner;
+
+    /**
+     * Create a listener.
+     *
+     * @param remoteCredentialSigner remote signer whose key metadata is dropped as well, or null if none is configured
+     */
+    public SigningMaterialInvalidationListener(RemoteCredentialSigner remoteCredentialSigner) {
+
+        this.remoteCredentialSigner = remoteCredentialSigner;
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+
+        if (event.getType() == InvalidationEvent.Type.SIGNING_KEY) {
+            TenantSigningMaterialResolver.getInstance().invalidate(event.getTenantDomain());
+            if (remoteCredentialSigner != null) {
+                remoteCredentialSigner.invalidate(event.getTenantDomain());
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing;
+
+import java.security.Key;
+
+/**
+ * Key material used to sign the credentials of a tenant.
+ */
+public class TenantSigningMaterial {
+
+    private final Key privateKey;
+    private final String keyId;
+    private final String certificateThumbprint;
+    private final long loadedAtNanos = System.nanoTime();
+
+    public TenantSigningMaterial(Key privateKey, String keyId, String certificateThumbprint) {
+
+        this.privateKey = privateKey;
+        this.keyId = keyId;
+        this.certificateThumbprint = certificateThumbprint;
+    }
+
+    /**
+     * Get the private key of the tenant.
+     *
+     * @return private key, or null if the material was resolved without it
+     */
+    public Key getPrivateKey() {
+
+        return privateKey;
+    }
+
+    public String getKeyId() {
+
+        return keyId;
+    }
+
+    /**
+     * Get the base64url encoded thumbprint of the tenant certificate, used as the x5t header.
+     *
+     * @return certificate thumbprint
+     */
+    public String getCertificateThumbprint() {
+
+        return certificateThumbprint;
+    }
+
+    long getLoadedAtNanos() {
+
+        return loadedAtNanos;
+    }
+}
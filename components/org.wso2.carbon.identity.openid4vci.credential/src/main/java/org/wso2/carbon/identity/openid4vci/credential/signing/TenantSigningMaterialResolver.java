@@ -0,0 +1,147 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.SingleFlight;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateKey;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateManager;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.util.CredentialIssuanceUtil;
+
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the signing key, key id and certificate thumbprint of a tenant from its keystore. Resolved material is
+ * kept in the {@link TenantStateManager} until the signing key of the tenant is invalidated or the tenant is
+ * evicted, and concurrent lookups for the same tenant are coalesced, so a cold keystore is read once however many
+ * credentials are being signed.
+ *
+ * <p>Keystores are managed outside this component, so resolved material is read again once it is older than the
+ * revalidation interval. A node that finds a different certificate publishes a signing key invalidation, so that
+ * every node switches to the rotated key rather than waiting for its own revalidation.</p>
+ */
+public class TenantSigningMaterialResolver {
+
+    private static final Log log = LogFactory.getLog(TenantSigningMaterialResolver.class);
+    private static final String REVALIDATION_INTERVAL_PROPERTY = "OpenID4VCI.SigningMaterial.RevalidationInterval";
+    private static final long DEFAULT_REVALIDATION_INTERVAL_SECONDS = 300;
+    private static final TenantSigningMaterialResolver instance = new TenantSigningMaterialResolver(
+            TimeUnit.SECONDS.toNanos(Util.readPositiveLong(REVALIDATION_INTERVAL_PROPERTY,
+                    DEFAULT_REVALIDATION_INTERVAL_SECONDS)));
+
+    private static final long SIGNING_MATERIAL_SIZE_ESTIMATE = 4096;
+    private static final TenantStateKey<TenantSigningMaterial> SIGNING_MATERIAL_KEY = new TenantStateKey<>(
+            "signing-material", TenantSigningMaterial.class, material -> SIGNING_MATERIAL_SIZE_ESTIMATE);
+
+    private static final TenantStateKey<TenantSigningMaterial> CERTIFICATE_MATERIAL_KEY = new TenantStateKey<>(
+            "signing-certificate", TenantSigningMaterial.class, material -> SIGNING_MATERIAL_SIZE_ESTIMATE);
+
+    private final SingleFlight<String, TenantSigningMaterial> loads = new SingleFlight<>();
+    private final SingleFlight<String, TenantSigningMaterial> certificateLoads = new SingleFlight<>();
+    private final TenantStateManager stateManager = TenantStateManager.getInstance();
+    private final long revalidationIntervalNanos;
+
+    private TenantSigningMaterialResolver(long revalidationIntervalNanos) {
+
+        this.revalidationIntervalNanos = revalidationIntervalNanos;
+    }
+
+    public static TenantSigningMaterialResolver getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Resolve the RS256 signing material of a tenant.
+     *
+     * @param tenantDomain tenant domain
+     * @return signing material of the tenant
+     * @throws CredentialIssuanceException if the key, certificate or key id cannot be obtained
+     */
+    public TenantSigningMaterial resolve(String tenantDomain) throws CredentialIssuanceException {
+
+        return resolve(tenantDomain, SIGNING_MATERIAL_KEY, loads, true);
+    }
+
+    /**
+     * Resolve the RS256 key id and certificate thumbprint of a tenant without reading its private key, for signers
+     * that keep the key outside the tenant keystore.
+     *
+     * @param tenantDomain tenant domain
+     * @return signing material of the tenant without a private key
+     * @throws CredentialIssuanceException if the certificate or key id cannot be obtained
+     */
+    public TenantSigningMaterial resolveCertificate(String tenantDomain) throws CredentialIssuanceException {
+
+        return resolve(tenantDomain, CERTIFICATE_MATERIAL_KEY, certificateLoads, false);
+    }
+
+    /**
+     * Drop the resolved signing material of a tenant, so that it is read from the keystore on next use.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void invalidate(String tenantDomain) {
+
+        stateManager.remove(tenantDomain, SIGNING_MATERIAL_KEY);
+        stateManager.remove(tenantDomain, CERTIFICATE_MATERIAL_KEY);
+    }
+
+    private TenantSigningMaterial resolve(String tenantDomain, TenantStateKey<TenantSigningMaterial> stateKey,
+                                          SingleFlight<String, TenantSigningMaterial> flight,
+                                          boolean withPrivateKey) throws CredentialIssuanceException {
+
+        TenantSigningMaterial material = stateManager.get(tenantDomain, stateKey);
+        if (material != null && System.nanoTime() - material.getLoadedAtNanos() < revalidationIntervalNanos) {
+            return material;
+        }
+        return flight.load(tenantDomain, () -> {
+            TenantSigningMaterial loaded = load(tenantDomain, withPrivateKey);
+            stateManager.put(tenantDomain, stateKey, loaded);
+            if (material != null && !material.getCertificateThumbprint().equals(loaded.getCertificateThumbprint())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("The signing key of tenant: " + tenantDomain + " was rotated");
+                }
+                DefaultInvalidationBus.getInstance().publish(InvalidationEvent.signingKey(tenantDomain));
+            }
+            return loaded;
+        }, e -> new CredentialIssuanceException("Error obtaining the signing material for tenant: " + tenantDomain,
+                e));
+    }
+
+    private static TenantSigningMaterial load(String tenantDomain, boolean withPrivateKey)
+            throws CredentialIssuanceException {
+
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        Key privateKey = withPrivateKey ? CredentialIssuanceUtil.getPrivateKey(tenantDomain) : null;
+        Certificate certificate;
+        try {
+            certificate = OAuth2Util.getCertificate(tenantDomain, tenantId);
+        } catch (IdentityOAuth2Exception e) {
+            throw new CredentialIssuanceException("Error obtaining the certificate for tenant: " + tenantDomain, e);
+        }
+        String certThumbPrint;
+        try {
+            certThumbPrint = OAuth2Util.getThumbPrintWithPrevAlgorithm(certificate, false);
+        } catch (IdentityOAuth2Exception e) {
+            throw new CredentialIssuanceException("Error obtaining the certificate thumbprint for tenant: "
+                    + tenantDomain, e);
+        }
+        String keyId;
+        try {
+            keyId = OAuth2Util.getKID(certificate, JWSAlgorithm.RS256, tenantDomain);
+        } catch (IdentityOAuth2Exception e) {
+            throw new CredentialIssuanceException("Error obtaining the KID for tenant: " + tenantDomain, e);
+        }
+        return new TenantSigningMaterial(privateKey, keyId, certThumbPrint);
+    }
+}
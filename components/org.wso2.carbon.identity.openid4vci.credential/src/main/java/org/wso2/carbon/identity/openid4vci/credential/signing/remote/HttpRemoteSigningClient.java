@@ -0,0 +1,153 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Remote signing client that posts a batch of signing requests as JSON over HTTP.
+ * The request body is {@code {"requests":[{"kid":"...","alg":"RS256","input":"<base64url>"}]}} and the signer
+ * responds with {@code {"signatures":["<base64url>", ...]}} in the order of the requests. Signatures must already
+ * be in their JWS encoding, e.g. the concatenated R and S values for ECDSA. Key metadata is read with a GET to the
+ * same endpoint with a {@code kid} query parameter, to which the signer responds with
+ * {@code {"kid":"...","x5t":"<base64url>"}}, the public key id and certificate thumbprint of the key, where
+ * {@code x5t} may be left out. Client authentication is expected to be done with mutual TLS configured on the JVM.
+ */
+public class HttpRemoteSigningClient implements RemoteSigningClient {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final URL endpoint;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public HttpRemoteSigningClient(URL endpoint, int connectTimeoutMillis, int readTimeoutMillis) {
+
+        this.endpoint = endpoint;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public List<byte[]> sign(List<RemoteSigningRequest> requests) throws CredentialIssuanceException {
+
+        JsonArray entries = new JsonArray();
+        for (RemoteSigningRequest request : requests) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("kid", request.getKeyId());
+            entry.addProperty("alg", request.getAlgorithm());
+            entry.addProperty("input", ENCODER.encodeToString(request.getSigningInput()));
+            entries.add(entry);
+        }
+        JsonObject body = new JsonObject();
+        body.add("requests", entries);
+        byte[] payload = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        try {
+            // The connection is not disconnected, so that keep-alive connections to the signer are reused.
+            HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(payload.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Accept", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(payload);
+            }
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                drain(connection.getErrorStream());
+                throw new CredentialIssuanceException("Remote signer responded with HTTP status " + status);
+            }
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return readSignatures(JsonParser.parseReader(reader), requests.size());
+            }
+        } catch (IOException | JsonParseException | IllegalArgumentException | IllegalStateException e) {
+            throw new CredentialIssuanceException("Error obtaining signatures from the remote signer", e);
+        }
+    }
+
+    @Override
+    public RemoteKeyMetadata describeKey(String remoteKeyId) throws CredentialIssuanceException {
+
+        try {
+            URL keyUrl = new URL(endpoint, endpoint.getPath() + "?kid="
+                    + URLEncoder.encode(remoteKeyId, StandardCharsets.UTF_8.name()));
+            HttpURLConnection connection = (HttpURLConnection) keyUrl.openConnection();
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setRequestProperty("Accept", "application/json");
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                drain(connection.getErrorStream());
+                throw new CredentialIssuanceException("Remote signer responded with HTTP status " + status
+                        + " to the metadata request of key: " + remoteKeyId);
+            }
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return readKeyMetadata(remoteKeyId, JsonParser.parseReader(reader));
+            }
+        } catch (IOException | JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            throw new CredentialIssuanceException("Error obtaining the metadata of key: " + remoteKeyId
+                    + " from the remote signer", e);
+        }
+    }
+
+    private static RemoteKeyMetadata readKeyMetadata(String remoteKeyId, JsonElement response)
+            throws CredentialIssuanceException {
+
+        JsonObject metadata = response.getAsJsonObject();
+        JsonElement keyId = metadata.get("kid");
+        if (keyId == null || !keyId.isJsonPrimitive() || keyId.getAsString().isEmpty()) {
+            throw new CredentialIssuanceException("Remote signer returned no kid for key: " + remoteKeyId);
+        }
+        JsonElement thumbprint = metadata.get("x5t");
+        return new RemoteKeyMetadata(remoteKeyId, keyId.getAsString(),
+                thumbprint == null || thumbprint.isJsonNull() ? null : thumbprint.getAsString());
+    }
+
+    private static List<byte[]> readSignatures(JsonElement response, int expected)
+            throws CredentialIssuanceException {
+
+        JsonElement signatures = response.getAsJsonObject().get("signatures");
+        if (signatures == null || !signatures.isJsonArray() || signatures.getAsJsonArray().size() != expected) {
+            throw new CredentialIssuanceException("Remote signer returned an unexpected number of signatures");
+        }
+        List<byte[]> decoded = new ArrayList<>(expected);
+        for (JsonElement signature : signatures.getAsJsonArray()) {
+            decoded.add(DECODER.decode(signature.getAsString()));
+        }
+        return decoded;
+    }
+
+    private static void drain(InputStream errorStream) throws IOException {
+
+        if (errorStream == null) {
+            return;
+        }
+        try (InputStream in = errorStream) {
+            byte[] buffer = new byte[512];
+            while (in.read(buffer) != -1) {
+                // Discard the error body so that the connection can be reused.
+            }
+        }
+    }
+}
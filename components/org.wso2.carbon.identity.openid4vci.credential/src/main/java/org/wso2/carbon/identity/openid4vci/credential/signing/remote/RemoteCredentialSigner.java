@@ -0,0 +1,191 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.SingleFlight;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateKey;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateManager;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.signing.CredentialSigner;
+import org.wso2.carbon.identity.openid4vci.credential.signing.TenantSigningMaterial;
+import org.wso2.carbon.identity.openid4vci.credential.signing.TenantSigningMaterialResolver;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs credentials with keys held by a remote signer such as an HSM or a KMS. The JWS header and payload are
+ * encoded locally and only the signing input is sent to the signer, batched with the concurrent requests of other
+ * credentials by a {@link SigningRequestBatcher}. The {@code kid} and {@code x5t} headers are taken from the
+ * metadata the remote signer publishes for the key, since the remote key need not be the key of the tenant
+ * certificate. The metadata is kept in the {@link TenantStateManager} until the signing key of the tenant is
+ * invalidated, the tenant is evicted or it is older than the revalidation interval.
+ */
+public class RemoteCredentialSigner implements CredentialSigner {
+
+    private static final Log log = LogFactory.getLog(RemoteCredentialSigner.class);
+    private static final String ENDPOINT_PROPERTY = "OpenID4VCI.RemoteSigner.Endpoint";
+    private static final String KEY_ID_PROPERTY = "OpenID4VCI.RemoteSigner.KeyId";
+    private static final String MAX_BATCH_SIZE_PROPERTY = "OpenID4VCI.RemoteSigner.MaxBatchSize";
+    private static final String MAX_BATCH_DELAY_PROPERTY = "OpenID4VCI.RemoteSigner.MaxBatchDelay";
+    private static final String MAX_PENDING_REQUESTS_PROPERTY = "OpenID4VCI.RemoteSigner.MaxPendingRequests";
+    private static final String MAX_IN_FLIGHT_BATCHES_PROPERTY = "OpenID4VCI.RemoteSigner.MaxInFlightBatches";
+    private static final String CONNECT_TIMEOUT_PROPERTY = "OpenID4VCI.RemoteSigner.ConnectTimeout";
+    private static final String READ_TIMEOUT_PROPERTY = "OpenID4VCI.RemoteSigner.ReadTimeout";
+    private static final String KEY_METADATA_REVALIDATION_INTERVAL_PROPERTY =
+            "OpenID4VCI.RemoteSigner.KeyMetadataRevalidationInterval";
+    private static final String TENANT_PLACEHOLDER = "{tenant}";
+    private static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    private static final long DEFAULT_MAX_BATCH_DELAY_MICROS = 2000;
+    private static final int DEFAULT_MAX_PENDING_REQUESTS = 1024;
+    private static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 5000;
+    private static final long DEFAULT_KEY_METADATA_REVALIDATION_INTERVAL_SECONDS = 300;
+    private static final long KEY_METADATA_SIZE_ESTIMATE = 512;
+    private static final TenantStateKey<RemoteKeyMetadata> KEY_METADATA_KEY = new TenantStateKey<>(
+            "remote-signing-key", RemoteKeyMetadata.class, metadata -> KEY_METADATA_SIZE_ESTIMATE);
+
+    private final SigningRequestBatcher batcher;
+    private final String keyIdTemplate;
+    private final long keyMetadataRevalidationNanos;
+    private final SingleFlight<String, RemoteKeyMetadata> keyMetadataLoads = new SingleFlight<>();
+    private final TenantStateManager stateManager = TenantStateManager.getInstance();
+
+    /**
+     * Create a signer.
+     *
+     * @param batcher       batcher sending the signing requests to the remote signer
+     * @param keyIdTemplate name of the signing key at the remote signer, where {@code {tenant}} is replaced by the
+     *                      tenant domain, or null to name it by the key id of the tenant certificate
+     */
+    public RemoteCredentialSigner(SigningRequestBatcher batcher, String keyIdTemplate) {
+
+        this(batcher, keyIdTemplate, TimeUnit.SECONDS.toNanos(Util.readPositiveLong(
+                KEY_METADATA_REVALIDATION_INTERVAL_PROPERTY, DEFAULT_KEY_METADATA_REVALIDATION_INTERVAL_SECONDS)));
+    }
+
+    RemoteCredentialSigner(SigningRequestBatcher batcher, String keyIdTemplate, long keyMetadataRevalidationNanos) {
+
+        this.batcher = batcher;
+        this.keyIdTemplate = keyIdTemplate;
+        this.keyMetadataRevalidationNanos = keyMetadataRevalidationNanos;
+    }
+
+    /**
+     * Create a signer for the remote signer configured in identity.xml.
+     *
+     * @return the configured signer, or null if no remote signer endpoint is configured
+     */
+    public static RemoteCredentialSigner fromConfiguration() {
+
+        String endpoint = IdentityUtil.getProperty(ENDPOINT_PROPERTY);
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            return null;
+        }
+        URL endpointUrl;
+        try {
+            endpointUrl = new URL(endpoint.trim());
+        } catch (MalformedURLException e) {
+            log.error("Invalid value configured for " + ENDPOINT_PROPERTY + ": " + endpoint
+                    + ". Credentials will be signed with the tenant keystore.", e);
+            return null;
+        }
+        String keyIdTemplate = IdentityUtil.getProperty(KEY_ID_PROPERTY);
+        RemoteSigningClient client = new HttpRemoteSigningClient(endpointUrl,
+                (int) Util.readPositiveLong(CONNECT_TIMEOUT_PROPERTY, DEFAULT_CONNECT_TIMEOUT_MILLIS),
+                (int) Util.readPositiveLong(READ_TIMEOUT_PROPERTY, DEFAULT_READ_TIMEOUT_MILLIS));
+        SigningRequestBatcher batcher = new SigningRequestBatcher(client,
+                (int) Util.readPositiveLong(MAX_BATCH_SIZE_PROPERTY, DEFAULT_MAX_BATCH_SIZE),
+                Util.readPositiveLong(MAX_BATCH_DELAY_PROPERTY, DEFAULT_MAX_BATCH_DELAY_MICROS),
+                (int) Util.readPositiveLong(MAX_PENDING_REQUESTS_PROPERTY, DEFAULT_MAX_PENDING_REQUESTS),
+                (int) Util.readPositiveLong(MAX_IN_FLIGHT_BATCHES_PROPERTY, DEFAULT_MAX_IN_FLIGHT_BATCHES));
+        return new RemoteCredentialSigner(batcher, keyIdTemplate == null || keyIdTemplate.trim().isEmpty() ? null
+                : keyIdTemplate.trim());
+    }
+
+    @Override
+    public CompletableFuture<String> sign(String tenantDomain, JWSAlgorithm algorithm, JWTClaimsSet claimsSet) {
+
+        if (algorithm == null) {
+            return CompletableFutures.failed(new CredentialIssuanceException(
+                    "Invalid signature algorithm provided. null"));
+        }
+        String remoteKeyId;
+        RemoteKeyMetadata keyMetadata;
+        try {
+            remoteKeyId = resolveRemoteKeyId(tenantDomain);
+            keyMetadata = resolveKeyMetadata(tenantDomain, remoteKeyId);
+        } catch (CredentialIssuanceException e) {
+            return CompletableFutures.failed(e);
+        }
+        JWSHeader.Builder headerBuilder = new JWSHeader.Builder(algorithm).keyID(keyMetadata.getKeyId());
+        if (keyMetadata.getCertificateThumbprint() != null) {
+            headerBuilder.x509CertThumbprint(new Base64URL(keyMetadata.getCertificateThumbprint()));
+        }
+        JWSHeader header = headerBuilder.build();
+        String signingInput = header.toBase64URL() + "." + claimsSet.toPayload().toBase64URL();
+        return batcher.submit(new RemoteSigningRequest(remoteKeyId, algorithm.getName(),
+                        signingInput.getBytes(StandardCharsets.US_ASCII)))
+                .thenApply(signature -> signingInput + "." + Base64URL.encode(signature));
+    }
+
+    /**
+     * Drop the remote key metadata of a tenant, so that it is read from the remote signer on next use.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void invalidate(String tenantDomain) {
+
+        stateManager.remove(tenantDomain, KEY_METADATA_KEY);
+    }
+
+    /**
+     * Stop the batcher of this signer. Credentials already queued are still signed.
+     */
+    public void shutdown() {
+
+        batcher.shutdown();
+    }
+
+    public SigningRequestBatcher getBatcher() {
+
+        return batcher;
+    }
+
+    private String resolveRemoteKeyId(String tenantDomain) throws CredentialIssuanceException {
+
+        if (keyIdTemplate != null) {
+            return keyIdTemplate.replace(TENANT_PLACEHOLDER, tenantDomain);
+        }
+        TenantSigningMaterial certificate = TenantSigningMaterialResolver.getInstance().resolveCertificate(
+                tenantDomain);
+        return certificate.getKeyId();
+    }
+
+    private RemoteKeyMetadata resolveKeyMetadata(String tenantDomain, String remoteKeyId)
+            throws CredentialIssuanceException {
+
+        RemoteKeyMetadata metadata = stateManager.get(tenantDomain, KEY_METADATA_KEY);
+        if (metadata != null && metadata.getRemoteKeyId().equals(remoteKeyId)
+                && System.nanoTime() - metadata.getLoadedAtNanos() < keyMetadataRevalidationNanos) {
+            return metadata;
+        }
+        return keyMetadataLoads.load(tenantDomain + "/" + remoteKeyId, () -> {
+            RemoteKeyMetadata loaded = batcher.getClient().describeKey(remoteKeyId);
+            stateManager.put(tenantDomain, KEY_METADATA_KEY, loaded);
+            return loaded;
+        }, e -> new CredentialIssuanceException("Error obtaining the remote signing key metadata for tenant: "
+                + tenantDomain, e));
+    }
+}
@@ -0,0 +1,53 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+/**
+ * Metadata a remote signer publishes for one of its keys, used to fill the {@code kid} and {@code x5t} headers of
+ * the credentials signed with it.
+ */
+public class RemoteKeyMetadata {
+
+    private final String remoteKeyId;
+    private final String keyId;
+    private final String certificateThumbprint;
+    private final long loadedAtNanos = System.nanoTime();
+
+    /**
+     * Create key metadata.
+     *
+     * @param remoteKeyId           name of the key at the remote signer
+     * @param keyId                 key id verifiers find the key by
+     * @param certificateThumbprint base64url encoded thumbprint of the certificate of the key, or null if the key has
+     *                              no certificate
+     */
+    public RemoteKeyMetadata(String remoteKeyId, String keyId, String certificateThumbprint) {
+
+        this.remoteKeyId = remoteKeyId;
+        this.keyId = keyId;
+        this.certificateThumbprint = certificateThumbprint;
+    }
+
+    public String getRemoteKeyId() {
+
+        return remoteKeyId;
+    }
+
+    public String getKeyId() {
+
+        return keyId;
+    }
+
+    /**
+     * Get the base64url encoded thumbprint of the certificate of the key, used as the x5t header.
+     *
+     * @return certificate thumbprint, or null if the key has no certificate
+     */
+    public String getCertificateThumbprint() {
+
+        return certificateThumbprint;
+    }
+
+    long getLoadedAtNanos() {
+
+        return loadedAtNanos;
+    }
+}
@@ -0,0 +1,29 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.util.List;
+
+/**
+ * Transport to a remote signer that signs a batch of requests in a single round trip.
+ */
+public interface RemoteSigningClient {
+
+    /**
+     * Sign a batch of requests. The call blocks until the remote signer responds.
+     *
+     * @param requests requests of the batch
+     * @return JWS signatures in the order of the requests
+     * @throws CredentialIssuanceException if the batch cannot be signed
+     */
+    List<byte[]> sign(List<RemoteSigningRequest> requests) throws CredentialIssuanceException;
+
+    /**
+     * Get the metadata the remote signer publishes for a key. The call blocks until the remote signer responds.
+     *
+     * @param remoteKeyId name of the key at the remote signer
+     * @return metadata of the key
+     * @throws CredentialIssuanceException if the metadata cannot be obtained
+     */
+    RemoteKeyMetadata describeKey(String remoteKeyId) throws CredentialIssuanceException;
+}
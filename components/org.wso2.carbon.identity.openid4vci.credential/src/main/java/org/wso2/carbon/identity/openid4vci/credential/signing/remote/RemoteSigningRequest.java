@@ -0,0 +1,38 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+/**
+ * A single signature requested from a remote signer.
+ */
+public class RemoteSigningRequest {
+
+    private final String keyId;
+    private final String algorithm;
+    private final byte[] signingInput;
+
+    public RemoteSigningRequest(String keyId, String algorithm, byte[] signingInput) {
+
+        this.keyId = keyId;
+        this.algorithm = algorithm;
+        this.signingInput = signingInput;
+    }
+
+    public String getKeyId() {
+
+        return keyId;
+    }
+
+    public String getAlgorithm() {
+
+        return algorithm;
+    }
+
+    /**
+     * Get the JWS signing input, i.e. the ASCII bytes of the encoded header and payload joined by a period.
+     *
+     * @return signing input
+     */
+    public byte[] getSigningInput() {
+
+        return signingInput;
+    }
+}
@@ -0,0 +1,251 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRejectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups concurrent signing requests into micro-batches so that a remote signer is called once per batch instead of
+ * once per credential. A collector thread starts a batch with the first queued request and closes it when it holds
+ * {@code maxBatchSize} requests or when {@code maxBatchDelay} has passed since it started, whichever comes first.
+ * Closed batches are sent by a fixed number of sender threads, which bounds the round trips in flight; while all
+ * senders are busy the collector keeps filling the next batch, so batches grow with the load.
+ */
+public class SigningRequestBatcher {
+
+    private static final Log log = LogFactory.getLog(SigningRequestBatcher.class);
+    private static final long RETRY_AFTER_SECONDS = 1;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final RemoteSigningClient client;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final BlockingQueue<PendingSignature> queue;
+    private final Semaphore senderPermits;
+    private final ExecutorService senders;
+    private final Thread collector;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder signatures = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * Create a batcher and start its collector thread.
+     *
+     * @param client              transport to the remote signer
+     * @param maxBatchSize        maximum number of requests in a batch
+     * @param maxBatchDelayMicros maximum time a batch stays open waiting for more requests
+     * @param maxPendingRequests  maximum number of requests waiting to be batched
+     * @param maxInFlightBatches  maximum number of batches sent to the signer at once
+     */
+    public SigningRequestBatcher(RemoteSigningClient client, int maxBatchSize, long maxBatchDelayMicros,
+                                 int maxPendingRequests, int maxInFlightBatches) {
+
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxBatchDelayMicros);
+        this.queue = new ArrayBlockingQueue<>(maxPendingRequests);
+        this.senderPermits = new Semaphore(maxInFlightBatches);
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(maxInFlightBatches, runnable -> {
+            Thread thread = new Thread(runnable, "oid4vci-remote-signer-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.collector = new Thread(this::collect, "oid4vci-remote-signer-batcher");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * Queue a request for the next batch.
+     *
+     * @param request signing request
+     * @return future completed with the signature, or failed with a {@link CredentialIssuanceException}
+     */
+    public CompletableFuture<byte[]> submit(RemoteSigningRequest request) {
+
+        if (!running) {
+            return CompletableFutures.failed(new CredentialIssuanceException("Remote signer has been shut down"));
+        }
+        PendingSignature pending = new PendingSignature(request);
+        if (!queue.offer(pending)) {
+            return CompletableFutures.failed(new IssuanceRejectedException("Too many credentials are waiting to be "
+                    + "signed by the remote signer", RETRY_AFTER_SECONDS));
+        }
+        if (!running && queue.remove(pending)) {
+            // Queued while shutting down, possibly after the collector drained the queue for the last time. A request
+            // the collector has already taken is sent or failed by the collector instead.
+            pending.future.completeExceptionally(new CredentialIssuanceException("Remote signer has been shut down"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * Stop accepting requests. Requests already queued are still sent.
+     */
+    public void shutdown() {
+
+        running = false;
+        collector.interrupt();
+    }
+
+    /**
+     * Get the transport the batches are sent with.
+     *
+     * @return remote signing client
+     */
+    public RemoteSigningClient getClient() {
+
+        return client;
+    }
+
+    public long getBatchCount() {
+
+        return batches.sum();
+    }
+
+    public long getSignatureCount() {
+
+        return signatures.sum();
+    }
+
+    private void collect() {
+
+        while (running || !queue.isEmpty()) {
+            List<PendingSignature> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                if (running) {
+                    log.warn("Remote signer batcher was interrupted. Credentials can no longer be signed remotely.");
+                    running = false;
+                    break;
+                }
+                continue;
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        }
+        senders.shutdown();
+        List<PendingSignature> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        fail(abandoned, new CredentialIssuanceException("Remote signer has been shut down"));
+    }
+
+    private List<PendingSignature> nextBatch() throws InterruptedException {
+
+        List<PendingSignature> batch = new ArrayList<>(maxBatchSize);
+        PendingSignature first = running ? queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxBatchDelayNanos;
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        while (batch.size() < maxBatchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingSignature next;
+            try {
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // Send what has been collected; the interrupt is handled when the next batch is started.
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+        return batch;
+    }
+
+    private void send(List<PendingSignature> batch) {
+
+        // Waiting for a sender here keeps the next batch filling up while the signer is busy.
+        senderPermits.acquireUninterruptibly();
+        try {
+            senders.execute(() -> {
+                try {
+                    signBatch(batch);
+                } finally {
+                    senderPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            senderPermits.release();
+            fail(batch, new CredentialIssuanceException("Remote signer has been shut down", e));
+        }
+    }
+
+    private void signBatch(List<PendingSignature> batch) {
+
+        List<RemoteSigningRequest> requests = new ArrayList<>(batch.size());
+        for (PendingSignature pending : batch) {
+            requests.add(pending.request);
+        }
+        List<byte[]> signed;
+        try {
+            signed = client.sign(requests);
+        } catch (CredentialIssuanceException e) {
+            fail(batch, e);
+            return;
+        } catch (RuntimeException e) {
+            fail(batch, new CredentialIssuanceException("Error obtaining signatures from the remote signer", e));
+            return;
+        }
+        if (signed == null || signed.size() != batch.size()) {
+            fail(batch, new CredentialIssuanceException("Remote signer returned an unexpected number of signatures"));
+            return;
+        }
+        batches.increment();
+        signatures.add(batch.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Signed a batch of " + batch.size() + " credentials with the remote signer");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(signed.get(i));
+        }
+    }
+
+    private static void fail(List<PendingSignature> batch, CredentialIssuanceException failure) {
+
+        for (PendingSignature pending : batch) {
+            pending.future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * A queued request and the future of its signature.
+     */
+    private static final class PendingSignature {
+
+        private final RemoteSigningRequest request;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        private PendingSignature(RemoteSigningRequest request) {
+
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.wso2.carbon.identity.openid4vci.credential.stats;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.credential.pipeline.IssuanceStage;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of per-stage credential issuance latency histograms, keyed by tenant and credential configuration.
+ */
+public class IssuanceStageStatistics implements IssuanceStageStatisticsMBean {
+
+    private static final Log log = LogFactory.getLog(IssuanceStageStatistics.class);
+    private static final Gson GSON = new Gson();
+    private static final String MBEAN_NAME = "org.wso2.carbon.identity.openid4vci:type=IssuanceStageStatistics";
+    private static final IssuanceStageStatistics instance = new IssuanceStageStatistics();
+
+    /**
+     * Configuration key used when a request fails before its credential configuration is resolved.
+     */
+    public static final String UNRESOLVED_CONFIGURATION = "unresolved";
+
+    private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram[]>> histograms =
+            new ConcurrentHashMap<>();
+
+    private IssuanceStageStatistics() {
+
+    }
+
+    public static IssuanceStageStatistics getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Record the time spent in a stage.
+     *
+     * @param tenantDomain    tenant domain
+     * @param configurationId credential configuration identifier
+     * @param stage           issuance stage
+     * @param nanos           elapsed time in nanoseconds
+     */
+    public void record(String tenantDomain, String configurationId, IssuanceStage stage, long nanos) {
+
+        LatencyHistogram[] stageHistograms = histograms
+                .computeIfAbsent(tenantDomain, tenant -> new ConcurrentHashMap<>())
+                .computeIfAbsent(configurationId, config -> newStageHistograms());
+        stageHistograms[stage.ordinal()].recordNanos(nanos);
+    }
+
+    /**
+     * Serialize the statistics of a single tenant as JSON.
+     *
+     * @param tenantDomain tenant domain
+     * @return statistics JSON keyed by configuration and stage
+     */
+    public String toJson(String tenantDomain) {
+
+        Map<String, LatencyHistogram[]> tenantHistograms = histograms.get(tenantDomain);
+        if (tenantHistograms == null) {
+            return GSON.toJson(Collections.emptyMap());
+        }
+        return GSON.toJson(describeTenant(tenantHistograms));
+    }
+
+    @Override
+    public String getStatisticsAsJson() {
+
+        Map<String, Object> all = new LinkedHashMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram[]>> entry : histograms.entrySet()) {
+            all.put(entry.getKey(), describeTenant(entry.getValue()));
+        }
+        return GSON.toJson(all);
+    }
+
+    @Override
+    public String[] getTrackedKeys() {
+
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram[]>> entry : histograms.entrySet()) {
+            for (String configurationId : entry.getValue().keySet()) {
+                keys.add(entry.getKey() + "/" + configurationId);
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    @Override
+    public long getCount(String tenantDomain, String configurationId, String stage) {
+
+        LatencyHistogram histogram = findHistogram(tenantDomain, configurationId, stage);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    @Override
+    public long getPercentileMicros(String tenantDomain, String configurationId, String stage, double percentile) {
+
+        LatencyHistogram histogram = findHistogram(tenantDomain, configurationId, stage);
+        return histogram == null ? 0 : histogram.getPercentileMicros(percentile);
+    }
+
+    @Override
+    public void reset() {
+
+        histograms.clear();
+    }
+
+    /**
+     * Register this registry with the platform MBean server.
+     */
+    public void registerMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the issuance stage statistics MBean", e);
+        }
+    }
+
+    /**
+     * Unregister this registry from the platform MBean server.
+     */
+    public void unregisterMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while unregistering the issuance stage statistics MBean", e);
+        }
+    }
+
+    private LatencyHistogram findHistogram(String tenantDomain, String configurationId, String stageName) {
+
+        Map<String, LatencyHistogram[]> tenantHistograms = histograms.get(tenantDomain);
+        if (tenantHistograms == null) {
+            return null;
+        }
+        LatencyHistogram[] stageHistograms = tenantHistograms.get(configurationId);
+        if (stageHistograms == null) {
+            return null;
+        }
+        for (IssuanceStage stage : IssuanceStage.values()) {
+            if (stage.getStageName().equals(stageName)) {
+                return stageHistograms[stage.ordinal()];
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> describeTenant(Map<String, LatencyHistogram[]> tenantHistograms) {
+
+        Map<String, Object> configurations = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram[]> entry : tenantHistograms.entrySet()) {
+            Map<String, Object> stages = new LinkedHashMap<>();
+            for (IssuanceStage stage : IssuanceStage.values()) {
+                LatencyHistogram histogram = entry.getValue()[stage.ordinal()];
+                if (histogram.getCount() > 0) {
+                    stages.put(stage.getStageName(), describeHistogram(histogram));
+                }
+            }
+            configurations.put(entry.getKey(), stages);
+        }
+        return configurations;
+    }
+
+    private static Map<String, Object> describeHistogram(LatencyHistogram histogram) {
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        summary.put("mean_us", Math.round(histogram.getMeanMicros()));
+        summary.put("p50_us", histogram.getPercentileMicros(50));
+        summary.put("p90_us", histogram.getPercentileMicros(90));
+        summary.put("p99_us", histogram.getPercentileMicros(99));
+        summary.put("p999_us", histogram.getPercentileMicros(99.9));
+        summary.put("max_us", histogram.getMaxMicros());
+        return summary;
+    }
+
+    private static LatencyHistogram[] newStageHistograms() {
+
+        LatencyHistogram[] stageHistograms = new LatencyHistogram[IssuanceStage.values().length];
+        for (int i = 0; i < stageHistograms.length; i++) {
+            stageHistograms[i] = new LatencyHistogram();
+        }
+        return stageHistograms;
+    }
+}
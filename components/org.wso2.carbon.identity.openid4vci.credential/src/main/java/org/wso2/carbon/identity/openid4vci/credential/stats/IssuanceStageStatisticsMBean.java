@@ -0,0 +1,47 @@
+package org.wso2.carbon.identity.openid4vci.credential.stats;
+
+/**
+ * JMX management interface exposing per-stage credential issuance latency statistics.
+ */
+public interface IssuanceStageStatisticsMBean {
+
+    /**
+     * Get the keys for which statistics are tracked, formatted as {@code tenantDomain/configurationId}.
+     *
+     * @return tracked statistics keys
+     */
+    String[] getTrackedKeys();
+
+    /**
+     * Get the number of samples recorded for a stage.
+     *
+     * @param tenantDomain    tenant domain
+     * @param configurationId credential configuration identifier
+     * @param stage           stage name, e.g. {@code claim_retrieval}
+     * @return sample count
+     */
+    long getCount(String tenantDomain, String configurationId, String stage);
+
+    /**
+     * Get a latency percentile for a stage.
+     *
+     * @param tenantDomain    tenant domain
+     * @param configurationId credential configuration identifier
+     * @param stage           stage name, e.g. {@code claim_retrieval}
+     * @param percentile      percentile in the range (0, 100]
+     * @return latency in microseconds
+     */
+    long getPercentileMicros(String tenantDomain, String configurationId, String stage, double percentile);
+
+    /**
+     * Get all statistics serialized as JSON.
+     *
+     * @return statistics JSON
+     */
+    String getStatisticsAsJson();
+
+    /**
+     * Clear all recorded statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,101 @@
+package org.wso2.carbon.identity.openid4vci.credential.token;
+
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth.event.AbstractOAuthEventInterceptor;
+import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+
+import java.text.ParseException;
+import java.util.Map;
+
+/**
+ * Publishes access token revocations of the authorization server as invalidation events, so that every node stops
+ * accepting a revoked token that the {@link LocalAccessTokenValidator} would otherwise validate until it expires.
+ * Only revocations in tenants with local validation enabled are published.
+ */
+public class AccessTokenRevocationInterceptor extends AbstractOAuthEventInterceptor {
+
+    private static final Log log = LogFactory.getLog(AccessTokenRevocationInterceptor.class);
+
+    /**
+     * Always enabled, since local validation must not miss a revocation whatever the event listener configuration.
+     */
+    @Override
+    public boolean isEnabled() {
+
+        return true;
+    }
+
+    @Override
+    public void onPostTokenRevocationByClient(OAuthRevocationRequestDTO revokeRequestDTO,
+                                              OAuthRevocationResponseDTO revokeResponseDTO,
+                                              AccessTokenDO accessTokenDO, RefreshTokenValidationDataDO refreshTokenDO,
+                                              Map<String, Object> params) {
+
+        if (accessTokenDO != null) {
+            publish(accessTokenDO.getAuthzUser(), accessTokenDO.getAccessToken());
+        } else if (refreshTokenDO != null) {
+            // Revoking a refresh token revokes the access token issued with it.
+            publish(refreshTokenDO.getAuthorizedUser(), refreshTokenDO.getAccessToken());
+        }
+    }
+
+    @Override
+    public void onPostTokenRevocationByResourceOwner(
+            org.wso2.carbon.identity.oauth.dto.OAuthRevocationRequestDTO revokeRequestDTO,
+            org.wso2.carbon.identity.oauth.dto.OAuthRevocationResponseDTO revokeResponseDTO,
+            AccessTokenDO accessTokenDO, Map<String, Object> params) {
+
+        if (accessTokenDO != null) {
+            publish(accessTokenDO.getAuthzUser(), accessTokenDO.getAccessToken());
+        }
+    }
+
+    @Override
+    public void onPostTokenRevocationBySystem(AccessTokenDO accessTokenDO, Map<String, Object> params) {
+
+        if (accessTokenDO != null) {
+            publish(accessTokenDO.getAuthzUser(), accessTokenDO.getAccessToken());
+        }
+    }
+
+    private static void publish(AuthenticatedUser user, String accessToken) {
+
+        String tenantDomain = user == null ? null : user.getTenantDomain();
+        if (tenantDomain == null || accessToken == null
+                || !LocalAccessTokenValidator.getInstance().isEnabled(tenantDomain)) {
+            return;
+        }
+        String tokenId = resolveTokenId(accessToken);
+        if (tokenId == null) {
+            return;
+        }
+        DefaultInvalidationBus.getInstance().publish(InvalidationEvent.accessToken(tenantDomain, tokenId));
+        if (log.isDebugEnabled()) {
+            log.debug("Published the revocation of a locally validated access token of tenant: " + tenantDomain);
+        }
+    }
+
+    /**
+     * Resolve the id that locally validated tokens are revoked by. The token store keeps a JWT access token by its
+     * {@code jti}, while a revocation request carries the token itself.
+     */
+    private static String resolveTokenId(String accessToken) {
+
+        if (accessToken.indexOf('.') < 0) {
+            return accessToken;
+        }
+        try {
+            return SignedJWT.parse(accessToken).getJWTClaimsSet().getJWTID();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.wso2.carbon.identity.openid4vci.credential.token;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Revocations pushed for JWT access tokens that are validated locally. Revoked token ids are kept until no token
+ * issued before the revocation can still be valid. A tenant wide revocation, or a tenant that overflows its bound,
+ * is kept as a point in time instead: every token of the tenant issued up to then is checked against the token
+ * store rather than trusted locally.
+ * <p>
+ * The list is kept in memory only, so a node cannot know of revocations published before it started. Every tenant
+ * therefore starts with a tenant wide revocation at the time the list is created, and tokens issued before then are
+ * always checked against the token store.
+ */
+public class AccessTokenRevocationList {
+
+    private final long retentionMillis;
+    private final int maxTokensPerTenant;
+    private final long revokedUntilAtStartMillis;
+    private final ConcurrentMap<String, TenantRevocations> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * Create a revocation list.
+     *
+     * @param retentionMillis    how long a revoked token id is kept, at least the longest access token lifetime
+     * @param maxTokensPerTenant revoked token ids kept per tenant before falling back to a tenant wide revocation
+     */
+    public AccessTokenRevocationList(long retentionMillis, int maxTokensPerTenant) {
+
+        this(retentionMillis, maxTokensPerTenant, System.currentTimeMillis());
+    }
+
+    AccessTokenRevocationList(long retentionMillis, int maxTokensPerTenant, long startedAtMillis) {
+
+        this.retentionMillis = retentionMillis;
+        this.maxTokensPerTenant = maxTokensPerTenant;
+        this.revokedUntilAtStartMillis = roundUp(startedAtMillis);
+    }
+
+    /**
+     * Record the revocation of a token.
+     *
+     * @param tenantDomain tenant domain of the token
+     * @param tokenId      id of the revoked token
+     */
+    public void revoke(String tenantDomain, String tokenId) {
+
+        long now = System.currentTimeMillis();
+        TenantRevocations revocations = tenants.computeIfAbsent(tenantDomain, tenant -> new TenantRevocations());
+        revocations.tokens.put(tokenId, now + retentionMillis);
+        if (revocations.tokens.size() > maxTokensPerTenant) {
+            revocations.tokens.values().removeIf(expiresAt -> expiresAt - now < 0);
+            if (revocations.tokens.size() > maxTokensPerTenant) {
+                revocations.revokeAll(now);
+            }
+        }
+    }
+
+    /**
+     * Treat every token of a tenant issued until now as revoked, unless the token store says otherwise.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void revokeAll(String tenantDomain) {
+
+        tenants.computeIfAbsent(tenantDomain, tenant -> new TenantRevocations())
+                .revokeAll(System.currentTimeMillis());
+    }
+
+    /**
+     * Check whether a token was revoked by id.
+     *
+     * @param tenantDomain tenant domain of the token
+     * @param tokenId      token id
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(String tenantDomain, String tokenId) {
+
+        TenantRevocations revocations = tenants.get(tenantDomain);
+        if (revocations == null) {
+            return false;
+        }
+        Long expiresAt = revocations.tokens.get(tokenId);
+        return expiresAt != null && expiresAt - System.currentTimeMillis() >= 0;
+    }
+
+    /**
+     * Check whether a token was issued before a tenant wide revocation or before this list was created, so it must
+     * be checked against the store.
+     *
+     * @param tenantDomain   tenant domain of the token
+     * @param issuedAtMillis issue time of the token
+     * @return true if the token may have been revoked
+     */
+    public boolean isIssuedBeforeTenantRevocation(String tenantDomain, long issuedAtMillis) {
+
+        if (issuedAtMillis <= revokedUntilAtStartMillis) {
+            return true;
+        }
+        TenantRevocations revocations = tenants.get(tenantDomain);
+        return revocations != null && issuedAtMillis <= revocations.revokedUntilMillis;
+    }
+
+    /**
+     * Token issue times have a resolution of a second, so round a revocation point up to cover its current second.
+     */
+    private static long roundUp(long millis) {
+
+        return millis + 1000;
+    }
+
+    /**
+     * Revocations of one tenant.
+     */
+    private static final class TenantRevocations {
+
+        private final ConcurrentMap<String, Long> tokens = new ConcurrentHashMap<>();
+        private volatile long revokedUntilMillis = Long.MIN_VALUE;
+
+        private synchronized void revokeAll(long now) {
+
+            revokedUntilMillis = Math.max(revokedUntilMillis, roundUp(now));
+            tokens.clear();
+        }
+    }
+}
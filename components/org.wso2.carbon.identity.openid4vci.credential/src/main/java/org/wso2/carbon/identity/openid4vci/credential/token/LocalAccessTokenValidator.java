@@ -0,0 +1,449 @@
+package org.wso2.carbon.identity.openid4vci.credential.token;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.SingleFlight;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateKey;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateManager;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.claims.ClaimRetrievalGuard;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.DPoPProofValidator;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates JWT access tokens issued by the authorization server of a tenant without a token store lookup. The
+ * signature is verified against the tenant's signing key, and type, audience, expiry, issuer and revocation are
+ * checked locally; revocations reported by the authorization server reach the {@link AccessTokenRevocationList} as
+ * invalidation events published by the {@link AccessTokenRevocationInterceptor}. Local validation is enabled per
+ * tenant. Tokens it cannot vouch for, such as opaque tokens, tokens signed with an unknown key, tokens not typed
+ * {@code at+jwt}, tokens not addressed to the credential issuer and tokens issued before a tenant wide revocation
+ * or before the node started, are left to the token store.
+ *
+ * <p>Revocations reach the other nodes of a cluster only through the cluster transport of the
+ * {@link DefaultInvalidationBus}. While no transport is attached every token is left to the token store, unless the
+ * node is configured as a single node deployment.</p>
+ */
+public class LocalAccessTokenValidator {
+
+    private static final Log log = LogFactory.getLog(LocalAccessTokenValidator.class);
+    private static final String TENANTS_PROPERTY = "OpenID4VCI.LocalTokenValidation.Tenants";
+    private static final String CLOCK_SKEW_PROPERTY = "OpenID4VCI.LocalTokenValidation.ClockSkew";
+    private static final String REVOCATION_RETENTION_PROPERTY =
+            "OpenID4VCI.LocalTokenValidation.RevocationRetention";
+    private static final String MAX_REVOKED_TOKENS_PROPERTY = "OpenID4VCI.LocalTokenValidation.MaxRevokedTokens";
+    private static final String AUDIENCES_PROPERTY = "OpenID4VCI.LocalTokenValidation.Audiences";
+    private static final String SINGLE_NODE_PROPERTY = "OpenID4VCI.LocalTokenValidation.SingleNode";
+    private static final JOSEObjectType ACCESS_TOKEN_TYPE = new JOSEObjectType("at+jwt");
+    private static final String ALL_TENANTS = "*";
+    private static final String SCOPE_CLAIM = "scope";
+    private static final String CLIENT_ID_CLAIM = "client_id";
+    private static final String AUTHORIZED_PARTY_CLAIM = "azp";
+    private static final String CONFIRMATION_CLAIM = "cnf";
+    private static final String KEY_THUMBPRINT_CONFIRMATION = "jkt";
+    /**
+     * The user store of a token subject is only known once the user id is resolved, so id lookups share one guard.
+     */
+    private static final String USER_ID_RESOLUTION_GUARD = "user-id-resolution";
+    private static final String USERNAME = "username";
+    private static final long DEFAULT_CLOCK_SKEW_SECONDS = 60;
+    private static final long DEFAULT_REVOCATION_RETENTION_SECONDS = 3600;
+    private static final long DEFAULT_MAX_REVOKED_TOKENS = 10000;
+    private static final long VERIFICATION_KEY_SIZE_ESTIMATE = 2048;
+    private static final TenantStateKey<VerificationKey> VERIFICATION_KEY = new TenantStateKey<>(
+            "access-token-verification-key", VerificationKey.class, key -> VERIFICATION_KEY_SIZE_ESTIMATE);
+    private static final LocalAccessTokenValidator instance = new LocalAccessTokenValidator();
+
+    private final Set<String> tenants;
+    private final Set<String> audiences;
+    private final boolean allTenants;
+    private final long clockSkewMillis;
+    private final AccessTokenRevocationList revocationList;
+    private final boolean singleNode;
+    private final SingleFlight<String, VerificationKey> keyLoads = new SingleFlight<>();
+    private final TenantStateManager stateManager = TenantStateManager.getInstance();
+    private volatile boolean missingTransportReported;
+
+    private LocalAccessTokenValidator() {
+
+        this(readList(TENANTS_PROPERTY), readList(AUDIENCES_PROPERTY),
+                TimeUnit.SECONDS.toMillis(Util.readPositiveLong(CLOCK_SKEW_PROPERTY, DEFAULT_CLOCK_SKEW_SECONDS)),
+                new AccessTokenRevocationList(TimeUnit.SECONDS.toMillis(Util.readPositiveLong(
+                        REVOCATION_RETENTION_PROPERTY, DEFAULT_REVOCATION_RETENTION_SECONDS)),
+                        (int) Util.readPositiveLong(MAX_REVOKED_TOKENS_PROPERTY, DEFAULT_MAX_REVOKED_TOKENS)),
+                Boolean.parseBoolean(IdentityUtil.getProperty(SINGLE_NODE_PROPERTY)));
+    }
+
+    LocalAccessTokenValidator(Set<String> tenants, Set<String> audiences, long clockSkewMillis,
+                              AccessTokenRevocationList revocationList, boolean singleNode) {
+
+        this.tenants = tenants;
+        this.audiences = audiences;
+        this.allTenants = tenants.contains(ALL_TENANTS);
+        this.clockSkewMillis = clockSkewMillis;
+        this.revocationList = revocationList;
+        this.singleNode = singleNode;
+    }
+
+    public static LocalAccessTokenValidator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Check whether access tokens of a tenant may be validated locally.
+     *
+     * @param tenantDomain tenant domain
+     * @return true if local validation is enabled for the tenant
+     */
+    public boolean isEnabled(String tenantDomain) {
+
+        return allTenants || tenants.contains(tenantDomain);
+    }
+
+    /**
+     * Validate an access token locally.
+     *
+     * @param tenantDomain tenant domain of the request
+     * @param token        access token
+     * @return the validated token, or null if the token must be validated by the token store
+     * @throws CredentialIssuanceException if the token is signed by the tenant but is invalid, expired or revoked
+     */
+    public AccessTokenDO validate(String tenantDomain, String token) throws CredentialIssuanceException {
+
+        if (!isEnabled(tenantDomain) || !isJwt(token) || !isRevocationDelivered()) {
+            return null;
+        }
+        SignedJWT jwt;
+        JWTClaimsSet claims;
+        try {
+            jwt = SignedJWT.parse(token);
+            claims = jwt.getJWTClaimsSet();
+        } catch (ParseException e) {
+            return fallBack(tenantDomain, "the token is not a signed JWT");
+        }
+
+        VerificationKey key = resolveKey(tenantDomain);
+        JWSHeader header = jwt.getHeader();
+        if (!JWSAlgorithm.RS256.equals(header.getAlgorithm()) || !key.keyId.equals(header.getKeyID())) {
+            return fallBack(tenantDomain, "the token is not signed with the current key of the tenant");
+        }
+        if (!ACCESS_TOKEN_TYPE.equals(header.getType())) {
+            return fallBack(tenantDomain, "the token is not typed as an access token");
+        }
+        if (!key.issuer.equals(claims.getIssuer())) {
+            return fallBack(tenantDomain, "the token is issued by " + claims.getIssuer());
+        }
+        if (!isAudienceAccepted(tenantDomain, claims.getAudience())) {
+            return fallBack(tenantDomain, "the token is not issued for the credential issuer");
+        }
+        try {
+            if (!jwt.verify(new RSASSAVerifier(key.publicKey))) {
+                throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+            }
+        } catch (JOSEException e) {
+            throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+        }
+
+        long now = System.currentTimeMillis();
+        Date expiresAt = claims.getExpirationTime();
+        Date notBefore = claims.getNotBeforeTime();
+        if (expiresAt == null || expiresAt.getTime() + clockSkewMillis < now
+                || notBefore != null && notBefore.getTime() - clockSkewMillis > now) {
+            throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+        }
+        String tokenId = claims.getJWTID();
+        Date issuedAt = claims.getIssueTime();
+        if (tokenId == null || issuedAt == null || claims.getSubject() == null) {
+            return fallBack(tenantDomain, "the token has no id, issue time or subject");
+        }
+        if (revocationList.isRevoked(tenantDomain, tokenId)) {
+            throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+        }
+        if (revocationList.isIssuedBeforeTenantRevocation(tenantDomain, issuedAt.getTime())) {
+            return fallBack(tenantDomain, "the token was issued before a tenant wide revocation");
+        }
+
+        AuthenticatedUser user = resolveUser(tenantDomain, claims.getSubject());
+        if (user == null) {
+            return fallBack(tenantDomain, "the token subject is not a user of the tenant");
+        }
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setScope(readScopes(claims));
+        accessTokenDO.setAuthzUser(user);
+        accessTokenDO.setConsumerKey(readClientId(claims));
+        String keyThumbprint = readKeyThumbprint(claims);
+        if (keyThumbprint != null) {
+            accessTokenDO.setTokenBinding(new TokenBinding(DPoPProofValidator.DPOP_BINDING_TYPE, keyThumbprint,
+                    keyThumbprint));
+        }
+        return accessTokenDO;
+    }
+
+    /**
+     * Get the revocations of locally validated tokens.
+     *
+     * @return revocation list
+     */
+    public AccessTokenRevocationList getRevocationList() {
+
+        return revocationList;
+    }
+
+    /**
+     * Drop the verification key of a tenant, so that it is read from the keystore on next use.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void invalidateKey(String tenantDomain) {
+
+        stateManager.remove(tenantDomain, VERIFICATION_KEY);
+    }
+
+    /**
+     * Set the key and issuer that access tokens of a tenant are verified against, in place of those read from the
+     * keystore.
+     */
+    void setVerificationKey(String tenantDomain, String keyId, RSAPublicKey publicKey, String issuer) {
+
+        stateManager.put(tenantDomain, VERIFICATION_KEY, new VerificationKey(keyId, publicKey, issuer));
+    }
+
+    /**
+     * Check whether revocations published on other nodes reach this node. The missing transport is reported once
+     * every time it goes missing, rather than for every token.
+     */
+    private boolean isRevocationDelivered() {
+
+        if (singleNode || DefaultInvalidationBus.getInstance().hasTransport()) {
+            missingTransportReported = false;
+            return true;
+        }
+        if (!missingTransportReported) {
+            missingTransportReported = true;
+            log.error("Local access token validation is enabled, but no cluster invalidation transport is "
+                    + "attached, so revocations made on other nodes would not be seen. Access tokens are validated "
+                    + "with the token store until a transport is attached. Set " + SINGLE_NODE_PROPERTY
+                    + " to true if this node is not part of a cluster.");
+        }
+        return false;
+    }
+
+    private VerificationKey resolveKey(String tenantDomain) throws CredentialIssuanceException {
+
+        VerificationKey key = stateManager.get(tenantDomain, VERIFICATION_KEY);
+        if (key != null) {
+            return key;
+        }
+        return keyLoads.load(tenantDomain, () -> {
+            VerificationKey loaded = loadKey(tenantDomain);
+            stateManager.put(tenantDomain, VERIFICATION_KEY, loaded);
+            return loaded;
+        }, e -> new CredentialIssuanceException("Error obtaining the access token verification key for tenant: "
+                + tenantDomain, e));
+    }
+
+    private static VerificationKey loadKey(String tenantDomain) throws CredentialIssuanceException {
+
+        try {
+            Certificate certificate = OAuth2Util.getCertificate(tenantDomain,
+                    IdentityTenantUtil.getTenantId(tenantDomain));
+            PublicKey publicKey = certificate.getPublicKey();
+            if (!(publicKey instanceof RSAPublicKey)) {
+                throw new CredentialIssuanceException("Signing key of tenant: " + tenantDomain + " is not an RSA key");
+            }
+            return new VerificationKey(OAuth2Util.getKID(certificate, JWSAlgorithm.RS256, tenantDomain),
+                    (RSAPublicKey) publicKey, OAuth2Util.getIdTokenIssuer(tenantDomain));
+        } catch (IdentityOAuth2Exception e) {
+            throw new CredentialIssuanceException("Error obtaining the access token verification key for tenant: "
+                    + tenantDomain, e);
+        }
+    }
+
+    /**
+     * Check that a token is addressed to the credential issuer of the tenant, or to one of the configured audiences.
+     */
+    private boolean isAudienceAccepted(String tenantDomain, List<String> audience)
+            throws CredentialIssuanceException {
+
+        if (audience == null || audience.isEmpty()) {
+            return false;
+        }
+        for (String value : audience) {
+            if (audiences.contains(value)) {
+                return true;
+            }
+        }
+        String credentialIssuer;
+        try {
+            credentialIssuer = StringUtils.removeEnd(TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain)
+                    .getCredentialIssuerUrl(), "/");
+        } catch (URLBuilderException e) {
+            throw new CredentialIssuanceException("Error building the issuer URLs of tenant: " + tenantDomain, e);
+        }
+        for (String value : audience) {
+            if (value != null && StringUtils.removeEnd(value, "/").equals(credentialIssuer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolve the user a token was issued to. The subject of access tokens is the user id, which the user store
+     * resolves to a username from its own cache. The lookup goes through the {@link ClaimRetrievalGuard}, so a slow
+     * user store holds up the request thread only up to the guard's timeout.
+     */
+    private static AuthenticatedUser resolveUser(String tenantDomain, String userId)
+            throws CredentialIssuanceException {
+
+        String username;
+        try {
+            username = ClaimRetrievalGuard.getInstance().retrieve(tenantDomain, USER_ID_RESOLUTION_GUARD,
+                    USER_ID_RESOLUTION_GUARD + ":" + userId, () -> {
+                        String resolved = OAuth2Util.resolveUsernameFromUserId(tenantDomain, userId);
+                        return resolved == null ? Collections.<String, String>emptyMap()
+                                : Collections.singletonMap(USERNAME, resolved);
+                    }).get(USERNAME);
+        } catch (UserStoreException e) {
+            throw new CredentialIssuanceException("Error resolving the user of the access token for tenant: "
+                    + tenantDomain, e);
+        }
+        if (username == null) {
+            return null;
+        }
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserId(userId);
+        user.setUserName(UserCoreUtil.removeDomainFromName(username));
+        user.setUserStoreDomain(UserCoreUtil.extractDomainFromName(username));
+        user.setTenantDomain(tenantDomain);
+        return user;
+    }
+
+    private static String[] readScopes(JWTClaimsSet claims) {
+
+        Object scope = claims.getClaim(SCOPE_CLAIM);
+        if (scope instanceof String) {
+            String scopes = ((String) scope).trim();
+            return scopes.isEmpty() ? new String[0] : scopes.split("\\s+");
+        }
+        if (scope instanceof Collection) {
+            Collection<?> scopes = (Collection<?>) scope;
+            String[] values = new String[scopes.size()];
+            int i = 0;
+            for (Object value : scopes) {
+                values[i++] = String.valueOf(value);
+            }
+            return values;
+        }
+        return new String[0];
+    }
+
+    /**
+     * Read the id of the client the token is issued to, from its {@code client_id} claim or else {@code azp}.
+     */
+    private static String readClientId(JWTClaimsSet claims) throws CredentialIssuanceException {
+
+        try {
+            String clientId = claims.getStringClaim(CLIENT_ID_CLAIM);
+            return clientId != null ? clientId : claims.getStringClaim(AUTHORIZED_PARTY_CLAIM);
+        } catch (ParseException e) {
+            throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+        }
+    }
+
+    /**
+     * Read the JWK thumbprint a DPoP-bound token is confirmed with, from its {@code cnf.jkt} claim.
+     */
+    private static String readKeyThumbprint(JWTClaimsSet claims) throws CredentialIssuanceException {
+
+        Map<String, Object> confirmation;
+        try {
+            confirmation = claims.getJSONObjectClaim(CONFIRMATION_CLAIM);
+        } catch (ParseException e) {
+            throw CredentialIssuanceClientErrors.INVALID_ACCESS_TOKEN;
+        }
+        Object keyThumbprint = confirmation == null ? null : confirmation.get(KEY_THUMBPRINT_CONFIRMATION);
+        return keyThumbprint instanceof String ? (String) keyThumbprint : null;
+    }
+
+    private static boolean isJwt(String token) {
+
+        int first = token.indexOf('.');
+        return first > 0 && token.indexOf('.', first + 1) > first + 1 && token.lastIndexOf('.') < token.length() - 1;
+    }
+
+    private static AccessTokenDO fallBack(String tenantDomain, String reason) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Validating access token of tenant: " + tenantDomain + " with the token store, since "
+                    + reason);
+        }
+        return null;
+    }
+
+    private static Set<String> readList(String property) {
+
+        String value = IdentityUtil.getProperty(property);
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> values = new LinkedHashSet<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                values.add(item.trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Key and issuer that access tokens of a tenant are verified against.
+     */
+    private static final class VerificationKey {
+
+        private final String keyId;
+        private final RSAPublicKey publicKey;
+        private final String issuer;
+
+        private VerificationKey(String keyId, RSAPublicKey publicKey, String issuer) {
+
+            this.keyId = keyId;
+            this.publicKey = publicKey;
+            this.issuer = issuer;
+        }
+    }
+}
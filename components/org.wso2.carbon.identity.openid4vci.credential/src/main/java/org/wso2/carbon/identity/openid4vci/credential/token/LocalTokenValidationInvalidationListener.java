@@ -0,0 +1,30 @@
+package org.wso2.carbon.identity.openid4vci.credential.token;
+
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
+
+/**
+ * Feeds access token revocations and key rotations to the {@link LocalAccessTokenValidator}.
+ */
+public class LocalTokenValidationInvalidationListener implements InvalidationListener {
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+
+        LocalAccessTokenValidator validator = LocalAccessTokenValidator.getInstance();
+        switch (event.getType()) {
+            case ACCESS_TOKEN:
+                validator.getRevocationList().revoke(event.getTenantDomain(), event.getIdentifier());
+                break;
+            case TENANT:
+                // Revocations merged into a tenant event can no longer be told apart.
+                validator.getRevocationList().revokeAll(event.getTenantDomain());
+                break;
+            case SIGNING_KEY:
+                validator.invalidateKey(event.getTenantDomain());
+                break;
+            default:
+                break;
+        }
+    }
+}
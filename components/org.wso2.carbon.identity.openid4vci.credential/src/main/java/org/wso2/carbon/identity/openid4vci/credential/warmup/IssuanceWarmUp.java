@@ -0,0 +1,268 @@
+package org.wso2.carbon.identity.openid4vci.credential.warmup;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.CredentialIssuerContext;
+import org.wso2.carbon.identity.openid4vci.credential.issuer.handlers.format.impl.JwtVcJsonFormatHandler;
+import org.wso2.carbon.identity.openid4vci.credential.response.CredentialIssuanceResponse;
+import org.wso2.carbon.identity.openid4vci.credential.signing.TenantSigningMaterialResolver;
+import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
+import org.wso2.carbon.identity.vc.config.management.exception.VCConfigMgtException;
+import org.wso2.carbon.identity.vc.config.management.model.VCCredentialConfiguration;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up credential issuance once the server has started, when enabled with {@code OpenID4VCI.WarmUp.Enable}. For
+ * each configured tenant the credential configurations and service URLs are loaded, and synthetic
+ * {@code jwt_vc_json} credentials are issued for a dummy subject so that the claim, signing and serialization paths
+ * are compiled before real traffic arrives. Synthetic credentials are signed with a throwaway key generated for the
+ * warm-up, never with a tenant key or a registered remote signer. The issuer reports itself ready only after warm-up
+ * completes or its time budget runs out.
+ * <p>
+ * No issuance history survives a restart, so the tenants cannot be ranked by volume at startup. Operators list the
+ * busiest tenants in {@code OpenID4VCI.WarmUp.Tenants}, busiest first, and the first
+ * {@code OpenID4VCI.WarmUp.MaxTenants} of them are warmed.
+ */
+public class IssuanceWarmUp {
+
+    private static final Log log = LogFactory.getLog(IssuanceWarmUp.class);
+    private static final String ENABLE_PROPERTY = "OpenID4VCI.WarmUp.Enable";
+    private static final String TENANTS_PROPERTY = "OpenID4VCI.WarmUp.Tenants";
+    private static final String MAX_TENANTS_PROPERTY = "OpenID4VCI.WarmUp.MaxTenants";
+    private static final String SIGNING_ITERATIONS_PROPERTY = "OpenID4VCI.WarmUp.SigningIterations";
+    private static final String TIMEOUT_PROPERTY = "OpenID4VCI.WarmUp.Timeout";
+    private static final int DEFAULT_MAX_TENANTS = 10;
+    private static final int DEFAULT_SIGNING_ITERATIONS = 2000;
+    private static final long DEFAULT_TIMEOUT_SECONDS = 120;
+    private static final String WARM_UP_SUBJECT = "oid4vci-warm-up-subject";
+    private static final IssuanceWarmUp instance = new IssuanceWarmUp();
+
+    /**
+     * Warm-up progress.
+     */
+    public enum State {
+
+        /**
+         * The server has not finished starting, so warm-up has not begun.
+         */
+        PENDING,
+
+        /**
+         * Warm-up is running.
+         */
+        RUNNING,
+
+        /**
+         * Warm-up finished, was disabled or ran out of time.
+         */
+        COMPLETED
+    }
+
+    private volatile State state = State.PENDING;
+    private volatile long deadlineNanos;
+    private volatile int warmedTenants;
+    private volatile long syntheticIssuances;
+
+    private IssuanceWarmUp() {
+
+    }
+
+    public static IssuanceWarmUp getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Start warm-up on a background thread. Has no effect if warm-up has already started.
+     */
+    public synchronized void start() {
+
+        if (state != State.PENDING) {
+            return;
+        }
+        if (!Boolean.parseBoolean(getProperty(ENABLE_PROPERTY, "false"))) {
+            state = State.COMPLETED;
+            return;
+        }
+
+        state = State.RUNNING;
+        deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(
+                Util.readPositiveLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_SECONDS));
+        Thread thread = new Thread(this::run, "oid4vci-issuance-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Check whether the issuer is ready to serve traffic.
+     *
+     * @return true once warm-up has completed or its time budget has run out
+     */
+    public boolean isReady() {
+
+        State current = state;
+        return current == State.COMPLETED
+                || (current == State.RUNNING && System.nanoTime() - deadlineNanos > 0);
+    }
+
+    public State getState() {
+
+        return state;
+    }
+
+    public int getWarmedTenants() {
+
+        return warmedTenants;
+    }
+
+    public long getSyntheticIssuances() {
+
+        return syntheticIssuances;
+    }
+
+    private void run() {
+
+        long start = System.nanoTime();
+        int signingIterations = (int) Util.readPositiveLong(SIGNING_ITERATIONS_PROPERTY, DEFAULT_SIGNING_ITERATIONS);
+        try {
+            JwtVcJsonFormatHandler formatHandler;
+            try {
+                formatHandler = new JwtVcJsonFormatHandler(new WarmUpCredentialSigner());
+            } catch (NoSuchAlgorithmException e) {
+                log.warn("Error while generating the OID4VCI issuance warm-up key. Skipping warm-up.", e);
+                return;
+            }
+            for (String tenantDomain : resolveTenants()) {
+                if (isDeadlinePassed()) {
+                    log.warn("OID4VCI issuance warm-up ran out of time after " + warmedTenants + " tenants.");
+                    break;
+                }
+                try {
+                    // The compiled signing path is shared, so only the first warmed tenant runs the full iterations.
+                    int iterations = syntheticIssuances == 0 ? signingIterations : 1;
+                    warmUpTenant(tenantDomain, formatHandler, iterations);
+                    warmedTenants++;
+                } catch (CredentialIssuanceException | VCConfigMgtException | URLBuilderException
+                         | RuntimeException e) {
+                    log.warn("Error while warming up OID4VCI issuance for tenant: " + tenantDomain, e);
+                }
+            }
+        } finally {
+            state = State.COMPLETED;
+            log.info(String.format("OID4VCI issuance warm-up completed for %d tenants with %d synthetic " +
+                            "issuances in %d ms.", warmedTenants, syntheticIssuances,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+    }
+
+    private void warmUpTenant(String tenantDomain, JwtVcJsonFormatHandler formatHandler, int iterations)
+            throws CredentialIssuanceException, VCConfigMgtException, URLBuilderException {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain);
+            List<VCCredentialConfiguration> configurations = loadConfigurations(tenantDomain,
+                    formatHandler.getFormat());
+            if (configurations.isEmpty()) {
+                return;
+            }
+            if (CredentialIssuanceDataHolder.getInstance().getCredentialSigner() == null) {
+                // The tenant keystore is read locally, so loading it does not sign anything with the tenant key.
+                TenantSigningMaterialResolver.getInstance().resolve(tenantDomain);
+            }
+
+            for (int i = 0; i < iterations && !isDeadlinePassed(); i++) {
+                VCCredentialConfiguration configuration = configurations.get(i % configurations.size());
+                String credential = formatHandler.issueCredential(buildSyntheticContext(tenantDomain,
+                        configuration));
+                CredentialIssuanceResponse.builder().credential(credential).build().toJson();
+                syntheticIssuances++;
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private static List<VCCredentialConfiguration> loadConfigurations(String tenantDomain, String format)
+            throws VCConfigMgtException {
+
+        VCCredentialConfigManager configManager = CredentialIssuanceDataHolder.getInstance()
+                .getVcCredentialConfigManager();
+        List<VCCredentialConfiguration> configurations = new ArrayList<>();
+        if (configManager == null) {
+            return configurations;
+        }
+        List<VCCredentialConfiguration> listed = configManager.list(tenantDomain);
+        if (listed == null) {
+            return configurations;
+        }
+        for (VCCredentialConfiguration listedConfiguration : listed) {
+            VCCredentialConfiguration configuration = configManager.get(listedConfiguration.getId(), tenantDomain);
+            if (configuration != null && format.equals(configuration.getFormat())
+                    && configuration.getSigningAlgorithm() != null) {
+                configurations.add(configuration);
+            }
+        }
+        return configurations;
+    }
+
+    private static CredentialIssuerContext buildSyntheticContext(String tenantDomain,
+                                                                 VCCredentialConfiguration configuration) {
+
+        Map<String, String> claims = new HashMap<>();
+        if (configuration.getClaims() != null) {
+            for (String claim : configuration.getClaims()) {
+                claims.put(claim, WARM_UP_SUBJECT);
+            }
+        }
+        claims.put("id", WARM_UP_SUBJECT);
+
+        CredentialIssuerContext context = new CredentialIssuerContext();
+        context.setConfigurationId(configuration.getId());
+        context.setCredentialConfiguration(configuration);
+        context.setTenantDomain(tenantDomain);
+        context.setClaims(claims);
+        return context;
+    }
+
+    private static Set<String> resolveTenants() {
+
+        Set<String> tenants = new LinkedHashSet<>();
+        int maxTenants = (int) Util.readPositiveLong(MAX_TENANTS_PROPERTY, DEFAULT_MAX_TENANTS);
+        String configured = getProperty(TENANTS_PROPERTY, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        for (String tenant : configured.split(",")) {
+            if (!tenant.trim().isEmpty() && tenants.size() < maxTenants) {
+                tenants.add(tenant.trim());
+            }
+        }
+        return tenants;
+    }
+
+    private boolean isDeadlinePassed() {
+
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    private static String getProperty(String property, String defaultValue) {
+
+        String value = IdentityUtil.getProperty(property);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,48 @@
+package org.wso2.carbon.identity.openid4vci.credential.warmup;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.signing.CredentialSigner;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Signs warm-up credentials on the calling thread with a key generated for the purpose, so that synthetic
+ * issuances never use a tenant signing key and never reach a remote signer.
+ */
+class WarmUpCredentialSigner implements CredentialSigner {
+
+    private static final String KEY_ID = "oid4vci-warm-up";
+
+    private final JWSSigner signer;
+
+    WarmUpCredentialSigner() throws NoSuchAlgorithmException {
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.signer = OAuth2Util.createJWSSigner((RSAPrivateKey) generator.generateKeyPair().getPrivate());
+    }
+
+    @Override
+    public CompletableFuture<String> sign(String tenantDomain, JWSAlgorithm algorithm, JWTClaimsSet claimsSet) {
+
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).build(),
+                claimsSet);
+        try {
+            signedJWT.sign(signer);
+        } catch (JOSEException e) {
+            return CompletableFutures.failed(new CredentialIssuanceException("Error occurred while signing JWT", e));
+        }
+        return CompletableFuture.completedFuture(signedJWT.serialize());
+    }
+}
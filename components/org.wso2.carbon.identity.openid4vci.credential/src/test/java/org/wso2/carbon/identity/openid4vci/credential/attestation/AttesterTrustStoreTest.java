@@ -0,0 +1,106 @@
+package org.wso2.carbon.identity.openid4vci.credential.attestation;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.cert.TrustAnchor;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests reading the client attestation trust store again once it has changed.
+ */
+public class AttesterTrustStoreTest {
+
+    private static final String PASSWORD = "changeit";
+
+    private Path location;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+
+        location = Files.createTempFile("attester-trust-store", ".jks");
+        replaceWith(location, "trust-store.jks");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+
+        Files.deleteIfExists(location);
+    }
+
+    @Test
+    public void testReadsTrustedCertificates() {
+
+        AttesterTrustStore trustStore = new AttesterTrustStore(location.toString(), "JKS", PASSWORD, 0);
+
+        assertEquals(trustStore.refresh(), 0);
+        assertEquals(subjects(trustStore.getTrustAnchors()), "CN=Test Attester CA");
+    }
+
+    @Test
+    public void testReadsChangedTrustStoreAgain() throws IOException {
+
+        AttesterTrustStore trustStore = new AttesterTrustStore(location.toString(), "JKS", PASSWORD, 0);
+        assertEquals(trustStore.refresh(), 0);
+        assertEquals(trustStore.refresh(), 0);
+
+        replaceWith(location, "other-trust-store.jks");
+
+        assertEquals(trustStore.refresh(), 1);
+        assertEquals(trustStore.getGeneration(), 1);
+        assertEquals(subjects(trustStore.getTrustAnchors()), "CN=Other Attester CA");
+    }
+
+    @Test
+    public void testKeepsTrustStoreUntilCheckIntervalHasPassed() throws IOException {
+
+        AttesterTrustStore trustStore = new AttesterTrustStore(location.toString(), "JKS", PASSWORD,
+                TimeUnit.HOURS.toNanos(1));
+        assertEquals(trustStore.refresh(), 0);
+
+        replaceWith(location, "other-trust-store.jks");
+
+        assertEquals(trustStore.refresh(), 0);
+        assertEquals(subjects(trustStore.getTrustAnchors()), "CN=Test Attester CA");
+    }
+
+    @Test
+    public void testTrustsNoCertificateOfMissingOrUnreadableTrustStore() throws IOException {
+
+        assertTrue(new AttesterTrustStore(null, "JKS", PASSWORD, 0).getTrustAnchors().isEmpty());
+        assertTrue(new AttesterTrustStore(location.toString(), "JKS", "wrong-password", 0).getTrustAnchors()
+                .isEmpty());
+
+        Files.delete(location);
+        assertTrue(new AttesterTrustStore(location.toString(), "JKS", PASSWORD, 0).getTrustAnchors().isEmpty());
+    }
+
+    /**
+     * Overwrite a trust store file with a test trust store, moving its modification time forward so that the change
+     * is seen even on file systems with a coarse modification time.
+     */
+    static void replaceWith(Path location, String resource) throws IOException {
+
+        long lastModified = location.toFile().lastModified();
+        try (InputStream inputStream = AttesterTrustStoreTest.class.getResourceAsStream("/attestation/" + resource)) {
+            Files.copy(inputStream, location, StandardCopyOption.REPLACE_EXISTING);
+        }
+        assertTrue(location.toFile().setLastModified(lastModified + TimeUnit.SECONDS.toMillis(10)));
+    }
+
+    private static String subjects(Set<TrustAnchor> anchors) {
+
+        assertEquals(anchors.size(), 1);
+        return anchors.iterator().next().getTrustedCert().getSubjectX500Principal().getName();
+    }
+}
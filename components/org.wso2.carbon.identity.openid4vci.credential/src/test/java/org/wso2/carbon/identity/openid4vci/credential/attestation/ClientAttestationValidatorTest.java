@@ -0,0 +1,199 @@
+package org.wso2.carbon.identity.openid4vci.credential.attestation;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the trust store handling and proof of possession issuer check of the client attestation validator. An
+ * attestation that is accepted lets validation go on to its proof of possession, so a rejected proof tells that the
+ * attestation itself was trusted.
+ */
+public class ClientAttestationValidatorTest {
+
+    private static final String PASSWORD = "changeit";
+    private static final String TENANT = "wso2.com";
+    private static final String CLIENT_ID = "wallet-instance-1";
+    private static final String ATTESTER = "https://attester.example.com";
+    private static final long ONE_MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private ECPrivateKey attesterKey;
+    private Base64 attesterCertificate;
+    private KeyPair instanceKeyPair;
+    private Path location;
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyStore attesterStore = KeyStore.getInstance("JKS");
+        try (InputStream inputStream = getClass().getResourceAsStream("/attestation/attester.jks")) {
+            attesterStore.load(inputStream, PASSWORD.toCharArray());
+        }
+        attesterKey = (ECPrivateKey) attesterStore.getKey("attester", PASSWORD.toCharArray());
+        attesterCertificate = Base64.encode(attesterStore.getCertificate("attester").getEncoded());
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        instanceKeyPair = generator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+
+        location = Files.createTempFile("attester-trust-store", ".jks");
+        AttesterTrustStoreTest.replaceWith(location, "trust-store.jks");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+
+        Files.deleteIfExists(location);
+    }
+
+    @Test
+    public void testRejectsProofWithoutIssuerOrOfOtherClient() throws Exception {
+
+        ClientAttestationValidator validator = newValidator(0);
+        String attestation = attestation();
+
+        assertProofRejected(validator, attestation, proof(null));
+        assertProofRejected(validator, attestation, proof("wallet-instance-2"));
+    }
+
+    @Test
+    public void testRemembersFailedChainValidation() throws Exception {
+
+        AttesterTrustStoreTest.replaceWith(location, "other-trust-store.jks");
+        ClientAttestationValidator validator = newValidator(TimeUnit.HOURS.toNanos(1));
+        String attestation = attestation();
+
+        assertAttestationRejected(validator, attestation, proof(CLIENT_ID));
+        assertEquals(validator.getFailedChainCount(), 1);
+        assertAttestationRejected(validator, attestation(), proof(CLIENT_ID));
+        assertEquals(validator.getFailedChainCount(), 1);
+    }
+
+    @Test
+    public void testReadsChangedTrustStoreAgainAndDropsCaches() throws Exception {
+
+        ClientAttestationValidator validator = newValidator(0);
+        String attestation = attestation();
+        assertProofRejected(validator, attestation, proof(null));
+
+        AttesterTrustStoreTest.replaceWith(location, "other-trust-store.jks");
+        assertAttestationRejected(validator, attestation, proof(null));
+        assertEquals(validator.getFailedChainCount(), 1);
+
+        AttesterTrustStoreTest.replaceWith(location, "trust-store.jks");
+        assertProofRejected(validator, attestation, proof(null));
+        assertEquals(validator.getFailedChainCount(), 0);
+    }
+
+    @Test
+    public void testKeepsTrustedAttestationUntilCheckIntervalHasPassed() throws Exception {
+
+        ClientAttestationValidator validator = newValidator(TimeUnit.HOURS.toNanos(1));
+        String attestation = attestation();
+        assertProofRejected(validator, attestation, proof(null));
+
+        AttesterTrustStoreTest.replaceWith(location, "other-trust-store.jks");
+
+        assertProofRejected(validator, attestation, proof(null));
+    }
+
+    private ClientAttestationValidator newValidator(long checkIntervalNanos) {
+
+        return new ClientAttestationValidator(true,
+                new AttesterTrustStore(location.toString(), "JKS", PASSWORD, checkIntervalNanos), ONE_MINUTE_MILLIS,
+                ONE_MINUTE_MILLIS, TimeUnit.HOURS.toMillis(1), 100, 64 * 1000);
+    }
+
+    private static void assertProofRejected(ClientAttestationValidator validator, String attestation, String proof) {
+
+        assertRejected(validator, attestation, proof, CredentialIssuanceClientErrors.INVALID_CLIENT_ATTESTATION_POP);
+    }
+
+    private static void assertAttestationRejected(ClientAttestationValidator validator, String attestation,
+                                                  String proof) {
+
+        assertRejected(validator, attestation, proof, CredentialIssuanceClientErrors.INVALID_CLIENT_ATTESTATION);
+    }
+
+    private static void assertRejected(ClientAttestationValidator validator, String attestation, String proof,
+                                       CredentialIssuanceException expected) {
+
+        try {
+            validator.verify(attestation, proof, TENANT);
+            fail("Expected the request to be rejected");
+        } catch (CredentialIssuanceException e) {
+            assertSame(e, expected);
+        }
+    }
+
+    private String attestation() throws Exception {
+
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256)
+                .type(new JOSEObjectType("oauth-client-attestation+jwt"))
+                .x509CertChain(Collections.singletonList(attesterCertificate))
+                .build();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ATTESTER)
+                .subject(CLIENT_ID)
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .claim("cnf", Collections.singletonMap("jwk",
+                        new ECKey.Builder(Curve.P_256, (ECPublicKey) instanceKeyPair.getPublic()).build()
+                                .toJSONObject()))
+                .build();
+        SignedJWT attestation = new SignedJWT(header, claims);
+        attestation.sign(new ECDSASigner(attesterKey));
+        return attestation.serialize();
+    }
+
+    private String proof(String issuer) throws Exception {
+
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256)
+                .type(new JOSEObjectType("oauth-client-attestation-pop+jwt"))
+                .build();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .audience("https://localhost:9443/t/wso2.com/oid4vci")
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(new Date())
+                .build();
+        SignedJWT proof = new SignedJWT(header, claims);
+        proof.sign(new ECDSASigner((ECPrivateKey) instanceKeyPair.getPrivate()));
+        return proof.serialize();
+    }
+}
@@ -0,0 +1,222 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreClientException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the bulkhead, circuit breaker and stale claim fallback of the claim retrieval guard.
+ */
+public class ClaimRetrievalGuardTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String USER_STORE = "PRIMARY";
+    private static final int MAX_CONCURRENCY = 2;
+    private static final long TIMEOUT_MILLIS = 200;
+    private static final long OPEN_DURATION_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // The breaker needs this many calls before it may open.
+    private static final int MINIMUM_CALLS = 10;
+    private static final Map<String, String> CLAIMS = Collections.singletonMap("email", "alice@wso2.com");
+
+    private ClaimRetrievalGuard guard;
+
+    @BeforeMethod
+    public void setUp() {
+
+        guard = new ClaimRetrievalGuard(MAX_CONCURRENCY, TIMEOUT_MILLIS, TimeUnit.MINUTES.toMillis(5), 100, 50,
+                OPEN_DURATION_MILLIS);
+    }
+
+    @Test
+    public void testOpensBreakerOnUserStoreFailures() throws Exception {
+
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            try {
+                guard.retrieve(TENANT, USER_STORE, "alice", () -> {
+                    calls.incrementAndGet();
+                    throw new UserStoreException("Connection refused");
+                });
+                fail("Expected the user store failure");
+            } catch (UserStoreException e) {
+                // Expected.
+            }
+        }
+
+        try {
+            guard.retrieve(TENANT, USER_STORE, "alice", () -> {
+                calls.incrementAndGet();
+                return CLAIMS;
+            });
+            fail("Expected the open breaker to fail fast");
+        } catch (CredentialIssuanceException e) {
+            assertTrue(e.getMessage().contains("circuit breaker is open"));
+        }
+        assertEquals(calls.get(), MINIMUM_CALLS);
+        assertEquals(guard.getShortCircuits(), 1);
+    }
+
+    @Test
+    public void testDoesNotCountClientErrorsTowardsBreaker() throws Exception {
+
+        for (int i = 0; i < MINIMUM_CALLS * 2; i++) {
+            try {
+                guard.retrieve(TENANT, USER_STORE, "unknown", () -> {
+                    throw new UserStoreClientException("User unknown does not exist");
+                });
+                fail("Expected the user store client error");
+            } catch (UserStoreClientException e) {
+                // Expected.
+            }
+        }
+
+        assertEquals(guard.retrieve(TENANT, USER_STORE, "alice", () -> CLAIMS), CLAIMS);
+        assertEquals(guard.getShortCircuits(), 0);
+    }
+
+    @Test
+    public void testRejectsCallsBeyondBulkheadAndReleasesPermits() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(MAX_CONCURRENCY);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(MAX_CONCURRENCY);
+        try {
+            Future<?>[] blocked = new Future<?>[MAX_CONCURRENCY];
+            ClaimRetrievalGuard slowGuard = new ClaimRetrievalGuard(MAX_CONCURRENCY, TimeUnit.SECONDS.toMillis(10),
+                    TimeUnit.MINUTES.toMillis(5), 100, 50, OPEN_DURATION_MILLIS);
+            for (int i = 0; i < MAX_CONCURRENCY; i++) {
+                blocked[i] = callers.submit(() -> slowGuard.retrieve(TENANT, USER_STORE, "alice", () -> {
+                    started.countDown();
+                    awaitUninterruptibly(release);
+                    return CLAIMS;
+                }));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            try {
+                slowGuard.retrieve(TENANT, USER_STORE, "bob", () -> CLAIMS);
+                fail("Expected the full bulkhead to reject the call");
+            } catch (CredentialIssuanceException e) {
+                assertTrue(e.getMessage().contains("concurrency limit"));
+            }
+            // Other user store domains have bulkheads of their own.
+            assertEquals(slowGuard.retrieve(TENANT, "SECONDARY", "bob", () -> CLAIMS), CLAIMS);
+            assertEquals(slowGuard.getRejections(), 1);
+
+            release.countDown();
+            for (Future<?> call : blocked) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(slowGuard.retrieve(TENANT, USER_STORE, "bob", () -> CLAIMS), CLAIMS);
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReleasesPermitOfTimedOutCallOnceItReturns() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(MAX_CONCURRENCY);
+        for (int i = 0; i < MAX_CONCURRENCY; i++) {
+            try {
+                guard.retrieve(TENANT, USER_STORE, "alice", () -> {
+                    try {
+                        awaitUninterruptibly(release);
+                        return CLAIMS;
+                    } finally {
+                        returned.countDown();
+                    }
+                });
+                fail("Expected the call to time out");
+            } catch (CredentialIssuanceException e) {
+                assertTrue(e.getMessage().contains("did not complete"));
+            }
+        }
+        assertEquals(guard.getTimeouts(), MAX_CONCURRENCY);
+
+        // The hung calls still hold their permits.
+        try {
+            guard.retrieve(TENANT, USER_STORE, "alice", () -> CLAIMS);
+            fail("Expected the hung calls to fill the bulkhead");
+        } catch (CredentialIssuanceException e) {
+            assertTrue(e.getMessage().contains("concurrency limit"));
+        }
+
+        release.countDown();
+        assertTrue(returned.await(10, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                assertEquals(guard.retrieve(TENANT, USER_STORE, "alice", () -> CLAIMS), CLAIMS);
+                break;
+            } catch (CredentialIssuanceException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    @Test
+    public void testServesStaleClaimsOnlyToSameTenant() throws Exception {
+
+        guard.retrieve(TENANT, USER_STORE, "alice", () -> CLAIMS);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertEquals(guard.retrieve(TENANT, USER_STORE, "alice", () -> {
+                awaitUninterruptibly(release);
+                return Collections.emptyMap();
+            }), CLAIMS);
+            assertEquals(guard.getStaleResponses(), 1);
+
+            try {
+                guard.retrieve("example.com", USER_STORE, "alice", () -> {
+                    awaitUninterruptibly(release);
+                    return Collections.emptyMap();
+                });
+                fail("Expected no stale claims of another tenant");
+            } catch (CredentialIssuanceException e) {
+                assertTrue(e.getMessage().contains("did not complete"));
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    latch.await();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.wso2.carbon.identity.openid4vci.credential.claims;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests opening, probing and closing the circuit breaker of a user store.
+ */
+public class UserStoreCircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 20;
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+
+        UserStoreCircuitBreaker breaker = new UserStoreCircuitBreaker(10, 4, 50, OPEN_MILLIS, OPEN_MILLIS * 4);
+
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.CLOSED);
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testOpensAtFailureRate() {
+
+        UserStoreCircuitBreaker breaker = new UserStoreCircuitBreaker(10, 4, 50, OPEN_MILLIS, OPEN_MILLIS * 4);
+
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.CLOSED);
+        breaker.onFailure();
+
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.OPEN);
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testLetsSingleProbeThroughAndClosesOnSuccess() throws InterruptedException {
+
+        UserStoreCircuitBreaker breaker = open(new UserStoreCircuitBreaker(4, 4, 50, OPEN_MILLIS, OPEN_MILLIS * 4));
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.HALF_OPEN);
+        assertFalse(breaker.allowRequest(), "Only one probe may be in flight");
+
+        breaker.onSuccess();
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.CLOSED);
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testReopensOnFailedProbe() throws InterruptedException {
+
+        UserStoreCircuitBreaker breaker = open(new UserStoreCircuitBreaker(4, 4, 50, OPEN_MILLIS, OPEN_MILLIS * 4));
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.OPEN);
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testReleasesProbeOfRejectedCall() throws InterruptedException {
+
+        UserStoreCircuitBreaker breaker = open(new UserStoreCircuitBreaker(4, 4, 50, OPEN_MILLIS, OPEN_MILLIS * 4));
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        assertTrue(breaker.allowRequest());
+        breaker.onRejected();
+
+        assertTrue(breaker.allowRequest());
+    }
+
+    private static UserStoreCircuitBreaker open(UserStoreCircuitBreaker breaker) {
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(breaker.getState(), UserStoreCircuitBreaker.State.OPEN);
+        return breaker;
+    }
+}
@@ -0,0 +1,189 @@
+package org.wso2.carbon.identity.openid4vci.credential.dpop;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the request binding, acceptance window, access token binding and replay detection of DPoP proofs.
+ */
+public class DPoPProofValidatorTest {
+
+    private static final long PROOF_LIFETIME_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final String ACCESS_TOKEN = "access-token";
+    private static final String CREDENTIAL_ENDPOINT = "https://issuer.example.com/oid4vci/credential";
+    private static final List<String> TARGET_URIS = Collections.singletonList(CREDENTIAL_ENDPOINT);
+
+    private KeyPair keyPair;
+    private KeyPair otherKeyPair;
+    private DPoPProofValidator validator;
+
+    @BeforeClass
+    public void setUpKeys() throws Exception {
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        otherKeyPair = generator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        validator = new DPoPProofValidator(PROOF_LIFETIME_MILLIS, 64 * 1000, 100, 100);
+    }
+
+    @Test
+    public void testAcceptsHtuDifferingOnlyInCaseDefaultPortQueryAndFragment() throws Exception {
+
+        for (String htu : new String[]{"HTTPS://Issuer.Example.COM/oid4vci/credential",
+                "https://issuer.example.com:443/oid4vci/credential",
+                "https://issuer.example.com/oid4vci/credential?a=b",
+                "https://issuer.example.com/oid4vci/credential#fragment"}) {
+            assertNotNull(validate(proof(keyPair, "POST", htu, new Date(), hash(ACCESS_TOKEN))));
+        }
+    }
+
+    @Test
+    public void testRejectsHtuOfOtherPathPortOrMethod() throws Exception {
+
+        assertInvalid(proof(keyPair, "POST", "https://issuer.example.com/oid4vci/token", new Date(),
+                hash(ACCESS_TOKEN)));
+        assertInvalid(proof(keyPair, "POST", "https://issuer.example.com:8443/oid4vci/credential", new Date(),
+                hash(ACCESS_TOKEN)));
+        assertInvalid(proof(keyPair, "GET", CREDENTIAL_ENDPOINT, new Date(), hash(ACCESS_TOKEN)));
+    }
+
+    @Test
+    public void testRejectsProofIssuedOutsideAcceptanceWindow() throws Exception {
+
+        long now = System.currentTimeMillis();
+        assertNotNull(validate(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(now - PROOF_LIFETIME_MILLIS / 2),
+                hash(ACCESS_TOKEN))));
+        assertInvalid(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(now - 2 * PROOF_LIFETIME_MILLIS),
+                hash(ACCESS_TOKEN)));
+        assertInvalid(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(now + 2 * PROOF_LIFETIME_MILLIS),
+                hash(ACCESS_TOKEN)));
+    }
+
+    @Test
+    public void testRejectsProofNotBoundToAccessToken() throws Exception {
+
+        assertInvalid(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(), hash("other-token")));
+        assertInvalid(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(), null));
+    }
+
+    @Test
+    public void testRejectsReplayedProofOfSameKey() throws Exception {
+
+        String proof = proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(), hash(ACCESS_TOKEN));
+        validator.register(validate(proof));
+
+        try {
+            validator.register(validate(proof));
+            fail("Expected the replayed proof to be rejected");
+        } catch (CredentialIssuanceException e) {
+            assertSame(e, CredentialIssuanceClientErrors.DPOP_PROOF_REPLAYED);
+        }
+    }
+
+    @Test
+    public void testRefusesKeyAtItsCapWithoutLockingOutOtherKeys() throws Exception {
+
+        validator = new DPoPProofValidator(PROOF_LIFETIME_MILLIS, 64 * 1000, 2, 100);
+        validator.register(validate(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(), hash(ACCESS_TOKEN))));
+        validator.register(validate(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(), hash(ACCESS_TOKEN))));
+
+        try {
+            validator.register(validate(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(),
+                    hash(ACCESS_TOKEN))));
+            fail("Expected the key to be refused at its cap");
+        } catch (CredentialIssuanceException e) {
+            assertSame(e, CredentialIssuanceClientErrors.DPOP_PROOF_REPLAYED);
+        }
+        validator.register(validate(proof(otherKeyPair, "POST", CREDENTIAL_ENDPOINT, new Date(),
+                hash(ACCESS_TOKEN))));
+    }
+
+    @Test
+    public void testRefusesProofsWhenStripeIsFull() throws Exception {
+
+        // One id per stripe, so the stripe of the key is full after its first proof.
+        validator = new DPoPProofValidator(PROOF_LIFETIME_MILLIS, 64, 64, 100);
+        validator.register(validate(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(), hash(ACCESS_TOKEN))));
+
+        try {
+            validator.register(validate(proof(keyPair, "POST", CREDENTIAL_ENDPOINT, new Date(),
+                    hash(ACCESS_TOKEN))));
+            fail("Expected the proof to be refused by the full stripe");
+        } catch (CredentialIssuanceException e) {
+            assertSame(e, CredentialIssuanceClientErrors.DPOP_PROOF_REPLAYED);
+        }
+    }
+
+    private VerifiedDPoPProof validate(String proof) throws CredentialIssuanceException {
+
+        return validator.validate(proof, "POST", TARGET_URIS, ACCESS_TOKEN);
+    }
+
+    private void assertInvalid(String proof) {
+
+        try {
+            validate(proof);
+            fail("Expected the proof to be rejected");
+        } catch (CredentialIssuanceException e) {
+            assertSame(e, CredentialIssuanceClientErrors.INVALID_DPOP_PROOF);
+        }
+    }
+
+    private static String proof(KeyPair signingKey, String htm, String htu, Date issuedAt, String ath)
+            throws Exception {
+
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .type(new JOSEObjectType("dpop+jwt"))
+                .jwk(new RSAKey.Builder((RSAPublicKey) signingKey.getPublic()).build())
+                .build();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(issuedAt)
+                .claim("htm", htm)
+                .claim("htu", htu);
+        if (ath != null) {
+            claims.claim("ath", ath);
+        }
+        SignedJWT proof = new SignedJWT(header, claims.build());
+        proof.sign(new RSASSASigner(signingKey.getPrivate()));
+        return proof.serialize();
+    }
+
+    private static String hash(String accessToken) throws Exception {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256")
+                .digest(accessToken.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,121 @@
+package org.wso2.carbon.identity.openid4vci.credential.pipeline;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceReqDTO;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.internal.CredentialIssuanceDataHolder;
+import org.wso2.carbon.identity.openid4vci.credential.stats.IssuanceStageStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests notifying stage interceptors of stage failures.
+ */
+public class IssuancePipelineTest {
+
+    private final IssuancePipeline pipeline = new IssuancePipeline(IssuanceStageStatistics.getInstance());
+    private RecordingInterceptor interceptor;
+
+    @BeforeMethod
+    public void setUp() {
+
+        interceptor = new RecordingInterceptor();
+        CredentialIssuanceDataHolder.getInstance().addIssuanceStageInterceptor(interceptor);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        CredentialIssuanceDataHolder.getInstance().removeIssuanceStageInterceptor(interceptor);
+    }
+
+    @Test
+    public void testNotifiesFailureOfStageFailingWithIssuanceException() {
+
+        CredentialIssuanceException failure = new CredentialIssuanceException("stage failed");
+        try {
+            pipeline.executeStage(IssuanceStage.SCOPE_VALIDATION, newContext(), context -> {
+                throw failure;
+            });
+            fail("Expected the stage to fail");
+        } catch (CredentialIssuanceException e) {
+            assertSame(e, failure);
+        }
+        assertEquals(interceptor.failures.size(), 1);
+        assertSame(interceptor.failures.get(0), failure);
+    }
+
+    @Test
+    public void testNotifiesFailureOfStageFailingWithRuntimeException() throws CredentialIssuanceException {
+
+        IllegalStateException failure = new IllegalStateException("stage failed");
+        try {
+            pipeline.executeStage(IssuanceStage.CLAIM_RETRIEVAL, newContext(), context -> {
+                throw failure;
+            });
+            fail("Expected the stage to fail");
+        } catch (IllegalStateException e) {
+            assertSame(e, failure);
+        }
+        assertEquals(interceptor.failures.size(), 1);
+        assertSame(interceptor.failures.get(0).getCause(), failure);
+    }
+
+    @Test
+    public void testNotifiesFailureOfAsyncStageFailingWithRuntimeException() throws Exception {
+
+        IllegalStateException failure = new IllegalStateException("signing failed");
+        CompletableFuture<Void> future = pipeline.executeStageAsync(IssuanceStage.CREDENTIAL_SIGNING, newContext(),
+                context -> {
+                    CompletableFuture<Void> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(failure);
+                    return failed;
+                });
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected the stage to fail");
+        } catch (ExecutionException e) {
+            assertSame(e.getCause(), failure);
+        }
+        assertEquals(interceptor.failures.size(), 1);
+        assertSame(interceptor.failures.get(0).getCause(), failure);
+        assertTrue(interceptor.succeeded.isEmpty());
+    }
+
+    private static IssuancePipelineContext newContext() {
+
+        CredentialIssuanceReqDTO request = new CredentialIssuanceReqDTO();
+        request.setTenantDomain("carbon.super");
+        return new IssuancePipelineContext(request);
+    }
+
+    private static final class RecordingInterceptor implements IssuanceStageInterceptor {
+
+        private final List<CredentialIssuanceException> failures = new ArrayList<>();
+        private final List<IssuanceStage> succeeded = new ArrayList<>();
+
+        @Override
+        public void afterStage(IssuanceStage stage, IssuancePipelineContext context, long elapsedNanos) {
+
+            succeeded.add(stage);
+        }
+
+        @Override
+        public void onStageFailure(IssuanceStage stage, IssuancePipelineContext context,
+                                   CredentialIssuanceException exception) {
+
+            failures.add(exception);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.wso2.carbon.identity.openid4vci.credential.ratelimit;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRateLimitedException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests enforcing tenant and credential configuration quotas, and sizing buckets by the leased cluster share.
+ */
+public class IssuanceRateLimiterTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String OTHER_TENANT = "example.com";
+    private static final String CONFIGURATION = "EmployeeBadge";
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void testIsDisabledWithoutQuotas() throws IssuanceRateLimitedException {
+
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter(null, null, null, false, 1, LEASE_MILLIS);
+
+        assertFalse(limiter.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(TENANT, CONFIGURATION);
+        }
+    }
+
+    @Test
+    public void testEnforcesTenantQuotaOverDefault() throws IssuanceRateLimitedException {
+
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter("1:5", TENANT + "=1:2", null, false, 1,
+                LEASE_MILLIS);
+
+        assertAdmitted(limiter, TENANT, null, 2);
+        assertRateLimited(limiter, TENANT, null);
+        assertAdmitted(limiter, OTHER_TENANT, null, 5);
+        assertRateLimited(limiter, OTHER_TENANT, null);
+        assertEquals(limiter.getRejected(), 2);
+    }
+
+    @Test
+    public void testEnforcesConfigurationQuotaWithinTenant() throws IssuanceRateLimitedException {
+
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter("1:10", null,
+                TENANT + "/" + CONFIGURATION + "=1:1", false, 1, LEASE_MILLIS);
+
+        assertAdmitted(limiter, TENANT, CONFIGURATION, 1);
+        assertRateLimited(limiter, TENANT, CONFIGURATION);
+        // Other configurations still draw on the tenant quota.
+        assertAdmitted(limiter, TENANT, "UniversityDegree", 9);
+        assertRateLimited(limiter, TENANT, "UniversityDegree");
+    }
+
+    @Test
+    public void testRefundsConfigurationTokenWhenTenantQuotaRefuses() throws Exception {
+
+        // The tenant quota refills every 20 ms, while the configuration quota does not refill during the test.
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter("50:1", null,
+                TENANT + "/" + CONFIGURATION + "=0.01:1", false, 1, LEASE_MILLIS);
+        assertAdmitted(limiter, TENANT, null, 1);
+        assertRateLimited(limiter, TENANT, CONFIGURATION);
+
+        Thread.sleep(40);
+
+        // The configuration token taken by the refused request was given back.
+        assertAdmitted(limiter, TENANT, CONFIGURATION, 1);
+        assertRateLimited(limiter, TENANT, CONFIGURATION);
+    }
+
+    @Test
+    public void testSplitsClusterWideQuotaByStaticShare() throws IssuanceRateLimitedException {
+
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter("10:10", null, null, true, 2, LEASE_MILLIS);
+
+        assertAdmitted(limiter, TENANT, null, 5);
+        assertRateLimited(limiter, TENANT, null);
+    }
+
+    @Test
+    public void testResizesBucketWhenLeasedShareChanges() throws Exception {
+
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter("10:10", null, null, true, 1, 1);
+        MutableLeaseProvider leaseProvider = new MutableLeaseProvider(0.2);
+        limiter.setLeaseProvider(leaseProvider);
+
+        assertAdmitted(limiter, TENANT, null, 2);
+        assertRateLimited(limiter, TENANT, null);
+
+        leaseProvider.share = 1.0;
+        Thread.sleep(5);
+        assertAdmitted(limiter, TENANT, null, 10);
+        assertRateLimited(limiter, TENANT, null);
+    }
+
+    @Test
+    public void testKeepsBucketWhenLeaseIsRenewedWithSameShare() throws Exception {
+
+        IssuanceRateLimiter limiter = new IssuanceRateLimiter("1:4", null, null, true, 1, 1);
+        limiter.setLeaseProvider(new MutableLeaseProvider(0.5));
+
+        assertAdmitted(limiter, TENANT, null, 2);
+        Thread.sleep(5);
+
+        // Renewing the expired lease must not grant a fresh burst.
+        assertRateLimited(limiter, TENANT, null);
+    }
+
+    private static void assertAdmitted(IssuanceRateLimiter limiter, String tenantDomain, String configurationId,
+                                       int requests) throws IssuanceRateLimitedException {
+
+        for (int i = 0; i < requests; i++) {
+            limiter.acquire(tenantDomain, configurationId);
+        }
+    }
+
+    private static void assertRateLimited(IssuanceRateLimiter limiter, String tenantDomain, String configurationId) {
+
+        try {
+            limiter.acquire(tenantDomain, configurationId);
+            fail("Expected the request to be rate limited");
+        } catch (IssuanceRateLimitedException e) {
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+        }
+    }
+
+    private static final class MutableLeaseProvider implements QuotaLeaseProvider {
+
+        private volatile double share;
+
+        private MutableLeaseProvider(double share) {
+
+            this.share = share;
+        }
+
+        @Override
+        public double getLocalShare(String tenantDomain) {
+
+            return share;
+        }
+    }
+}
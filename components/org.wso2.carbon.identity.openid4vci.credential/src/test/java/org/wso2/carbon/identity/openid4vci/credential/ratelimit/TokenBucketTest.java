@@ -0,0 +1,68 @@
+package org.wso2.carbon.identity.openid4vci.credential.ratelimit;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the burst, refill and refund behaviour of the token bucket.
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void testAdmitsBurstThenRefuses() {
+
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(bucket.tryAcquire(), 0);
+        }
+        long waitNanos = bucket.tryAcquire();
+
+        assertTrue(waitNanos > 0);
+        assertTrue(waitNanos <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testRefillsAtRate() throws InterruptedException {
+
+        // One token every 20 ms.
+        TokenBucket bucket = new TokenBucket(50, 1);
+        assertEquals(bucket.tryAcquire(), 0);
+        assertTrue(bucket.tryAcquire() > 0);
+
+        Thread.sleep(40);
+
+        assertEquals(bucket.tryAcquire(), 0);
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    public void testDoesNotAccumulateBeyondBurstWhileIdle() throws InterruptedException {
+
+        TokenBucket bucket = new TokenBucket(1000, 2);
+
+        Thread.sleep(20);
+
+        assertEquals(bucket.tryAcquire(), 0);
+        assertEquals(bucket.tryAcquire(), 0);
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    public void testRefundGivesTokenBack() {
+
+        TokenBucket bucket = new TokenBucket(1, 2);
+        assertEquals(bucket.tryAcquire(), 0);
+        assertEquals(bucket.tryAcquire(), 0);
+        assertTrue(bucket.tryAcquire() > 0);
+
+        bucket.refund();
+
+        assertEquals(bucket.tryAcquire(), 0);
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+}
@@ -0,0 +1,72 @@
+package org.wso2.carbon.identity.openid4vci.credential.replay;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests replay detection, the per-partition cap and full stripes of the proof replay cache.
+ */
+public class ProofReplayCacheTest {
+
+    private static final long GENERATION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int STRIPES = 64;
+    // Partitions whose top six bits are equal share a stripe.
+    private static final long PARTITION = 0x0100_0000_0000_0001L;
+    private static final long OTHER_PARTITION_IN_STRIPE = 0x0100_0000_0000_0002L;
+
+    @Test
+    public void testRejectsReplayedId() {
+
+        ProofReplayCache cache = new ProofReplayCache(GENERATION_MILLIS, STRIPES * 10);
+
+        assertTrue(cache.register(42));
+        assertFalse(cache.register(42));
+        assertTrue(cache.register(PARTITION, 43));
+        assertFalse(cache.register(PARTITION, 43));
+        assertEquals(cache.getRefusedWhenFull(), 0);
+    }
+
+    @Test
+    public void testRefusesOnlyPartitionAtItsCap() {
+
+        ProofReplayCache cache = new ProofReplayCache(GENERATION_MILLIS, STRIPES * 10, 3);
+        for (long id = 1; id <= 3; id++) {
+            assertTrue(cache.register(PARTITION, id));
+        }
+
+        assertFalse(cache.register(PARTITION, 4));
+        assertTrue(cache.register(OTHER_PARTITION_IN_STRIPE, 5));
+        assertEquals(cache.getRefusedWhenFull(), 1);
+    }
+
+    @Test
+    public void testRefusesEveryPartitionOfFullStripe() {
+
+        ProofReplayCache cache = new ProofReplayCache(GENERATION_MILLIS, STRIPES * 4, 2);
+        assertTrue(cache.register(PARTITION, 1));
+        assertTrue(cache.register(PARTITION, 2));
+        assertTrue(cache.register(OTHER_PARTITION_IN_STRIPE, 3));
+        assertTrue(cache.register(OTHER_PARTITION_IN_STRIPE, 4));
+
+        assertFalse(cache.register(0x0100_0000_0000_0003L, 5));
+        assertTrue(cache.register(0x0400_0000_0000_0003L, 6));
+        assertEquals(cache.getRefusedWhenFull(), 1);
+    }
+
+    @Test
+    public void testForgetsIdsAfterTwoGenerations() throws InterruptedException {
+
+        ProofReplayCache cache = new ProofReplayCache(20, STRIPES, 1);
+        assertTrue(cache.register(PARTITION, 1));
+        assertFalse(cache.register(PARTITION, 2));
+
+        Thread.sleep(50);
+
+        assertTrue(cache.register(PARTITION, 1));
+    }
+}
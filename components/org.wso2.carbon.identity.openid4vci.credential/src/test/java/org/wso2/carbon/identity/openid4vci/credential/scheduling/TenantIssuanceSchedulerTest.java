@@ -0,0 +1,117 @@
+package org.wso2.carbon.identity.openid4vci.credential.scheduling;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRejectedException;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests admitting issuance requests within the global and per-tenant slot caps.
+ */
+public class TenantIssuanceSchedulerTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String OTHER_TENANT = "example.com";
+    private static final int MAX_CONCURRENCY = 4;
+    private static final int MAX_TENANT_CONCURRENCY = 2;
+    private static final int MAX_QUEUE_DEPTH = 2;
+
+    private TenantIssuanceScheduler scheduler;
+
+    @BeforeMethod
+    public void setUp() {
+
+        scheduler = new TenantIssuanceScheduler(MAX_CONCURRENCY, MAX_TENANT_CONCURRENCY, MAX_QUEUE_DEPTH,
+                TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(10), Collections.emptyMap());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        scheduler.stop();
+    }
+
+    @Test
+    public void testAdmitsOtherTenantWhileTenantAtCapIsQueued() throws Exception {
+
+        for (int i = 0; i < MAX_TENANT_CONCURRENCY; i++) {
+            assertTrue(scheduler.acquire(TENANT).isDone());
+        }
+        CompletableFuture<Void> queued = scheduler.acquire(TENANT);
+        assertFalse(queued.isDone());
+        assertEquals(scheduler.getWaiting(), 1);
+
+        CompletableFuture<Void> other = scheduler.acquire(OTHER_TENANT);
+
+        assertTrue(other.isDone(), "A tenant below its cap must not wait behind a tenant at its cap");
+        assertEquals(scheduler.getRunning(), MAX_TENANT_CONCURRENCY + 1);
+        assertEquals(scheduler.getQueueDepth(TENANT), 1);
+
+        scheduler.release(TENANT);
+        queued.get(10, TimeUnit.SECONDS);
+        assertEquals(scheduler.getWaiting(), 0);
+        assertEquals(scheduler.getRunning(), MAX_TENANT_CONCURRENCY + 1);
+    }
+
+    @Test
+    public void testQueuesWhenAllSlotsAreTaken() throws Exception {
+
+        for (int i = 0; i < MAX_TENANT_CONCURRENCY; i++) {
+            assertTrue(scheduler.acquire(TENANT).isDone());
+            assertTrue(scheduler.acquire(OTHER_TENANT).isDone());
+        }
+        CompletableFuture<Void> queued = scheduler.acquire("third.com");
+        assertFalse(queued.isDone());
+
+        scheduler.release(OTHER_TENANT);
+        queued.get(10, TimeUnit.SECONDS);
+        assertEquals(scheduler.getRunning(), MAX_CONCURRENCY);
+    }
+
+    @Test
+    public void testRejectsRequestsBeyondQueueDepth() throws Exception {
+
+        for (int i = 0; i < MAX_TENANT_CONCURRENCY + MAX_QUEUE_DEPTH; i++) {
+            scheduler.acquire(TENANT);
+        }
+
+        CompletableFuture<Void> rejected = scheduler.acquire(TENANT);
+        try {
+            rejected.get(10, TimeUnit.SECONDS);
+            fail("Expected the request to be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IssuanceRejectedException);
+        }
+        assertEquals(scheduler.getQueueDepth(TENANT), MAX_QUEUE_DEPTH);
+    }
+
+    @Test
+    public void testRejectsRequestThatWaitsTooLong() throws Exception {
+
+        TenantIssuanceScheduler shortTimeout = new TenantIssuanceScheduler(1, 1, MAX_QUEUE_DEPTH, 20,
+                TimeUnit.MINUTES.toMillis(10), Collections.emptyMap());
+        try {
+            assertTrue(shortTimeout.acquire(TENANT).isDone());
+            CompletableFuture<Void> queued = shortTimeout.acquire(OTHER_TENANT);
+            try {
+                queued.get(10, TimeUnit.SECONDS);
+                fail("Expected the request to time out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IssuanceRejectedException);
+            }
+            assertEquals(shortTimeout.getWaiting(), 0);
+        } finally {
+            shortTimeout.stop();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests taking the JWS headers of remotely signed credentials from the metadata of the remote key, and reading that
+ * metadata from a local stand-in signing server.
+ */
+public class RemoteCredentialSignerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final String TENANT = "wso2.com";
+    private static final String THUMBPRINT = "dGh1bWJwcmludA";
+
+    private KeyPair keyPair;
+    private StandInSigningServer server;
+    private RemoteCredentialSigner signer;
+
+    @BeforeClass
+    public void setUpKey() throws GeneralSecurityException {
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        server = StandInSigningServer.start(keyPair);
+        signer = new RemoteCredentialSigner(new SigningRequestBatcher(
+                new HttpRemoteSigningClient(server.getEndpoint(), 2000, 5000), 4, 1000, 64, 2),
+                "issuer-{tenant}", TimeUnit.MINUTES.toNanos(10));
+        signer.invalidate(TENANT);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        signer.invalidate(TENANT);
+        signer.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testDescribesKeyWithCertificateThumbprint() throws Exception {
+
+        server.setCertificateThumbprint(THUMBPRINT);
+
+        RemoteKeyMetadata metadata = new HttpRemoteSigningClient(server.getEndpoint(), 2000, 5000)
+                .describeKey("issuer-" + TENANT);
+
+        assertEquals(metadata.getRemoteKeyId(), "issuer-" + TENANT);
+        assertEquals(metadata.getKeyId(), "issuer-" + TENANT);
+        assertEquals(metadata.getCertificateThumbprint(), THUMBPRINT);
+    }
+
+    @Test
+    public void testDescribesKeyWithoutCertificate() throws Exception {
+
+        RemoteKeyMetadata metadata = new HttpRemoteSigningClient(server.getEndpoint(), 2000, 5000)
+                .describeKey("issuer-" + TENANT);
+
+        assertEquals(metadata.getKeyId(), "issuer-" + TENANT);
+        assertEquals(metadata.getCertificateThumbprint(), null);
+    }
+
+    @Test
+    public void testFailsToDescribeKeyOnHttpError() {
+
+        server.failWith(404);
+        try {
+            new HttpRemoteSigningClient(server.getEndpoint(), 2000, 5000).describeKey("issuer-" + TENANT);
+            fail("Expected the metadata request to fail");
+        } catch (CredentialIssuanceException e) {
+            assertTrue(e.getMessage().contains("404"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTakesHeadersFromRemoteKeyMetadata() throws Exception {
+
+        server.setCertificateThumbprint(THUMBPRINT);
+
+        JsonObject header = header(sign());
+
+        assertEquals(header.get("kid").getAsString(), "issuer-" + TENANT);
+        assertEquals(header.get("x5t").getAsString(), THUMBPRINT);
+    }
+
+    @Test
+    public void testLeavesOutThumbprintOfKeyWithoutCertificate() throws Exception {
+
+        JsonObject header = header(sign());
+
+        assertEquals(header.get("kid").getAsString(), "issuer-" + TENANT);
+        assertFalse(header.has("x5t"));
+    }
+
+    @Test
+    public void testKeepsKeyMetadataUntilInvalidated() throws Exception {
+
+        server.setCertificateThumbprint(THUMBPRINT);
+        sign();
+        server.setCertificateThumbprint("cm90YXRlZA");
+
+        assertEquals(header(sign()).get("x5t").getAsString(), THUMBPRINT);
+
+        signer.invalidate(TENANT);
+
+        assertEquals(header(sign()).get("x5t").getAsString(), "cm90YXRlZA");
+    }
+
+    private String sign() throws InterruptedException, ExecutionException, TimeoutException {
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().issuer("https://localhost/oid4vci").build();
+        return signer.sign(TENANT, JWSAlgorithm.RS256, claimsSet).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static JsonObject header(String jws) {
+
+        String encodedHeader = jws.substring(0, jws.indexOf('.'));
+        return JsonParser.parseString(new String(Base64.getUrlDecoder().decode(encodedHeader),
+                StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+}
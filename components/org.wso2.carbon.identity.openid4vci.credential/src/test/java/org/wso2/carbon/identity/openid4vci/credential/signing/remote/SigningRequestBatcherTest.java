@@ -0,0 +1,231 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests batching signing requests against a local stand-in signing server.
+ */
+public class SigningRequestBatcherTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final long LONG_BATCH_DELAY_MICROS = TimeUnit.SECONDS.toMicros(30);
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private KeyPair keyPair;
+    private StandInSigningServer server;
+    private SigningRequestBatcher batcher;
+
+    @BeforeClass
+    public void setUpKey() throws GeneralSecurityException {
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        server = StandInSigningServer.start(keyPair);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        if (batcher != null) {
+            batcher.shutdown();
+            batcher = null;
+        }
+        server.close();
+    }
+
+    @Test
+    public void testClosesBatchWhenFull() throws Exception {
+
+        // The batch window outlasts the test, so only the batch size can close the batch.
+        batcher = newBatcher(4, LONG_BATCH_DELAY_MICROS);
+        List<RemoteSigningRequest> requests = newRequests(4);
+        List<CompletableFuture<byte[]>> futures = submitAll(requests);
+
+        for (int i = 0; i < requests.size(); i++) {
+            assertValidSignature(requests.get(i), futures.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(server.getBatchSizes(), Collections.singletonList(4));
+        assertEquals(batcher.getBatchCount(), 1);
+        assertEquals(batcher.getSignatureCount(), 4);
+    }
+
+    @Test
+    public void testClosesBatchWhenDelayElapses() throws Exception {
+
+        long maxBatchDelayMillis = 200;
+        batcher = newBatcher(32, TimeUnit.MILLISECONDS.toMicros(maxBatchDelayMillis));
+        List<RemoteSigningRequest> requests = newRequests(3);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<byte[]>> futures = submitAll(requests);
+        for (int i = 0; i < requests.size(); i++) {
+            assertValidSignature(requests.get(i), futures.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(server.getBatchSizes(), Collections.singletonList(3));
+        assertTrue(elapsedMillis >= maxBatchDelayMillis, "A batch that is not full must stay open for the "
+                + "batch delay, but it was sent after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testFailsEveryRequestOfBatchRejectedBySigner() throws Exception {
+
+        server.failWith(503);
+        batcher = newBatcher(4, LONG_BATCH_DELAY_MICROS);
+
+        for (CompletableFuture<byte[]> future : submitAll(newRequests(4))) {
+            assertFailedWithIssuanceException(future);
+        }
+        assertEquals(server.getBatchSizes(), Collections.singletonList(4));
+        assertEquals(batcher.getBatchCount(), 0);
+    }
+
+    @Test
+    public void testFailsEveryRequestOfBatchWithMissingSignature() throws Exception {
+
+        server.dropLastSignature();
+        batcher = newBatcher(4, LONG_BATCH_DELAY_MICROS);
+
+        for (CompletableFuture<byte[]> future : submitAll(newRequests(4))) {
+            assertFailedWithIssuanceException(future);
+        }
+        assertEquals(batcher.getSignatureCount(), 0);
+    }
+
+    @Test
+    public void testSendsQueuedRequestsOnShutdown() throws Exception {
+
+        batcher = newBatcher(32, LONG_BATCH_DELAY_MICROS);
+        List<RemoteSigningRequest> requests = newRequests(3);
+        List<CompletableFuture<byte[]>> futures = submitAll(requests);
+        batcher.shutdown();
+
+        for (int i = 0; i < requests.size(); i++) {
+            assertValidSignature(requests.get(i), futures.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(server.getSignatureCount(), 3);
+    }
+
+    @Test
+    public void testRejectsRequestsAfterShutdown() throws Exception {
+
+        batcher = newBatcher(4, LONG_BATCH_DELAY_MICROS);
+        batcher.shutdown();
+
+        CompletableFuture<byte[]> future = batcher.submit(newRequests(1).get(0));
+        assertTrue(future.isCompletedExceptionally());
+        assertFailedWithIssuanceException(future);
+        assertEquals(server.getSignatureCount(), 0);
+    }
+
+    @Test
+    public void testCompletesEveryRequestSubmittedDuringShutdown() throws Exception {
+
+        batcher = newBatcher(8, 1000);
+        List<CompletableFuture<byte[]>> futures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread submitter = new Thread(() -> {
+                for (RemoteSigningRequest request : newRequests(100)) {
+                    futures.add(batcher.submit(request));
+                }
+            }, "signing-request-submitter-" + i);
+            submitters.add(submitter);
+            submitter.start();
+        }
+        TimeUnit.MILLISECONDS.sleep(20);
+        batcher.shutdown();
+        for (Thread submitter : submitters) {
+            submitter.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        }
+
+        int signed = 0;
+        synchronized (futures) {
+            for (CompletableFuture<byte[]> future : futures) {
+                try {
+                    future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    signed++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof CredentialIssuanceException, String.valueOf(e.getCause()));
+                } catch (TimeoutException e) {
+                    fail("A request submitted while the batcher was shutting down was never completed");
+                }
+            }
+        }
+        assertEquals(signed, server.getSignatureCount());
+    }
+
+    private SigningRequestBatcher newBatcher(int maxBatchSize, long maxBatchDelayMicros) {
+
+        return new SigningRequestBatcher(new HttpRemoteSigningClient(server.getEndpoint(), 2000, 5000),
+                maxBatchSize, maxBatchDelayMicros, 1024, 2);
+    }
+
+    private List<RemoteSigningRequest> newRequests(int count) {
+
+        List<RemoteSigningRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String signingInput = "eyJhbGciOiJSUzI1NiJ9.request-" + requestCount.incrementAndGet();
+            requests.add(new RemoteSigningRequest("test-kid", "RS256",
+                    signingInput.getBytes(StandardCharsets.US_ASCII)));
+        }
+        return requests;
+    }
+
+    private List<CompletableFuture<byte[]>> submitAll(List<RemoteSigningRequest> requests) {
+
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>(requests.size());
+        for (RemoteSigningRequest request : requests) {
+            futures.add(batcher.submit(request));
+        }
+        return futures;
+    }
+
+    private void assertValidSignature(RemoteSigningRequest request, byte[] signature)
+            throws GeneralSecurityException {
+
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(request.getSigningInput());
+        assertTrue(verifier.verify(signature), "Signature does not match the signing input of its request");
+    }
+
+    private static void assertFailedWithIssuanceException(CompletableFuture<byte[]> future) throws Exception {
+
+        try {
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Expected the signing request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CredentialIssuanceException, String.valueOf(e.getCause()));
+        }
+    }
+}
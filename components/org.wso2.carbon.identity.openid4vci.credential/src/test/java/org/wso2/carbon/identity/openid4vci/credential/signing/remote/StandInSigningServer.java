@@ -0,0 +1,229 @@
+package org.wso2.carbon.identity.openid4vci.credential.signing.remote;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for a remote signer such as an HSM or a KMS. It speaks the batch protocol of
+ * {@link HttpRemoteSigningClient}, signs every request with a local RS256 key and records the size of every batch it
+ * receives. Key metadata requests are answered with the requested key name as the key id. It can add a fixed delay
+ * per batch to model the network round trip of a real signer, and can be told to fail requests, either with an HTTP
+ * error or by returning one signature too few.
+ * <p>
+ * Shipped in the test jar of this module so that the benchmarks drive the same server as the tests.
+ */
+public final class StandInSigningServer implements AutoCloseable {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final KeyPair keyPair;
+    private final long roundTripMicros;
+    private final Queue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder signatures = new LongAdder();
+    private volatile int failureStatus;
+    private volatile boolean dropLastSignature;
+    private volatile String certificateThumbprint;
+
+    private StandInSigningServer(KeyPair keyPair, long roundTripMicros) throws IOException {
+
+        this.keyPair = keyPair;
+        this.roundTripMicros = roundTripMicros;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-signer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/sign", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * Start a signing server on an ephemeral loopback port that answers without delay.
+     *
+     * @param keyPair RSA key pair used for every key id
+     * @return the started server
+     * @throws IOException if the server cannot be bound
+     */
+    public static StandInSigningServer start(KeyPair keyPair) throws IOException {
+
+        return start(keyPair, 0);
+    }
+
+    /**
+     * Start a signing server on an ephemeral loopback port.
+     *
+     * @param keyPair         RSA key pair used for every key id
+     * @param roundTripMicros delay added to every batch, in microseconds
+     * @return the started server
+     * @throws IOException if the server cannot be bound
+     */
+    public static StandInSigningServer start(KeyPair keyPair, long roundTripMicros) throws IOException {
+
+        return new StandInSigningServer(keyPair, roundTripMicros);
+    }
+
+    public URL getEndpoint() {
+
+        try {
+            return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/sign");
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the sizes of the batches received so far, in the order they were received.
+     *
+     * @return batch sizes
+     */
+    public List<Integer> getBatchSizes() {
+
+        return new ArrayList<>(batchSizes);
+    }
+
+    public long getBatchCount() {
+
+        return batches.sum();
+    }
+
+    public long getSignatureCount() {
+
+        return signatures.sum();
+    }
+
+    /**
+     * Respond to every following batch with an HTTP error.
+     *
+     * @param status HTTP status to respond with
+     */
+    public void failWith(int status) {
+
+        this.failureStatus = status;
+    }
+
+    /**
+     * Leave the last signature out of every following response.
+     */
+    public void dropLastSignature() {
+
+        this.dropLastSignature = true;
+    }
+
+    /**
+     * Publish a certificate thumbprint in the metadata of every key.
+     *
+     * @param certificateThumbprint base64url encoded certificate thumbprint
+     */
+    public void setCertificateThumbprint(String certificateThumbprint) {
+
+        this.certificateThumbprint = certificateThumbprint;
+    }
+
+    @Override
+    public void close() {
+
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        if ("GET".equals(exchange.getRequestMethod())) {
+            describeKey(exchange);
+            return;
+        }
+        byte[] response;
+        int status;
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonArray requests = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("requests");
+            batchSizes.add(requests.size());
+            batches.increment();
+            signatures.add(requests.size());
+            JsonArray signed = new JsonArray();
+            for (JsonElement request : requests) {
+                byte[] input = DECODER.decode(request.getAsJsonObject().get("input").getAsString());
+                signed.add(ENCODER.encodeToString(sign(input)));
+            }
+            if (dropLastSignature) {
+                signed.remove(signed.size() - 1);
+            }
+            if (roundTripMicros > 0) {
+                TimeUnit.MICROSECONDS.sleep(roundTripMicros);
+            }
+            JsonObject body = new JsonObject();
+            body.add("signatures", signed);
+            response = body.toString().getBytes(StandardCharsets.UTF_8);
+            status = failureStatus != 0 ? failureStatus : 200;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            response = String.valueOf(e).getBytes(StandardCharsets.UTF_8);
+            status = 500;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = new byte[0];
+            status = 503;
+        }
+        respond(exchange, status, response);
+    }
+
+    private void describeKey(HttpExchange exchange) throws IOException {
+
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null || !query.startsWith("kid=")) {
+            respond(exchange, 400, new byte[0]);
+            return;
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("kid", query.substring("kid=".length()));
+        body.addProperty("x5t", certificateThumbprint);
+        respond(exchange, failureStatus != 0 ? failureStatus : 200, body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] response) throws IOException {
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private byte[] sign(byte[] input) throws GeneralSecurityException {
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(input);
+        return signature.sign();
+    }
+}
@@ -0,0 +1,67 @@
+package org.wso2.carbon.identity.openid4vci.credential.token;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests revoking tokens by id, tenant wide revocations and the revocation point at the time the list is created.
+ */
+public class AccessTokenRevocationListTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String OTHER_TENANT = "example.com";
+    private static final long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long STARTED_AT_MILLIS = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10);
+
+    @Test
+    public void testReportsRevokedTokenIdOfTenant() {
+
+        AccessTokenRevocationList list = new AccessTokenRevocationList(RETENTION_MILLIS, 10, STARTED_AT_MILLIS);
+        list.revoke(TENANT, "jti-1");
+
+        assertTrue(list.isRevoked(TENANT, "jti-1"));
+        assertFalse(list.isRevoked(TENANT, "jti-2"));
+        assertFalse(list.isRevoked(OTHER_TENANT, "jti-1"));
+    }
+
+    @Test
+    public void testTreatsTokensIssuedBeforeStartAsRevokedForEveryTenant() {
+
+        AccessTokenRevocationList list = new AccessTokenRevocationList(RETENTION_MILLIS, 10, STARTED_AT_MILLIS);
+
+        assertTrue(list.isIssuedBeforeTenantRevocation(TENANT, STARTED_AT_MILLIS - 1));
+        assertTrue(list.isIssuedBeforeTenantRevocation(OTHER_TENANT, STARTED_AT_MILLIS));
+        assertFalse(list.isIssuedBeforeTenantRevocation(TENANT, STARTED_AT_MILLIS + TimeUnit.MINUTES.toMillis(1)));
+    }
+
+    @Test
+    public void testTreatsTokensIssuedBeforeTenantRevocationAsRevoked() {
+
+        AccessTokenRevocationList list = new AccessTokenRevocationList(RETENTION_MILLIS, 10, STARTED_AT_MILLIS);
+        long now = System.currentTimeMillis();
+        list.revokeAll(TENANT);
+
+        assertTrue(list.isIssuedBeforeTenantRevocation(TENANT, now));
+        assertFalse(list.isIssuedBeforeTenantRevocation(OTHER_TENANT, now));
+        assertFalse(list.isIssuedBeforeTenantRevocation(TENANT, now + TimeUnit.MINUTES.toMillis(1)));
+    }
+
+    @Test
+    public void testFallsBackToTenantRevocationWhenTokenIdsOverflow() {
+
+        AccessTokenRevocationList list = new AccessTokenRevocationList(RETENTION_MILLIS, 2, STARTED_AT_MILLIS);
+        long now = System.currentTimeMillis();
+        list.revoke(TENANT, "jti-1");
+        list.revoke(TENANT, "jti-2");
+        assertFalse(list.isIssuedBeforeTenantRevocation(TENANT, now));
+
+        list.revoke(TENANT, "jti-3");
+
+        assertTrue(list.isIssuedBeforeTenantRevocation(TENANT, now));
+        assertFalse(list.isRevoked(TENANT, "jti-1"));
+    }
+}
@@ -0,0 +1,170 @@
+package org.wso2.carbon.identity.openid4vci.credential.token;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the checks that make the local access token validator reject a token or leave it to the token store. Every
+ * token here fails a check made before its subject is resolved.
+ */
+public class LocalAccessTokenValidatorTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String KEY_ID = "tenant-key";
+    private static final String ISSUER = "https://localhost:9443/t/wso2.com/oauth2/token";
+    private static final String AUDIENCE = "https://localhost:9443/t/wso2.com/oid4vci";
+    private static final long CLOCK_SKEW_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private KeyPair keyPair;
+    private AccessTokenRevocationList revocationList;
+    private LocalAccessTokenValidator validator;
+
+    @BeforeClass
+    public void setUpKey() throws Exception {
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        revocationList = new AccessTokenRevocationList(TimeUnit.HOURS.toMillis(1), 100,
+                System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10));
+        validator = newValidator(true);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        validator.invalidateKey(TENANT);
+    }
+
+    @Test
+    public void testRejectsRevokedToken() throws Exception {
+
+        revocationList.revoke(TENANT, "jti-1");
+
+        assertInvalid(token(new JOSEObjectType("at+jwt"), ISSUER, AUDIENCE, new Date(), hoursFromNow(1)));
+    }
+
+    @Test
+    public void testLeavesTokenIssuedBeforeTenantRevocationToStore() throws Exception {
+
+        Date issuedAt = new Date();
+        revocationList.revokeAll(TENANT);
+
+        assertNull(validator.validate(TENANT, token(new JOSEObjectType("at+jwt"), ISSUER, AUDIENCE, issuedAt,
+                hoursFromNow(1))));
+    }
+
+    @Test
+    public void testLeavesTokenIssuedBeforeNodeStartToStore() throws Exception {
+
+        revocationList = new AccessTokenRevocationList(TimeUnit.HOURS.toMillis(1), 100, System.currentTimeMillis());
+        validator = newValidator(true);
+
+        assertNull(validator.validate(TENANT, token(new JOSEObjectType("at+jwt"), ISSUER, AUDIENCE,
+                hoursFromNow(-1), hoursFromNow(1))));
+    }
+
+    @Test
+    public void testLeavesTokenNotTypedAsAccessTokenToStore() throws Exception {
+
+        assertNull(validator.validate(TENANT, token(JOSEObjectType.JWT, ISSUER, AUDIENCE, new Date(),
+                hoursFromNow(1))));
+    }
+
+    @Test
+    public void testLeavesTokenOfOtherIssuerToStore() throws Exception {
+
+        assertNull(validator.validate(TENANT, token(new JOSEObjectType("at+jwt"), "https://other.example/token",
+                AUDIENCE, new Date(), hoursFromNow(1))));
+    }
+
+    @Test
+    public void testLeavesTokenWithoutAudienceToStore() throws Exception {
+
+        assertNull(validator.validate(TENANT, token(new JOSEObjectType("at+jwt"), ISSUER, null, new Date(),
+                hoursFromNow(1))));
+    }
+
+    @Test
+    public void testRejectsExpiredToken() throws Exception {
+
+        Date expiredAt = new Date(System.currentTimeMillis() - 2 * CLOCK_SKEW_MILLIS);
+
+        assertInvalid(token(new JOSEObjectType("at+jwt"), ISSUER, AUDIENCE, hoursFromNow(-1), expiredAt));
+    }
+
+    @Test
+    public void testLeavesTokensToStoreWithoutClusterTransport() throws Exception {
+
+        validator = newValidator(false);
+        revocationList.revoke(TENANT, "jti-1");
+
+        assertNull(validator.validate(TENANT, token(new JOSEObjectType("at+jwt"), ISSUER, AUDIENCE, new Date(),
+                hoursFromNow(1))));
+    }
+
+    private LocalAccessTokenValidator newValidator(boolean singleNode) {
+
+        LocalAccessTokenValidator created = new LocalAccessTokenValidator(Collections.singleton(TENANT),
+                Collections.singleton(AUDIENCE), CLOCK_SKEW_MILLIS, revocationList, singleNode);
+        created.setVerificationKey(TENANT, KEY_ID, (RSAPublicKey) keyPair.getPublic(), ISSUER);
+        return created;
+    }
+
+    private String token(JOSEObjectType type, String issuer, String audience, Date issuedAt, Date expiresAt)
+            throws Exception {
+
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("user-id")
+                .jwtID("jti-1")
+                .issueTime(issuedAt)
+                .expirationTime(expiresAt);
+        if (audience != null) {
+            claims.audience(audience);
+        }
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).type(type).build(),
+                claims.build());
+        jwt.sign(new RSASSASigner(keyPair.getPrivate()));
+        return jwt.serialize();
+    }
+
+    private void assertInvalid(String token) {
+
+        try {
+            validator.validate(TENANT, token);
+            fail("Expected the token to be rejected");
+        } catch (CredentialIssuanceException e) {
+            // Expected.
+        }
+    }
+
+    private static Date hoursFromNow(int hours) {
+
+        return new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(hours));
+    }
+}
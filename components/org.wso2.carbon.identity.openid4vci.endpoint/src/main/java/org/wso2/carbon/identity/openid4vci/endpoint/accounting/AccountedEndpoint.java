@@ -0,0 +1,23 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.accounting;
+
+/**
+ * Endpoints whose requests are covered by resource accounting.
+ */
+public enum AccountedEndpoint {
+
+    CREDENTIAL("credential"),
+    METADATA("metadata"),
+    OFFER("offer");
+
+    private final String endpointName;
+
+    AccountedEndpoint(String endpointName) {
+
+        this.endpointName = endpointName;
+    }
+
+    public String getEndpointName() {
+
+        return endpointName;
+    }
+}
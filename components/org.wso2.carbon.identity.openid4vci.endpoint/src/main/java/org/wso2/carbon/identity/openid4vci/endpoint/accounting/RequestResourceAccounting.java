@@ -0,0 +1,259 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.accounting;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-request heap allocation and CPU time accounting, aggregated per endpoint, tenant and credential
+ * configuration. Accounting is enabled with the {@code OpenID4VCI.ResourceAccounting.Enable} identity property
+ * and is resolved once at class initialization, so a disabled server pays no per-request cost.
+ */
+public class RequestResourceAccounting implements RequestResourceAccountingMBean {
+
+    private static final Log log = LogFactory.getLog(RequestResourceAccounting.class);
+    private static final Gson GSON = new Gson();
+    private static final String ENABLE_PROPERTY = "OpenID4VCI.ResourceAccounting.Enable";
+    private static final String MBEAN_NAME = "org.wso2.carbon.identity.openid4vci:type=RequestResourceAccounting";
+    private static final boolean ENABLED = Boolean.parseBoolean(IdentityUtil.getProperty(ENABLE_PROPERTY));
+    private static final RequestResourceAccounting instance = new RequestResourceAccounting();
+
+    /**
+     * Configuration key of requests that are not bound to a credential configuration.
+     */
+    public static final String NO_CONFIGURATION = "none";
+
+    /**
+     * Configuration key of requests naming a credential configuration that did not resolve. Requested identifiers
+     * are only used as keys once they resolve, so that clients cannot add keys at will.
+     */
+    public static final String UNKNOWN_CONFIGURATION = "unknown";
+
+    private final Map<AccountedEndpoint, ConcurrentMap<String, ConcurrentMap<String, ResourceCounters>>> counters =
+            new EnumMap<>(AccountedEndpoint.class);
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final ThreadMXBean cpuBean;
+
+    static {
+        if (ENABLED) {
+            instance.registerMBean();
+        }
+    }
+
+    private RequestResourceAccounting() {
+
+        for (AccountedEndpoint endpoint : AccountedEndpoint.values()) {
+            counters.put(endpoint, new ConcurrentHashMap<>());
+        }
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        this.cpuBean = ENABLED && enableCpuTime(threadBean) ? threadBean : null;
+        this.allocationBean = ENABLED ? enableAllocatedMemory(threadBean) : null;
+    }
+
+    public static RequestResourceAccounting getInstance() {
+
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+
+        return ENABLED;
+    }
+
+    /**
+     * Start accounting a request on the current thread.
+     *
+     * @param endpoint     endpoint serving the request
+     * @param tenantDomain tenant domain of the request
+     * @return sample to end when the request completes, or null if accounting is disabled
+     */
+    public static RequestResourceSample begin(AccountedEndpoint endpoint, String tenantDomain) {
+
+        if (!ENABLED) {
+            return null;
+        }
+        return new RequestResourceSample(instance, endpoint, tenantDomain);
+    }
+
+    /**
+     * Serialize the counters of a single tenant as JSON.
+     *
+     * @param tenantDomain tenant domain
+     * @return counters keyed by endpoint and credential configuration
+     */
+    public String toJson(String tenantDomain) {
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<AccountedEndpoint, ConcurrentMap<String, ConcurrentMap<String, ResourceCounters>>> entry
+                : counters.entrySet()) {
+            Map<String, ResourceCounters> tenantCounters = entry.getValue().get(tenantDomain);
+            if (tenantCounters != null) {
+                endpoints.put(entry.getKey().getEndpointName(), describeTenant(tenantCounters));
+            }
+        }
+        return GSON.toJson(endpoints);
+    }
+
+    @Override
+    public String getAccountingAsJson() {
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<AccountedEndpoint, ConcurrentMap<String, ConcurrentMap<String, ResourceCounters>>> entry
+                : counters.entrySet()) {
+            Map<String, Object> tenants = new LinkedHashMap<>();
+            for (Map.Entry<String, ConcurrentMap<String, ResourceCounters>> tenant : entry.getValue().entrySet()) {
+                tenants.put(tenant.getKey(), describeTenant(tenant.getValue()));
+            }
+            endpoints.put(entry.getKey().getEndpointName(), tenants);
+        }
+        return GSON.toJson(endpoints);
+    }
+
+    @Override
+    public String[] getTrackedKeys() {
+
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<AccountedEndpoint, ConcurrentMap<String, ConcurrentMap<String, ResourceCounters>>> entry
+                : counters.entrySet()) {
+            for (Map.Entry<String, ConcurrentMap<String, ResourceCounters>> tenant : entry.getValue().entrySet()) {
+                for (String configurationId : tenant.getValue().keySet()) {
+                    keys.add(entry.getKey().getEndpointName() + "/" + tenant.getKey() + "/" + configurationId);
+                }
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    @Override
+    public long getRequestCount(String endpoint, String tenantDomain, String configurationId) {
+
+        ResourceCounters resourceCounters = findCounters(endpoint, tenantDomain, configurationId);
+        return resourceCounters == null ? 0 : resourceCounters.getRequests();
+    }
+
+    @Override
+    public long getAllocatedBytes(String endpoint, String tenantDomain, String configurationId) {
+
+        ResourceCounters resourceCounters = findCounters(endpoint, tenantDomain, configurationId);
+        return resourceCounters == null ? 0 : resourceCounters.getAllocatedBytes();
+    }
+
+    @Override
+    public long getCpuTimeNanos(String endpoint, String tenantDomain, String configurationId) {
+
+        ResourceCounters resourceCounters = findCounters(endpoint, tenantDomain, configurationId);
+        return resourceCounters == null ? 0 : resourceCounters.getCpuNanos();
+    }
+
+    @Override
+    public void reset() {
+
+        for (ConcurrentMap<String, ConcurrentMap<String, ResourceCounters>> endpointCounters : counters.values()) {
+            endpointCounters.clear();
+        }
+    }
+
+    void record(RequestResourceSample sample) {
+
+        counters.get(sample.getEndpoint())
+                .computeIfAbsent(sample.getTenantDomain(), tenant -> new ConcurrentHashMap<>())
+                .computeIfAbsent(sample.getCredentialConfigurationId(), config -> new ResourceCounters())
+                .add(sample.getAllocatedBytes(), sample.getCpuNanos());
+    }
+
+    long readAllocatedBytes(long threadId) {
+
+        return allocationBean == null ? -1 : allocationBean.getThreadAllocatedBytes(threadId);
+    }
+
+    long readCpuNanos() {
+
+        return cpuBean == null ? -1 : cpuBean.getCurrentThreadCpuTime();
+    }
+
+    private ResourceCounters findCounters(String endpointName, String tenantDomain, String configurationId) {
+
+        for (AccountedEndpoint endpoint : AccountedEndpoint.values()) {
+            if (endpoint.getEndpointName().equals(endpointName)) {
+                Map<String, ResourceCounters> tenantCounters = counters.get(endpoint).get(tenantDomain);
+                return tenantCounters == null ? null : tenantCounters.get(configurationId);
+            }
+        }
+        return null;
+    }
+
+    private void registerMBean() {
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the request resource accounting MBean", e);
+        }
+    }
+
+    private static boolean enableCpuTime(ThreadMXBean threadBean) {
+
+        if (!threadBean.isCurrentThreadCpuTimeSupported()) {
+            log.warn("Thread CPU time is not supported by the JVM. CPU time will not be accounted.");
+            return false;
+        }
+        if (!threadBean.isThreadCpuTimeEnabled()) {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+        return true;
+    }
+
+    private static com.sun.management.ThreadMXBean enableAllocatedMemory(ThreadMXBean threadBean) {
+
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            log.warn("Thread allocation accounting is not supported by the JVM. Allocations will not be accounted.");
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) {
+            log.warn("Thread allocation accounting is not supported by the JVM. Allocations will not be accounted.");
+            return null;
+        }
+        if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return allocationBean;
+    }
+
+    private static Map<String, Object> describeTenant(Map<String, ResourceCounters> tenantCounters) {
+
+        Map<String, Object> configurations = new LinkedHashMap<>();
+        for (Map.Entry<String, ResourceCounters> entry : tenantCounters.entrySet()) {
+            ResourceCounters resourceCounters = entry.getValue();
+            long requests = resourceCounters.getRequests();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", requests);
+            summary.put("allocated_bytes", resourceCounters.getAllocatedBytes());
+            summary.put("cpu_time_ns", resourceCounters.getCpuNanos());
+            summary.put("allocated_bytes_per_request",
+                    requests == 0 ? 0 : resourceCounters.getAllocatedBytes() / requests);
+            summary.put("cpu_time_ns_per_request", requests == 0 ? 0 : resourceCounters.getCpuNanos() / requests);
+            configurations.put(entry.getKey(), summary);
+        }
+        return configurations;
+    }
+}
@@ -0,0 +1,24 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.accounting;
+
+/**
+ * JMX view of the per-request allocation and CPU time counters.
+ */
+public interface RequestResourceAccountingMBean {
+
+    /**
+     * Get the tracked counter keys.
+     *
+     * @return keys in the form {@code endpoint/tenant/configuration}
+     */
+    String[] getTrackedKeys();
+
+    long getRequestCount(String endpoint, String tenantDomain, String configurationId);
+
+    long getAllocatedBytes(String endpoint, String tenantDomain, String configurationId);
+
+    long getCpuTimeNanos(String endpoint, String tenantDomain, String configurationId);
+
+    String getAccountingAsJson();
+
+    void reset();
+}
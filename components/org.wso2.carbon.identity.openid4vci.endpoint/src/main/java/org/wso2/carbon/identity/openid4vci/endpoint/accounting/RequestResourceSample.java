@@ -0,0 +1,108 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.accounting;
+
+/**
+ * Allocation and CPU time readings of a request. A request served asynchronously is accounted in segments: the
+ * segment on the serving thread is suspended when the serving thread returns and a new one is resumed on the thread
+ * that completes the request.
+ */
+public class RequestResourceSample {
+
+    private final RequestResourceAccounting accounting;
+    private final AccountedEndpoint endpoint;
+    private final String tenantDomain;
+    private String credentialConfigurationId = RequestResourceAccounting.NO_CONFIGURATION;
+    private long threadId;
+    private long startAllocatedBytes;
+    private long startCpuNanos;
+    private boolean running;
+    private long allocatedBytes;
+    private long cpuNanos;
+
+    RequestResourceSample(RequestResourceAccounting accounting, AccountedEndpoint endpoint, String tenantDomain) {
+
+        this.accounting = accounting;
+        this.endpoint = endpoint;
+        this.tenantDomain = tenantDomain;
+        resume();
+    }
+
+    /**
+     * Attribute the request to a credential configuration once it is known.
+     *
+     * @param credentialConfigurationId credential configuration identifier
+     */
+    public synchronized void setCredentialConfigurationId(String credentialConfigurationId) {
+
+        if (credentialConfigurationId != null) {
+            this.credentialConfigurationId = credentialConfigurationId;
+        }
+    }
+
+    /**
+     * Take the readings of the current segment and stop accounting until the sample is resumed. Must be called on
+     * the thread that started the segment.
+     */
+    public synchronized void suspend() {
+
+        if (!running) {
+            return;
+        }
+        running = false;
+        allocatedBytes = add(allocatedBytes, startAllocatedBytes, accounting.readAllocatedBytes(threadId));
+        cpuNanos = add(cpuNanos, startCpuNanos, accounting.readCpuNanos());
+    }
+
+    /**
+     * Start a new segment on the current thread.
+     */
+    public synchronized void resume() {
+
+        if (running) {
+            return;
+        }
+        running = true;
+        threadId = Thread.currentThread().getId();
+        startAllocatedBytes = accounting.readAllocatedBytes(threadId);
+        startCpuNanos = accounting.readCpuNanos();
+    }
+
+    /**
+     * End the current segment and add the readings of all segments to the aggregated counters. Must be called on
+     * the thread that started the current segment.
+     */
+    public synchronized void end() {
+
+        suspend();
+        accounting.record(this);
+    }
+
+    AccountedEndpoint getEndpoint() {
+
+        return endpoint;
+    }
+
+    String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    String getCredentialConfigurationId() {
+
+        return credentialConfigurationId;
+    }
+
+    long getAllocatedBytes() {
+
+        return allocatedBytes;
+    }
+
+    long getCpuNanos() {
+
+        return cpuNanos;
+    }
+
+    private static long add(long total, long start, long end) {
+
+        return total < 0 || start < 0 || end < 0 ? -1 : total + end - start;
+    }
+}
@@ -0,0 +1,39 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.accounting;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative request, allocation and CPU time counters of one endpoint, tenant and credential configuration.
+ */
+public class ResourceCounters {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    void add(long requestAllocatedBytes, long requestCpuNanos) {
+
+        requests.increment();
+        if (requestAllocatedBytes > 0) {
+            allocatedBytes.add(requestAllocatedBytes);
+        }
+        if (requestCpuNanos > 0) {
+            cpuNanos.add(requestCpuNanos);
+        }
+    }
+
+    public long getRequests() {
+
+        return requests.sum();
+    }
+
+    public long getAllocatedBytes() {
+
+        return allocatedBytes.sum();
+    }
+
+    public long getCpuNanos() {
+
+        return cpuNanos.sum();
+    }
+}
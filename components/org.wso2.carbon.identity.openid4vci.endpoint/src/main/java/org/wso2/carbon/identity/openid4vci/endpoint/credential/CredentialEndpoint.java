@@ -1,21 +1,34 @@
 package org.wso2.carbon.identity.openid4vci.endpoint.credential;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.base.MultitenantConstants;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.CompletableFutures;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
 import org.wso2.carbon.identity.openid4vci.credential.CredentialIssuanceService;
+import org.wso2.carbon.identity.openid4vci.credential.attestation.ClientAttestationValidator;
+import org.wso2.carbon.identity.openid4vci.credential.attestation.VerifiedClientAttestation;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.DPoPProofValidator;
+import org.wso2.carbon.identity.openid4vci.credential.dpop.VerifiedDPoPProof;
 import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceReqDTO;
 import org.wso2.carbon.identity.openid4vci.credential.dto.CredentialIssuanceRespDTO;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceClientErrors;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceErrorCode;
 import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRateLimitedException;
+import org.wso2.carbon.identity.openid4vci.credential.exception.IssuanceRejectedException;
+import org.wso2.carbon.identity.openid4vci.credential.model.CredentialIssuanceRequest;
 import org.wso2.carbon.identity.openid4vci.credential.response.CredentialIssuanceResponse;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.AccountedEndpoint;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceAccounting;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceSample;
 import org.wso2.carbon.identity.openid4vci.endpoint.credential.error.CredentialErrorResponse;
 import org.wso2.carbon.identity.openid4vci.endpoint.credential.factories.CredentialIssuanceServiceFactory;
-
+import org.wso2.carbon.identity.openid4vci.endpoint.credential.request.CredentialRequestParseException;
+import org.wso2.carbon.identity.openid4vci.endpoint.credential.request.CredentialRequestParser;
+import org.wso2.carbon.identity.openid4vci.endpoint.util.EndpointUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -23,10 +36,18 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Rest implementation of OID4VCI credential endpoint.
@@ -36,174 +57,345 @@ import javax.ws.rs.core.Response;
 public class CredentialEndpoint {
 
     private static final Log log = LogFactory.getLog(CredentialEndpoint.class);
-    public static final String TENANT_NAME_FROM_CONTEXT = "TenantNameFromContext";
+    private static final String BEARER_SCHEME_PREFIX = "Bearer ";
+    private static final String DPOP_SCHEME_PREFIX = "DPoP ";
+    private static final String DPOP_HEADER = "DPoP";
+    private static final String RESPONSE_TIMEOUT_PROPERTY = "OpenID4VCI.CredentialRequest.ResponseTimeout";
+    private static final long DEFAULT_RESPONSE_TIMEOUT_MILLIS = 30000;
+    private static final long RESPONSE_TIMEOUT_MILLIS = Util.readPositiveLong(RESPONSE_TIMEOUT_PROPERTY,
+            DEFAULT_RESPONSE_TIMEOUT_MILLIS);
+    private static final String DPOP_PROOF_CHALLENGE = "DPoP error=\"" + CredentialErrorResponse.INVALID_DPOP_PROOF
+            + "\", algs=\"RS256 PS256 ES256\"";
+    private static final byte[] MISSING_AUTHORIZATION_ERROR = prebuiltError(CredentialErrorResponse.INVALID_TOKEN,
+            "Missing or invalid Authorization header");
+    private static final byte[] INVALID_JSON_ERROR = prebuiltError(
+            CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST, "Invalid JSON format");
+    private static final byte[] BODY_TOO_LARGE_ERROR = prebuiltError(
+            CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST, "Request body exceeds the maximum size");
+    private static final byte[] MISSING_CONFIGURATION_ID_ERROR = prebuiltError(
+            CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST, "Missing required field: credential_configuration_id");
+    private static final byte[] SERVICE_UNAVAILABLE_ERROR = prebuiltError(
+            CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED, "Credential issuance service is unavailable");
+    private static final byte[] PROCESSING_ERROR = prebuiltError(CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED,
+            "Error processing credential request");
+    private static final byte[] TIMEOUT_ERROR = prebuiltError(CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED,
+            "Credential request did not complete in time");
 
     @POST
     @Path("/credential")
     @Consumes("application/json")
     @Produces("application/json")
-    public Response requestCredential(@Context HttpServletRequest request, @Context HttpServletResponse response,
-                                      String payload) {
+    public void requestCredential(@Context HttpServletRequest request, @Context HttpServletResponse response,
+                                  @Suspended AsyncResponse asyncResponse, InputStream body) {
+
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
+        // A request stuck in signing or a user store call is answered instead of holding the connection; the late
+        // completion then finds the response already resumed.
+        asyncResponse.setTimeoutHandler(timedOut -> timedOut.resume(buildTimeoutResponse()));
+        asyncResponse.setTimeout(RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (!RequestResourceAccounting.isEnabled()) {
+            processCredentialRequest(request, body, tenantDomain, null).thenAccept(asyncResponse::resume);
+            return;
+        }
+        RequestResourceSample resourceSample =
+                RequestResourceAccounting.begin(AccountedEndpoint.CREDENTIAL, tenantDomain);
+        CompletableFuture<Response> credentialResponse;
+        try {
+            credentialResponse = processCredentialRequest(request, body, tenantDomain, resourceSample);
+        } finally {
+            resourceSample.suspend();
+        }
+        // Attached only after the serving thread suspended its segment, so the segment resumed here never overlaps it.
+        credentialResponse.thenAccept(completedResponse -> {
+            resourceSample.resume();
+            try {
+                asyncResponse.resume(completedResponse);
+            } finally {
+                resourceSample.end();
+            }
+        });
+    }
+
+    private CompletableFuture<Response> processCredentialRequest(HttpServletRequest request, InputStream body,
+                                                                 String tenantDomain,
+                                                                 RequestResourceSample resourceSample) {
 
         try {
             // Validate Authorization header (Section 8.3.1.1 - Authorization Errors)
             String authHeader = request.getHeader("Authorization");
-            if (StringUtils.isEmpty(authHeader) || !authHeader.startsWith("Bearer ")) {
-                String errorResponse = CredentialErrorResponse.builder()
-                        .error(CredentialErrorResponse.INVALID_TOKEN)
-                        .errorDescription("Missing or invalid Authorization header")
-                        .build()
-                        .toJson();
-                return Response.status(Response.Status.UNAUTHORIZED)
+            boolean dpopScheme = authHeader != null && authHeader.startsWith(DPOP_SCHEME_PREFIX);
+            if (StringUtils.isEmpty(authHeader) || !dpopScheme && !authHeader.startsWith(BEARER_SCHEME_PREFIX)) {
+                return CompletableFuture.completedFuture(Response.status(Response.Status.UNAUTHORIZED)
                         .header("Cache-Control", "no-store")
-                        .entity(errorResponse)
-                        .build();
+                        .entity(MISSING_AUTHORIZATION_ERROR)
+                        .build());
             }
 
-
-
-            // Parse the JSON payload to extract credential_configuration_id
-            JsonObject jsonObject;
+            // Read only the members of the credential request, failing fast on oversized bodies.
+            CredentialIssuanceRequest credentialRequest;
             try {
-                jsonObject = JsonParser.parseString(payload).getAsJsonObject();
-            } catch (JsonSyntaxException e) {
-                log.error("Invalid JSON payload", e);
-                String errorResponse = CredentialErrorResponse.builder()
+                credentialRequest = CredentialRequestParser.getInstance().parse(body, request.getContentLength());
+            } catch (CredentialRequestParseException e) {
+                if (e.isBodyTooLarge()) {
+                    return CompletableFuture.completedFuture(Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                            .header("Cache-Control", "no-store")
+                            .entity(BODY_TOO_LARGE_ERROR)
+                            .build());
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalid credential request payload", e);
+                }
+                byte[] error = e.getCause() != null ? INVALID_JSON_ERROR : CredentialErrorResponse.builder()
                         .error(CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST)
-                        .errorDescription("Invalid JSON format")
+                        .errorDescription(e.getMessage())
                         .build()
-                        .toJson();
-                return Response.status(Response.Status.BAD_REQUEST).entity(errorResponse).build();
+                        .toJsonBytes();
+                return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                        .header("Cache-Control", "no-store")
+                        .entity(error)
+                        .build());
             }
 
             // Validate required field: credential_configuration_id
-            if (!jsonObject.has("credential_configuration_id")) {
-                String errorResponse = CredentialErrorResponse.builder()
-                        .error(CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST)
-                        .errorDescription("Missing required field: credential_configuration_id")
-                        .build()
-                        .toJson();
-                return Response.status(Response.Status.BAD_REQUEST).entity(errorResponse).build();
+            String credentialConfigurationId = credentialRequest.getCredentialConfigurationId();
+            if (StringUtils.isEmpty(credentialConfigurationId)) {
+                return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                        .header("Cache-Control", "no-store")
+                        .entity(MISSING_CONFIGURATION_ID_ERROR)
+                        .build());
+            }
+
+            if (resourceSample != null) {
+                // The requested identifier is only accounted once issuance resolves it to a configuration.
+                resourceSample.setCredentialConfigurationId(RequestResourceAccounting.UNKNOWN_CONFIGURATION);
             }
 
-            String credentialConfigurationId = jsonObject.get("credential_configuration_id").getAsString();
+            String token = authHeader.substring(dpopScheme ? DPOP_SCHEME_PREFIX.length()
+                    : BEARER_SCHEME_PREFIX.length());
 
-            String token = authHeader.substring(7); // Remove "Bearer " prefix
+            // Validate the DPoP proof of sender-constrained tokens (RFC 9449)
+            String dpopProof = request.getHeader(DPOP_HEADER);
+            VerifiedDPoPProof verifiedDpopProof = null;
+            if (dpopProof != null) {
+                verifiedDpopProof = DPoPProofValidator.getInstance().validate(dpopProof, request.getMethod(),
+                        dpopTargetUris(request, tenantDomain), token);
+            } else if (dpopScheme) {
+                throw CredentialIssuanceClientErrors.INVALID_DPOP_PROOF;
+            }
+
+            // Authenticate the wallet instance by its client attestation, when presented or required
+            VerifiedClientAttestation clientAttestation = ClientAttestationValidator.getInstance().verify(
+                    request.getHeader(ClientAttestationValidator.ATTESTATION_HEADER),
+                    request.getHeader(ClientAttestationValidator.ATTESTATION_POP_HEADER), tenantDomain);
 
             // Build CredentialIssuanceReqDTO directly
             CredentialIssuanceReqDTO credentialIssuanceReqDTO = new CredentialIssuanceReqDTO();
-            credentialIssuanceReqDTO.setTenantDomain(resolveTenantDomain());
+            credentialIssuanceReqDTO.setTenantDomain(tenantDomain);
             credentialIssuanceReqDTO.setCredentialConfigurationId(credentialConfigurationId);
             credentialIssuanceReqDTO.setToken(token);
+            credentialIssuanceReqDTO.setDpopScheme(dpopScheme);
+            credentialIssuanceReqDTO.setDpopProof(verifiedDpopProof);
+            if (clientAttestation != null) {
+                credentialIssuanceReqDTO.setAttestedClientId(clientAttestation.getClientId());
+            }
 
             // Issue credential
             CredentialIssuanceService credentialIssuanceService = CredentialIssuanceServiceFactory
                     .getCredentialIssuanceService();
-            CredentialIssuanceRespDTO credentialIssuanceRespDTO = credentialIssuanceService
-                    .issueCredential(credentialIssuanceReqDTO);
-            return buildResponse(credentialIssuanceRespDTO);
+            return credentialIssuanceService.issueCredentialAsync(credentialIssuanceReqDTO)
+                    .handle((credentialIssuanceRespDTO, failure) -> {
+                        if (failure != null) {
+                            return buildErrorResponse(CompletableFutures.unwrap(failure), tenantDomain);
+                        }
+                        if (resourceSample != null) {
+                            resourceSample.setCredentialConfigurationId(credentialConfigurationId);
+                        }
+                        try {
+                            return buildResponse(credentialIssuanceRespDTO);
+                        } catch (CredentialIssuanceException | RuntimeException e) {
+                            return buildErrorResponse(e, tenantDomain);
+                        }
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(buildErrorResponse(e, tenantDomain));
+        }
+    }
+
+    /**
+     * Build the response of a credential request that did not complete within the response timeout.
+     *
+     * @return service unavailable response
+     */
+    private static Response buildTimeoutResponse() {
 
-        } catch (CredentialIssuanceException e) {
-            String tenantDomain = resolveTenantDomain();
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Cache-Control", "no-store")
+                .header("Retry-After", String.valueOf(Math.max(1L,
+                        TimeUnit.MILLISECONDS.toSeconds(RESPONSE_TIMEOUT_MILLIS))))
+                .entity(TIMEOUT_ERROR)
+                .build();
+    }
+
+    /**
+     * Build the error response of a failed credential request.
+     *
+     * @param failure      cause of the failure
+     * @param tenantDomain tenant domain of the request
+     * @return error response
+     */
+    private Response buildErrorResponse(Throwable failure, String tenantDomain) {
+
+        if (failure instanceof IssuanceRateLimitedException) {
+            IssuanceRateLimitedException e = (IssuanceRateLimitedException) failure;
             if (log.isDebugEnabled()) {
-                log.debug(String.format("Credential issuance failed for tenant: %s", tenantDomain), e);
+                log.debug("Credential request rate limited for tenant: " + tenantDomain, e);
             }
-
-            // Map exception to appropriate OpenID4VCI error code
-            String errorCode = mapExceptionToErrorCode(e);
-            String errorResponse = CredentialErrorResponse.builder()
-                    .error(errorCode)
+            byte[] errorResponse = CredentialErrorResponse.builder()
+                    .error(CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED)
                     .errorDescription(e.getMessage())
                     .build()
-                    .toJson();
-
-            // Return 403 Forbidden for insufficient_scope, 400 Bad Request for others
-            Response.Status status = CredentialErrorResponse.INSUFFICIENT_SCOPE.equals(errorCode)
-                    ? Response.Status.FORBIDDEN
-                    : Response.Status.BAD_REQUEST;
-
-            return Response.status(status)
+                    .toJsonBytes();
+            return Response.status(Response.Status.TOO_MANY_REQUESTS)
                     .header("Cache-Control", "no-store")
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
                     .entity(errorResponse)
                     .build();
-        } catch (IllegalStateException e) {
-            log.error("Credential issuance processor service is unavailable", e);
-            String errorResponse = CredentialErrorResponse.builder()
+        }
+        if (failure instanceof IssuanceRejectedException) {
+            IssuanceRejectedException e = (IssuanceRejectedException) failure;
+            if (log.isDebugEnabled()) {
+                log.debug("Credential request rejected for tenant: " + tenantDomain, e);
+            }
+            byte[] errorResponse = CredentialErrorResponse.builder()
                     .error(CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED)
-                    .errorDescription("Credential issuance service is unavailable")
+                    .errorDescription(e.getMessage())
                     .build()
-                    .toJson();
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .toJsonBytes();
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
                     .header("Cache-Control", "no-store")
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
                     .entity(errorResponse)
                     .build();
-        } catch (Exception e) {
-            log.error("Error building credential response", e);
-            String errorResponse = CredentialErrorResponse.builder()
-                    .error(CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED)
-                    .errorDescription("Error processing credential request")
+        }
+        if (failure instanceof CredentialIssuanceException) {
+            CredentialIssuanceException e = (CredentialIssuanceException) failure;
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Credential issuance failed for tenant: %s", tenantDomain), e);
+            }
+
+            // Map exception to appropriate OpenID4VCI error code
+            String errorCode = toErrorCode(e.getErrorCode());
+            byte[] errorResponse = CredentialErrorResponse.builder()
+                    .error(errorCode)
+                    .errorDescription(e.getMessage())
                     .build()
-                    .toJson();
+                    .toJsonBytes();
+
+            // Return 401 for invalid_token, invalid_dpop_proof and invalid_client_attestation, 403 Forbidden for
+            // insufficient_scope, 400 Bad Request for others
+            Response.Status status;
+            switch (e.getErrorCode()) {
+                case INVALID_TOKEN:
+                case INVALID_DPOP_PROOF:
+                case INVALID_CLIENT_ATTESTATION:
+                    status = Response.Status.UNAUTHORIZED;
+                    break;
+                case INSUFFICIENT_SCOPE:
+                    status = Response.Status.FORBIDDEN;
+                    break;
+                default:
+                    status = Response.Status.BAD_REQUEST;
+                    break;
+            }
+
+            Response.ResponseBuilder builder = Response.status(status)
+                    .header("Cache-Control", "no-store")
+                    .entity(errorResponse);
+            if (e.getErrorCode() == CredentialIssuanceErrorCode.INVALID_DPOP_PROOF) {
+                builder.header("WWW-Authenticate", DPOP_PROOF_CHALLENGE);
+            }
+            return builder.build();
+        }
+        if (failure instanceof IllegalStateException) {
+            log.error("Credential issuance processor service is unavailable", failure);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .header("Cache-Control", "no-store")
-                    .entity(errorResponse)
+                    .entity(SERVICE_UNAVAILABLE_ERROR)
                     .build();
         }
+        log.error("Error building credential response", failure);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .header("Cache-Control", "no-store")
+                .entity(PROCESSING_ERROR)
+                .build();
     }
 
     /**
-     * Maps CredentialIssuanceException to appropriate OpenID4VCI error code.
+     * Maps the error code of a failed credential request to its OpenID4VCI error code.
      *
-     * @param exception the credential issuance exception
+     * @param errorCode error code of the credential issuance exception
      * @return the appropriate error code
      */
-    private String mapExceptionToErrorCode(CredentialIssuanceException exception) {
-        String message = exception.getMessage();
-        if (message == null) {
-            return CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED;
-        }
+    private static String toErrorCode(CredentialIssuanceErrorCode errorCode) {
 
-        // Map based on exception message patterns
-        if (message.contains("insufficient_scope")) {
-            return CredentialErrorResponse.INSUFFICIENT_SCOPE;
-        } else if (message.contains("unknown") && message.contains("configuration")) {
-            return CredentialErrorResponse.UNKNOWN_CREDENTIAL_CONFIGURATION;
-        } else if (message.contains("unknown") && message.contains("identifier")) {
-            return CredentialErrorResponse.UNKNOWN_CREDENTIAL_IDENTIFIER;
-        } else if (message.contains("proof")) {
-            return CredentialErrorResponse.INVALID_PROOF;
-        } else if (message.contains("nonce")) {
-            return CredentialErrorResponse.INVALID_NONCE;
-        } else if (message.contains("encryption")) {
-            return CredentialErrorResponse.INVALID_ENCRYPTION_PARAMETERS;
-        } else if (message.contains("denied")) {
-            return CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED;
-        } else {
-            return CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST;
+        switch (errorCode) {
+            case INVALID_TOKEN:
+                return CredentialErrorResponse.INVALID_TOKEN;
+            case INVALID_DPOP_PROOF:
+                return CredentialErrorResponse.INVALID_DPOP_PROOF;
+            case INVALID_CLIENT_ATTESTATION:
+                return CredentialErrorResponse.INVALID_CLIENT_ATTESTATION;
+            case INSUFFICIENT_SCOPE:
+                return CredentialErrorResponse.INSUFFICIENT_SCOPE;
+            case UNKNOWN_CREDENTIAL_CONFIGURATION:
+                return CredentialErrorResponse.UNKNOWN_CREDENTIAL_CONFIGURATION;
+            case UNKNOWN_CREDENTIAL_IDENTIFIER:
+                return CredentialErrorResponse.UNKNOWN_CREDENTIAL_IDENTIFIER;
+            case INVALID_PROOF:
+                return CredentialErrorResponse.INVALID_PROOF;
+            case INVALID_NONCE:
+                return CredentialErrorResponse.INVALID_NONCE;
+            case INVALID_ENCRYPTION_PARAMETERS:
+                return CredentialErrorResponse.INVALID_ENCRYPTION_PARAMETERS;
+            case CREDENTIAL_REQUEST_DENIED:
+                return CredentialErrorResponse.CREDENTIAL_REQUEST_DENIED;
+            case INVALID_CREDENTIAL_REQUEST:
+            default:
+                return CredentialErrorResponse.INVALID_CREDENTIAL_REQUEST;
         }
     }
 
-
     private Response buildResponse(CredentialIssuanceRespDTO credentialIssuanceRespDTO)
             throws CredentialIssuanceException {
 
-        String payload = CredentialIssuanceResponse.builder()
+        if (credentialIssuanceRespDTO.getResponsePayload() != null) {
+            return Response.ok(credentialIssuanceRespDTO.getResponsePayload(), MediaType.APPLICATION_JSON).build();
+        }
+        byte[] payload = CredentialIssuanceResponse.builder()
                 .credential(credentialIssuanceRespDTO.getCredential())
                 .build()
-                .toJson();
+                .toJsonBytes();
         return Response.ok(payload, MediaType.APPLICATION_JSON).build();
     }
 
-    private String resolveTenantDomain() {
+    /**
+     * Get the URIs a DPoP proof may name as its target: the URL the request was received on, and the published
+     * credential endpoint URL, which differs when the server is behind a proxy.
+     */
+    private static List<String> dpopTargetUris(HttpServletRequest request, String tenantDomain) {
 
-        String tenantDomain = null;
-        Object tenantObj = IdentityUtil.threadLocalProperties.get().get(TENANT_NAME_FROM_CONTEXT);
-        if (tenantObj != null) {
-            tenantDomain = (String) tenantObj;
-        }
-        if (StringUtils.isEmpty(tenantDomain)) {
-            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        String requestUrl = request.getRequestURL().toString();
+        try {
+            return Arrays.asList(requestUrl,
+                    TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain).getCredentialEndpointUrl());
+        } catch (URLBuilderException e) {
+            log.warn("Error building the credential endpoint URL of tenant: " + tenantDomain, e);
+            return Collections.singletonList(requestUrl);
         }
-        return tenantDomain;
+    }
+
+    private static byte[] prebuiltError(String error, String errorDescription) {
+
+        return CredentialErrorResponse.builder().error(error).errorDescription(errorDescription).build().toJsonBytes();
     }
 }
@@ -18,18 +18,13 @@
 
 package org.wso2.carbon.identity.openid4vci.endpoint.credential.error;
 
-import com.google.gson.Gson;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.wso2.carbon.identity.openid4vci.common.json.JsonWriter;
 
 /**
  * Represents an error response for credential issuance requests as per OpenID4VCI specification.
  */
 public class CredentialErrorResponse {
 
-    private static final Gson GSON = new Gson();
-
     // Error codes as per OpenID4VCI spec Section 8.3.1.2
     public static final String INVALID_CREDENTIAL_REQUEST = "invalid_credential_request";
     public static final String UNKNOWN_CREDENTIAL_CONFIGURATION = "unknown_credential_configuration";
@@ -43,6 +38,12 @@ public class CredentialErrorResponse {
     public static final String INVALID_TOKEN = "invalid_token";
     public static final String INSUFFICIENT_SCOPE = "insufficient_scope";
 
+    // RFC9449 error code for DPoP proof errors
+    public static final String INVALID_DPOP_PROOF = "invalid_dpop_proof";
+
+    // Attestation-based client authentication error code
+    public static final String INVALID_CLIENT_ATTESTATION = "invalid_client_attestation";
+
     private final String error;
     private final String errorDescription;
 
@@ -52,12 +53,25 @@ public class CredentialErrorResponse {
     }
 
     public String toJson() {
-        Map<String, String> errorMap = new HashMap<>();
-        errorMap.put("error", error);
+        return write().toString();
+    }
+
+    /**
+     * Serialize this error as UTF-8 encoded JSON. Error bodies that never change should be serialized once and the
+     * bytes reused as the response entity.
+     *
+     * @return UTF-8 encoded error body
+     */
+    public byte[] toJsonBytes() {
+        return write().toByteArray();
+    }
+
+    private JsonWriter write() {
+        JsonWriter writer = JsonWriter.forCurrentThread().beginObject().name("error").value(error);
         if (errorDescription != null && !errorDescription.isEmpty()) {
-            errorMap.put("error_description", errorDescription);
+            writer.name("error_description").value(errorDescription);
         }
-        return GSON.toJson(errorMap);
+        return writer.endObject();
     }
 
     public static Builder builder() {
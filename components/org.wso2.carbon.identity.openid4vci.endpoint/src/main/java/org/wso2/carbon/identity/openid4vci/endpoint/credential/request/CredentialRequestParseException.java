@@ -0,0 +1,32 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.credential.request;
+
+/**
+ * Exception thrown when a credential request body cannot be parsed. Rejections that are not caused by another
+ * exception are expected client errors, so they are created without a stack trace.
+ */
+public class CredentialRequestParseException extends Exception {
+
+    private final boolean bodyTooLarge;
+
+    public CredentialRequestParseException(String message, boolean bodyTooLarge) {
+
+        super(message, null, false, false);
+        this.bodyTooLarge = bodyTooLarge;
+    }
+
+    public CredentialRequestParseException(String message, Throwable cause) {
+
+        super(message, cause);
+        this.bodyTooLarge = false;
+    }
+
+    /**
+     * Check whether the request was rejected because its body exceeds the configured limit.
+     *
+     * @return true if the body is too large
+     */
+    public boolean isBodyTooLarge() {
+
+        return bodyTooLarge;
+    }
+}
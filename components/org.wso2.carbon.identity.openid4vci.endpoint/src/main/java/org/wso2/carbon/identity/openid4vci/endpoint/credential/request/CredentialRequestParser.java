@@ -0,0 +1,296 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.credential.request;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.credential.model.CredentialIssuanceRequest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses credential request bodies with a streaming reader. Only the members defined for the credential request are
+ * read into a {@link CredentialIssuanceRequest}; other members are skipped without being materialized. Bodies larger
+ * than the configured limit are rejected as soon as the declared content length or the bytes read exceed it.
+ */
+public final class CredentialRequestParser {
+
+    private static final String MAX_BODY_SIZE_PROPERTY = "OpenID4VCI.CredentialRequest.MaxBodySize";
+    private static final String MAX_PROOFS_PROPERTY = "OpenID4VCI.CredentialRequest.MaxProofs";
+    private static final long DEFAULT_MAX_BODY_SIZE = 64 * 1024;
+    private static final long DEFAULT_MAX_PROOFS = 100;
+    private static final String INVALID_JSON = "Invalid JSON format";
+    private static final String PROOF_TYPE = "proof_type";
+    private static final CredentialRequestParser instance = new CredentialRequestParser(
+            Util.readPositiveLong(MAX_BODY_SIZE_PROPERTY, DEFAULT_MAX_BODY_SIZE),
+            (int) Util.readPositiveLong(MAX_PROOFS_PROPERTY, DEFAULT_MAX_PROOFS));
+
+    private final long maxBodySize;
+    private final int maxProofs;
+
+    CredentialRequestParser(long maxBodySize, int maxProofs) {
+
+        this.maxBodySize = maxBodySize;
+        this.maxProofs = maxProofs;
+    }
+
+    public static CredentialRequestParser getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Parse a credential request body.
+     *
+     * @param body           request body
+     * @param declaredLength content length declared by the client, or -1 if unknown
+     * @return the parsed request
+     * @throws CredentialRequestParseException if the body is too large, is not valid JSON or has members of the
+     *                                         wrong type
+     */
+    public CredentialIssuanceRequest parse(InputStream body, long declaredLength)
+            throws CredentialRequestParseException {
+
+        if (declaredLength > maxBodySize) {
+            throw tooLarge();
+        }
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new BoundedInputStream(body, maxBodySize),
+                StandardCharsets.UTF_8))) {
+            CredentialIssuanceRequest request = readRequest(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new CredentialRequestParseException(INVALID_JSON, false);
+            }
+            return request;
+        } catch (IOException | IllegalStateException | NumberFormatException | JsonParseException e) {
+            if (isBodyTooLarge(e)) {
+                throw tooLarge();
+            }
+            throw new CredentialRequestParseException(INVALID_JSON, e);
+        }
+    }
+
+    /**
+     * Check whether a read failed because the body exceeds the limit. Nested values read with {@link JsonParser}
+     * surface the limit wrapped in a {@link JsonParseException}.
+     */
+    private static boolean isBodyTooLarge(Throwable failure) {
+
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BodyTooLargeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CredentialIssuanceRequest readRequest(JsonReader reader)
+            throws IOException, CredentialRequestParseException {
+
+        CredentialIssuanceRequest request = new CredentialIssuanceRequest();
+        Map<String, List<String>> proofs = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "credential_configuration_id":
+                    request.setCredentialConfigurationId(readString(reader, name));
+                    break;
+                case "credential_identifier":
+                    request.setCredentialIdentifier(readString(reader, name));
+                    break;
+                case "proof":
+                    if (proofs != null) {
+                        throw duplicateProofs();
+                    }
+                    proofs = readProof(reader);
+                    break;
+                case "proofs":
+                    if (proofs != null) {
+                        throw duplicateProofs();
+                    }
+                    proofs = readProofs(reader);
+                    break;
+                case "credential_response_encryption":
+                    request.setCredentialResponseEncryption(readEncryption(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (proofs != null) {
+            request.setProofs(proofs);
+        }
+        return request;
+    }
+
+    private static Map<String, List<String>> readProof(JsonReader reader)
+            throws IOException, CredentialRequestParseException {
+
+        Map<String, String> members = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            members.put(reader.nextName(), readStringOrJson(reader));
+        }
+        reader.endObject();
+        String proofType = members.get(PROOF_TYPE);
+        if (StringUtils.isEmpty(proofType) || members.get(proofType) == null) {
+            throw new CredentialRequestParseException("The proof must have a proof_type and a value of that type",
+                    false);
+        }
+        return Collections.singletonMap(proofType, Collections.singletonList(members.get(proofType)));
+    }
+
+    private Map<String, List<String>> readProofs(JsonReader reader)
+            throws IOException, CredentialRequestParseException {
+
+        Map<String, List<String>> proofs = new LinkedHashMap<>();
+        int count = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String proofType = reader.nextName();
+            List<String> values = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (++count > maxProofs) {
+                    throw new CredentialRequestParseException("The request carries more than " + maxProofs
+                            + " proofs", false);
+                }
+                values.add(readStringOrJson(reader));
+            }
+            reader.endArray();
+            proofs.put(proofType, values);
+        }
+        reader.endObject();
+        if (count == 0) {
+            throw new CredentialRequestParseException("The proofs parameter must carry at least one proof", false);
+        }
+        return proofs;
+    }
+
+    private static CredentialIssuanceRequest.ResponseEncryption readEncryption(JsonReader reader)
+            throws IOException, CredentialRequestParseException {
+
+        CredentialIssuanceRequest.ResponseEncryption encryption = new CredentialIssuanceRequest.ResponseEncryption();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "jwk":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        throw new CredentialRequestParseException("credential_response_encryption.jwk must be "
+                                + "an object", false);
+                    }
+                    encryption.setJwk(JsonParser.parseReader(reader).toString());
+                    break;
+                case "alg":
+                    encryption.setAlg(readString(reader, "credential_response_encryption.alg"));
+                    break;
+                case "enc":
+                    encryption.setEnc(readString(reader, "credential_response_encryption.enc"));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return encryption;
+    }
+
+    private static String readString(JsonReader reader, String name)
+            throws IOException, CredentialRequestParseException {
+
+        if (reader.peek() != JsonToken.STRING) {
+            throw new CredentialRequestParseException(name + " must be a string", false);
+        }
+        return reader.nextString();
+    }
+
+    private static String readStringOrJson(JsonReader reader) throws IOException {
+
+        if (reader.peek() == JsonToken.STRING) {
+            return reader.nextString();
+        }
+        return JsonParser.parseReader(reader).toString();
+    }
+
+    private static CredentialRequestParseException duplicateProofs() {
+
+        return new CredentialRequestParseException("The proof and proofs parameters must not both be present", false);
+    }
+
+    private CredentialRequestParseException tooLarge() {
+
+        return new CredentialRequestParseException("The request body exceeds " + maxBodySize + " bytes", true);
+    }
+
+    /**
+     * Stream that fails once more than the allowed number of bytes has been read.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long limit) {
+
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            int b = super.read();
+            if (b != -1 && --remaining < 0) {
+                throw new BodyTooLargeException();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+
+            // Read one byte past the limit, so that a body of exactly the limit is accepted.
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining + 1));
+            if (read > 0) {
+                remaining -= read;
+                if (remaining < 0) {
+                    throw new BodyTooLargeException();
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+
+            throw new IOException("Skipping is not supported");
+        }
+    }
+
+    /**
+     * Signals that the request body exceeds the limit.
+     */
+    private static final class BodyTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private BodyTooLargeException() {
+
+            super("Request body is too large");
+        }
+    }
+}
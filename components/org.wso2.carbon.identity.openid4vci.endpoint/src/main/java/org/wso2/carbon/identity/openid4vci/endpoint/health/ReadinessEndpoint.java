@@ -0,0 +1,48 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.health;
+
+import org.wso2.carbon.identity.openid4vci.common.json.JsonWriter;
+import org.wso2.carbon.identity.openid4vci.credential.warmup.IssuanceWarmUp;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Rest implementation reporting whether the issuer is ready to take traffic. Load balancers should only route to a
+ * node once this endpoint returns 200, which happens after issuance warm-up completes.
+ */
+@Path("/")
+@Produces(MediaType.APPLICATION_JSON)
+public class ReadinessEndpoint {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    @GET
+    @Path("/health/ready")
+    public Response getReadiness() {
+
+        IssuanceWarmUp warmUp = IssuanceWarmUp.getInstance();
+        byte[] body = JsonWriter.forCurrentThread()
+                .beginObject()
+                .name("ready").value(warmUp.isReady())
+                .name("warm_up").beginObject()
+                .name("state").value(String.valueOf(warmUp.getState()))
+                .name("tenants").value(warmUp.getWarmedTenants())
+                .name("synthetic_issuances").value(warmUp.getSyntheticIssuances())
+                .endObject()
+                .endObject()
+                .toByteArray();
+        if (!warmUp.isReady()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(body)
+                    .header("Retry-After", RETRY_AFTER_SECONDS)
+                    .header("Cache-Control", "no-store")
+                    .build();
+        }
+        return Response.ok(body, MediaType.APPLICATION_JSON)
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+}
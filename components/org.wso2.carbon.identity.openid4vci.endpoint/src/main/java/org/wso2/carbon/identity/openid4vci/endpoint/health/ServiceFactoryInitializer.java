@@ -0,0 +1,53 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.health;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.openid4vci.credential.CredentialIssuanceService;
+import org.wso2.carbon.identity.openid4vci.endpoint.credential.factories.CredentialIssuanceServiceFactory;
+import org.wso2.carbon.identity.openid4vci.endpoint.metadata.factories.CredentialIssuerMetadataServiceFactory;
+import org.wso2.carbon.identity.openid4vci.endpoint.offer.factories.CredentialOfferServiceFactory;
+import org.wso2.carbon.identity.openid4vci.metadata.CredentialIssuerMetadataProcessor;
+import org.wso2.carbon.identity.openid4vci.offer.CredentialOfferProcessor;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Resolves the OSGi services of the endpoint factories when the web application starts, so that the first
+ * requests after a restart do not pay for the lookups. A factory is only initialized if its service is already
+ * registered; otherwise it is left to initialize lazily on first use as before.
+ */
+public class ServiceFactoryInitializer implements ServletContextListener {
+
+    private static final Log log = LogFactory.getLog(ServiceFactoryInitializer.class);
+
+    @Override
+    public void contextInitialized(ServletContextEvent servletContextEvent) {
+
+        initialize(CredentialIssuanceService.class, CredentialIssuanceServiceFactory.class);
+        initialize(CredentialIssuerMetadataProcessor.class, CredentialIssuerMetadataServiceFactory.class);
+        initialize(CredentialOfferProcessor.class, CredentialOfferServiceFactory.class);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent servletContextEvent) {
+
+    }
+
+    private static void initialize(Class<?> serviceClass, Class<?> factoryClass) {
+
+        if (PrivilegedCarbonContext.getThreadLocalCarbonContext().getOSGiService(serviceClass, null) == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Deferring initialization of " + factoryClass.getName() + " until " + serviceClass.getName()
+                        + " is available.");
+            }
+            return;
+        }
+        try {
+            Class.forName(factoryClass.getName(), true, factoryClass.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("Error while initializing the endpoint service factory: " + factoryClass.getName(), e);
+        }
+    }
+}
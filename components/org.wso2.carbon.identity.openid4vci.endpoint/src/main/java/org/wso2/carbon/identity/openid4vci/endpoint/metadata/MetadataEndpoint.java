@@ -1,12 +1,13 @@
 package org.wso2.carbon.identity.openid4vci.endpoint.metadata;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.base.MultitenantConstants;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.AccountedEndpoint;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceAccounting;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceSample;
 import org.wso2.carbon.identity.openid4vci.endpoint.metadata.factories.CredentialIssuerMetadataResponseBuilderFactory;
 import org.wso2.carbon.identity.openid4vci.endpoint.metadata.factories.CredentialIssuerMetadataServiceFactory;
+import org.wso2.carbon.identity.openid4vci.endpoint.util.EndpointUtil;
 import org.wso2.carbon.identity.openid4vci.metadata.CredentialIssuerMetadataProcessor;
 import org.wso2.carbon.identity.openid4vci.metadata.exception.CredentialIssuerMetadataException;
 import org.wso2.carbon.identity.openid4vci.metadata.response.CredentialIssuerMetadataResponse;
@@ -26,13 +27,14 @@ import javax.ws.rs.core.Response;
 public class MetadataEndpoint {
 
     private static final Log log = LogFactory.getLog(MetadataEndpoint.class);
-    public static final String TENANT_NAME_FROM_CONTEXT = "TenantNameFromContext";
 
     @GET
     @Path("/.well-known/openid-credential-issuer")
     public Response getIssuerMetadata() {
 
-        String tenantDomain = resolveTenantDomain();
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
+        RequestResourceSample resourceSample =
+                RequestResourceAccounting.begin(AccountedEndpoint.METADATA, tenantDomain);
         try {
             CredentialIssuerMetadataProcessor processor =
                     CredentialIssuerMetadataServiceFactory.getMetadataProcessor();
@@ -45,19 +47,10 @@ public class MetadataEndpoint {
         } catch (CredentialIssuerMetadataException e) {
             log.error(String.format("Error while resolving OpenID4VCI metadata for tenant: %s", tenantDomain), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+        } finally {
+            if (resourceSample != null) {
+                resourceSample.end();
+            }
         }
     }
-
-    private String resolveTenantDomain() {
-
-        String tenantDomain = null;
-        Object tenantObj = IdentityUtil.threadLocalProperties.get().get(TENANT_NAME_FROM_CONTEXT);
-        if (tenantObj != null) {
-            tenantDomain = (String) tenantObj;
-        }
-        if (StringUtils.isEmpty(tenantDomain)) {
-            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
-        }
-        return tenantDomain;
-    }
 }
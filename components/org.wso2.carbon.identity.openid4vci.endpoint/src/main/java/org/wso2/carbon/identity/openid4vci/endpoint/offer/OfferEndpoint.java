@@ -18,23 +18,51 @@
 
 package org.wso2.carbon.identity.openid4vci.endpoint.offer;
 
-import com.google.gson.Gson;
+import com.google.zxing.WriterException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.base.MultitenantConstants;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.URLBuilderException;
+import org.wso2.carbon.identity.openid4vci.common.json.JsonWriter;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.credential.attestation.ClientAttestationValidator;
+import org.wso2.carbon.identity.openid4vci.credential.attestation.VerifiedClientAttestation;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceErrorCode;
+import org.wso2.carbon.identity.openid4vci.credential.exception.CredentialIssuanceException;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.AccountedEndpoint;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceAccounting;
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceSample;
 import org.wso2.carbon.identity.openid4vci.endpoint.offer.factories.CredentialOfferServiceFactory;
+import org.wso2.carbon.identity.openid4vci.endpoint.offer.qr.CredentialOfferQrCodeRenderer;
+import org.wso2.carbon.identity.openid4vci.endpoint.offer.qr.QrCodeFormat;
+import org.wso2.carbon.identity.openid4vci.endpoint.offer.qr.RenderedQrCodeCache;
+import org.wso2.carbon.identity.openid4vci.endpoint.util.EndpointUtil;
 import org.wso2.carbon.identity.openid4vci.offer.CredentialOfferProcessor;
+import org.wso2.carbon.identity.openid4vci.offer.cache.SerializedCredentialOffer;
 import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
-import org.wso2.carbon.identity.openid4vci.offer.response.CredentialOfferResponse;
 
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 
 /**
  * REST implementation of OID4VCI credential offer endpoint.
@@ -44,47 +72,203 @@ import javax.ws.rs.core.Response;
 public class OfferEndpoint {
 
     private static final Log log = LogFactory.getLog(OfferEndpoint.class);
-    private static final Gson GSON = new Gson();
-    public static final String TENANT_NAME_FROM_CONTEXT = "TenantNameFromContext";
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    // Offers may be stored by the wallet, but must be revalidated with their entity tag before every use.
+    private static final String OFFER_CACHE_CONTROL = "private, no-cache";
+    private static final String OFFER_URI_DEEP_LINK_PREFIX = "openid-credential-offer://?credential_offer_uri=";
+    private static final int MIN_QR_CODE_SIZE = 64;
+    private static final int MAX_QR_CODE_SIZE = 1024;
+    private static final String INVALID_REQUEST = "invalid_request";
+    private static final String SERVER_ERROR = "server_error";
+    private static final String INVALID_CLIENT_ATTESTATION = "invalid_client_attestation";
+    private static final byte[] OFFER_ID_REQUIRED_ERROR = errorBody(INVALID_REQUEST, "offer_id is required");
+    private static final byte[] QR_CODE_PARAMETERS_REQUIRED_ERROR = errorBody(INVALID_REQUEST,
+            "offer_id and a format of png or svg are required");
 
     @GET
     @Path("/credential-offer/{offer_id}")
     public Response getCredentialOffer(
-            @PathParam("offer_id") String offerId) {
+            @PathParam("offer_id") String offerId,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @HeaderParam(ClientAttestationValidator.ATTESTATION_HEADER) String clientAttestation,
+            @HeaderParam(ClientAttestationValidator.ATTESTATION_POP_HEADER) String clientAttestationPop) {
 
-        String tenantDomain = resolveTenantDomain();
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
 
         if (StringUtils.isEmpty(offerId)) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\":\"invalid_request\"," +
-                            "\"error_description\":\"offer_id is required\"}")
+                    .header("Cache-Control", "no-store")
+                    .entity(OFFER_ID_REQUIRED_ERROR)
                     .build();
         }
 
+        RequestResourceSample resourceSample = RequestResourceAccounting.begin(AccountedEndpoint.OFFER, tenantDomain);
         try {
+            VerifiedClientAttestation attestedClient = ClientAttestationValidator.getInstance().verify(
+                    clientAttestation, clientAttestationPop, tenantDomain);
+            if (attestedClient != null && log.isDebugEnabled()) {
+                log.debug(String.format("Credential offer: %s of tenant: %s requested by client: %s attested by: %s",
+                        offerId, tenantDomain, attestedClient.getClientId(), attestedClient.getAttesterId()));
+            }
             CredentialOfferProcessor processor = CredentialOfferServiceFactory.getOfferProcessor();
-            CredentialOfferResponse offerResponse = processor.generateOffer(offerId, tenantDomain);
-            String responsePayload = GSON.toJson(offerResponse.getOffer());
-            return Response.ok(responsePayload, MediaType.APPLICATION_JSON).build();
+            SerializedCredentialOffer offer = processor.getSerializedOffer(offerId, tenantDomain);
+            if (matchesEntityTag(ifNoneMatch, offer.getEntityTag())) {
+                return Response.status(Response.Status.NOT_MODIFIED)
+                        .header(HttpHeaders.ETAG, offer.getEntityTag())
+                        .header("Cache-Control", OFFER_CACHE_CONTROL)
+                        .build();
+            }
+            return Response.ok(offer.getBody(), MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.ETAG, offer.getEntityTag())
+                    .header("Cache-Control", OFFER_CACHE_CONTROL)
+                    .build();
+        } catch (CredentialIssuanceException e) {
+            if (e.getErrorCode() != CredentialIssuanceErrorCode.INVALID_CLIENT_ATTESTATION) {
+                log.error(String.format("Error while verifying client attestation for tenant: %s", tenantDomain), e);
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .header("Cache-Control", "no-store")
+                        .entity(errorBody(SERVER_ERROR, e.getMessage()))
+                        .build();
+            }
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .header("Cache-Control", "no-store")
+                    .entity(errorBody(INVALID_CLIENT_ATTESTATION, e.getMessage()))
+                    .build();
         } catch (CredentialOfferException e) {
             log.error(String.format("Error while generating credential offer for tenant: %s", tenantDomain), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\":\"server_error\",\"error_description\":\"" + e.getMessage() + "\"}")
+                    .header("Cache-Control", "no-store")
+                    .entity(errorBody(SERVER_ERROR, e.getMessage()))
                     .build();
+        } finally {
+            if (resourceSample != null) {
+                resourceSample.end();
+            }
         }
     }
 
-    private String resolveTenantDomain() {
+    @GET
+    @Path("/credential-offer/{offer_id}/qr")
+    @Produces({"image/png", "image/svg+xml"})
+    public Response getCredentialOfferQrCode(
+            @PathParam("offer_id") String offerId,
+            @QueryParam("format") @DefaultValue("png") String formatName,
+            @QueryParam("size") @DefaultValue("256") int size) {
+
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
 
-        String tenantDomain = null;
-        Object tenantObj = IdentityUtil.threadLocalProperties.get().get(TENANT_NAME_FROM_CONTEXT);
-        if (tenantObj != null) {
-            tenantDomain = (String) tenantObj;
+        QrCodeFormat format = QrCodeFormat.fromName(formatName);
+        if (StringUtils.isEmpty(offerId) || format == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .header("Cache-Control", "no-store")
+                    .entity(QR_CODE_PARAMETERS_REQUIRED_ERROR)
+                    .build();
         }
-        if (StringUtils.isEmpty(tenantDomain)) {
-            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        int imageSize = Math.min(MAX_QR_CODE_SIZE, Math.max(MIN_QR_CODE_SIZE, size));
+
+        RenderedQrCodeCache cache = RenderedQrCodeCache.getInstance();
+        try {
+            // Resolve the offer first so that QR codes are never rendered or served for unknown offers.
+            CredentialOfferServiceFactory.getOfferProcessor().getSerializedOffer(offerId, tenantDomain);
+            byte[] image = cache.get(tenantDomain, offerId, format, imageSize);
+            if (image == null) {
+                image = CredentialOfferQrCodeRenderer.render(buildOfferUriDeepLink(offerId, tenantDomain), format,
+                        imageSize);
+                cache.put(tenantDomain, offerId, format, imageSize, image);
+            }
+            return Response.ok(image, format.getMediaType())
+                    .header("Cache-Control", "private, max-age=60")
+                    .build();
+        } catch (CredentialOfferException | URLBuilderException | WriterException | IOException e) {
+            log.error(String.format("Error while rendering credential offer QR code for tenant: %s",
+                    tenantDomain), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .type(MediaType.APPLICATION_JSON)
+                    .header("Cache-Control", "no-store")
+                    .entity(errorBody(SERVER_ERROR, e.getMessage()))
+                    .build();
         }
-        return tenantDomain;
+    }
+
+    @POST
+    @Path("/credential-offer/{offer_id}/bulk")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces(NDJSON_MEDIA_TYPE)
+    public Response generateBulkCredentialOffers(
+            @PathParam("offer_id") String offerId,
+            @QueryParam("tx_code") @DefaultValue("false") boolean requireTxCode,
+            InputStream subjects) {
+
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
+
+        if (StringUtils.isEmpty(offerId)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .header("Cache-Control", "no-store")
+                    .entity(OFFER_ID_REQUIRED_ERROR)
+                    .build();
+        }
+        // Bulk offers mint codes for arbitrary subjects, so they are restricted to identity administrators of the
+        // tenant the offer belongs to.
+        Response denied = EndpointUtil.denyUnauthorizedCaller(tenantDomain, EndpointUtil.MANAGE_IDENTITY_PERMISSION);
+        if (denied != null) {
+            return denied;
+        }
+
+        CredentialOfferProcessor processor = CredentialOfferServiceFactory.getOfferProcessor();
+        StreamingOutput output = outputStream -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(subjects, StandardCharsets.UTF_8));
+            try {
+                long offers = processor.generatePreAuthorizedOffers(offerId, tenantDomain,
+                        reader.lines().iterator(), requireTxCode, outputStream);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Generated %d bulk credential offers for offer: %s in tenant: %s",
+                            offers, offerId, tenantDomain));
+                }
+            } catch (CredentialOfferException e) {
+                log.error(String.format("Error while generating bulk credential offers for tenant: %s",
+                        tenantDomain), e);
+                throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+            }
+        };
+        return Response.ok(output, NDJSON_MEDIA_TYPE)
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    private static byte[] errorBody(String error, String errorDescription) {
+
+        return JsonWriter.forCurrentThread()
+                .beginObject()
+                .name("error").value(error)
+                .member("error_description", errorDescription)
+                .endObject()
+                .toByteArray();
+    }
+
+    private boolean matchesEntityTag(String ifNoneMatch, String entityTag) {
+
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || entityTag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String buildOfferUriDeepLink(String offerId, String tenantDomain)
+            throws URLBuilderException, UnsupportedEncodingException {
+
+        String offerUri = TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain).getCredentialOfferUrl(offerId);
+        return OFFER_URI_DEEP_LINK_PREFIX + URLEncoder.encode(offerUri, StandardCharsets.UTF_8.name());
     }
 }
 
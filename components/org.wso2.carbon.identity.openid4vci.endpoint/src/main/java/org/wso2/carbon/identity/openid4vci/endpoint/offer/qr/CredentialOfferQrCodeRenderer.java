@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.endpoint.offer.qr;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import javax.imageio.ImageIO;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Renders QR codes as PNG or SVG images. The module matrix is encoded once per image and scaled by whole pixels
+ * per module, surrounded by the four module quiet zone required by ISO/IEC 18004.
+ */
+public final class CredentialOfferQrCodeRenderer {
+
+    private static final int QUIET_ZONE_MODULES = 4;
+    private static final Map<EncodeHintType, Object> HINTS = new EnumMap<>(EncodeHintType.class);
+
+    static {
+        HINTS.put(EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name());
+    }
+
+    private CredentialOfferQrCodeRenderer() {
+
+    }
+
+    /**
+     * Render the content as a QR code image.
+     *
+     * @param content text encoded in the QR code
+     * @param format  image format
+     * @param size    requested width and height in pixels
+     * @return encoded image bytes
+     * @throws WriterException if the content cannot be encoded as a QR code
+     * @throws IOException     if the image cannot be written
+     */
+    public static byte[] render(String content, QrCodeFormat format, int size) throws WriterException, IOException {
+
+        ByteMatrix matrix = Encoder.encode(content, ErrorCorrectionLevel.M, HINTS).getMatrix();
+        if (format == QrCodeFormat.SVG) {
+            return renderSvg(matrix, size);
+        }
+        return renderPng(matrix, size);
+    }
+
+    private static byte[] renderPng(ByteMatrix matrix, int size) throws IOException {
+
+        int modules = matrix.getWidth() + 2 * QUIET_ZONE_MODULES;
+        int scale = Math.max(1, size / modules);
+        int imageSize = Math.max(size, modules * scale);
+        int offset = (imageSize - modules * scale) / 2 + QUIET_ZONE_MODULES * scale;
+
+        BufferedImage image = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, imageSize, imageSize);
+            graphics.setColor(Color.BLACK);
+            for (int y = 0; y < matrix.getHeight(); y++) {
+                int x = 0;
+                while (x < matrix.getWidth()) {
+                    int run = darkRunLength(matrix, x, y);
+                    if (run > 0) {
+                        graphics.fillRect(offset + x * scale, offset + y * scale, run * scale, scale);
+                        x += run;
+                    } else {
+                        x++;
+                    }
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(imageSize * imageSize / 32 + 128);
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    private static byte[] renderSvg(ByteMatrix matrix, int size) {
+
+        int modules = matrix.getWidth() + 2 * QUIET_ZONE_MODULES;
+        StringBuilder svg = new StringBuilder(matrix.getWidth() * matrix.getHeight() * 4 + 256);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(modules).append(' ').append(modules)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            int x = 0;
+            while (x < matrix.getWidth()) {
+                int run = darkRunLength(matrix, x, y);
+                if (run > 0) {
+                    svg.append('M').append(x + QUIET_ZONE_MODULES).append(' ').append(y + QUIET_ZONE_MODULES)
+                            .append('h').append(run).append("v1h-").append(run).append('z');
+                    x += run;
+                } else {
+                    x++;
+                }
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int darkRunLength(ByteMatrix matrix, int x, int y) {
+
+        int end = x;
+        while (end < matrix.getWidth() && matrix.get(end, y) == 1) {
+            end++;
+        }
+        return end - x;
+    }
+}
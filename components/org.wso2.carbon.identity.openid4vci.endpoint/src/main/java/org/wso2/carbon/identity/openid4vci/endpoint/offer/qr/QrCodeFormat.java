@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.endpoint.offer.qr;
+
+/**
+ * Image formats a credential offer QR code can be rendered in.
+ */
+public enum QrCodeFormat {
+
+    PNG("png", "image/png"),
+    SVG("svg", "image/svg+xml");
+
+    private final String name;
+    private final String mediaType;
+
+    QrCodeFormat(String name, String mediaType) {
+
+        this.name = name;
+        this.mediaType = mediaType;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public String getMediaType() {
+
+        return mediaType;
+    }
+
+    /**
+     * Resolve a format from its name.
+     *
+     * @param name format name, case insensitive
+     * @return the format, or null if the name is not supported
+     */
+    public static QrCodeFormat fromName(String name) {
+
+        for (QrCodeFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.endpoint.offer.qr;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Least recently used cache of rendered QR code images keyed by tenant, offer id, format and size. The cache is
+ * bounded by the total number of image bytes it holds rather than by entry count, since image sizes differ by
+ * orders of magnitude between small SVGs and large PNGs.
+ */
+public class RenderedQrCodeCache {
+
+    private static final Log log = LogFactory.getLog(RenderedQrCodeCache.class);
+    private static final String MAX_BYTES_PROPERTY = "OpenID4VCI.QrCodeCache.MaxBytes";
+    private static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+    private static final RenderedQrCodeCache instance = new RenderedQrCodeCache(resolveMaxBytes());
+
+    private final LinkedHashMap<ImageKey, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final long maxBytes;
+    private long currentBytes;
+
+    private RenderedQrCodeCache(long maxBytes) {
+
+        this.maxBytes = maxBytes;
+    }
+
+    public static RenderedQrCodeCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get a cached image.
+     *
+     * @param tenantDomain tenant domain
+     * @param offerId      offer id
+     * @param format       image format
+     * @param size         image size in pixels
+     * @return image bytes, or null if the image is not cached
+     */
+    public synchronized byte[] get(String tenantDomain, String offerId, QrCodeFormat format, int size) {
+
+        return entries.get(new ImageKey(tenantDomain, offerId, format, size));
+    }
+
+    /**
+     * Cache a rendered image, evicting the least recently used images until the cache fits its byte budget.
+     * Images larger than the whole budget are not cached.
+     *
+     * @param tenantDomain tenant domain
+     * @param offerId      offer id
+     * @param format       image format
+     * @param size         image size in pixels
+     * @param image        image bytes, which must not be modified after they are cached
+     */
+    public synchronized void put(String tenantDomain, String offerId, QrCodeFormat format, int size, byte[] image) {
+
+        if (image.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(new ImageKey(tenantDomain, offerId, format, size), image);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += image.length;
+
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drop every cached image of the given offer.
+     *
+     * @param tenantDomain tenant domain
+     * @param offerId      offer id
+     */
+    public synchronized void invalidateOffer(String tenantDomain, String offerId) {
+
+        removeIf(key -> key.tenantDomain.equals(tenantDomain) && key.offerId.equals(offerId));
+    }
+
+    /**
+     * Drop every cached image of the tenant.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public synchronized void invalidateTenant(String tenantDomain) {
+
+        removeIf(key -> key.tenantDomain.equals(tenantDomain));
+    }
+
+    public synchronized void clear() {
+
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getCurrentBytes() {
+
+        return currentBytes;
+    }
+
+    private void removeIf(Predicate<ImageKey> predicate) {
+
+        Iterator<Map.Entry<ImageKey, byte[]>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ImageKey, byte[]> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                currentBytes -= entry.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long resolveMaxBytes() {
+
+        String maxBytes = IdentityUtil.getProperty(MAX_BYTES_PROPERTY);
+        if (StringUtils.isNotBlank(maxBytes)) {
+            try {
+                return Long.parseLong(maxBytes.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value configured for " + MAX_BYTES_PROPERTY + ": " + maxBytes
+                        + ". Using the default of " + DEFAULT_MAX_BYTES + " bytes.");
+            }
+        }
+        return DEFAULT_MAX_BYTES;
+    }
+
+    private static final class ImageKey {
+
+        private final String tenantDomain;
+        private final String offerId;
+        private final QrCodeFormat format;
+        private final int size;
+
+        ImageKey(String tenantDomain, String offerId, QrCodeFormat format, int size) {
+
+            this.tenantDomain = tenantDomain;
+            this.offerId = offerId;
+            this.format = format;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ImageKey)) {
+                return false;
+            }
+            ImageKey other = (ImageKey) o;
+            return size == other.size && format == other.format && tenantDomain.equals(other.tenantDomain)
+                    && offerId.equals(other.offerId);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(tenantDomain, offerId, format, size);
+        }
+    }
+}
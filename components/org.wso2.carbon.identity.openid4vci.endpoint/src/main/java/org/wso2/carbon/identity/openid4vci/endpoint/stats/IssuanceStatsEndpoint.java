@@ -0,0 +1,60 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.stats;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.credential.scheduling.TenantIssuanceScheduler;
+import org.wso2.carbon.identity.openid4vci.credential.stats.IssuanceStageStatistics;
+import org.wso2.carbon.identity.openid4vci.endpoint.credential.factories.CredentialIssuanceServiceFactory;
+import org.wso2.carbon.identity.openid4vci.endpoint.util.EndpointUtil;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Rest implementation exposing per-stage credential issuance latency statistics of the current tenant. The
+ * statistics are only served to users of the tenant holding {@link EndpointUtil#MANAGE_IDENTITY_PERMISSION}.
+ */
+@Path("/")
+@Produces(MediaType.APPLICATION_JSON)
+public class IssuanceStatsEndpoint {
+
+    private static final Log log = LogFactory.getLog(IssuanceStatsEndpoint.class);
+
+    @GET
+    @Path("/stats/issuance")
+    public Response getIssuanceStats() {
+
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
+        Response denied = EndpointUtil.denyUnauthorizedCaller(tenantDomain, EndpointUtil.MANAGE_IDENTITY_PERMISSION);
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            IssuanceStageStatistics statistics = CredentialIssuanceServiceFactory.getCredentialIssuanceService()
+                    .getStageStatistics();
+            return Response.ok(statistics.toJson(tenantDomain), MediaType.APPLICATION_JSON)
+                    .header("Cache-Control", "no-store")
+                    .build();
+        } catch (IllegalStateException e) {
+            log.error("Credential issuance processor service is unavailable", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GET
+    @Path("/stats/scheduling")
+    public Response getSchedulingStats() {
+
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
+        Response denied = EndpointUtil.denyUnauthorizedCaller(tenantDomain, EndpointUtil.MANAGE_IDENTITY_PERMISSION);
+        if (denied != null) {
+            return denied;
+        }
+        return Response.ok(TenantIssuanceScheduler.getInstance().toJson(tenantDomain), MediaType.APPLICATION_JSON)
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+}
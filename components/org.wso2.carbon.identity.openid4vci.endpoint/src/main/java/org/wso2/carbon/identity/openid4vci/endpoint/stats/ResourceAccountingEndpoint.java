@@ -0,0 +1,36 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.stats;
+
+import org.wso2.carbon.identity.openid4vci.endpoint.accounting.RequestResourceAccounting;
+import org.wso2.carbon.identity.openid4vci.endpoint.util.EndpointUtil;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Rest implementation exposing per-request allocation and CPU time counters of the current tenant. The counters
+ * are only served to users of the tenant holding {@link EndpointUtil#MANAGE_IDENTITY_PERMISSION}.
+ */
+@Path("/")
+@Produces(MediaType.APPLICATION_JSON)
+public class ResourceAccountingEndpoint {
+
+    @GET
+    @Path("/stats/resources")
+    public Response getResourceAccounting() {
+
+        String tenantDomain = EndpointUtil.resolveTenantDomain();
+        Response denied = EndpointUtil.denyUnauthorizedCaller(tenantDomain, EndpointUtil.MANAGE_IDENTITY_PERMISSION);
+        if (denied != null) {
+            return denied;
+        }
+        if (!RequestResourceAccounting.isEnabled()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return Response.ok(RequestResourceAccounting.getInstance().toJson(tenantDomain), MediaType.APPLICATION_JSON)
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.api.UserRealm;
+import org.wso2.carbon.user.api.UserStoreException;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Utilities shared by the OID4VCI REST endpoints.
+ */
+public class EndpointUtil {
+
+    public static final String TENANT_NAME_FROM_CONTEXT = "TenantNameFromContext";
+
+    /**
+     * Permission required for the management and monitoring resources of the OID4VCI webapp.
+     */
+    public static final String MANAGE_IDENTITY_PERMISSION = "/permission/admin/manage/identity";
+
+    private static final Log log = LogFactory.getLog(EndpointUtil.class);
+    private static final String UI_EXECUTE_ACTION = "ui.execute";
+
+    private EndpointUtil() {
+
+    }
+
+    /**
+     * Resolve the tenant domain a request is sent to, defaulting to the super tenant.
+     *
+     * @return tenant domain of the request
+     */
+    public static String resolveTenantDomain() {
+
+        String tenantDomain = null;
+        Object tenantObj = IdentityUtil.threadLocalProperties.get().get(TENANT_NAME_FROM_CONTEXT);
+        if (tenantObj != null) {
+            tenantDomain = (String) tenantObj;
+        }
+        if (StringUtils.isEmpty(tenantDomain)) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        return tenantDomain;
+    }
+
+    /**
+     * Check that the caller of a request is an authenticated user of the tenant the request is sent to, holding a
+     * permission. Callers are only authenticated for resources registered in the resource access control
+     * configuration of the server, so a protected resource must be registered there as well, for example:
+     * <pre>
+     * [[resource.access_control]]
+     * context = "(.*)/oid4vci/stats(.*)"
+     * secure = true
+     * http_method = "GET"
+     * permissions = ["/permission/admin/manage/identity"]
+     *
+     * [[resource.access_control]]
+     * context = "(.*)/oid4vci/credential-offer/(.*)/bulk"
+     * secure = true
+     * http_method = "POST"
+     * permissions = ["/permission/admin/manage/identity"]
+     * </pre>
+     *
+     * @param tenantDomain tenant domain the request is sent to
+     * @param permission   permission the caller must hold
+     * @return null if the caller is authorized, otherwise the response to send
+     */
+    public static Response denyUnauthorizedCaller(String tenantDomain, String permission) {
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        String username = carbonContext.getUsername();
+        if (StringUtils.isEmpty(username)) {
+            return Response.status(Response.Status.UNAUTHORIZED).header("Cache-Control", "no-store").build();
+        }
+        if (!tenantDomain.equals(carbonContext.getTenantDomain()) || !isAuthorized(tenantDomain, username,
+                permission)) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("User: %s of tenant: %s is not authorized for %s in tenant: %s", username,
+                        carbonContext.getTenantDomain(), permission, tenantDomain));
+            }
+            return Response.status(Response.Status.FORBIDDEN).header("Cache-Control", "no-store").build();
+        }
+        return null;
+    }
+
+    private static boolean isAuthorized(String tenantDomain, String username, String permission) {
+
+        try {
+            UserRealm userRealm = IdentityTenantUtil.getRealm(tenantDomain, username);
+            return userRealm != null && userRealm.getAuthorizationManager().isUserAuthorized(username, permission,
+                    UI_EXECUTE_ACTION);
+        } catch (IdentityException | UserStoreException e) {
+            log.error(String.format("Error while checking the permissions of user: %s in tenant: %s", username,
+                    tenantDomain), e);
+            return false;
+        }
+    }
+}
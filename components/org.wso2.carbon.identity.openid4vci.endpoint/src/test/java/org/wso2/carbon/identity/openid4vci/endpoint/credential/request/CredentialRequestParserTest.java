@@ -0,0 +1,157 @@
+package org.wso2.carbon.identity.openid4vci.endpoint.credential.request;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.credential.model.CredentialIssuanceRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the size limit, proof handling and skipping of unknown members of the streaming credential request parser.
+ */
+public class CredentialRequestParserTest {
+
+    private static final int MAX_BODY_SIZE = 256;
+    private static final int MAX_PROOFS = 2;
+    private static final String MINIMAL_REQUEST = "{\"credential_configuration_id\":\"employee\"}";
+
+    private final CredentialRequestParser parser = new CredentialRequestParser(MAX_BODY_SIZE, MAX_PROOFS);
+
+    @Test
+    public void testAcceptsBodyExactlyAtLimit() throws Exception {
+
+        String body = pad(MINIMAL_REQUEST, MAX_BODY_SIZE);
+
+        CredentialIssuanceRequest request = parse(body, -1);
+
+        assertEquals(request.getCredentialConfigurationId(), "employee");
+    }
+
+    @Test
+    public void testRejectsBodyOneByteOverLimitAsTooLarge() {
+
+        String body = pad(MINIMAL_REQUEST, MAX_BODY_SIZE + 1);
+
+        assertTooLarge(body, -1);
+    }
+
+    @Test
+    public void testRejectsDeclaredLengthOverLimitAsTooLarge() throws Exception {
+
+        assertEquals(parse(MINIMAL_REQUEST, MAX_BODY_SIZE).getCredentialConfigurationId(), "employee");
+        assertTooLarge(MINIMAL_REQUEST, MAX_BODY_SIZE + 1);
+    }
+
+    @Test
+    public void testRejectsBodyOverLimitInsideNestedValue() {
+
+        StringBuilder jwk = new StringBuilder("{\"credential_response_encryption\":{\"jwk\":{\"n\":\"");
+        while (jwk.length() < MAX_BODY_SIZE) {
+            jwk.append('A');
+        }
+        jwk.append("\"}}}");
+
+        assertTooLarge(jwk.toString(), -1);
+    }
+
+    @Test
+    public void testReadsSingleProof() throws Exception {
+
+        CredentialIssuanceRequest request = parse("{\"proof\":{\"proof_type\":\"jwt\",\"jwt\":\"a.b.c\"}}", -1);
+
+        assertEquals(request.getProofs(), Collections.singletonMap("jwt", Collections.singletonList("a.b.c")));
+    }
+
+    @Test
+    public void testRejectsProofAndProofsTogether() {
+
+        assertInvalid("{\"proof\":{\"proof_type\":\"jwt\",\"jwt\":\"a.b.c\"},\"proofs\":{\"jwt\":[\"d.e.f\"]}}");
+        assertInvalid("{\"proofs\":{\"jwt\":[\"d.e.f\"]},\"proof\":{\"proof_type\":\"jwt\",\"jwt\":\"a.b.c\"}}");
+        assertInvalid("{\"proof\":{\"proof_type\":\"jwt\",\"jwt\":\"a.b.c\"},"
+                + "\"proof\":{\"proof_type\":\"jwt\",\"jwt\":\"d.e.f\"}}");
+    }
+
+    @Test
+    public void testAcceptsProofsUpToLimit() throws Exception {
+
+        CredentialIssuanceRequest request = parse("{\"proofs\":{\"jwt\":[\"a.b.c\",\"d.e.f\"]}}", -1);
+
+        assertEquals(request.getProofs(), Collections.singletonMap("jwt", Arrays.asList("a.b.c", "d.e.f")));
+    }
+
+    @Test
+    public void testRejectsProofsOverLimitAcrossProofTypes() {
+
+        assertInvalid("{\"proofs\":{\"jwt\":[\"a.b.c\"],\"attestation\":[\"d.e.f\",\"g.h.i\"]}}");
+    }
+
+    @Test
+    public void testRejectsEmptyProofs() {
+
+        assertInvalid("{\"proofs\":{\"jwt\":[]}}");
+    }
+
+    @Test
+    public void testSkipsUnknownNestedMembers() throws Exception {
+
+        CredentialIssuanceRequest request = parse("{\"unknown\":{\"a\":[1,{\"b\":\"c\"}],\"d\":null},"
+                + "\"credential_identifier\":\"id-1\",\"credential_response_encryption\":"
+                + "{\"extra\":{\"n\":[true]},\"alg\":\"RSA-OAEP-256\",\"enc\":\"A256GCM\",\"jwk\":{\"kty\":\"RSA\"}},"
+                + "\"trailing\":[[],{}]}", -1);
+
+        assertEquals(request.getCredentialIdentifier(), "id-1");
+        assertTrue(request.getProofs().isEmpty());
+        assertEquals(request.getCredentialResponseEncryption().getAlg(), "RSA-OAEP-256");
+        assertEquals(request.getCredentialResponseEncryption().getEnc(), "A256GCM");
+        assertEquals(request.getCredentialResponseEncryption().getJwk(), "{\"kty\":\"RSA\"}");
+    }
+
+    @Test
+    public void testRejectsMembersOfWrongTypeAndTrailingContent() {
+
+        assertInvalid("{\"credential_configuration_id\":1}");
+        assertInvalid("{\"credential_response_encryption\":{\"jwk\":\"RSA\"}}");
+        assertInvalid(MINIMAL_REQUEST + "{}");
+    }
+
+    private CredentialIssuanceRequest parse(String body, long declaredLength) throws CredentialRequestParseException {
+
+        return parser.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), declaredLength);
+    }
+
+    private void assertTooLarge(String body, long declaredLength) {
+
+        try {
+            parse(body, declaredLength);
+            fail("Expected the body to be rejected as too large");
+        } catch (CredentialRequestParseException e) {
+            assertTrue(e.isBodyTooLarge(), e.getMessage());
+        }
+    }
+
+    private void assertInvalid(String body) {
+
+        try {
+            parse(body, -1);
+            fail("Expected the body to be rejected: " + body);
+        } catch (CredentialRequestParseException e) {
+            assertFalse(e.isBodyTooLarge(), e.getMessage());
+        }
+    }
+
+    private static String pad(String json, int size) {
+
+        StringBuilder padded = new StringBuilder(json);
+        while (padded.length() < size) {
+            padded.append(' ');
+        }
+        return padded.toString();
+    }
+}
@@ -6,8 +6,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.core.URLBuilderException;
-import org.wso2.carbon.identity.openid4vci.common.constant.Constants;
-import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.SingleFlight;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrls;
 import org.wso2.carbon.identity.openid4vci.metadata.exception.CredentialIssuerMetadataException;
 import org.wso2.carbon.identity.openid4vci.metadata.internal.CredentialIssuerMetadataDataHolder;
 import org.wso2.carbon.identity.openid4vci.metadata.response.CredentialIssuerMetadataResponse;
@@ -32,6 +33,8 @@ public class DefaultCredentialIssuerMetadataProcessor implements CredentialIssue
     private static final DefaultCredentialIssuerMetadataProcessor defaultCredentialIssuerMetadataProcessor =
             new DefaultCredentialIssuerMetadataProcessor();
 
+    private final SingleFlight<String, CredentialIssuerMetadataResponse> metadataLoads = new SingleFlight<>();
+
     private DefaultCredentialIssuerMetadataProcessor() {
 
         if (log.isDebugEnabled()) {
@@ -50,12 +53,20 @@ public class DefaultCredentialIssuerMetadataProcessor implements CredentialIssue
             throws CredentialIssuerMetadataException {
 
         String effectiveTenant = resolveTenant(tenantDomain);
+        return metadataLoads.load(effectiveTenant, () -> buildMetadataResponse(effectiveTenant),
+                e -> new CredentialIssuerMetadataException("Error while resolving credential issuer metadata for "
+                        + "tenant: " + effectiveTenant, e));
+    }
+
+    private CredentialIssuerMetadataResponse buildMetadataResponse(String effectiveTenant)
+            throws CredentialIssuerMetadataException {
+
         try {
+            TenantServiceUrls urls = TenantServiceUrlRegistry.getInstance().getUrls(effectiveTenant);
             Map<String, Object> metadata = new LinkedHashMap<>();
-            metadata.put("credential_issuer", buildCredentialIssuerUrl(effectiveTenant));
-            metadata.put("credential_endpoint", buildCredentialEndpointUrl(effectiveTenant));
-            metadata.put("authorization_servers",
-                    Collections.singletonList(buildAuthorizationServerUrl(effectiveTenant)));
+            metadata.put("credential_issuer", urls.getCredentialIssuerUrl());
+            metadata.put("credential_endpoint", urls.getCredentialEndpointUrl());
+            metadata.put("authorization_servers", Collections.singletonList(urls.getAuthorizationServerUrl()));
             Map<String, Object> credentialConfigurations = getCredentialConfigurations(effectiveTenant);
             metadata.put("credential_configurations_supported", credentialConfigurations);
 
@@ -73,23 +84,6 @@ public class DefaultCredentialIssuerMetadataProcessor implements CredentialIssue
         return tenantDomain;
     }
 
-    private String buildCredentialIssuerUrl(String tenantDomain) throws URLBuilderException {
-
-        return Util.buildServiceUrl(tenantDomain, Constants.CONTEXT_OPENID4VCI).getAbsolutePublicURL();
-    }
-
-    private String buildCredentialEndpointUrl(String tenantDomain) throws URLBuilderException {
-
-        return Util.buildServiceUrl(tenantDomain, Constants.CONTEXT_OPENID4VCI, Constants.SEGMENT_CREDENTIAL)
-                .getAbsolutePublicURL();
-    }
-
-    private String buildAuthorizationServerUrl(String tenantDomain) throws URLBuilderException {
-
-        return Util.buildServiceUrl(tenantDomain, Constants.SEGMENT_OAUTH2, Constants.SEGMENT_TOKEN)
-                .getAbsolutePublicURL();
-    }
-
     protected Map<String, Object> getCredentialConfigurations(String tenantDomain)
             throws CredentialIssuerMetadataException {
 
@@ -18,9 +18,15 @@
 
 package org.wso2.carbon.identity.openid4vci.offer;
 
+import org.wso2.carbon.identity.openid4vci.offer.cache.SerializedCredentialOffer;
 import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCredentialOffer;
 import org.wso2.carbon.identity.openid4vci.offer.response.CredentialOfferResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
 /**
  * Processor for handling OID4VCI credential offer operations.
  */
@@ -36,5 +42,46 @@ public interface CredentialOfferProcessor {
      */
     CredentialOfferResponse generateOffer(String offerId, String tenantDomain)
             throws CredentialOfferException;
-}
 
+    /**
+     * Get the serialized credential offer, served from the offer cache when available.
+     *
+     * @param offerId      Credential offer ID
+     * @param tenantDomain Tenant domain
+     * @return SerializedCredentialOffer holding the JSON offer and its entity tag
+     * @throws CredentialOfferException if offer generation fails
+     */
+    SerializedCredentialOffer getSerializedOffer(String offerId, String tenantDomain)
+            throws CredentialOfferException;
+
+    /**
+     * Generate a credential offer with a pre-authorized code grant for a specific user.
+     *
+     * @param offerId       Credential offer ID
+     * @param tenantDomain  Tenant domain
+     * @param subject       User the pre-authorized code is issued for
+     * @param requireTxCode Whether the code must be redeemed together with a transaction code
+     * @return PreAuthorizedCredentialOffer holding the offer and the transaction code, if any
+     * @throws CredentialOfferException if offer generation fails
+     */
+    PreAuthorizedCredentialOffer generatePreAuthorizedOffer(String offerId, String tenantDomain, String subject,
+                                                            boolean requireTxCode)
+            throws CredentialOfferException;
+
+    /**
+     * Generate pre-authorized credential offers for many subjects, written as NDJSON. Each line holds the subject,
+     * the pre-authorized code, the transaction code if requested, the offer and its deep link.
+     *
+     * @param offerId       Credential offer ID
+     * @param tenantDomain  Tenant domain
+     * @param subjects      Users to issue offers for, consumed lazily
+     * @param requireTxCode Whether each code must be redeemed together with a transaction code
+     * @param output        Stream receiving the NDJSON lines
+     * @return number of offers written
+     * @throws CredentialOfferException if offer generation fails
+     * @throws IOException              if writing to the output fails
+     */
+    long generatePreAuthorizedOffers(String offerId, String tenantDomain, Iterator<String> subjects,
+                                     boolean requireTxCode, OutputStream output)
+            throws CredentialOfferException, IOException;
+}
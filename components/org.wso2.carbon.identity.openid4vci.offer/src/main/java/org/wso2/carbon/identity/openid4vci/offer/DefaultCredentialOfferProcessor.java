@@ -18,23 +18,42 @@
 
 package org.wso2.carbon.identity.openid4vci.offer;
 
+import com.google.gson.Gson;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.URLBuilderException;
 import org.wso2.carbon.identity.openid4vci.common.constant.Constants;
-import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrlRegistry;
+import org.wso2.carbon.identity.openid4vci.common.url.TenantServiceUrls;
+import org.wso2.carbon.identity.openid4vci.offer.bulk.BulkCredentialOfferGenerator;
+import org.wso2.carbon.identity.openid4vci.offer.cache.CredentialConfigurationChangeTracker;
+import org.wso2.carbon.identity.openid4vci.offer.cache.CredentialOfferCache;
+import org.wso2.carbon.identity.openid4vci.offer.cache.SerializedCredentialOffer;
 import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
 import org.wso2.carbon.identity.openid4vci.offer.internal.CredentialOfferDataHolder;
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCodeStore;
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCredentialOffer;
 import org.wso2.carbon.identity.openid4vci.offer.response.CredentialOfferResponse;
 import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 import org.wso2.carbon.identity.vc.config.management.VCOfferManager;
 import org.wso2.carbon.identity.vc.config.management.exception.VCConfigMgtException;
 import org.wso2.carbon.identity.vc.config.management.model.VCOffer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Default implementation for credential offer processing.
@@ -42,6 +61,7 @@ import java.util.Map;
 public class DefaultCredentialOfferProcessor implements CredentialOfferProcessor {
 
     private static final Log log = LogFactory.getLog(DefaultCredentialOfferProcessor.class);
+    private static final Gson GSON = new Gson();
     private static final DefaultCredentialOfferProcessor defaultCredentialOfferProcessor =
             new DefaultCredentialOfferProcessor();
 
@@ -61,29 +81,103 @@ public class DefaultCredentialOfferProcessor implements CredentialOfferProcessor
     public CredentialOfferResponse generateOffer(String offerId, String tenantDomain)
             throws CredentialOfferException {
 
+        return new CredentialOfferResponse(buildOffer(offerId, tenantDomain, new LinkedHashSet<>(),
+                Constants.GRANT_TYPE_AUTHORIZATION_CODE, new LinkedHashMap<>()));
+    }
+
+    @Override
+    public PreAuthorizedCredentialOffer generatePreAuthorizedOffer(String offerId, String tenantDomain,
+                                                                   String subject, boolean requireTxCode)
+            throws CredentialOfferException {
+
+        if (StringUtils.isBlank(subject)) {
+            throw new CredentialOfferException("A subject is required to issue a pre-authorized code");
+        }
+        PreAuthorizedCodeStore codeStore = PreAuthorizedCodeStore.getInstance();
+        String txCode = requireTxCode ? codeStore.generateTxCode() : null;
+
+        Map<String, Object> preAuthorizedCodeGrant = new LinkedHashMap<>();
+        Map<String, Object> offer = buildOffer(offerId, tenantDomain, new LinkedHashSet<>(),
+                Constants.GRANT_TYPE_PRE_AUTHORIZED_CODE, preAuthorizedCodeGrant);
+        String preAuthorizedCode = codeStore.issue(tenantDomain, offerId, subject, txCode);
+        preAuthorizedCodeGrant.put("pre-authorized_code", preAuthorizedCode);
+        if (txCode != null) {
+            preAuthorizedCodeGrant.put("tx_code", buildTxCodeParameters(codeStore));
+        }
+        return new PreAuthorizedCredentialOffer(offer, preAuthorizedCode, txCode);
+    }
+
+    @Override
+    public long generatePreAuthorizedOffers(String offerId, String tenantDomain, Iterator<String> subjects,
+                                            boolean requireTxCode, OutputStream output)
+            throws CredentialOfferException, IOException {
+
+        // Resolve the offer, its configurations and URLs once for the whole batch.
+        Map<String, Object> preAuthorizedCodeGrant = new LinkedHashMap<>();
+        preAuthorizedCodeGrant.put("pre-authorized_code", BulkCredentialOfferGenerator.CODE_PLACEHOLDER);
+        if (requireTxCode) {
+            preAuthorizedCodeGrant.put("tx_code", buildTxCodeParameters(PreAuthorizedCodeStore.getInstance()));
+        }
+        Map<String, Object> offer = buildOffer(offerId, tenantDomain, new LinkedHashSet<>(),
+                Constants.GRANT_TYPE_PRE_AUTHORIZED_CODE, preAuthorizedCodeGrant);
+        return BulkCredentialOfferGenerator.getInstance().generate(GSON.toJson(offer), tenantDomain, offerId,
+                subjects, requireTxCode, output);
+    }
+
+    private static Map<String, Object> buildTxCodeParameters(PreAuthorizedCodeStore codeStore) {
+
+        Map<String, Object> txCodeParameters = new LinkedHashMap<>();
+        txCodeParameters.put("input_mode", "numeric");
+        txCodeParameters.put("length", codeStore.getTxCodeLength());
+        return txCodeParameters;
+    }
+
+    @Override
+    public SerializedCredentialOffer getSerializedOffer(String offerId, String tenantDomain)
+            throws CredentialOfferException {
+
+        return CredentialOfferCache.getInstance().get(tenantDomain, offerId,
+                () -> serializeOffer(offerId, tenantDomain));
+    }
+
+    private SerializedCredentialOffer serializeOffer(String offerId, String tenantDomain)
+            throws CredentialOfferException {
+
+        Set<String> credentialConfigurationIds = new LinkedHashSet<>();
+        Map<String, Object> offer = buildOffer(offerId, tenantDomain, credentialConfigurationIds,
+                Constants.GRANT_TYPE_AUTHORIZATION_CODE, new LinkedHashMap<>());
+        byte[] body = GSON.toJson(offer).getBytes(StandardCharsets.UTF_8);
+        return new SerializedCredentialOffer(body, buildEntityTag(body), credentialConfigurationIds);
+    }
+
+    private Map<String, Object> buildOffer(String offerId, String tenantDomain,
+                                           Set<String> credentialConfigurationIds, String grantType,
+                                           Map<String, Object> grantParameters)
+            throws CredentialOfferException {
+
         try {
+            TenantServiceUrls urls = TenantServiceUrlRegistry.getInstance().getUrls(tenantDomain);
             Map<String, Object> offer = new LinkedHashMap<>();
 
             // Set credential issuer URL
-            offer.put("credential_issuer", buildCredentialIssuerUrl(tenantDomain));
+            offer.put("credential_issuer", urls.getCredentialIssuerUrl());
 
             List<String> credentialConfigurationIdentifiers = getCredentialConfigurationIdentifiers(offerId,
-                    tenantDomain);
+                    tenantDomain, credentialConfigurationIds);
 
             // Set credential configuration IDs
             offer.put("credential_configuration_ids", credentialConfigurationIdentifiers);
 
             // Build grants structure
             Map<String, Object> grants = new LinkedHashMap<>();
-            Map<String, Object> authCodeGrant = new LinkedHashMap<>();
 
             // Set authorization server URL
-            authCodeGrant.put("authorization_server", buildAuthorizationServerUrl(tenantDomain));
+            grantParameters.put("authorization_server", urls.getAuthorizationServerUrl());
 
-            grants.put("authorization_code", authCodeGrant);
+            grants.put(grantType, grantParameters);
             offer.put("grants", grants);
 
-            return new CredentialOfferResponse(offer);
+            return offer;
         } catch (URLBuilderException e) {
             throw new CredentialOfferException("Error while constructing credential offer URLs", e);
         } catch (VCConfigMgtException e) {
@@ -91,7 +185,8 @@ public class DefaultCredentialOfferProcessor implements CredentialOfferProcessor
         }
     }
 
-    private static List<String> getCredentialConfigurationIdentifiers(String offerId, String tenantDomain)
+    private static List<String> getCredentialConfigurationIdentifiers(String offerId, String tenantDomain,
+                                                                      Set<String> credentialConfigurationIds)
             throws VCConfigMgtException {
 
         VCOfferManager vcOfferManager = CredentialOfferDataHolder.getInstance().getVCOfferManager();
@@ -102,22 +197,23 @@ public class DefaultCredentialOfferProcessor implements CredentialOfferProcessor
 
         // Get identifiers from VCCredentialConfig for each credential configuration ID
         List<String> credentialConfigurationIdentifiers = new ArrayList<>();
+        CredentialConfigurationChangeTracker changeTracker = CredentialConfigurationChangeTracker.getInstance();
         for (String credentialConfigId : vcOffer.getCredentialConfigurationIds()) {
             String identifier = vcCredentialConfigManager.get(credentialConfigId, tenantDomain).getIdentifier();
+            changeTracker.observe(tenantDomain, credentialConfigId, identifier);
             credentialConfigurationIdentifiers.add(identifier);
+            credentialConfigurationIds.add(credentialConfigId);
         }
         return credentialConfigurationIdentifiers;
     }
 
-    private String buildCredentialIssuerUrl(String tenantDomain) throws URLBuilderException {
-
-        return Util.buildServiceUrl(tenantDomain, Constants.CONTEXT_OPENID4VCI).getAbsolutePublicURL();
-    }
-
-    private String buildAuthorizationServerUrl(String tenantDomain) throws URLBuilderException {
+    private static String buildEntityTag(byte[] body) throws CredentialOfferException {
 
-        return Util.buildServiceUrl(tenantDomain, Constants.SEGMENT_OAUTH2, Constants.SEGMENT_TOKEN)
-                .getAbsolutePublicURL();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new CredentialOfferException("Error while computing the credential offer entity tag", e);
+        }
     }
 }
-
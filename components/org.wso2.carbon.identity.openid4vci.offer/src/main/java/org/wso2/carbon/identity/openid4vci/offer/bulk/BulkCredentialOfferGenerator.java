@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.bulk;
+
+import org.wso2.carbon.identity.openid4vci.common.json.JsonWriter;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCodeStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates personalized pre-authorized credential offers for a stream of subjects and writes them as NDJSON.
+ * The offer is serialized once per batch into a template around the code placeholder. Subjects are rendered in
+ * chunks on a shared pool while the caller writes finished chunks in input order, with a bounded number of
+ * chunks in flight so that memory stays constant regardless of the number of subjects.
+ */
+public class BulkCredentialOfferGenerator {
+
+    /**
+     * Placeholder for the pre-authorized code in the offer template.
+     */
+    public static final String CODE_PLACEHOLDER = "{pre-authorized_code}";
+
+    private static final String DEEP_LINK_PREFIX = "openid-credential-offer://?credential_offer=";
+    static final int CHUNK_SIZE = 256;
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final int MAX_CHUNKS_IN_FLIGHT = PARALLELISM * 2;
+    private static final BulkCredentialOfferGenerator instance = new BulkCredentialOfferGenerator();
+
+    private volatile ExecutorService executor;
+
+    private BulkCredentialOfferGenerator() {
+
+    }
+
+    public static BulkCredentialOfferGenerator getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Generate one offer per subject and write them as NDJSON lines.
+     *
+     * @param template      offer JSON containing {@link #CODE_PLACEHOLDER} as the pre-authorized code value
+     * @param tenantDomain  tenant domain
+     * @param offerId       credential offer ID
+     * @param subjects      subjects to issue offers for, consumed lazily
+     * @param requireTxCode whether each code is bound to a transaction code
+     * @param output        stream receiving the NDJSON lines
+     * @return number of lines written
+     * @throws CredentialOfferException if the template is invalid or generation fails
+     * @throws IOException              if writing to the output fails
+     */
+    public long generate(String template, String tenantDomain, String offerId, Iterator<String> subjects,
+                         boolean requireTxCode, OutputStream output) throws CredentialOfferException, IOException {
+
+        OfferTemplate offerTemplate = OfferTemplate.parse(template);
+        ExecutorService pool = getExecutor();
+        Deque<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+        long lines = 0;
+        try {
+            while (subjects.hasNext()) {
+                List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (chunk.size() < CHUNK_SIZE && subjects.hasNext()) {
+                    String subject = subjects.next();
+                    if (subject != null && !subject.trim().isEmpty()) {
+                        chunk.add(subject.trim());
+                    }
+                }
+                if (chunk.isEmpty()) {
+                    continue;
+                }
+                lines += chunk.size();
+                inFlight.add(CompletableFuture.supplyAsync(
+                        () -> render(offerTemplate, tenantDomain, offerId, chunk, requireTxCode), pool));
+                if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+                    output.write(await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                output.write(await(inFlight.poll()));
+            }
+            output.flush();
+            return lines;
+        } finally {
+            for (CompletableFuture<byte[]> pending : inFlight) {
+                pending.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Stop the generation pool. A new pool is created on the next use.
+     */
+    public synchronized void stop() {
+
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private ExecutorService getExecutor() {
+
+        ExecutorService pool = executor;
+        if (pool == null) {
+            synchronized (this) {
+                pool = executor;
+                if (pool == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    pool = Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "oid4vci-bulk-offer-generator-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static byte[] render(OfferTemplate template, String tenantDomain, String offerId, List<String> chunk,
+                                 boolean requireTxCode) {
+
+        PreAuthorizedCodeStore codeStore = PreAuthorizedCodeStore.getInstance();
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(chunk.size() * (template.length() * 2 + 128));
+        JsonWriter writer = JsonWriter.forCurrentThread();
+        for (String subject : chunk) {
+            writer.reset().beginObject().member("subject", subject);
+            try {
+                String txCode = requireTxCode ? codeStore.generateTxCode() : null;
+                String code = codeStore.issue(tenantDomain, offerId, subject, txCode);
+                writer.member("pre-authorized_code", code)
+                        .member("tx_code", txCode)
+                        .name("credential_offer").rawValue(template.offer(code))
+                        .member("credential_offer_deep_link", template.deepLink(code));
+            } catch (CredentialOfferException e) {
+                writer.member("error", "server_error")
+                        .member("error_description", e.getMessage());
+            }
+            byte[] line = writer.endObject().toByteArray();
+            lines.write(line, 0, line.length);
+            lines.write('\n');
+        }
+        return lines.toByteArray();
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> chunk) throws CredentialOfferException {
+
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            throw new CredentialOfferException("Error while generating bulk credential offers", e.getCause());
+        }
+    }
+
+    /**
+     * Offer JSON and deep link split around the pre-authorized code. Codes are base64url encoded, so they need
+     * neither JSON escaping nor URL encoding.
+     */
+    private static final class OfferTemplate {
+
+        private static final String QUOTED_PLACEHOLDER = "\"" + CODE_PLACEHOLDER + "\"";
+
+        private final String offerPrefix;
+        private final String offerSuffix;
+        private final String deepLinkPrefix;
+        private final String deepLinkSuffix;
+
+        private OfferTemplate(String offerPrefix, String offerSuffix) throws UnsupportedEncodingException {
+
+            this.offerPrefix = offerPrefix;
+            this.offerSuffix = offerSuffix;
+            this.deepLinkPrefix = DEEP_LINK_PREFIX + encode(offerPrefix + "\"");
+            this.deepLinkSuffix = encode("\"" + offerSuffix);
+        }
+
+        static OfferTemplate parse(String template) throws CredentialOfferException {
+
+            int placeholder = template.indexOf(QUOTED_PLACEHOLDER);
+            if (placeholder < 0) {
+                throw new CredentialOfferException("Bulk offer template does not contain the code placeholder");
+            }
+            try {
+                return new OfferTemplate(template.substring(0, placeholder),
+                        template.substring(placeholder + QUOTED_PLACEHOLDER.length()));
+            } catch (UnsupportedEncodingException e) {
+                throw new CredentialOfferException("Error while encoding the credential offer deep link", e);
+            }
+        }
+
+        private static String encode(String value) throws UnsupportedEncodingException {
+
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        }
+
+        int length() {
+
+            return offerPrefix.length() + offerSuffix.length();
+        }
+
+        String offer(String code) {
+
+            return offerPrefix + '"' + code + '"' + offerSuffix;
+        }
+
+        String deepLink(String code) {
+
+            return deepLinkPrefix + code + deepLinkSuffix;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateKey;
+import org.wso2.carbon.identity.openid4vci.common.tenant.TenantStateManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the identifiers of the credential configurations offers are built from. Configurations are managed outside
+ * this component, so a change is only observed when an offer is rebuilt; a configuration seen with another
+ * identifier than before is published as a configuration invalidation, so that every node drops the offers built
+ * from the previous identifier instead of serving them until they expire.
+ */
+public class CredentialConfigurationChangeTracker {
+
+    private static final Log log = LogFactory.getLog(CredentialConfigurationChangeTracker.class);
+    private static final TenantStateKey<ConfigurationIdentifiers> IDENTIFIERS_KEY = new TenantStateKey<>(
+            "offer-configuration-identifiers", ConfigurationIdentifiers.class,
+            ConfigurationIdentifiers::estimateSize);
+    private static final CredentialConfigurationChangeTracker instance = new CredentialConfigurationChangeTracker();
+
+    private final TenantStateManager stateManager = TenantStateManager.getInstance();
+
+    private CredentialConfigurationChangeTracker() {
+
+    }
+
+    public static CredentialConfigurationChangeTracker getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Record the identifier a credential configuration was resolved to, publishing a configuration invalidation if
+     * it differs from the identifier last recorded on this node.
+     *
+     * @param tenantDomain              tenant domain
+     * @param credentialConfigurationId credential configuration id
+     * @param identifier                identifier of the configuration
+     */
+    public void observe(String tenantDomain, String credentialConfigurationId, String identifier) {
+
+        String previous;
+        synchronized (this) {
+            ConfigurationIdentifiers identifiers = stateManager.get(tenantDomain, IDENTIFIERS_KEY);
+            previous = identifiers == null ? null : identifiers.get(credentialConfigurationId);
+            if (identifier.equals(previous)) {
+                return;
+            }
+            // Values are replaced rather than modified, so that they are charged for their size when stored.
+            stateManager.put(tenantDomain, IDENTIFIERS_KEY, identifiers == null
+                    ? new ConfigurationIdentifiers(credentialConfigurationId, identifier)
+                    : identifiers.with(credentialConfigurationId, identifier));
+        }
+        if (previous != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Credential configuration: " + credentialConfigurationId + " of tenant: " + tenantDomain
+                        + " changed its identifier from: " + previous + " to: " + identifier);
+            }
+            DefaultInvalidationBus.getInstance().publish(InvalidationEvent.configuration(tenantDomain,
+                    credentialConfigurationId));
+        }
+    }
+
+    /**
+     * Immutable identifiers of the credential configurations of a tenant, keyed by configuration id.
+     */
+    private static final class ConfigurationIdentifiers {
+
+        private final Map<String, String> identifiers;
+
+        ConfigurationIdentifiers(String credentialConfigurationId, String identifier) {
+
+            this(Collections.singletonMap(credentialConfigurationId, identifier));
+        }
+
+        private ConfigurationIdentifiers(Map<String, String> identifiers) {
+
+            this.identifiers = identifiers;
+        }
+
+        String get(String credentialConfigurationId) {
+
+            return identifiers.get(credentialConfigurationId);
+        }
+
+        ConfigurationIdentifiers with(String credentialConfigurationId, String identifier) {
+
+            Map<String, String> copy = new HashMap<>(identifiers);
+            copy.put(credentialConfigurationId, identifier);
+            return new ConfigurationIdentifiers(Collections.unmodifiableMap(copy));
+        }
+
+        long estimateSize() {
+
+            long size = 64;
+            for (Map.Entry<String, String> entry : identifiers.entrySet()) {
+                size += 32 + TenantStateKey.estimateStringSize(entry.getKey())
+                        + TenantStateKey.estimateStringSize(entry.getValue());
+            }
+            return size;
+        }
+    }
+}
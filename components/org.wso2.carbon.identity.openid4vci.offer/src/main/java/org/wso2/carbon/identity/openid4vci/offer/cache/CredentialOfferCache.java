@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.openid4vci.common.concurrent.SingleFlight;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of serialized credential offers keyed by tenant and offer id. Concurrent misses for the same offer are
+ * coalesced into a single load. Entries are dropped when the offer or one of its credential configurations is
+ * invalidated, and expire after a bounded time to live. Expired entries are swept once per time to live, and the
+ * cache is bounded by entry count: when it is full, expired entries are swept and arbitrary entries are evicted
+ * until a tenth of the capacity is free again, so that the cost of a full sweep is shared by many insertions. An
+ * expired offer that reloads with a different entity tag is published to the other nodes of the cluster as an offer
+ * invalidation, so that they drop their copies; this node already holds the new version.
+ */
+public class CredentialOfferCache {
+
+    private static final Log log = LogFactory.getLog(CredentialOfferCache.class);
+    private static final String TIME_TO_LIVE_PROPERTY = "OpenID4VCI.OfferCache.TimeToLive";
+    private static final long DEFAULT_TIME_TO_LIVE_SECONDS = 300;
+    private static final String MAX_ENTRIES_PROPERTY = "OpenID4VCI.OfferCache.MaxEntries";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final CredentialOfferCache instance = new CredentialOfferCache(resolveTimeToLiveNanos(),
+            (int) Util.readPositiveLong(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+
+    private final ConcurrentMap<OfferKey, SerializedCredentialOffer> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<OfferKey, SerializedCredentialOffer> loads = new SingleFlight<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+    private final long timeToLiveNanos;
+    private final int maxEntries;
+
+    CredentialOfferCache(long timeToLiveNanos, int maxEntries) {
+
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.maxEntries = maxEntries;
+    }
+
+    public static CredentialOfferCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get a serialized offer, loading it if it is not cached. Callers missing on the same offer at the same time
+     * wait for a single load.
+     *
+     * @param tenantDomain tenant domain
+     * @param offerId      offer id
+     * @param loader       loader invoked on a miss
+     * @return serialized offer
+     * @throws CredentialOfferException if the offer cannot be loaded
+     */
+    public SerializedCredentialOffer get(String tenantDomain, String offerId, CredentialOfferLoader loader)
+            throws CredentialOfferException {
+
+        OfferKey key = new OfferKey(tenantDomain, offerId);
+        SerializedCredentialOffer offer = entries.get(key);
+        if (offer != null && !isExpired(offer)) {
+            return offer;
+        }
+        return loads.load(key, () -> load(key, loader), CredentialOfferCache::toOfferException);
+    }
+
+    /**
+     * Drop the cached offer with the given id.
+     *
+     * @param tenantDomain tenant domain
+     * @param offerId      offer id
+     */
+    public void invalidateOffer(String tenantDomain, String offerId) {
+
+        invalidations.incrementAndGet();
+        entries.remove(new OfferKey(tenantDomain, offerId));
+    }
+
+    /**
+     * Drop every cached offer of the tenant that references the given credential configuration.
+     *
+     * @param tenantDomain              tenant domain
+     * @param credentialConfigurationId credential configuration id
+     */
+    public void invalidateConfiguration(String tenantDomain, String credentialConfigurationId) {
+
+        invalidations.incrementAndGet();
+        entries.entrySet().removeIf(entry -> entry.getKey().tenantDomain.equals(tenantDomain)
+                && entry.getValue().getCredentialConfigurationIds().contains(credentialConfigurationId));
+    }
+
+    /**
+     * Drop every cached offer of the tenant.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void invalidateTenant(String tenantDomain) {
+
+        invalidations.incrementAndGet();
+        entries.keySet().removeIf(key -> key.tenantDomain.equals(tenantDomain));
+    }
+
+    public void clear() {
+
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    int size() {
+
+        return entries.size();
+    }
+
+    private SerializedCredentialOffer load(OfferKey key, CredentialOfferLoader loader)
+            throws CredentialOfferException {
+
+        long generation = invalidations.get();
+        SerializedCredentialOffer offer = loader.load();
+        SerializedCredentialOffer previous = entries.get(key);
+        makeRoom();
+        entries.put(key, offer);
+        if (previous != null && !previous.getEntityTag().equals(offer.getEntityTag())) {
+            // The offer changed since it was cached here; other nodes may still hold the previous version. Local
+            // delivery would only drop the offer just loaded.
+            DefaultInvalidationBus.getInstance().publishToCluster(InvalidationEvent.offer(key.tenantDomain,
+                    key.offerId));
+        }
+        // An invalidation that raced with the load may have been based on data older than the loaded offer, so the
+        // offer is served to the waiting callers but not kept.
+        if (invalidations.get() != generation) {
+            entries.remove(key, offer);
+        }
+        return offer;
+    }
+
+    /**
+     * Sweep expired entries once per time to live, and evict entries when the cache is full.
+     */
+    private void makeRoom() {
+
+        long now = System.nanoTime();
+        long lastSweep = lastSweepNanos.get();
+        if (now - lastSweep > timeToLiveNanos && lastSweepNanos.compareAndSet(lastSweep, now)) {
+            entries.values().removeIf(this::isExpired);
+        }
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.size() < maxEntries) {
+                return;
+            }
+            lastSweepNanos.set(now);
+            entries.values().removeIf(this::isExpired);
+            int target = maxEntries - Math.max(1, maxEntries / 10);
+            Iterator<OfferKey> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    private static CredentialOfferException toOfferException(Throwable e) {
+
+        if (e instanceof CredentialOfferException) {
+            return new CredentialOfferException(e.getMessage(), e);
+        }
+        return new CredentialOfferException("Error while waiting for the credential offer to load", e);
+    }
+
+    private boolean isExpired(SerializedCredentialOffer offer) {
+
+        return System.nanoTime() - offer.getCreatedAtNanos() > timeToLiveNanos;
+    }
+
+    private static long resolveTimeToLiveNanos() {
+
+        String timeToLive = IdentityUtil.getProperty(TIME_TO_LIVE_PROPERTY);
+        if (StringUtils.isNotBlank(timeToLive)) {
+            try {
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(timeToLive.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value configured for " + TIME_TO_LIVE_PROPERTY + ": " + timeToLive
+                        + ". Using the default of " + DEFAULT_TIME_TO_LIVE_SECONDS + " seconds.");
+            }
+        }
+        return TimeUnit.SECONDS.toNanos(DEFAULT_TIME_TO_LIVE_SECONDS);
+    }
+
+    private static final class OfferKey {
+
+        private final String tenantDomain;
+        private final String offerId;
+
+        OfferKey(String tenantDomain, String offerId) {
+
+            this.tenantDomain = tenantDomain;
+            this.offerId = offerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof OfferKey)) {
+                return false;
+            }
+            OfferKey other = (OfferKey) o;
+            return tenantDomain.equals(other.tenantDomain) && offerId.equals(other.offerId);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(tenantDomain, offerId);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.offer.cache;
+
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
+
+/**
+ * Drops cached credential offers on tenant, configuration and offer invalidations.
+ */
+public class CredentialOfferCacheInvalidationListener implements InvalidationListener {
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+
+        CredentialOfferCache cache = CredentialOfferCache.getInstance();
+        switch (event.getType()) {
+            case TENANT:
+                cache.invalidateTenant(event.getTenantDomain());
+                break;
+            case CONFIGURATION:
+                cache.invalidateConfiguration(event.getTenantDomain(), event.getIdentifier());
+                break;
+            case OFFER:
+                cache.invalidateOffer(event.getTenantDomain(), event.getIdentifier());
+                break;
+            default:
+                break;
+        }
+    }
+}
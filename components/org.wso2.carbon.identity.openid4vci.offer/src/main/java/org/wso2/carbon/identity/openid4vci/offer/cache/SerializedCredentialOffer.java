@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.cache;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Serialized credential offer with its entity tag, as served to wallets.
+ */
+public class SerializedCredentialOffer {
+
+    private final byte[] body;
+    private final String entityTag;
+    private final Set<String> credentialConfigurationIds;
+    private final long createdAtNanos;
+
+    public SerializedCredentialOffer(byte[] body, String entityTag, Set<String> credentialConfigurationIds) {
+
+        this.body = body;
+        this.entityTag = entityTag;
+        this.credentialConfigurationIds = Collections.unmodifiableSet(credentialConfigurationIds);
+        this.createdAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the serialized offer. The array is shared between requests and must not be modified.
+     *
+     * @return UTF-8 encoded JSON offer
+     */
+    public byte[] getBody() {
+
+        return body;
+    }
+
+    /**
+     * Get the strong entity tag of the serialized offer.
+     *
+     * @return quoted entity tag
+     */
+    public String getEntityTag() {
+
+        return entityTag;
+    }
+
+    /**
+     * Get the ids of the credential configurations referenced by the offer.
+     *
+     * @return credential configuration ids
+     */
+    public Set<String> getCredentialConfigurationIds() {
+
+        return credentialConfigurationIds;
+    }
+
+    long getCreatedAtNanos() {
+
+        return createdAtNanos;
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.openid4vci.offer.internal;
 
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCodePersistence;
 import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 import org.wso2.carbon.identity.vc.config.management.VCOfferManager;
 
@@ -30,6 +31,7 @@ public class CredentialOfferDataHolder {
 
     private VCOfferManager vcOfferManager;
     private VCCredentialConfigManager vcCredentialConfigManager;
+    private volatile PreAuthorizedCodePersistence preAuthorizedCodePersistence;
 
     public static CredentialOfferDataHolder getInstance() {
         return instance;
@@ -52,5 +54,14 @@ public class CredentialOfferDataHolder {
 
         this.vcCredentialConfigManager = vcCredentialConfigManager;
     }
-}
 
+    public PreAuthorizedCodePersistence getPreAuthorizedCodePersistence() {
+
+        return preAuthorizedCodePersistence;
+    }
+
+    public void setPreAuthorizedCodePersistence(PreAuthorizedCodePersistence preAuthorizedCodePersistence) {
+
+        this.preAuthorizedCodePersistence = preAuthorizedCodePersistence;
+    }
+}
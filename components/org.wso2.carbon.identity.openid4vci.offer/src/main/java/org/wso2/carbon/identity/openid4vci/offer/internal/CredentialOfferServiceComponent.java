@@ -26,8 +26,13 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
 import org.wso2.carbon.identity.openid4vci.offer.CredentialOfferProcessor;
 import org.wso2.carbon.identity.openid4vci.offer.DefaultCredentialOfferProcessor;
+import org.wso2.carbon.identity.openid4vci.offer.bulk.BulkCredentialOfferGenerator;
+import org.wso2.carbon.identity.openid4vci.offer.cache.CredentialOfferCacheInvalidationListener;
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCodePersistence;
+import org.wso2.carbon.identity.openid4vci.offer.preauth.PreAuthorizedCodeStore;
 import org.wso2.carbon.identity.vc.config.management.VCCredentialConfigManager;
 import org.wso2.carbon.identity.vc.config.management.VCOfferManager;
 
@@ -48,6 +53,9 @@ public class CredentialOfferServiceComponent {
             // Exposing credential offer processor as a service
             bundleContext.registerService(CredentialOfferProcessor.class.getName(),
                     DefaultCredentialOfferProcessor.getInstance(), null);
+            bundleContext.registerService(InvalidationListener.class.getName(),
+                    new CredentialOfferCacheInvalidationListener(), null);
+            PreAuthorizedCodeStore.getInstance().start();
             if (log.isDebugEnabled()) {
                 log.debug("OID4VCI Credential Offer bundle is activated");
             }
@@ -56,6 +64,15 @@ public class CredentialOfferServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+
+        PreAuthorizedCodeStore.getInstance().stop();
+        BulkCredentialOfferGenerator.getInstance().stop();
+        if (log.isDebugEnabled()) {
+            log.debug("OID4VCI Credential Offer bundle is deactivated");
+        }
+    }
+
     @Reference(
             name = "vc.config.offer.mgt.service.component",
             service = VCOfferManager.class,
@@ -89,5 +106,24 @@ public class CredentialOfferServiceComponent {
 
         CredentialOfferDataHolder.getInstance().setVcCredentialConfigManager(null);
     }
-}
 
+    @Reference(
+            name = "openid4vci.pre.authorized.code.persistence",
+            service = PreAuthorizedCodePersistence.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetPreAuthorizedCodePersistence"
+    )
+    protected void setPreAuthorizedCodePersistence(PreAuthorizedCodePersistence persistence) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Setting the pre-authorized code persistence: " + persistence.getClass().getName());
+        }
+        CredentialOfferDataHolder.getInstance().setPreAuthorizedCodePersistence(persistence);
+    }
+
+    protected void unsetPreAuthorizedCodePersistence(PreAuthorizedCodePersistence persistence) {
+
+        CredentialOfferDataHolder.getInstance().setPreAuthorizedCodePersistence(null);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.preauth;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Outstanding pre-authorized code. Kept deliberately small, since a node may hold millions of these.
+ */
+public class PreAuthorizedCode {
+
+    private static final AtomicIntegerFieldUpdater<PreAuthorizedCode> FAILED_ATTEMPTS =
+            AtomicIntegerFieldUpdater.newUpdater(PreAuthorizedCode.class, "failedAttempts");
+
+    private final String tenantDomain;
+    private final String offerId;
+    private final String subject;
+    private final String txCode;
+    private final long expiresAt;
+    private volatile int failedAttempts;
+
+    public PreAuthorizedCode(String tenantDomain, String offerId, String subject, String txCode, long expiresAt) {
+
+        this.tenantDomain = tenantDomain;
+        this.offerId = offerId;
+        this.subject = subject;
+        this.txCode = txCode;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public String getOfferId() {
+
+        return offerId;
+    }
+
+    /**
+     * Get the user the code was issued for.
+     *
+     * @return subject identifier
+     */
+    public String getSubject() {
+
+        return subject;
+    }
+
+    /**
+     * Get the transaction code bound to the pre-authorized code.
+     *
+     * @return transaction code, or null if none is required
+     */
+    public String getTxCode() {
+
+        return txCode;
+    }
+
+    /**
+     * Get the expiry time of the code.
+     *
+     * @return expiry time in milliseconds since the epoch
+     */
+    public long getExpiresAt() {
+
+        return expiresAt;
+    }
+
+    boolean isExpired(long now) {
+
+        return now >= expiresAt;
+    }
+
+    int incrementFailedAttempts() {
+
+        return FAILED_ATTEMPTS.incrementAndGet(this);
+    }
+}
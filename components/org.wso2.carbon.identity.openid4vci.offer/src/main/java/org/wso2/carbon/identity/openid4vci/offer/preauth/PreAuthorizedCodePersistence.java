@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.preauth;
+
+/**
+ * Persistence back end for pre-authorized codes, used to survive restarts and to redeem codes issued by another
+ * node. The in-memory store remains authoritative for codes it issued; the back end must make
+ * {@link #consume(String)} and {@link #recordFailedAttempt(String)} atomic across nodes.
+ */
+public interface PreAuthorizedCodePersistence {
+
+    /**
+     * Persist a newly issued code.
+     *
+     * @param code              pre-authorized code
+     * @param preAuthorizedCode code details
+     */
+    void persist(String code, PreAuthorizedCode preAuthorizedCode);
+
+    /**
+     * Load a code that is not held in memory.
+     *
+     * @param code pre-authorized code
+     * @return code details, or null if unknown
+     */
+    PreAuthorizedCode load(String code);
+
+    /**
+     * Atomically mark a code as used.
+     *
+     * @param code pre-authorized code
+     * @return true if this call consumed the code, false if it was already consumed or unknown
+     */
+    boolean consume(String code);
+
+    /**
+     * Atomically count a transaction code mismatch of a code, so that the attempt limit holds across nodes and
+     * restarts.
+     *
+     * @param code pre-authorized code
+     * @return number of mismatches recorded for the code including this one, or -1 if the code is unknown
+     */
+    int recordFailedAttempt(String code);
+
+    /**
+     * Remove an expired or revoked code.
+     *
+     * @param code pre-authorized code
+     */
+    void remove(String code);
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.preauth;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.openid4vci.common.util.Util;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+import org.wso2.carbon.identity.openid4vci.offer.internal.CredentialOfferDataHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory store of outstanding pre-authorized codes. Codes are 128-bit random values keyed by two longs
+ * rather than strings, redeemed at most once through an atomic removal, and expired in time buckets swept by a
+ * background task. A {@link PreAuthorizedCodePersistence} back end, when registered, receives every change.
+ */
+public class PreAuthorizedCodeStore {
+
+    private static final Log log = LogFactory.getLog(PreAuthorizedCodeStore.class);
+    private static final String EXPIRY_TIME_PROPERTY = "OpenID4VCI.PreAuthorizedCode.ExpiryTime";
+    private static final String MAX_OUTSTANDING_CODES_PROPERTY = "OpenID4VCI.PreAuthorizedCode.MaxOutstandingCodes";
+    private static final String TX_CODE_LENGTH_PROPERTY = "OpenID4VCI.PreAuthorizedCode.TxCodeLength";
+    private static final long DEFAULT_EXPIRY_TIME_SECONDS = 300;
+    private static final long DEFAULT_MAX_OUTSTANDING_CODES = 5_000_000;
+    private static final int DEFAULT_TX_CODE_LENGTH = 6;
+    private static final int MAX_TX_CODE_ATTEMPTS = 3;
+    private static final long BUCKET_MILLIS = 5000;
+    private static final int CODE_BYTES = 16;
+    private static final PreAuthorizedCodeStore instance = new PreAuthorizedCodeStore();
+
+    private final ConcurrentMap<CodeKey, PreAuthorizedCode> codes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Queue<CodeKey>> expiryBuckets = new ConcurrentSkipListMap<>();
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final long expiryTimeMillis;
+    private final long maxOutstandingCodes;
+    private final int txCodeLength;
+    private ScheduledExecutorService sweeper;
+
+    private PreAuthorizedCodeStore() {
+
+        this(TimeUnit.SECONDS.toMillis(Util.readPositiveLong(EXPIRY_TIME_PROPERTY, DEFAULT_EXPIRY_TIME_SECONDS)),
+                Util.readPositiveLong(MAX_OUTSTANDING_CODES_PROPERTY, DEFAULT_MAX_OUTSTANDING_CODES),
+                (int) Util.readPositiveLong(TX_CODE_LENGTH_PROPERTY, DEFAULT_TX_CODE_LENGTH));
+    }
+
+    PreAuthorizedCodeStore(long expiryTimeMillis, long maxOutstandingCodes, int txCodeLength) {
+
+        this.expiryTimeMillis = expiryTimeMillis;
+        this.maxOutstandingCodes = maxOutstandingCodes;
+        this.txCodeLength = txCodeLength;
+    }
+
+    public static PreAuthorizedCodeStore getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Issue a new pre-authorized code.
+     *
+     * @param tenantDomain tenant domain
+     * @param offerId      credential offer the code grants access to
+     * @param subject      user the code is issued for
+     * @param txCode       transaction code bound to the code, or null
+     * @return the pre-authorized code
+     * @throws CredentialOfferException if the store is at capacity
+     */
+    public String issue(String tenantDomain, String offerId, String subject, String txCode)
+            throws CredentialOfferException {
+
+        if (codes.size() >= maxOutstandingCodes) {
+            sweep();
+            if (codes.size() >= maxOutstandingCodes) {
+                throw new CredentialOfferException("Maximum number of outstanding pre-authorized codes reached");
+            }
+        }
+
+        long expiresAt = System.currentTimeMillis() + expiryTimeMillis;
+        PreAuthorizedCode preAuthorizedCode = new PreAuthorizedCode(tenantDomain, offerId, subject, txCode,
+                expiresAt);
+        CodeKey key;
+        do {
+            key = new CodeKey(secureRandom.nextLong(), secureRandom.nextLong());
+        } while (codes.putIfAbsent(key, preAuthorizedCode) != null);
+        expiryBuckets.computeIfAbsent(expiresAt / BUCKET_MILLIS, bucket -> new ConcurrentLinkedQueue<>()).add(key);
+
+        String code = key.encode();
+        PreAuthorizedCodePersistence persistence = CredentialOfferDataHolder.getInstance()
+                .getPreAuthorizedCodePersistence();
+        if (persistence != null) {
+            persistence.persist(code, preAuthorizedCode);
+        }
+        return code;
+    }
+
+    /**
+     * Redeem a pre-authorized code. A code is redeemed at most once; it is also discarded after repeated
+     * transaction code mismatches.
+     *
+     * @param tenantDomain tenant domain of the token request
+     * @param code         pre-authorized code
+     * @param txCode       transaction code supplied by the holder, or null
+     * @return the redeemed code, or null if the code is unknown, expired, already used or the transaction code
+     * does not match
+     */
+    public PreAuthorizedCode redeem(String tenantDomain, String code, String txCode) {
+
+        CodeKey key = CodeKey.decode(code);
+        if (key == null) {
+            return null;
+        }
+        PreAuthorizedCodePersistence persistence = CredentialOfferDataHolder.getInstance()
+                .getPreAuthorizedCodePersistence();
+        PreAuthorizedCode preAuthorizedCode = codes.get(key);
+        boolean local = preAuthorizedCode != null;
+        if (!local && persistence != null) {
+            preAuthorizedCode = persistence.load(code);
+        }
+        if (preAuthorizedCode == null || !preAuthorizedCode.getTenantDomain().equals(tenantDomain)) {
+            return null;
+        }
+
+        if (preAuthorizedCode.isExpired(System.currentTimeMillis())) {
+            discard(key, code, preAuthorizedCode, persistence);
+            return null;
+        }
+        if (!matchesTxCode(preAuthorizedCode.getTxCode(), txCode)) {
+            int failedAttempts = preAuthorizedCode.incrementFailedAttempts();
+            if (persistence != null) {
+                // Loaded copies are not shared, and other nodes may hold the same code, so the persisted count is
+                // the one that limits guessing.
+                int persistedAttempts = persistence.recordFailedAttempt(code);
+                failedAttempts = persistedAttempts < 0 ? MAX_TX_CODE_ATTEMPTS
+                        : Math.max(failedAttempts, persistedAttempts);
+            }
+            if (failedAttempts >= MAX_TX_CODE_ATTEMPTS) {
+                discard(key, code, preAuthorizedCode, persistence);
+            }
+            return null;
+        }
+
+        if (local && !codes.remove(key, preAuthorizedCode)) {
+            return null;
+        }
+        if (persistence != null && !persistence.consume(code)) {
+            return null;
+        }
+        return preAuthorizedCode;
+    }
+
+    /**
+     * Generate a numeric transaction code.
+     *
+     * @return transaction code of the configured length
+     */
+    public String generateTxCode() {
+
+        char[] digits = new char[txCodeLength];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = (char) ('0' + secureRandom.nextInt(10));
+        }
+        return new String(digits);
+    }
+
+    public int getTxCodeLength() {
+
+        return txCodeLength;
+    }
+
+    /**
+     * Get the number of codes held in memory, including expired codes not yet swept.
+     *
+     * @return outstanding code count
+     */
+    public int size() {
+
+        return codes.size();
+    }
+
+    /**
+     * Start the background expiry sweep.
+     */
+    public synchronized void start() {
+
+        if (sweeper == null) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "oid4vci-pre-authorized-code-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweepSafely, BUCKET_MILLIS, BUCKET_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the background expiry sweep.
+     */
+    public synchronized void stop() {
+
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Remove codes in every expiry bucket that has fully elapsed.
+     */
+    public void sweep() {
+
+        sweep(System.currentTimeMillis());
+    }
+
+    void sweep(long now) {
+
+        PreAuthorizedCodePersistence persistence = CredentialOfferDataHolder.getInstance()
+                .getPreAuthorizedCodePersistence();
+        Map<Long, Queue<CodeKey>> elapsed = expiryBuckets.headMap(now / BUCKET_MILLIS);
+        for (Map.Entry<Long, Queue<CodeKey>> bucket : elapsed.entrySet()) {
+            CodeKey key;
+            while ((key = bucket.getValue().poll()) != null) {
+                PreAuthorizedCode preAuthorizedCode = codes.get(key);
+                if (preAuthorizedCode != null && preAuthorizedCode.isExpired(now)) {
+                    discard(key, key.encode(), preAuthorizedCode, persistence);
+                }
+            }
+            expiryBuckets.remove(bucket.getKey(), bucket.getValue());
+        }
+    }
+
+    private void sweepSafely() {
+
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Error while removing expired pre-authorized codes", e);
+        }
+    }
+
+    private void discard(CodeKey key, String code, PreAuthorizedCode preAuthorizedCode,
+                         PreAuthorizedCodePersistence persistence) {
+
+        codes.remove(key, preAuthorizedCode);
+        if (persistence != null) {
+            persistence.remove(code);
+        }
+    }
+
+    private static boolean matchesTxCode(String expected, String supplied) {
+
+        if (expected == null) {
+            return true;
+        }
+        return supplied != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                supplied.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 128-bit code held as two longs, which is far smaller than the encoded string form.
+     */
+    private static final class CodeKey {
+
+        private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+        private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+        private final long high;
+        private final long low;
+
+        CodeKey(long high, long low) {
+
+            this.high = high;
+            this.low = low;
+        }
+
+        String encode() {
+
+            byte[] bytes = new byte[CODE_BYTES];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (high >>> (56 - 8 * i));
+                bytes[i + 8] = (byte) (low >>> (56 - 8 * i));
+            }
+            return ENCODER.encodeToString(bytes);
+        }
+
+        static CodeKey decode(String code) {
+
+            if (code == null || code.length() != 22) {
+                return null;
+            }
+            byte[] bytes;
+            try {
+                bytes = DECODER.decode(code);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (bytes[i] & 0xFF);
+                low = (low << 8) | (bytes[i + 8] & 0xFF);
+            }
+            CodeKey key = new CodeKey(high, low);
+            // Reject non-canonical encodings so that every code has exactly one valid spelling.
+            return key.encode().equals(code) ? key : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CodeKey)) {
+                return false;
+            }
+            CodeKey other = (CodeKey) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Long.hashCode(high ^ low);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openid4vci.offer.preauth;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Credential offer carrying a pre-authorized code grant, together with the transaction code the issuer must
+ * deliver to the holder over a separate channel.
+ */
+public class PreAuthorizedCredentialOffer {
+
+    private final Map<String, Object> offer;
+    private final String preAuthorizedCode;
+    private final String txCode;
+
+    public PreAuthorizedCredentialOffer(Map<String, Object> offer, String preAuthorizedCode, String txCode) {
+
+        this.offer = offer;
+        this.preAuthorizedCode = preAuthorizedCode;
+        this.txCode = txCode;
+    }
+
+    public Map<String, Object> getOffer() {
+
+        return Collections.unmodifiableMap(offer);
+    }
+
+    public String getPreAuthorizedCode() {
+
+        return preAuthorizedCode;
+    }
+
+    /**
+     * Get the transaction code. It is not part of the offer and must be sent to the holder out of band.
+     *
+     * @return transaction code, or null if none was requested
+     */
+    public String getTxCode() {
+
+        return txCode;
+    }
+}
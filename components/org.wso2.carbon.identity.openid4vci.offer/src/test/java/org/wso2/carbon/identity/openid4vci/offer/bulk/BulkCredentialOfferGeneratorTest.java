@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.offer.bulk;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the order, chunking and encoding of generated bulk credential offers.
+ */
+public class BulkCredentialOfferGeneratorTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final String OFFER_ID = "offer-1";
+    private static final String TEMPLATE = "{\"credential_issuer\":\"https://localhost:9443/oid4vci\","
+            + "\"grants\":{\"urn:ietf:params:oauth:grant-type:pre-authorized_code\":{\"pre-authorized_code\":\""
+            + BulkCredentialOfferGenerator.CODE_PLACEHOLDER + "\"}}}";
+
+    private final BulkCredentialOfferGenerator generator = BulkCredentialOfferGenerator.getInstance();
+
+    @AfterClass
+    public void tearDown() {
+
+        generator.stop();
+    }
+
+    @Test
+    public void testWritesOffersInSubjectOrderAcrossChunks() throws Exception {
+
+        // Enough chunks to exceed the number held in flight, so that finished chunks are written while others render.
+        int subjectCount = BulkCredentialOfferGenerator.CHUNK_SIZE * Runtime.getRuntime().availableProcessors() * 3
+                + 7;
+        List<String> subjects = subjects(subjectCount);
+
+        List<JsonObject> lines = generate(subjects, false);
+
+        assertEquals(lines.size(), subjectCount);
+        for (int i = 0; i < subjectCount; i++) {
+            assertEquals(lines.get(i).get("subject").getAsString(), subjects.get(i));
+        }
+    }
+
+    @Test
+    public void testWritesChunkBoundariesWithoutLosingOrDuplicatingSubjects() throws Exception {
+
+        int chunkSize = BulkCredentialOfferGenerator.CHUNK_SIZE;
+        for (int subjectCount : new int[]{0, 1, chunkSize - 1, chunkSize, chunkSize + 1, chunkSize * 2}) {
+            List<String> subjects = subjects(subjectCount);
+
+            List<JsonObject> lines = generate(subjects, false);
+
+            assertEquals(lines.size(), subjectCount, "Lines for " + subjectCount + " subjects");
+            for (int i = 0; i < subjectCount; i++) {
+                assertEquals(lines.get(i).get("subject").getAsString(), subjects.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsBlankSubjects() throws Exception {
+
+        List<JsonObject> lines = generate(Arrays.asList(" alice ", "", null, "  ", "bob"), false);
+
+        assertEquals(lines.size(), 2);
+        assertEquals(lines.get(0).get("subject").getAsString(), "alice");
+        assertEquals(lines.get(1).get("subject").getAsString(), "bob");
+    }
+
+    @Test
+    public void testEmbedsCodeInOfferAndDeepLink() throws Exception {
+
+        JsonObject line = generate(Arrays.asList("alice"), true).get(0);
+
+        String code = line.get("pre-authorized_code").getAsString();
+        assertNotNull(line.get("tx_code"));
+        JsonObject offer = line.getAsJsonObject("credential_offer");
+        assertEquals(offer.getAsJsonObject("grants")
+                .getAsJsonObject("urn:ietf:params:oauth:grant-type:pre-authorized_code")
+                .get("pre-authorized_code").getAsString(), code);
+        String deepLink = line.get("credential_offer_deep_link").getAsString();
+        assertTrue(deepLink.startsWith("openid-credential-offer://?credential_offer="));
+        assertTrue(deepLink.contains(code));
+    }
+
+    @Test
+    public void testEscapesSubjects() throws Exception {
+
+        String subject = "\"quoted\"\\back\u0001\u2028";
+
+        JsonObject line = generate(Arrays.asList(subject), false).get(0);
+
+        assertEquals(line.get("subject").getAsString(), subject);
+        assertNull(line.get("tx_code"));
+    }
+
+    @Test
+    public void testRejectsTemplateWithoutPlaceholder() throws IOException {
+
+        try {
+            generator.generate("{\"credential_issuer\":\"https://localhost:9443/oid4vci\"}", TENANT, OFFER_ID,
+                    Arrays.asList("alice").iterator(), false, new ByteArrayOutputStream());
+            fail("Expected the template to be rejected");
+        } catch (CredentialOfferException e) {
+            assertTrue(e.getMessage().contains("placeholder"));
+        }
+    }
+
+    private List<JsonObject> generate(List<String> subjects, boolean requireTxCode)
+            throws CredentialOfferException, IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long written = generator.generate(TEMPLATE, TENANT, OFFER_ID, subjects.iterator(), requireTxCode, output);
+
+        List<JsonObject> lines = new ArrayList<>();
+        String ndjson = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        for (String line : ndjson.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(JsonParser.parseString(line).getAsJsonObject());
+            }
+        }
+        assertEquals(written, lines.size());
+        return lines;
+    }
+
+    private static List<String> subjects(int count) {
+
+        List<String> subjects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            subjects.add("user-" + i);
+        }
+        return subjects;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.offer.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.DefaultInvalidationBus;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationEvent;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.InvalidationListener;
+import org.wso2.carbon.identity.openid4vci.common.invalidation.LoopbackInvalidationTransport;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests coalescing, expiry, eviction and invalidation of cached credential offers.
+ */
+public class CredentialOfferCacheTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final long LONG_TIME_TO_LIVE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    @Test
+    public void testCoalescesConcurrentMisses() throws Exception {
+
+        CredentialOfferCache cache = new CredentialOfferCache(LONG_TIME_TO_LIVE_NANOS, 100);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        CredentialOfferLoader loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return offer("\"v1\"", "config-1");
+        };
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<SerializedCredentialOffer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(TENANT, "offer-1", loader)));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get(TENANT, "offer-1", loader)));
+            }
+            // Let the other callers reach the in-flight load before it completes.
+            TimeUnit.MILLISECONDS.sleep(100);
+            release.countDown();
+
+            SerializedCredentialOffer first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<SerializedCredentialOffer> result : results) {
+                assertSame(result.get(10, TimeUnit.SECONDS), first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(loads.get(), 1);
+        assertSame(cache.get(TENANT, "offer-1", loader), cache.get(TENANT, "offer-1", loader));
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testReloadsExpiredOffer() throws Exception {
+
+        CredentialOfferCache cache = new CredentialOfferCache(TimeUnit.MILLISECONDS.toNanos(50), 100);
+        AtomicInteger loads = new AtomicInteger();
+        CredentialOfferLoader loader = () -> offer("\"v" + loads.incrementAndGet() + "\"", "config-1");
+
+        SerializedCredentialOffer first = cache.get(TENANT, "offer-1", loader);
+        assertSame(cache.get(TENANT, "offer-1", loader), first);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        SerializedCredentialOffer reloaded = cache.get(TENANT, "offer-1", loader);
+        assertNotSame(reloaded, first);
+        assertEquals(reloaded.getEntityTag(), "\"v2\"");
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testEvictsWhenFull() throws Exception {
+
+        int maxEntries = 20;
+        CredentialOfferCache cache = new CredentialOfferCache(LONG_TIME_TO_LIVE_NANOS, maxEntries);
+        for (int i = 0; i < maxEntries * 5; i++) {
+            cache.get(TENANT, "offer-" + i, () -> offer("\"v1\"", "config-1"));
+            assertTrue(cache.size() <= maxEntries, "Cache holds " + cache.size() + " entries");
+        }
+        // A full cache frees a tenth of its capacity at once, rather than one entry per insertion.
+        assertTrue(cache.size() > maxEntries - maxEntries / 10 - 1);
+    }
+
+    @Test
+    public void testInvalidatesOffersOfConfiguration() throws Exception {
+
+        CredentialOfferCache cache = new CredentialOfferCache(LONG_TIME_TO_LIVE_NANOS, 100);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(TENANT, "offer-1", () -> countedOffer(loads, "config-1"));
+        cache.get(TENANT, "offer-2", () -> countedOffer(loads, "config-2"));
+        cache.get("example.com", "offer-1", () -> countedOffer(loads, "config-1"));
+
+        cache.invalidateConfiguration(TENANT, "config-1");
+
+        assertEquals(cache.size(), 2);
+        cache.get(TENANT, "offer-1", () -> countedOffer(loads, "config-1"));
+        cache.get(TENANT, "offer-2", () -> countedOffer(loads, "config-2"));
+        assertEquals(loads.get(), 4);
+    }
+
+    @Test
+    public void testPublishesChangedOfferOnlyToOtherNodes() throws Exception {
+
+        DefaultInvalidationBus bus = DefaultInvalidationBus.getInstance();
+        LoopbackInvalidationTransport transport = new LoopbackInvalidationTransport();
+        List<InvalidationEvent> peerEvents = new CopyOnWriteArrayList<>();
+        LoopbackInvalidationTransport peer = transport.newPeer();
+        peer.start((origin, events) -> peerEvents.addAll(events));
+        List<InvalidationEvent> localEvents = new CopyOnWriteArrayList<>();
+        InvalidationListener listener = localEvents::add;
+        bus.addListener(listener);
+        bus.setTransport(transport);
+        try {
+            CredentialOfferCache cache = new CredentialOfferCache(TimeUnit.MILLISECONDS.toNanos(50), 100);
+            AtomicInteger loads = new AtomicInteger();
+            CredentialOfferLoader loader = () -> offer("\"v" + loads.incrementAndGet() + "\"", "config-1");
+            cache.get(TENANT, "offer-1", loader);
+            TimeUnit.MILLISECONDS.sleep(100);
+            SerializedCredentialOffer changed = cache.get(TENANT, "offer-1", loader);
+            bus.flushAll();
+
+            assertEquals(peerEvents, Collections.singletonList(InvalidationEvent.offer(TENANT, "offer-1")));
+            assertTrue(localEvents.isEmpty(), "The changed offer must not be invalidated on this node");
+            assertSame(cache.get(TENANT, "offer-1", loader), changed);
+            assertEquals(loads.get(), 2);
+        } finally {
+            bus.setTransport(null);
+            bus.removeListener(listener);
+            peer.stop();
+        }
+    }
+
+    private static SerializedCredentialOffer countedOffer(AtomicInteger loads, String configurationId) {
+
+        loads.incrementAndGet();
+        return offer("\"v1\"", configurationId);
+    }
+
+    private static SerializedCredentialOffer offer(String entityTag, String configurationId) {
+
+        return new SerializedCredentialOffer("{}".getBytes(StandardCharsets.UTF_8), entityTag,
+                Collections.singleton(configurationId));
+    }
+
+    private static void await(CountDownLatch latch) throws CredentialOfferException {
+
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new CredentialOfferException("Timed out waiting to complete the load");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CredentialOfferException("Interrupted while loading", e);
+        }
+    }
+}
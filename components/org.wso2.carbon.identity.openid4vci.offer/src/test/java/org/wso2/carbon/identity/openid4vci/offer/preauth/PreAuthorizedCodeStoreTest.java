@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.openid4vci.offer.preauth;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.openid4vci.offer.exception.CredentialOfferException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests redeeming and expiring pre-authorized codes held in memory.
+ */
+public class PreAuthorizedCodeStoreTest {
+
+    private static final String TENANT = "wso2.com";
+    private static final long EXPIRY_TIME_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final PreAuthorizedCodeStore store = new PreAuthorizedCodeStore(EXPIRY_TIME_MILLIS, 100, 6);
+
+    @Test
+    public void testRedeemsCodeOnlyOnce() throws CredentialOfferException {
+
+        String code = store.issue(TENANT, "offer-1", "alice", null);
+
+        PreAuthorizedCode redeemed = store.redeem(TENANT, code, null);
+        assertNotNull(redeemed);
+        assertEquals(redeemed.getOfferId(), "offer-1");
+        assertEquals(redeemed.getSubject(), "alice");
+        assertNull(store.redeem(TENANT, code, null));
+        assertEquals(store.size(), 0);
+    }
+
+    @Test
+    public void testDoesNotRedeemCodeOfOtherTenant() throws CredentialOfferException {
+
+        String code = store.issue(TENANT, "offer-1", "alice", null);
+
+        assertNull(store.redeem("example.com", code, null));
+        assertNotNull(store.redeem(TENANT, code, null));
+    }
+
+    @Test
+    public void testRedeemsCodeWithMatchingTxCodeAfterMismatch() throws CredentialOfferException {
+
+        String code = store.issue(TENANT, "offer-1", "alice", "123456");
+
+        assertNull(store.redeem(TENANT, code, null));
+        assertNull(store.redeem(TENANT, code, "654321"));
+        assertNotNull(store.redeem(TENANT, code, "123456"));
+    }
+
+    @Test
+    public void testDiscardsCodeAfterMaxTxCodeAttempts() throws CredentialOfferException {
+
+        String code = store.issue(TENANT, "offer-1", "alice", "123456");
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(store.redeem(TENANT, code, "000000"));
+        }
+        assertNull(store.redeem(TENANT, code, "123456"));
+        assertEquals(store.size(), 0);
+    }
+
+    @Test
+    public void testSweepRemovesOnlyCodesInElapsedBuckets() throws CredentialOfferException {
+
+        long issuedAt = System.currentTimeMillis();
+        String code = store.issue(TENANT, "offer-1", "alice", null);
+
+        store.sweep(issuedAt + EXPIRY_TIME_MILLIS - TimeUnit.SECONDS.toMillis(10));
+        assertEquals(store.size(), 1);
+
+        store.sweep(issuedAt + EXPIRY_TIME_MILLIS + TimeUnit.SECONDS.toMillis(10));
+        assertEquals(store.size(), 0);
+        assertNull(store.redeem(TENANT, code, null));
+    }
+
+    @Test
+    public void testDoesNotRedeemExpiredCode() throws Exception {
+
+        PreAuthorizedCodeStore shortLived = new PreAuthorizedCodeStore(1, 100, 6);
+        String code = shortLived.issue(TENANT, "offer-1", "alice", null);
+        Thread.sleep(5);
+
+        assertNull(shortLived.redeem(TENANT, code, null));
+        assertEquals(shortLived.size(), 0);
+    }
+
+    @Test
+    public void testGeneratesTxCodeOfConfiguredLength() {
+
+        String txCode = store.generateTxCode();
+
+        assertEquals(txCode.length(), 6);
+        for (char digit : txCode.toCharArray()) {
+            assertTrue(Character.isDigit(digit));
+        }
+    }
+}